@@ -0,0 +1,79 @@
+package com.aol.advertising.vulcan.benchmarks;
+
+import static com.aol.advertising.vulcan.benchmarks.BenchmarkEvents.newBenchmarkEvents;
+import static com.aol.advertising.vulcan.benchmarks.NoOpConsumerPublishers.startNoOpConsumerPublisher;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aol.advertising.vulcan.benchmarks.avro.BenchmarkEvent;
+import com.aol.advertising.vulcan.writer.AvroEventPublisher;
+import com.lmax.disruptor.BusySpinWaitStrategy;
+
+/**
+ * Cost per record of publishing records one at a time versus in batches that claim a whole range
+ * of ring buffer slots at once. Four producers share the multi-producer sequencer to make
+ * contention on it visible. The consumer discards events so only the publishing path is measured
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class BatchWriteBenchmark {
+
+  private static final int BATCH_SIZE = 256;
+
+  private AvroEventPublisher publisher;
+  private BenchmarkEvent[] batch;
+  private List<BenchmarkEvent> batchAsList;
+
+  @Setup
+  public void setUp() throws InterruptedException {
+    publisher = startNoOpConsumerPublisher(65_536, new BusySpinWaitStrategy());
+    batch = newBenchmarkEvents(BATCH_SIZE);
+    batchAsList = Arrays.asList(batch);
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    publisher.close();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH_SIZE)
+  public void writeOneRecordAtATime() {
+    for (BenchmarkEvent event : batch) {
+      publisher.write(event);
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH_SIZE)
+  public void writeArrayBatch() {
+    publisher.write(batch);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH_SIZE)
+  public void writeListBatch() {
+    publisher.write(batchAsList);
+  }
+}
@@ -0,0 +1,37 @@
+package com.aol.advertising.vulcan.benchmarks;
+
+import java.util.Random;
+
+import com.aol.advertising.vulcan.benchmarks.avro.BenchmarkEvent;
+
+/**
+ * Deterministic generation of benchmark records, so every run writes the same data
+ */
+final class BenchmarkEvents {
+
+  private static final String[] COUNTRIES = {"US", "GB", "DE", "ES", "FR", "JP", "BR", "IN"};
+  private static final String[] DEVICE_TYPES = {"desktop", "phone", "tablet", "ctv"};
+
+  private BenchmarkEvents() {}
+
+  static BenchmarkEvent[] newBenchmarkEvents(int numberOfEvents) {
+    Random random = new Random(42);
+    BenchmarkEvent[] events = new BenchmarkEvent[numberOfEvents];
+    for (int i = 0; i < numberOfEvents; i++) {
+      events[i] = newBenchmarkEvent(i, random);
+    }
+    return events;
+  }
+
+  static BenchmarkEvent newBenchmarkEvent(int index, Random random) {
+    return BenchmarkEvent.newBuilder()
+                         .setTimestamp(1_400_000_000_000L + index)
+                         .setRequestId(Long.toHexString(random.nextLong()) + Long.toHexString(random.nextLong()))
+                         .setCountry(COUNTRIES[random.nextInt(COUNTRIES.length)])
+                         .setDeviceType(DEVICE_TYPES[random.nextInt(DEVICE_TYPES.length)])
+                         .setCampaignId(random.nextInt(5000))
+                         .setBidPrice(random.nextDouble() * 10)
+                         .setWon(random.nextBoolean())
+                         .build();
+  }
+}
@@ -0,0 +1,44 @@
+package com.aol.advertising.vulcan.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Scratch directories for benchmarks that write files. They are created under the directory in
+ * the {@code vulcan.benchmarks.dir} system property, /dev/shm by default, so that runs measure the
+ * writer rather than the disk
+ */
+final class BenchmarkFiles {
+
+  private static final String BENCHMARKS_DIR_PROPERTY = "vulcan.benchmarks.dir";
+  private static final String DEFAULT_BENCHMARKS_DIR = "/dev/shm";
+
+  private BenchmarkFiles() {}
+
+  static Path newScratchDirectory() throws IOException {
+    Path baseDirectory = Paths.get(System.getProperty(BENCHMARKS_DIR_PROPERTY, DEFAULT_BENCHMARKS_DIR));
+    return Files.createTempDirectory(baseDirectory, "vulcan-benchmark");
+  }
+
+  static void deleteScratchDirectory(Path scratchDirectory) throws IOException {
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(scratchDirectory)) {
+      for (Path file : files) {
+        Files.delete(file);
+      }
+    }
+    Files.delete(scratchDirectory);
+  }
+
+  static void deleteAllFilesBut(Path keptFile) throws IOException {
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(keptFile.getParent())) {
+      for (Path file : files) {
+        if (!file.equals(keptFile)) {
+          Files.delete(file);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,33 @@
+package com.aol.advertising.vulcan.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.openjdk.jmh.Main;
+
+/**
+ * Entry point of the benchmarks jar. Same command line as JMH's own main class, but results are
+ * written as JSON to {@code jmh-result.json} unless another result format or file is requested,
+ * so runs for different releases can be compared
+ */
+public final class BenchmarkMain {
+
+  private static final String RESULT_FORMAT_OPTION = "-rf";
+  private static final String RESULT_FILE_OPTION = "-rff";
+
+  private BenchmarkMain() {}
+
+  public static void main(String[] args) throws Exception {
+    List<String> jmhArgs = new ArrayList<>(Arrays.asList(args));
+    if (!jmhArgs.contains(RESULT_FORMAT_OPTION)) {
+      jmhArgs.add(RESULT_FORMAT_OPTION);
+      jmhArgs.add("json");
+    }
+    if (!jmhArgs.contains(RESULT_FILE_OPTION)) {
+      jmhArgs.add(RESULT_FILE_OPTION);
+      jmhArgs.add("jmh-result.json");
+    }
+    Main.main(jmhArgs.toArray(new String[jmhArgs.size()]));
+  }
+}
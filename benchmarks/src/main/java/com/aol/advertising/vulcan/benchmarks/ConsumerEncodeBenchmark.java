@@ -0,0 +1,81 @@
+package com.aol.advertising.vulcan.benchmarks;
+
+import static com.aol.advertising.vulcan.benchmarks.BenchmarkFiles.deleteScratchDirectory;
+import static com.aol.advertising.vulcan.benchmarks.BenchmarkFiles.newScratchDirectory;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.avro.specific.SpecificRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aol.advertising.vulcan.ringbuffer.AvroEvent;
+import com.aol.advertising.vulcan.writer.AvroEventConsumer;
+
+/**
+ * Cost of {@link AvroEventConsumer#onEvent} per record shape, i.e. what the single consumer thread
+ * spends serializing a record and appending it to the file buffer, without any Disruptor in
+ * between. Events are never the last of their batch, so the file is only written when the writer
+ * fills a block, as it happens under load. {@code schemaSpecializedEncoding} compares Avro's
+ * {@code SpecificDatumWriter} with {@code SchemaSpecializedDatumWriter}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConsumerEncodeBenchmark {
+
+  private static final long RECORDS_PER_FILE = 1_000_000;
+
+  @Param({"SMALL", "TYPICAL", "WIDE", "NESTED"})
+  private SchemaShape schemaShape;
+
+  @Param({"false", "true"})
+  private boolean schemaSpecializedEncoding;
+
+  private Path scratchDirectory;
+  private AvroEventConsumer consumer;
+  private AvroEvent event;
+  private SpecificRecord[] events;
+  private long sequence;
+
+  @Setup
+  public void setUp() throws Exception {
+    scratchDirectory = newScratchDirectory();
+    events = schemaShape.newEvents(1024);
+    event = new AvroEvent();
+    DiscardingRollingPolicy rollingPolicy = new DiscardingRollingPolicy(RECORDS_PER_FILE);
+    Path avroFile = scratchDirectory.resolve("encode.avro");
+    rollingPolicy.registerAvroFilename(avroFile);
+    consumer = new AvroEventConsumer(avroFile, schemaShape.getSchema(), rollingPolicy);
+    if (schemaSpecializedEncoding) {
+      consumer.useSchemaSpecializedDatumWriter();
+    }
+    consumer.onStart();
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    consumer.onShutdown();
+    deleteScratchDirectory(scratchDirectory);
+  }
+
+  @Benchmark
+  public void onEvent() throws Exception {
+    event.setAvroRecord(events[(int) (sequence & (events.length - 1))]);
+    consumer.onEvent(event, sequence++, false);
+  }
+}
@@ -0,0 +1,47 @@
+package com.aol.advertising.vulcan.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.apache.avro.specific.SpecificRecord;
+
+import com.aol.advertising.vulcan.api.rolling.RollingPolicy;
+import com.aol.advertising.vulcan.exception.FileRollingException;
+
+/**
+ * Rolls every {@code recordsPerFile} records by deleting the file, so long benchmark runs do not
+ * fill up the disk. The rolling decision is a counter, so it adds next to nothing to the measured
+ * cost
+ */
+final class DiscardingRollingPolicy implements RollingPolicy {
+
+  private final long recordsPerFile;
+
+  private Path avroFilename;
+  private long recordsInFile;
+
+  DiscardingRollingPolicy(long recordsPerFile) {
+    this.recordsPerFile = recordsPerFile;
+  }
+
+  @Override
+  public void registerAvroFilename(Path avroFilename) {
+    this.avroFilename = avroFilename;
+  }
+
+  @Override
+  public boolean shouldRollover(SpecificRecord avroRecord) {
+    return ++recordsInFile >= recordsPerFile;
+  }
+
+  @Override
+  public void rolloverAvroFile() throws FileRollingException {
+    try {
+      Files.deleteIfExists(avroFilename);
+      recordsInFile = 0;
+    } catch (IOException ioe) {
+      throw new FileRollingException("Could not delete " + avroFilename + ": " + ioe.getMessage());
+    }
+  }
+}
@@ -0,0 +1,85 @@
+package com.aol.advertising.vulcan.benchmarks;
+
+import static com.aol.advertising.vulcan.benchmarks.BenchmarkFiles.deleteScratchDirectory;
+import static com.aol.advertising.vulcan.benchmarks.BenchmarkFiles.newScratchDirectory;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.avro.specific.SpecificRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aol.advertising.vulcan.api.AvroWriter;
+import com.aol.advertising.vulcan.api.AvroWriterBuilder;
+import com.aol.advertising.vulcan.api.builder.steps.OptionalSteps;
+
+/**
+ * Records per second written to an actual Avro file by a writer built with the default
+ * configuration. Producers are throttled by the consumer once the ring buffer fills up, so this is
+ * the sustained throughput of the whole writer. Files are written to tmpfs (see
+ * {@link BenchmarkFiles}) and deleted every million records
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class EndToEndThroughputBenchmark {
+
+  private static final long RECORDS_PER_FILE = 1_000_000;
+
+  @Param({"TYPICAL", "WIDE"})
+  private SchemaShape schemaShape;
+
+  @Param({"false", "true"})
+  private boolean producerSideSerialization;
+
+  private Path scratchDirectory;
+  private AvroWriter writer;
+  private SpecificRecord[] events;
+
+  @Setup
+  public void setUp() throws Exception {
+    scratchDirectory = newScratchDirectory();
+    events = schemaShape.newEvents(1024);
+    OptionalSteps writerBuilder = AvroWriterBuilder.startCreatingANewWriter()
+                                                   .thatWritesTo(scratchDirectory.resolve("throughput.avro"))
+                                                   .thatWritesRecordsOf(schemaShape.getSchema())
+                                                   .withRollingPolicy(new DiscardingRollingPolicy(RECORDS_PER_FILE));
+    if (producerSideSerialization) {
+      writerBuilder.withProducerSideSerialization();
+    }
+    writer = writerBuilder.createNewWriter();
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    writer.close();
+    deleteScratchDirectory(scratchDirectory);
+  }
+
+  @State(Scope.Thread)
+  public static class ProducerCursor {
+
+    private int next;
+  }
+
+  @Benchmark
+  public void write(ProducerCursor cursor) {
+    writer.write(events[cursor.next++ & (events.length - 1)]);
+  }
+}
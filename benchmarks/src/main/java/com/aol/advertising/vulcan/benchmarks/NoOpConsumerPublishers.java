@@ -0,0 +1,56 @@
+package com.aol.advertising.vulcan.benchmarks;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.aol.advertising.vulcan.ringbuffer.AvroEvent;
+import com.aol.advertising.vulcan.ringbuffer.AvroEventFactory;
+import com.aol.advertising.vulcan.writer.AvroEventPublisher;
+import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.LifecycleAware;
+import com.lmax.disruptor.WaitStrategy;
+import com.lmax.disruptor.dsl.Disruptor;
+import com.lmax.disruptor.dsl.ProducerType;
+
+/**
+ * Publishers whose consumer drops every event, so benchmarks measure the publishing path alone
+ * instead of being throttled by file I/O
+ */
+final class NoOpConsumerPublishers {
+
+  private NoOpConsumerPublishers() {}
+
+  @SuppressWarnings("unchecked")
+  static AvroEventPublisher startNoOpConsumerPublisher(int ringBufferSize, WaitStrategy waitStrategy)
+      throws InterruptedException {
+    ExecutorService consumerExecutor = Executors.newSingleThreadExecutor();
+    Disruptor<AvroEvent> disruptor =
+        new Disruptor<>(new AvroEventFactory(), ringBufferSize, consumerExecutor, ProducerType.MULTI, waitStrategy);
+    NoOpConsumer consumer = new NoOpConsumer();
+    disruptor.handleEventsWith(consumer);
+
+    AvroEventPublisher publisher = new AvroEventPublisher();
+    publisher.registerConsumerExecutorForShutdown(consumerExecutor);
+    publisher.startPublisherUsing(disruptor);
+    // Disruptor#shutdown() ignores consumers that have not started yet
+    consumer.started.await();
+    return publisher;
+  }
+
+  private static class NoOpConsumer implements EventHandler<AvroEvent>, LifecycleAware {
+
+    private final CountDownLatch started = new CountDownLatch(1);
+
+    @Override
+    public void onEvent(AvroEvent event, long sequence, boolean endOfBatch) {}
+
+    @Override
+    public void onStart() {
+      started.countDown();
+    }
+
+    @Override
+    public void onShutdown() {}
+  }
+}
@@ -0,0 +1,83 @@
+package com.aol.advertising.vulcan.benchmarks;
+
+import static com.aol.advertising.vulcan.benchmarks.BenchmarkEvents.newBenchmarkEvents;
+import static com.aol.advertising.vulcan.benchmarks.NoOpConsumerPublishers.startNoOpConsumerPublisher;
+import static com.aol.advertising.vulcan.benchmarks.WaitStrategies.newWaitStrategy;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aol.advertising.vulcan.benchmarks.avro.BenchmarkEvent;
+import com.aol.advertising.vulcan.writer.AvroEventPublisher;
+
+/**
+ * Cost of {@link AvroEventPublisher#write} with 1, 4 and 16 producers for every wait strategy. The
+ * consumer discards events, so this measures the publishing path and how much the consumer's wait
+ * strategy gets in the way of producers
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PublisherWriteBenchmark {
+
+  @Param({"BlockingWaitStrategy", "BusySpinWaitStrategy", "LiteBlockingWaitStrategy", "PhasedBackoffWaitStrategy",
+          "SleepingWaitStrategy", "TimeoutBlockingWaitStrategy", "YieldingWaitStrategy"})
+  private String waitStrategy;
+
+  private AvroEventPublisher publisher;
+
+  @Setup
+  public void setUp() throws InterruptedException {
+    publisher = startNoOpConsumerPublisher(2048, newWaitStrategy(waitStrategy));
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    publisher.close();
+  }
+
+  @State(Scope.Thread)
+  public static class ProducerRecords {
+
+    private final BenchmarkEvent[] events = newBenchmarkEvents(1024);
+    private int next;
+
+    BenchmarkEvent nextEvent() {
+      return events[next++ & (events.length - 1)];
+    }
+  }
+
+  @Benchmark
+  @Threads(1)
+  public void oneProducer(ProducerRecords records) {
+    publisher.write(records.nextEvent());
+  }
+
+  @Benchmark
+  @Threads(4)
+  public void fourProducers(ProducerRecords records) {
+    publisher.write(records.nextEvent());
+  }
+
+  @Benchmark
+  @Threads(16)
+  public void sixteenProducers(ProducerRecords records) {
+    publisher.write(records.nextEvent());
+  }
+}
@@ -0,0 +1,154 @@
+package com.aol.advertising.vulcan.benchmarks;
+
+import static com.aol.advertising.vulcan.benchmarks.BenchmarkFiles.deleteAllFilesBut;
+import static com.aol.advertising.vulcan.benchmarks.BenchmarkFiles.deleteScratchDirectory;
+import static com.aol.advertising.vulcan.benchmarks.BenchmarkFiles.newScratchDirectory;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aol.advertising.vulcan.api.rolling.FileSizeTracker;
+import com.aol.advertising.vulcan.benchmarks.avro.BenchmarkEvent;
+import com.aol.advertising.vulcan.exception.FileRollingException;
+import com.aol.advertising.vulcan.rolling.TimeAndSizeBasedRollingPolicy;
+import com.aol.advertising.vulcan.rolling.TimeAndSizeBasedRollingPolicyConfig;
+
+/**
+ * Overhead of {@link TimeAndSizeBasedRollingPolicy#shouldRollover} per record. Every invocation
+ * appends a record-sized chunk to a buffered stream, the way the Avro writer fills blocks, so the
+ * size condition sees a file that grows as it does in production. Subtract
+ * {@link #appendOnly()} from {@link #appendAndCheckRollover()} to get the cost of the check. Files
+ * roll, and are deleted, every few MB; the rollover itself is included in the measurement.
+ * {@link #appendAndCheckTrackedSizeRollover()} measures the same policy when the writer tracks the
+ * file size for it, which is what writers do. {@link #checkRolloverOnly()} measures the check alone,
+ * on a file that never reaches the rolling size; run it with {@code -prof gc} to see that checks
+ * allocate nothing ({@code gc.alloc.rate.norm} of 0 B/op)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RollingPolicyBenchmark {
+
+  private static final int RECORD_SIZE_IN_BYTES = 100;
+  private static final int BLOCK_SIZE_IN_BYTES = 64 * 1024;
+  private static final int ROLLING_SIZE_IN_MB = 4;
+  private static final long ROLLING_SIZE_IN_BYTES = ROLLING_SIZE_IN_MB * 1_048_576L;
+
+  private final byte[] record = new byte[RECORD_SIZE_IN_BYTES];
+  private final BenchmarkEvent avroRecord = BenchmarkEvents.newBenchmarkEvents(1)[0];
+
+  private Path scratchDirectory;
+  private Path avroFile;
+  private TimeAndSizeBasedRollingPolicy rollingPolicy;
+  private TimeAndSizeBasedRollingPolicy trackedSizeRollingPolicy;
+  private TimeAndSizeBasedRollingPolicy neverFullRollingPolicy;
+  private OutputStream avroFileStream;
+  private long bytesInFile;
+
+  @Setup
+  public void setUp() throws IOException {
+    scratchDirectory = newScratchDirectory();
+    avroFile = scratchDirectory.resolve("rolling.avro");
+    avroFileStream = openAvroFile();
+    rollingPolicy = new TimeAndSizeBasedRollingPolicy(
+        new TimeAndSizeBasedRollingPolicyConfig().withFileRollingSizeOf(ROLLING_SIZE_IN_MB));
+    rollingPolicy.registerAvroFilename(avroFile);
+    trackedSizeRollingPolicy = new TimeAndSizeBasedRollingPolicy(
+        new TimeAndSizeBasedRollingPolicyConfig().withFileRollingSizeOf(ROLLING_SIZE_IN_MB));
+    trackedSizeRollingPolicy.registerAvroFilename(avroFile);
+    trackedSizeRollingPolicy.trackFileSizeWith(new FileSizeTracker() {
+      @Override
+      public long getFileSizeInBytes() {
+        return bytesInFile;
+      }
+    });
+    neverFullRollingPolicy = new TimeAndSizeBasedRollingPolicy(
+        new TimeAndSizeBasedRollingPolicyConfig().withFileRollingSizeOf(ROLLING_SIZE_IN_MB));
+    neverFullRollingPolicy.registerAvroFilename(avroFile);
+    neverFullRollingPolicy.trackFileSizeWith(new FileSizeTracker() {
+      @Override
+      public long getFileSizeInBytes() {
+        return 0;
+      }
+    });
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    avroFileStream.close();
+    deleteScratchDirectory(scratchDirectory);
+  }
+
+  // Truncates the file at the same size the policy rolls it, so both benchmarks do the same I/O
+  @Benchmark
+  public void appendOnly() throws IOException {
+    avroFileStream.write(record);
+    bytesInFile += RECORD_SIZE_IN_BYTES;
+    if (bytesInFile >= ROLLING_SIZE_IN_BYTES) {
+      avroFileStream.close();
+      avroFileStream = new BufferedOutputStream(new FileOutputStream(avroFile.toFile()), BLOCK_SIZE_IN_BYTES);
+      bytesInFile = 0;
+    }
+  }
+
+  @Benchmark
+  public boolean appendAndCheckRollover() throws IOException {
+    avroFileStream.write(record);
+    boolean shouldRollover = rollingPolicy.shouldRollover(avroRecord);
+    if (shouldRollover) {
+      rollover(rollingPolicy);
+    }
+    return shouldRollover;
+  }
+
+  @Benchmark
+  public boolean appendAndCheckTrackedSizeRollover() throws IOException {
+    avroFileStream.write(record);
+    bytesInFile += RECORD_SIZE_IN_BYTES;
+    boolean shouldRollover = trackedSizeRollingPolicy.shouldRollover(avroRecord);
+    if (shouldRollover) {
+      rollover(trackedSizeRollingPolicy);
+    }
+    return shouldRollover;
+  }
+
+  @Benchmark
+  public boolean checkRolloverOnly() {
+    return neverFullRollingPolicy.shouldRollover(avroRecord);
+  }
+
+  private void rollover(TimeAndSizeBasedRollingPolicy rollingPolicy) throws IOException {
+    avroFileStream.close();
+    bytesInFile = 0;
+    try {
+      rollingPolicy.rolloverAvroFile();
+    } catch (FileRollingException fre) {
+      throw new IllegalStateException(fre);
+    }
+    avroFileStream = openAvroFile();
+    deleteAllFilesBut(avroFile);
+  }
+
+  private OutputStream openAvroFile() throws IOException {
+    return new BufferedOutputStream(new FileOutputStream(avroFile.toFile(), true), BLOCK_SIZE_IN_BYTES);
+  }
+}
@@ -0,0 +1,107 @@
+package com.aol.advertising.vulcan.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.avro.Schema;
+import org.apache.avro.Schema.Field;
+import org.apache.avro.specific.SpecificRecord;
+
+import com.aol.advertising.vulcan.benchmarks.avro.BenchmarkEvent;
+import com.aol.advertising.vulcan.benchmarks.avro.NestedEvent;
+import com.aol.advertising.vulcan.benchmarks.avro.NestedItem;
+import com.aol.advertising.vulcan.benchmarks.avro.SmallEvent;
+import com.aol.advertising.vulcan.benchmarks.avro.WideEvent;
+
+/**
+ * Record shapes the benchmarks can be parameterized with, from a couple of primitives to nested
+ * collections. Events are generated with a fixed seed, so every run writes the same data
+ */
+public enum SchemaShape {
+
+  SMALL(SmallEvent.SCHEMA$) {
+    @Override
+    SpecificRecord newEvent(int index, Random random) {
+      return new SmallEvent(1_400_000_000_000L + index, random.nextInt());
+    }
+  },
+
+  TYPICAL(BenchmarkEvent.SCHEMA$) {
+    @Override
+    SpecificRecord newEvent(int index, Random random) {
+      return BenchmarkEvents.newBenchmarkEvent(index, random);
+    }
+  },
+
+  WIDE(WideEvent.SCHEMA$) {
+    @Override
+    SpecificRecord newEvent(int index, Random random) {
+      WideEvent event = new WideEvent();
+      for (Field field : getSchema().getFields()) {
+        event.put(field.pos(), randomValueOf(field.schema().getType(), random));
+      }
+      return event;
+    }
+  },
+
+  NESTED(NestedEvent.SCHEMA$) {
+    @Override
+    SpecificRecord newEvent(int index, Random random) {
+      List<NestedItem> items = new ArrayList<>();
+      for (int i = 0; i < 1 + random.nextInt(8); i++) {
+        items.add(new NestedItem("sku-" + random.nextInt(10_000), 1 + random.nextInt(5), random.nextDouble() * 100));
+      }
+      Map<String, Long> attributes = new HashMap<>();
+      for (int i = 0; i < random.nextInt(6); i++) {
+        attributes.put("attribute-" + i, random.nextLong());
+      }
+      return NestedEvent.newBuilder()
+                        .setTimestamp(1_400_000_000_000L + index)
+                        .setUserId(random.nextBoolean() ? Long.toHexString(random.nextLong()) : null)
+                        .setItems(items)
+                        .setAttributes(attributes)
+                        .build();
+    }
+  };
+
+  private final Schema schema;
+
+  private SchemaShape(Schema schema) {
+    this.schema = schema;
+  }
+
+  public Schema getSchema() {
+    return schema;
+  }
+
+  public SpecificRecord[] newEvents(int numberOfEvents) {
+    Random random = new Random(42);
+    SpecificRecord[] events = new SpecificRecord[numberOfEvents];
+    for (int i = 0; i < numberOfEvents; i++) {
+      events[i] = newEvent(i, random);
+    }
+    return events;
+  }
+
+  abstract SpecificRecord newEvent(int index, Random random);
+
+  private static Object randomValueOf(Schema.Type type, Random random) {
+    switch (type) {
+      case LONG:
+        return random.nextLong();
+      case INT:
+        return random.nextInt();
+      case DOUBLE:
+        return random.nextDouble();
+      case BOOLEAN:
+        return random.nextBoolean();
+      case STRING:
+        return Long.toHexString(random.nextLong());
+      default:
+        throw new IllegalArgumentException("Unsupported field type " + type);
+    }
+  }
+}
@@ -0,0 +1,169 @@
+package com.aol.advertising.vulcan.benchmarks;
+
+import static com.aol.advertising.vulcan.benchmarks.BenchmarkFiles.deleteScratchDirectory;
+import static com.aol.advertising.vulcan.benchmarks.BenchmarkFiles.newScratchDirectory;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aol.advertising.vulcan.benchmarks.avro.BenchmarkEvent;
+import com.aol.advertising.vulcan.metrics.RecordingWriterMetrics;
+import com.aol.advertising.vulcan.ringbuffer.AvroEvent;
+import com.aol.advertising.vulcan.writer.AvroEventConsumer;
+
+/**
+ * Cost of {@link AvroEventConsumer#onEvent}, with schema-specialized encoding, with and without a
+ * string cache, for typical events whose country and device type are drawn from {@code cardinality}
+ * values with a Zipf distribution, as in real traffic a few values make most records, and whose
+ * request id never repeats. Values are distinct {@code String} instances, as if parsed from the input
+ * of the application, so hits are found by equality, and can be ASCII only or not, which is where
+ * encoding costs the most. Events end a batch every 64 records, when the consumer reports the lookups
+ * to its metrics; the hits and misses of each iteration are shown as secondary results
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StringCacheBenchmark {
+
+  private static final long RECORDS_PER_FILE = 1_000_000;
+  private static final int NUMBER_OF_EVENTS = 1 << 16;
+  private static final int BATCH_SIZE = 64;
+  private static final double ZIPF_EXPONENT = 1.1;
+
+  @Param({"10", "1000", "100000"})
+  private int cardinality;
+
+  @Param({"0", "1024"})
+  private int stringCacheEntries;
+
+  @Param({"false", "true"})
+  private boolean nonAsciiValues;
+
+  private Path scratchDirectory;
+  private RecordingWriterMetrics metrics;
+  private AvroEventConsumer consumer;
+  private AvroEvent event;
+  private BenchmarkEvent[] events;
+  private long sequence;
+  private long reportedHits;
+  private long reportedMisses;
+
+  @Setup
+  public void setUp() throws Exception {
+    scratchDirectory = newScratchDirectory();
+    events = newEvents();
+    event = new AvroEvent();
+    metrics = new RecordingWriterMetrics();
+    DiscardingRollingPolicy rollingPolicy = new DiscardingRollingPolicy(RECORDS_PER_FILE);
+    Path avroFile = scratchDirectory.resolve("string-cache.avro");
+    rollingPolicy.registerAvroFilename(avroFile);
+    consumer = new AvroEventConsumer(avroFile, BenchmarkEvent.SCHEMA$, rollingPolicy);
+    consumer.reportMetricsTo(metrics);
+    consumer.useSchemaSpecializedDatumWriter();
+    if (stringCacheEntries > 0) {
+      consumer.cacheEncodedStrings(stringCacheEntries);
+    }
+    consumer.onStart();
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    consumer.onShutdown();
+    deleteScratchDirectory(scratchDirectory);
+  }
+
+  @Benchmark
+  public void onEvent(StringCacheLookups lookups) throws Exception {
+    event.setAvroRecord(events[(int) (sequence & (NUMBER_OF_EVENTS - 1))]);
+    boolean endOfBatch = (sequence & (BATCH_SIZE - 1)) == BATCH_SIZE - 1;
+    consumer.onEvent(event, sequence++, endOfBatch);
+    if (endOfBatch) {
+      long hits = metrics.getStringCacheHits();
+      long misses = metrics.getStringCacheMisses();
+      lookups.hits += hits - reportedHits;
+      lookups.misses += misses - reportedMisses;
+      reportedHits = hits;
+      reportedMisses = misses;
+    }
+  }
+
+  private BenchmarkEvent[] newEvents() {
+    Random random = new Random(42);
+    ZipfValues countries = new ZipfValues(nonAsciiValues ? "país-" : "country-", cardinality, random);
+    ZipfValues deviceTypes = new ZipfValues(nonAsciiValues ? "teléfono-" : "device-", cardinality, random);
+    BenchmarkEvent[] newEvents = new BenchmarkEvent[NUMBER_OF_EVENTS];
+    for (int i = 0; i < NUMBER_OF_EVENTS; i++) {
+      newEvents[i] = BenchmarkEvent.newBuilder()
+                                   .setTimestamp(1_400_000_000_000L + i)
+                                   .setRequestId(Long.toHexString(random.nextLong()) + Long.toHexString(random.nextLong()))
+                                   .setCountry(countries.next())
+                                   .setDeviceType(deviceTypes.next())
+                                   .setCampaignId(random.nextInt(5000))
+                                   .setBidPrice(random.nextDouble() * 10)
+                                   .setWon(random.nextBoolean())
+                                   .build();
+    }
+    return newEvents;
+  }
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class StringCacheLookups {
+
+    public long hits;
+    public long misses;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      hits = 0;
+      misses = 0;
+    }
+  }
+
+  /*
+   * Value k out of n is drawn with a probability proportional to 1 / k^s, as a new String every time
+   */
+  private static class ZipfValues {
+
+    private final String prefix;
+    private final double[] cumulativeWeights;
+    private final Random random;
+
+    ZipfValues(String prefix, int numberOfValues, Random random) {
+      this.prefix = prefix;
+      this.cumulativeWeights = new double[numberOfValues];
+      this.random = random;
+      double totalWeight = 0;
+      for (int value = 0; value < numberOfValues; value++) {
+        totalWeight += 1 / Math.pow(value + 1, ZIPF_EXPONENT);
+        cumulativeWeights[value] = totalWeight;
+      }
+    }
+
+    String next() {
+      double drawnWeight = random.nextDouble() * cumulativeWeights[cumulativeWeights.length - 1];
+      int value = Arrays.binarySearch(cumulativeWeights, drawnWeight);
+      return new StringBuilder(prefix).append(value < 0 ? -value - 1 : value).toString();
+    }
+  }
+}
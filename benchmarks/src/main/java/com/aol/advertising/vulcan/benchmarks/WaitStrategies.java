@@ -0,0 +1,42 @@
+package com.aol.advertising.vulcan.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import com.lmax.disruptor.BlockingWaitStrategy;
+import com.lmax.disruptor.BusySpinWaitStrategy;
+import com.lmax.disruptor.LiteBlockingWaitStrategy;
+import com.lmax.disruptor.PhasedBackoffWaitStrategy;
+import com.lmax.disruptor.SleepingWaitStrategy;
+import com.lmax.disruptor.TimeoutBlockingWaitStrategy;
+import com.lmax.disruptor.WaitStrategy;
+import com.lmax.disruptor.YieldingWaitStrategy;
+
+/**
+ * Every wait strategy shipped with the Disruptor, by simple class name, so benchmarks can take them
+ * as a JMH parameter
+ */
+final class WaitStrategies {
+
+  private WaitStrategies() {}
+
+  static WaitStrategy newWaitStrategy(String name) {
+    switch (name) {
+      case "BlockingWaitStrategy":
+        return new BlockingWaitStrategy();
+      case "BusySpinWaitStrategy":
+        return new BusySpinWaitStrategy();
+      case "LiteBlockingWaitStrategy":
+        return new LiteBlockingWaitStrategy();
+      case "PhasedBackoffWaitStrategy":
+        return PhasedBackoffWaitStrategy.withLiteLock(1, 1, TimeUnit.MILLISECONDS);
+      case "SleepingWaitStrategy":
+        return new SleepingWaitStrategy();
+      case "TimeoutBlockingWaitStrategy":
+        return new TimeoutBlockingWaitStrategy(1, TimeUnit.MILLISECONDS);
+      case "YieldingWaitStrategy":
+        return new YieldingWaitStrategy();
+      default:
+        throw new IllegalArgumentException("Unknown wait strategy " + name);
+    }
+  }
+}
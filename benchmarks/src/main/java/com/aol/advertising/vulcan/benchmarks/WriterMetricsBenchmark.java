@@ -0,0 +1,71 @@
+package com.aol.advertising.vulcan.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aol.advertising.vulcan.metrics.RecordingWriterMetrics;
+import com.aol.advertising.vulcan.ringbuffer.AvroEvent;
+import com.aol.advertising.vulcan.ringbuffer.AvroEventFactory;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.Sequence;
+
+/**
+ * Overhead of writer metrics per event. Publishing does not touch any metric, the queue gauges are
+ * read from the ring buffer on demand, so compare {@link PublisherWriteBenchmark} across releases
+ * to track the publish path. What is left is what the consumer records per batch: the batch
+ * itself, plus the two clock reads and the latency recorded around each flush. The worst case is
+ * one event per batch; under load batches hold tens or hundreds of events
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WriterMetricsBenchmark {
+
+  private static final int TYPICAL_BATCH_SIZE = 64;
+
+  private RecordingWriterMetrics metrics;
+
+  @Setup
+  public void setUp() {
+    RingBuffer<AvroEvent> ringBuffer = RingBuffer.createMultiProducer(new AvroEventFactory(), 1024);
+    ringBuffer.addGatingSequences(new Sequence());
+    metrics = new RecordingWriterMetrics();
+    metrics.monitorRingBuffer(ringBuffer);
+  }
+
+  @Benchmark
+  public void recordBatchOfOneEvent() {
+    recordBatchOf(1);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(TYPICAL_BATCH_SIZE)
+  public void recordTypicalBatch() {
+    recordBatchOf(TYPICAL_BATCH_SIZE);
+  }
+
+  @Benchmark
+  public long readQueueDepth() {
+    return metrics.getQueueDepth();
+  }
+
+  private void recordBatchOf(int batchSize) {
+    long flushStart = System.nanoTime();
+    metrics.recordFlush(System.nanoTime() - flushStart);
+    metrics.recordBatch(batchSize, batchSize);
+  }
+}
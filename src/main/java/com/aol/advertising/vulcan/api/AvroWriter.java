@@ -1,7 +1,16 @@
 package com.aol.advertising.vulcan.api;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import org.apache.avro.file.DataFileStream;
 import org.apache.avro.specific.SpecificRecord;
 
+import com.aol.advertising.vulcan.api.metrics.WriterMetrics;
+
 /**
  * Disruptor-based Avro writer. Consists of a <a
  * href="http://lmax-exchange.github.io/disruptor/">disruptor</a> buffer with a backend consumer
@@ -20,4 +29,90 @@ public interface AvroWriter extends AutoCloseable {
    */
   void write(SpecificRecord avroRecord);
 
+  /**
+   * Writes an Avro record to file only if that can be done without waiting, i.e. if the buffer is
+   * not full. Never blocks, regardless of the overflow policy configured
+   * 
+   * @return false if the buffer was full and the record was not written
+   */
+  boolean tryWrite(SpecificRecord avroRecord);
+
+  /**
+   * Writes an Avro record to file and forces it to the storage device together with the rest of
+   * its batch, whatever the durability policy configured. Waits for a free slot if the buffer is
+   * full, regardless of the overflow policy configured, and the record is never dropped
+   * 
+   * @return a future that completes once the record has been forced, or fails with the cause if it
+   *         could not be written or forced
+   */
+  Future<Void> writeDurably(SpecificRecord avroRecord);
+
+  /**
+   * Writes a batch of Avro records to file, in order. More efficient than writing them one by one
+   * since a whole range of buffer slots is claimed at once. If the buffer has no room for the whole
+   * batch, its records are written one by one and the overflow policy configured handles those that
+   * find the buffer full
+   */
+  void write(SpecificRecord[] avroRecords);
+
+  /**
+   * Writes a batch of Avro records to file, in order. More efficient than writing them one by one
+   * since a whole range of buffer slots is claimed at once. If the buffer has no room for the whole
+   * batch, its records are written one by one and the overflow policy configured handles those that
+   * find the buffer full
+   */
+  void write(List<? extends SpecificRecord> avroRecords);
+
+  /**
+   * Writes a record already serialized with the Avro binary encoding of the schema of the writer,
+   * e.g. received that way from the wire, so it does not have to be decoded and encoded again. The
+   * remaining bytes of {@code encodedRecord} are copied into the buffer, so it can be reused as soon
+   * as this method returns. The bytes are not checked to be a valid record of the schema. Waits for
+   * a free slot if the buffer is full, regardless of the overflow policy configured. Rolling
+   * policies are passed a null record for records written this way
+   * 
+   * @throws IllegalArgumentException if {@code encodedRecord} has no bytes remaining
+   * @throws UnsupportedOperationException if the writer accepts records of any schema
+   */
+  void writeEncoded(ByteBuffer encodedRecord);
+
+  /**
+   * Same as {@link #writeEncoded(ByteBuffer)}, checking first that the record was encoded with the
+   * schema of the writer
+   * 
+   * @param schemaFingerprint fingerprint of the schema the record was encoded with, as returned by
+   *        {@code SchemaNormalization.parsingFingerprint64}
+   * @throws IllegalArgumentException if {@code encodedRecord} has no bytes remaining or
+   *         {@code schemaFingerprint} is not the fingerprint of the schema of the writer
+   * @throws UnsupportedOperationException if the writer accepts records of any schema
+   */
+  void writeEncoded(ByteBuffer encodedRecord, long schemaFingerprint);
+
+  /**
+   * Appends all records of another Avro file with the same schema, block by block and without
+   * decoding them. Blocks are copied as they are if both files use the same codec, and only
+   * decompressed and compressed again otherwise. The writer takes ownership of the stream, which is
+   * closed once appended. Waits for a free slot if the buffer is full, regardless of the overflow
+   * policy configured. Rolling policies are passed a null record for appended files
+   * 
+   * @return completed once all blocks have been forced to the storage device, or failed if they
+   *         could not be appended or forced
+   * @throws IllegalArgumentException if the schema of the file is not the schema of the writer,
+   *         unless the writer accepts records of any schema
+   */
+  Future<Void> appendAllFrom(DataFileStream<?> avroFileStream);
+
+  /**
+   * Same as {@link #appendAllFrom(DataFileStream)} for the Avro file in {@code avroFile}
+   * 
+   * @throws IOException if the file cannot be opened
+   */
+  Future<Void> appendAllFrom(Path avroFile) throws IOException;
+
+  /**
+   * Live metrics of this writer: queue depth, throughput, batch sizes, flush latencies and file
+   * rolls
+   */
+  WriterMetrics getMetrics();
+
 }
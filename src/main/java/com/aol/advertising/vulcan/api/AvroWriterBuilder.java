@@ -6,8 +6,10 @@ import java.nio.file.Paths;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.avro.Schema;
+import org.apache.avro.file.CodecFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -15,17 +17,48 @@ import com.aol.advertising.vulcan.api.builder.steps.AvroFilenameStep;
 import com.aol.advertising.vulcan.api.builder.steps.AvroSchemaStep;
 import com.aol.advertising.vulcan.api.builder.steps.OptionalSteps;
 import com.aol.advertising.vulcan.api.builder.steps.Steps;
+import com.aol.advertising.vulcan.api.durability.DurabilityPolicy;
+import com.aol.advertising.vulcan.api.filter.RecordFilter;
+import com.aol.advertising.vulcan.api.flush.FlushPolicy;
+import com.aol.advertising.vulcan.api.overflow.ConsumerAssistedOverflowPolicy;
+import com.aol.advertising.vulcan.api.overflow.OverflowPolicy;
+import com.aol.advertising.vulcan.api.rolling.RolledFileAwareRollingPolicy;
 import com.aol.advertising.vulcan.api.rolling.RollingPolicy;
+import com.aol.advertising.vulcan.api.rolling.RollingPolicyFactory;
+import com.aol.advertising.vulcan.api.sharding.ShardSelector;
+import com.aol.advertising.vulcan.durability.NoForceDurabilityPolicy;
 import com.aol.advertising.vulcan.exception.DisruptorExceptionHandler;
+import com.aol.advertising.vulcan.flush.EndOfBatchFlushPolicy;
+import com.aol.advertising.vulcan.metrics.JmxWriterMetrics;
+import com.aol.advertising.vulcan.partitioning.EventTimePartitioningConfig;
+import com.aol.advertising.vulcan.partitioning.TimeBuckets;
 import com.aol.advertising.vulcan.ringbuffer.AvroEvent;
 import com.aol.advertising.vulcan.ringbuffer.AvroEventFactory;
+import com.aol.advertising.vulcan.ringbuffer.OffHeapAvroEventFactory;
 import com.aol.advertising.vulcan.rolling.TimeAndSizeBasedRollingPolicy;
 import com.aol.advertising.vulcan.rolling.TimeAndSizeBasedRollingPolicyConfig;
+import com.aol.advertising.vulcan.sharding.RoundRobinShardSelector;
 import com.aol.advertising.vulcan.writer.AvroEventConsumer;
 import com.aol.advertising.vulcan.writer.AvroEventPublisher;
+import com.aol.advertising.vulcan.writer.CompressionThreadFactory;
 import com.aol.advertising.vulcan.writer.ConsumerThreadFactory;
+import com.aol.advertising.vulcan.writer.EncodingWorkHandler;
+import com.aol.advertising.vulcan.writer.MultiSchemaAvroEventConsumer;
+import com.aol.advertising.vulcan.writer.ProducerSideEncoder;
+import com.aol.advertising.vulcan.writer.RecordProjection;
+import com.aol.advertising.vulcan.writer.RolloverThreadFactory;
+import com.aol.advertising.vulcan.writer.RoutingAvroEventConsumer;
+import com.aol.advertising.vulcan.writer.SchemaConsumerFactory;
+import com.aol.advertising.vulcan.writer.SchemaSpecializedDatumWriter;
+import com.aol.advertising.vulcan.writer.ShardedAvroWriter;
+import com.aol.advertising.vulcan.writer.TimeBucketConsumerFactory;
+import com.aol.advertising.vulcan.writer.TimePartitionedAvroEventConsumer;
+import com.lmax.disruptor.EventFactory;
+import com.lmax.disruptor.EventHandler;
 import com.lmax.disruptor.SleepingWaitStrategy;
+import com.lmax.disruptor.TimeoutBlockingWaitStrategy;
 import com.lmax.disruptor.WaitStrategy;
+import com.lmax.disruptor.WorkHandler;
 import com.lmax.disruptor.dsl.Disruptor;
 import com.lmax.disruptor.dsl.ProducerType;
 
@@ -50,20 +83,51 @@ public class AvroWriterBuilder implements Steps {
   private static final Logger log = LoggerFactory.getLogger(AvroWriterBuilder.class);
   private static final AvroEventFactory avroEventFactory = new AvroEventFactory();
   private static final ThreadFactory consumerExecutorThreadFactory = new ConsumerThreadFactory();
+  private static final ThreadFactory compressionThreadFactory = new CompressionThreadFactory();
+  private static final ThreadFactory rolloverThreadFactory = new RolloverThreadFactory();
+  // Bounds enforced by DataFileWriter#setSyncInterval
+  private static final int MINIMUM_SYNC_INTERVAL = 32;
+  private static final int MAXIMUM_SYNC_INTERVAL = 1 << 30;
+  private static final int MAXIMUM_MAPPING_SIZE_IN_MB = 1024;
+  private static final int MAXIMUM_STRING_CACHE_ENTRIES = 1 << 20;
+  private static final int ONE_MB_IN_BYTES = 1_048_576;
 
-  private final ExecutorService consumerExecutor;
   private final AvroEventPublisher publisherUnderConstruction;
   
   private Path avroFilename;
   private Schema avroSchema;
+  private boolean anySchema;
   private int ringBufferSize;
   private ProducerType producerType;
   private WaitStrategy waitStrategy;
+  private boolean waitStrategyConfigured;
   private RollingPolicy rollingPolicy;
+  private TimeAndSizeBasedRollingPolicyConfig defaultRollingPolicyConfiguration;
+  private RollingPolicyFactory rollingPolicyFactory;
+  private boolean producerSideSerialization;
+  private int offHeapSlotCapacity;
+  private int numberOfShards;
+  private ShardSelector shardSelector;
+  private EventTimePartitioningConfig eventTimePartitioning;
+  private RecordFilter recordFilter;
+  private Schema projectedSchema;
+  private OverflowPolicy overflowPolicy;
+  private FlushPolicy flushPolicy;
+  private DurabilityPolicy durabilityPolicy;
+  private CodecFactory codec;
+  private int syncInterval;
+  private boolean schemaSpecializedEncoding;
+  private int stringCacheEntries;
+  private int encodingThreads;
+  private int compressionThreads;
+  private boolean backgroundRollover;
+  private boolean rolledFileCompression;
+  private boolean standbyFile;
+  private int mappingSizeInMb;
+  private boolean jmxMetrics;
 
   private AvroWriterBuilder() {
     publisherUnderConstruction = new AvroEventPublisher();
-    consumerExecutor = Executors.newSingleThreadExecutor(consumerExecutorThreadFactory);
   }
 
   /**
@@ -79,6 +143,23 @@ public class AvroWriterBuilder implements Steps {
     ringBufferSize = 2048;
     producerType = ProducerType.MULTI;
     waitStrategy = new SleepingWaitStrategy();
+    waitStrategyConfigured = false;
+    flushPolicy = new EndOfBatchFlushPolicy();
+    durabilityPolicy = new NoForceDurabilityPolicy();
+    syncInterval = 2_097_152;
+    schemaSpecializedEncoding = false;
+    stringCacheEntries = 0;
+    encodingThreads = 0;
+    compressionThreads = 0;
+    backgroundRollover = false;
+    rolledFileCompression = false;
+    standbyFile = false;
+    mappingSizeInMb = 0;
+    producerSideSerialization = false;
+    offHeapSlotCapacity = 0;
+    jmxMetrics = false;
+    numberOfShards = 1;
+    shardSelector = new RoundRobinShardSelector();
   }
 
   @Override
@@ -130,7 +211,8 @@ public class AvroWriterBuilder implements Steps {
   }
 
   private void initRollingPolicyWithDefaultConfiguration() {
-    rollingPolicy = new TimeAndSizeBasedRollingPolicy(new TimeAndSizeBasedRollingPolicyConfig());
+    defaultRollingPolicyConfiguration = new TimeAndSizeBasedRollingPolicyConfig();
+    rollingPolicy = new TimeAndSizeBasedRollingPolicy(defaultRollingPolicyConfiguration);
   }
 
   @Override
@@ -150,6 +232,12 @@ public class AvroWriterBuilder implements Steps {
     return this;
   }
 
+  @Override
+  public OptionalSteps thatWritesRecordsOfAnySchema() {
+    this.anySchema = true;
+    return this;
+  }
+
   @Override
   public OptionalSteps withRingBufferSize(int ringBufferSize) {
     this.ringBufferSize = ringBufferSize;
@@ -170,6 +258,7 @@ public class AvroWriterBuilder implements Steps {
   public OptionalSteps withWaitStrategy(WaitStrategy waitStrategy) {
     if (waitStrategy != null) {
       this.waitStrategy = waitStrategy;
+      this.waitStrategyConfigured = true;
     } else {
       log.warn("Tried to configure the waiting strategy with a null value");
     }
@@ -180,6 +269,7 @@ public class AvroWriterBuilder implements Steps {
   public OptionalSteps withRollingPolicy(RollingPolicy rollingPolicy) {
     if (rollingPolicy != null) {
       this.rollingPolicy = rollingPolicy;
+      this.defaultRollingPolicyConfiguration = null;
     } else {
       log.warn("Tried to configure the file rolling policy with a null value");
     }
@@ -189,26 +279,616 @@ public class AvroWriterBuilder implements Steps {
   @Override
   public OptionalSteps withDefaultRollingPolicyConfiguration(TimeAndSizeBasedRollingPolicyConfig configuration) {
     rollingPolicy = new TimeAndSizeBasedRollingPolicy(configuration);
+    defaultRollingPolicyConfiguration = configuration;
+    return this;
+  }
+
+  @Override
+  public OptionalSteps withRollingPolicyPerShard(RollingPolicyFactory rollingPolicyFactory) {
+    if (rollingPolicyFactory != null) {
+      this.rollingPolicyFactory = rollingPolicyFactory;
+    } else {
+      log.warn("Tried to configure the per-shard rolling policies with a null value");
+    }
+    return this;
+  }
+
+  @Override
+  public OptionalSteps withProducerSideSerialization() {
+    producerSideSerialization = true;
+    return this;
+  }
+
+  @Override
+  public OptionalSteps withOffHeapRingBuffer(int slotCapacity) {
+    if (slotCapacity < 1) {
+      throw new IllegalArgumentException("Off-heap slots must hold at least 1 byte");
+    }
+    offHeapSlotCapacity = slotCapacity;
+    producerSideSerialization = true;
+    return this;
+  }
+
+  @Override
+  public OptionalSteps withShards(int numberOfShards) {
+    if (numberOfShards < 1) {
+      throw new IllegalArgumentException("Number of shards must be at least 1");
+    }
+    this.numberOfShards = numberOfShards;
+    return this;
+  }
+
+  @Override
+  public OptionalSteps withShardSelector(ShardSelector shardSelector) {
+    if (shardSelector != null) {
+      this.shardSelector = shardSelector;
+    } else {
+      log.warn("Tried to configure the shard selector with a null value");
+    }
+    return this;
+  }
+
+  @Override
+  public OptionalSteps withEventTimePartitioning(EventTimePartitioningConfig configuration) {
+    if (configuration != null) {
+      this.eventTimePartitioning = configuration;
+    } else {
+      log.warn("Tried to configure the event time partitioning with a null value");
+    }
+    return this;
+  }
+
+  @Override
+  public OptionalSteps withRecordFilter(RecordFilter recordFilter) {
+    if (recordFilter != null) {
+      this.recordFilter = recordFilter;
+    } else {
+      log.warn("Tried to configure the record filter with a null value");
+    }
+    return this;
+  }
+
+  @Override
+  public OptionalSteps withProjectionTo(Schema projectedSchema) {
+    if (projectedSchema != null) {
+      this.projectedSchema = projectedSchema;
+    } else {
+      log.warn("Tried to configure the projected schema with a null value");
+    }
+    return this;
+  }
+
+  @Override
+  public OptionalSteps withOverflowPolicy(OverflowPolicy overflowPolicy) {
+    if (overflowPolicy != null) {
+      this.overflowPolicy = overflowPolicy;
+    } else {
+      log.warn("Tried to configure the overflow policy with a null value");
+    }
+    return this;
+  }
+
+  @Override
+  public OptionalSteps withFlushPolicy(FlushPolicy flushPolicy) {
+    if (flushPolicy != null) {
+      this.flushPolicy = flushPolicy;
+    } else {
+      log.warn("Tried to configure the flush policy with a null value");
+    }
+    return this;
+  }
+
+  @Override
+  public OptionalSteps withDurabilityPolicy(DurabilityPolicy durabilityPolicy) {
+    if (durabilityPolicy != null) {
+      this.durabilityPolicy = durabilityPolicy;
+    } else {
+      log.warn("Tried to configure the durability policy with a null value");
+    }
+    return this;
+  }
+
+  @Override
+  public OptionalSteps withCodec(CodecFactory codec) {
+    if (codec != null) {
+      this.codec = codec;
+    } else {
+      log.warn("Tried to configure the compression codec with a null value");
+    }
+    return this;
+  }
+
+  @Override
+  public OptionalSteps withSyncInterval(int syncInterval) {
+    if (syncInterval < MINIMUM_SYNC_INTERVAL || syncInterval > MAXIMUM_SYNC_INTERVAL) {
+      throw new IllegalArgumentException("Sync interval must be between " + MINIMUM_SYNC_INTERVAL + " and "
+          + MAXIMUM_SYNC_INTERVAL + " bytes");
+    }
+    this.syncInterval = syncInterval;
+    return this;
+  }
+
+  @Override
+  public OptionalSteps withSchemaSpecializedEncoding() {
+    schemaSpecializedEncoding = true;
+    return this;
+  }
+
+  @Override
+  public OptionalSteps withStringCache(int entries) {
+    if (entries < 1 || entries > MAXIMUM_STRING_CACHE_ENTRIES) {
+      throw new IllegalArgumentException("String cache entries must be between 1 and " + MAXIMUM_STRING_CACHE_ENTRIES);
+    }
+    stringCacheEntries = entries;
+    return this;
+  }
+
+  @Override
+  public OptionalSteps withParallelEncoding(int encodingThreads) {
+    if (encodingThreads < 1) {
+      throw new IllegalArgumentException("Number of encoding threads must be at least 1");
+    }
+    this.encodingThreads = encodingThreads;
+    return this;
+  }
+
+  @Override
+  public OptionalSteps withParallelCompression(int compressionThreads) {
+    if (compressionThreads < 1) {
+      throw new IllegalArgumentException("Number of compression threads must be at least 1");
+    }
+    this.compressionThreads = compressionThreads;
+    return this;
+  }
+
+  @Override
+  public OptionalSteps withBackgroundRollover() {
+    backgroundRollover = true;
+    return this;
+  }
+
+  @Override
+  public OptionalSteps withRolledFilesCompressed() {
+    backgroundRollover = true;
+    rolledFileCompression = true;
+    return this;
+  }
+
+  @Override
+  public OptionalSteps withStandbyFile() {
+    backgroundRollover = true;
+    standbyFile = true;
+    return this;
+  }
+
+  @Override
+  public OptionalSteps withMemoryMappedOutput(int mappingSizeInMb) {
+    if (mappingSizeInMb < 1 || mappingSizeInMb > MAXIMUM_MAPPING_SIZE_IN_MB) {
+      throw new IllegalArgumentException("Mapping size must be between 1 and " + MAXIMUM_MAPPING_SIZE_IN_MB + "MB");
+    }
+    this.mappingSizeInMb = mappingSizeInMb;
+    return this;
+  }
+
+  @Override
+  public OptionalSteps withMetricsPublishedThroughJmx() {
+    jmxMetrics = true;
     return this;
   }
 
   @Override
   public AvroWriter createNewWriter() {
-    rollingPolicy.registerAvroFilename(avroFilename);
-    publisherUnderConstruction.registerConsumerExecutorForShutdown(consumerExecutor);
-    publisherUnderConstruction.startPublisherUsing(buildDisruptor());
-    return publisherUnderConstruction;
+    checkMaximumDelaysCanBeHonoured();
+    validateParallelEncodingIsNotDoneByProducers();
+    validateStringCacheIsUsedByTheConsumer();
+    validateParallelCompressionHasACodec();
+    validateRecordsCanBeFiltered();
+    if (anySchema) {
+      return createNewMultiSchemaWriter();
+    }
+    if (eventTimePartitioning != null) {
+      return createNewTimePartitionedWriter();
+    }
+    if (numberOfShards > 1) {
+      return createNewShardedWriter();
+    }
+    validateRecordsCanBeProjected();
+    if (rollingPolicyFactory != null) {
+      rollingPolicy = rollingPolicyFactory.newRollingPolicy();
+    }
+    AvroEventPublisher publisher = startPublisher(publisherUnderConstruction, newConsumerExecutor(), avroFilename, rollingPolicy);
+    if (jmxMetrics) {
+      publisher.publishMetricsThroughJmx(new JmxWriterMetrics(publisher.getMetrics(), avroFilename));
+    }
+    return publisher;
+  }
+
+  private AvroWriter createNewMultiSchemaWriter() {
+    validateRecordsOfAnySchemaCanBeWritten();
+    validateFilesCanHaveIndependentRollingPolicies();
+    validateFilesCanShareOverflowPolicy();
+    if (backgroundRollover) {
+      validateRolledFilesCanBeFinishedWith(newShardRollingPolicy());
+    }
+    final AvroEventPublisher publisher = publisherUnderConstruction;
+    publisher.acceptRecordsOfAnySchema();
+    final ExecutorService compressionPool = newCompressionPool();
+    final ExecutorService rolloverExecutor = newRolloverExecutor();
+    MultiSchemaAvroEventConsumer consumer = new MultiSchemaAvroEventConsumer(new SchemaConsumerFactory() {
+      @Override
+      public AvroEventConsumer newConsumerFor(Schema recordSchema) {
+        RollingPolicy schemaRollingPolicy = newShardRollingPolicy();
+        Path schemaFilename = getFilenameWithSuffix(recordSchema.getFullName());
+        schemaRollingPolicy.registerAvroFilename(schemaFilename);
+        return newRoutedConsumer(publisher, schemaFilename, recordSchema, schemaRollingPolicy, compressionPool,
+                                 rolloverExecutor);
+      }
+    });
+    shareExecutorsThrough(consumer, compressionPool, rolloverExecutor);
+    consumer.reportMetricsTo(publisher.getMetrics());
+    startPublisher(publisher, newConsumerExecutor(), consumer);
+    if (jmxMetrics) {
+      publisher.publishMetricsThroughJmx(new JmxWriterMetrics(publisher.getMetrics(), avroFilename));
+    }
+    return publisher;
+  }
+
+  private void validateRecordsOfAnySchemaCanBeWritten() {
+    if (numberOfShards > 1) {
+      throw new IllegalStateException("Writers of records of any schema cannot be sharded");
+    }
+    if (eventTimePartitioning != null) {
+      throw new IllegalStateException("Writers of records of any schema cannot be partitioned by event time");
+    }
+    if (producerSideSerialization || encodingThreads > 0) {
+      throw new IllegalStateException("Records of any schema can only be encoded by the consumer");
+    }
+    if (projectedSchema != null) {
+      throw new IllegalStateException("Records of any schema cannot be projected");
+    }
+  }
+
+  private AvroWriter createNewTimePartitionedWriter() {
+    validateRecordsCanBePartitionedByEventTime();
+    validateFilesCanHaveIndependentRollingPolicies();
+    validateFilesCanShareOverflowPolicy();
+    if (backgroundRollover) {
+      validateRolledFilesCanBeFinishedWith(newShardRollingPolicy());
+    }
+    validateRecordsCanBeProjected();
+    final AvroEventPublisher publisher = publisherUnderConstruction;
+    publisher.acceptEncodedDataOf(getFileSchema());
+    if (producerSideSerialization) {
+      publisher.serializeRecordsUsing(newEncoder());
+    }
+    final TimeBuckets timeBuckets = eventTimePartitioning.newTimeBuckets();
+    final ExecutorService compressionPool = newCompressionPool();
+    final ExecutorService rolloverExecutor = newRolloverExecutor();
+    TimePartitionedAvroEventConsumer consumer =
+        new TimePartitionedAvroEventConsumer(eventTimePartitioning.getEventTimeExtractor(),
+                                             timeBuckets,
+                                             eventTimePartitioning.getOpenBuckets(),
+                                             new TimeBucketConsumerFactory() {
+                                               @Override
+                                               public AvroEventConsumer newConsumerFor(long bucketStart) {
+                                                 RollingPolicy bucketRollingPolicy = newShardRollingPolicy();
+                                                 Path bucketFilename = getFilenameWithSuffix(timeBuckets.nameOf(bucketStart));
+                                                 bucketRollingPolicy.registerAvroFilename(bucketFilename);
+                                                 return newRoutedConsumer(publisher, bucketFilename, getFileSchema(),
+                                                                          bucketRollingPolicy, compressionPool,
+                                                                          rolloverExecutor);
+                                               }
+                                             });
+    shareExecutorsThrough(consumer, compressionPool, rolloverExecutor);
+    consumer.reportMetricsTo(publisher.getMetrics());
+    startPublisher(publisher, newConsumerExecutor(), consumer);
+    if (jmxMetrics) {
+      publisher.publishMetricsThroughJmx(new JmxWriterMetrics(publisher.getMetrics(), avroFilename));
+    }
+    return publisher;
+  }
+
+  // The consumer needs the record to read its event time
+  private void validateRecordsCanBePartitionedByEventTime() {
+    if (numberOfShards > 1) {
+      throw new IllegalStateException("Writers partitioned by event time cannot be sharded");
+    }
+    if (offHeapSlotCapacity > 0) {
+      throw new IllegalStateException("Writers partitioned by event time cannot release records from the ring buffer");
+    }
+  }
+
+  private AvroWriter createNewShardedWriter() {
+    validateFilesCanHaveIndependentRollingPolicies();
+    validateFilesCanShareOverflowPolicy();
+    validateRecordsCanBeProjected();
+    AvroWriter[] shards = new AvroWriter[numberOfShards];
+    shards[0] = startPublisher(publisherUnderConstruction, newConsumerExecutor(), getShardFilename(0), newShardRollingPolicy());
+    for (int shard = 1; shard < numberOfShards; shard++) {
+      shards[shard] = startPublisher(new AvroEventPublisher(),
+                                     newConsumerExecutor(),
+                                     getShardFilename(shard),
+                                     newShardRollingPolicy());
+    }
+    ShardedAvroWriter shardedWriter = new ShardedAvroWriter(shards, shardSelector);
+    if (jmxMetrics) {
+      shardedWriter.publishMetricsThroughJmx(new JmxWriterMetrics(shardedWriter.getMetrics(), avroFilename));
+    }
+    return shardedWriter;
+  }
+
+  private void validateFilesCanHaveIndependentRollingPolicies() {
+    if (rollingPolicyFactory == null && defaultRollingPolicyConfiguration == null) {
+      throw new IllegalStateException("A custom rolling policy cannot be shared between files. Use a rolling policy "
+          + "factory to provide one policy per file");
+    }
+  }
+
+  private void validateFilesCanShareOverflowPolicy() {
+    if (overflowPolicy instanceof ConsumerAssistedOverflowPolicy) {
+      throw new IllegalStateException("Overflow policies that keep per-writer state cannot be shared between files");
+    }
+  }
+
+  private void validateParallelEncodingIsNotDoneByProducers() {
+    if (encodingThreads > 0 && producerSideSerialization) {
+      throw new IllegalStateException("Records cannot be encoded both by producers and by an encoding stage");
+    }
+  }
+
+  // Records released from an off-heap ring buffer never reach the consumer
+  private void validateRecordsCanBeFiltered() {
+    if (recordFilter != null && offHeapSlotCapacity > 0) {
+      throw new IllegalStateException("Records cannot be filtered once released from an off-heap ring buffer");
+    }
+  }
+
+  // Records encoded before reaching the consumer keep every field
+  private void validateRecordsCanBeProjected() {
+    if (projectedSchema == null) {
+      return;
+    }
+    if (producerSideSerialization || encodingThreads > 0) {
+      throw new IllegalStateException("Records can only be projected if they are encoded by the consumer");
+    }
+    new RecordProjection(avroSchema, projectedSchema);
+  }
+
+  private void validateStringCacheIsUsedByTheConsumer() {
+    if (stringCacheEntries > 0 && (producerSideSerialization || encodingThreads > 0)) {
+      throw new IllegalStateException("Strings can only be cached if records are encoded by the consumer");
+    }
+  }
+
+  private void validateParallelCompressionHasACodec() {
+    if (compressionThreads > 0 && codec == null) {
+      throw new IllegalStateException("Parallel compression needs a compression codec");
+    }
+  }
+
+  private void validateRolledFilesCanBeFinishedWith(RollingPolicy destinationRollingPolicy) {
+    if (backgroundRollover && !(destinationRollingPolicy instanceof RolledFileAwareRollingPolicy)) {
+      throw new IllegalStateException("Rolled files can only be finished in the background if the rolling policy "
+          + "reports where they go. Implement RolledFileAwareRollingPolicy");
+    }
+  }
+
+  private void checkMaximumDelaysCanBeHonoured() {
+    if (waitStrategyConfigured && getMaximumIdleDelayInNanos() > 0
+        && !(waitStrategy instanceof TimeoutBlockingWaitStrategy)) {
+      log.warn("The configured wait strategy does not time out, records may stay unflushed or unforced for longer "
+          + "than the flush and durability policies allow while no new events arrive");
+    }
+  }
+
+  // Shortest of the flush and force delays, 0 if neither policy has one
+  private long getMaximumIdleDelayInNanos() {
+    long maximumFlushDelay = flushPolicy.getMaximumFlushDelay(TimeUnit.NANOSECONDS);
+    long maximumForceDelay = durabilityPolicy.getMaximumForceDelay(TimeUnit.NANOSECONDS);
+    if (maximumFlushDelay == 0 || maximumForceDelay == 0) {
+      return Math.max(maximumFlushDelay, maximumForceDelay);
+    }
+    return Math.min(maximumFlushDelay, maximumForceDelay);
+  }
+
+  private Schema getFileSchema() {
+    return projectedSchema != null ? projectedSchema : avroSchema;
+  }
+
+  private RollingPolicy newShardRollingPolicy() {
+    if (rollingPolicyFactory != null) {
+      return rollingPolicyFactory.newRollingPolicy();
+    }
+    return new TimeAndSizeBasedRollingPolicy(defaultRollingPolicyConfiguration);
+  }
+
+  private Path getShardFilename(int shard) {
+    return getFilenameWithSuffix(String.valueOf(shard));
+  }
+
+  // <name>.<ext> becomes <name>-<suffix>.<ext>
+  private Path getFilenameWithSuffix(String suffix) {
+    String filename = avroFilename.getFileName().toString();
+    int extensionStart = filename.lastIndexOf('.');
+    String suffixedFilename = extensionStart > 0
+        ? filename.substring(0, extensionStart) + "-" + suffix + filename.substring(extensionStart)
+        : filename + "-" + suffix;
+    return avroFilename.resolveSibling(suffixedFilename);
+  }
+
+  private AvroEventPublisher startPublisher(AvroEventPublisher publisher,
+                                            ExecutorService publisherConsumerExecutor,
+                                            Path destinationFile,
+                                            RollingPolicy destinationRollingPolicy) {
+    validateRolledFilesCanBeFinishedWith(destinationRollingPolicy);
+    destinationRollingPolicy.registerAvroFilename(destinationFile);
+    publisher.acceptEncodedDataOf(getFileSchema());
+    if (producerSideSerialization) {
+      publisher.serializeRecordsUsing(newEncoder());
+    }
+    if (offHeapSlotCapacity > 0) {
+      publisher.releaseRecordsOnceEncoded();
+    }
+    return startPublisher(publisher,
+                          publisherConsumerExecutor,
+                          newConsumer(publisher, destinationFile, getFileSchema(), destinationRollingPolicy));
+  }
+
+  private AvroEventPublisher startPublisher(AvroEventPublisher publisher,
+                                            ExecutorService publisherConsumerExecutor,
+                                            EventHandler<AvroEvent> consumer) {
+    publisher.registerConsumerExecutorForShutdown(publisherConsumerExecutor);
+    if (overflowPolicy != null) {
+      publisher.handleOverflowsUsing(overflowPolicy);
+    }
+    publisher.startPublisherUsing(buildDisruptor(publisherConsumerExecutor, consumer));
+    return publisher;
   }
 
   @SuppressWarnings("unchecked")
-  private Disruptor<AvroEvent> buildDisruptor() {
-    Disruptor<AvroEvent> disruptor = new Disruptor<>(avroEventFactory,
+  private Disruptor<AvroEvent> buildDisruptor(ExecutorService publisherConsumerExecutor,
+                                              EventHandler<AvroEvent> consumer) {
+    Disruptor<AvroEvent> disruptor = new Disruptor<>(newEventFactory(),
                                                      ringBufferSize,
-                                                     consumerExecutor,
+                                                     publisherConsumerExecutor,
                                                      producerType,
-                                                     waitStrategy);
+                                                     newWaitStrategy());
     disruptor.handleExceptionsWith(new DisruptorExceptionHandler());
-    disruptor.handleEventsWith(new AvroEventConsumer(avroFilename, avroSchema, rollingPolicy));
+    if (encodingThreads > 0) {
+      disruptor.handleEventsWithWorkerPool(newEncodingStage()).then(consumer);
+    } else {
+      disruptor.handleEventsWith(consumer);
+    }
     return disruptor;
   }
+
+  // The consumer and every encoding handler get a thread of their own
+  private ExecutorService newConsumerExecutor() {
+    if (encodingThreads > 0) {
+      return Executors.newFixedThreadPool(1 + encodingThreads, consumerExecutorThreadFactory);
+    }
+    return Executors.newSingleThreadExecutor(consumerExecutorThreadFactory);
+  }
+
+  private ProducerSideEncoder newEncoder() {
+    if (schemaSpecializedEncoding) {
+      return new ProducerSideEncoder(new SchemaSpecializedDatumWriter(avroSchema));
+    }
+    return new ProducerSideEncoder(avroSchema);
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private WorkHandler<AvroEvent>[] newEncodingStage() {
+    ProducerSideEncoder encoder = newEncoder();
+    WorkHandler<AvroEvent>[] encodingStage = new WorkHandler[encodingThreads];
+    for (int handler = 0; handler < encodingThreads; handler++) {
+      encodingStage[handler] = new EncodingWorkHandler(encoder);
+    }
+    return encodingStage;
+  }
+
+  // Off-heap slots cannot be shared between ring buffers
+  private EventFactory<AvroEvent> newEventFactory() {
+    if (offHeapSlotCapacity > 0) {
+      return new OffHeapAvroEventFactory(ringBufferSize, offHeapSlotCapacity);
+    }
+    return avroEventFactory;
+  }
+
+  // Unless told otherwise, the consumer is woken up in time for flushes and forces due while no events arrive
+  private WaitStrategy newWaitStrategy() {
+    long maximumIdleDelay = getMaximumIdleDelayInNanos();
+    if (waitStrategyConfigured || maximumIdleDelay == 0) {
+      return waitStrategy;
+    }
+    return new TimeoutBlockingWaitStrategy(maximumIdleDelay, TimeUnit.NANOSECONDS);
+  }
+
+  private AvroEventConsumer newConsumer(AvroEventPublisher publisher,
+                                        Path destinationFile,
+                                        Schema destinationSchema,
+                                        RollingPolicy destinationRollingPolicy) {
+    return newConsumer(publisher, destinationFile, destinationSchema, destinationRollingPolicy, newCompressionPool(),
+                       newRolloverExecutor());
+  }
+
+  // The files of routing writers share the executors of the writer, which the routing consumer shuts down
+  private AvroEventConsumer newRoutedConsumer(AvroEventPublisher publisher,
+                                              Path destinationFile,
+                                              Schema destinationSchema,
+                                              RollingPolicy destinationRollingPolicy,
+                                              ExecutorService compressionPool,
+                                              ExecutorService rolloverExecutor) {
+    AvroEventConsumer consumer = newConsumer(publisher, destinationFile, destinationSchema, destinationRollingPolicy,
+                                             compressionPool, rolloverExecutor);
+    consumer.shareExecutors();
+    return consumer;
+  }
+
+  private void shareExecutorsThrough(RoutingAvroEventConsumer consumer,
+                                     ExecutorService compressionPool,
+                                     ExecutorService rolloverExecutor) {
+    if (compressionPool != null) {
+      consumer.registerSharedExecutorForShutdown(compressionPool);
+    }
+    if (rolloverExecutor != null) {
+      consumer.registerSharedExecutorForShutdown(rolloverExecutor);
+    }
+  }
+
+  // Null if blocks are compressed on the consumer thread
+  private ExecutorService newCompressionPool() {
+    return compressionThreads > 0 ? Executors.newFixedThreadPool(compressionThreads, compressionThreadFactory) : null;
+  }
+
+  // Null if files are rolled on the consumer thread
+  private ExecutorService newRolloverExecutor() {
+    return backgroundRollover ? Executors.newSingleThreadExecutor(rolloverThreadFactory) : null;
+  }
+
+  private AvroEventConsumer newConsumer(AvroEventPublisher publisher,
+                                        Path destinationFile,
+                                        Schema destinationSchema,
+                                        RollingPolicy destinationRollingPolicy,
+                                        ExecutorService compressionPool,
+                                        ExecutorService rolloverExecutor) {
+    AvroEventConsumer consumer = new AvroEventConsumer(destinationFile, destinationSchema, destinationRollingPolicy);
+    consumer.reportMetricsTo(publisher.getMetrics());
+    if (schemaSpecializedEncoding) {
+      consumer.useSchemaSpecializedDatumWriter();
+    }
+    if (stringCacheEntries > 0) {
+      consumer.cacheEncodedStrings(stringCacheEntries);
+    }
+    consumer.flushAccordingTo(flushPolicy);
+    consumer.forceAccordingTo(durabilityPolicy);
+    consumer.useSyncInterval(syncInterval);
+    if (codec != null) {
+      consumer.compressWith(codec);
+    }
+    if (compressionPool != null) {
+      // Twice the threads keeps the pool busy while the consumer writes out the oldest blocks
+      consumer.compressBlocksOn(compressionPool, compressionThreads * 2);
+    }
+    if (rolloverExecutor != null) {
+      consumer.finishRolledFilesOn(rolloverExecutor, rolledFileCompression);
+    }
+    if (standbyFile) {
+      consumer.keepAStandbyFile();
+    }
+    if (mappingSizeInMb > 0) {
+      consumer.memoryMapFilesIn(mappingSizeInMb * ONE_MB_IN_BYTES);
+    }
+    if (overflowPolicy instanceof ConsumerAssistedOverflowPolicy) {
+      consumer.assistOverflowPolicy((ConsumerAssistedOverflowPolicy) overflowPolicy);
+    }
+    if (recordFilter != null) {
+      consumer.filterRecordsWith(recordFilter);
+    }
+    // Projections reuse the record they return, so every consumer needs its own
+    if (projectedSchema != null) {
+      consumer.projectRecordsWith(new RecordProjection(avroSchema, projectedSchema));
+    }
+    return consumer;
+  }
 }
@@ -1,9 +1,18 @@
 package com.aol.advertising.vulcan.api;
 
 import org.apache.avro.Schema;
+import org.apache.avro.file.CodecFactory;
 
+import com.aol.advertising.vulcan.api.builder.steps.AvroSchemaStep;
 import com.aol.advertising.vulcan.api.builder.steps.OptionalSteps;
+import com.aol.advertising.vulcan.api.durability.DurabilityPolicy;
+import com.aol.advertising.vulcan.api.filter.RecordFilter;
+import com.aol.advertising.vulcan.api.flush.FlushPolicy;
+import com.aol.advertising.vulcan.api.overflow.OverflowPolicy;
 import com.aol.advertising.vulcan.api.rolling.RollingPolicy;
+import com.aol.advertising.vulcan.api.rolling.RollingPolicyFactory;
+import com.aol.advertising.vulcan.api.sharding.ShardSelector;
+import com.aol.advertising.vulcan.partitioning.EventTimePartitioningConfig;
 import com.aol.advertising.vulcan.rolling.TimeAndSizeBasedRollingPolicyConfig;
 import com.lmax.disruptor.WaitStrategy;
 import com.lmax.disruptor.dsl.ProducerType;
@@ -20,16 +29,39 @@ public class AvroWriterFactory {
 
   private String avroFilename;
   private Schema avroSchema;
+  private boolean anySchema;
   private int ringBufferSize;
   private ProducerType producerType;
   private WaitStrategy waitStrategy;
   private RollingPolicy rollingPolicy;
   private TimeAndSizeBasedRollingPolicyConfig defaultRollingPolicyConfiguration;
+  private boolean producerSideSerialization;
+  private int offHeapSlotCapacity;
+  private int numberOfShards;
+  private ShardSelector shardSelector;
+  private EventTimePartitioningConfig eventTimePartitioning;
+  private RecordFilter recordFilter;
+  private Schema projectedSchema;
+  private RollingPolicyFactory rollingPolicyFactory;
+  private OverflowPolicy overflowPolicy;
+  private FlushPolicy flushPolicy;
+  private DurabilityPolicy durabilityPolicy;
+  private CodecFactory codec;
+  private int syncInterval;
+  private boolean schemaSpecializedEncoding;
+  private int stringCacheEntries;
+  private int encodingThreads;
+  private int compressionThreads;
+  private boolean backgroundRollover;
+  private boolean rolledFileCompression;
+  private boolean standbyFile;
+  private int memoryMappingSizeInMb;
+  private boolean metricsPublishedThroughJmx;
   
   public AvroWriter createNewWriter() {
-    OptionalSteps writerBuilder = AvroWriterBuilder.startCreatingANewWriter()
-                                                   .thatWritesTo(avroFilename)
-                                                   .thatWritesRecordsOf(avroSchema);
+    AvroSchemaStep schemaStep = AvroWriterBuilder.startCreatingANewWriter().thatWritesTo(avroFilename);
+    OptionalSteps writerBuilder =
+        anySchema ? schemaStep.thatWritesRecordsOfAnySchema() : schemaStep.thatWritesRecordsOf(avroSchema);
     if (ringBufferSize > 0) {
       writerBuilder.withRingBufferSize(ringBufferSize);
     }
@@ -45,6 +77,72 @@ public class AvroWriterFactory {
     if (rollingPolicy != null) {
       writerBuilder.withRollingPolicy(rollingPolicy);
     }
+    if (producerSideSerialization) {
+      writerBuilder.withProducerSideSerialization();
+    }
+    if (offHeapSlotCapacity > 0) {
+      writerBuilder.withOffHeapRingBuffer(offHeapSlotCapacity);
+    }
+    if (numberOfShards > 0) {
+      writerBuilder.withShards(numberOfShards);
+    }
+    if (shardSelector != null) {
+      writerBuilder.withShardSelector(shardSelector);
+    }
+    if (rollingPolicyFactory != null) {
+      writerBuilder.withRollingPolicyPerShard(rollingPolicyFactory);
+    }
+    if (eventTimePartitioning != null) {
+      writerBuilder.withEventTimePartitioning(eventTimePartitioning);
+    }
+    if (recordFilter != null) {
+      writerBuilder.withRecordFilter(recordFilter);
+    }
+    if (projectedSchema != null) {
+      writerBuilder.withProjectionTo(projectedSchema);
+    }
+    if (overflowPolicy != null) {
+      writerBuilder.withOverflowPolicy(overflowPolicy);
+    }
+    if (flushPolicy != null) {
+      writerBuilder.withFlushPolicy(flushPolicy);
+    }
+    if (durabilityPolicy != null) {
+      writerBuilder.withDurabilityPolicy(durabilityPolicy);
+    }
+    if (codec != null) {
+      writerBuilder.withCodec(codec);
+    }
+    if (syncInterval > 0) {
+      writerBuilder.withSyncInterval(syncInterval);
+    }
+    if (schemaSpecializedEncoding) {
+      writerBuilder.withSchemaSpecializedEncoding();
+    }
+    if (stringCacheEntries > 0) {
+      writerBuilder.withStringCache(stringCacheEntries);
+    }
+    if (encodingThreads > 0) {
+      writerBuilder.withParallelEncoding(encodingThreads);
+    }
+    if (compressionThreads > 0) {
+      writerBuilder.withParallelCompression(compressionThreads);
+    }
+    if (backgroundRollover) {
+      writerBuilder.withBackgroundRollover();
+    }
+    if (rolledFileCompression) {
+      writerBuilder.withRolledFilesCompressed();
+    }
+    if (standbyFile) {
+      writerBuilder.withStandbyFile();
+    }
+    if (memoryMappingSizeInMb > 0) {
+      writerBuilder.withMemoryMappedOutput(memoryMappingSizeInMb);
+    }
+    if (metricsPublishedThroughJmx) {
+      writerBuilder.withMetricsPublishedThroughJmx();
+    }
     return writerBuilder.createNewWriter();
   }
 
@@ -57,6 +155,10 @@ public class AvroWriterFactory {
     this.avroSchema = avroSchema;
   }
 
+  public void setAnySchema(boolean anySchema) {
+    this.anySchema = anySchema;
+  }
+
   public void setRingBufferSize(int ringBufferSize) {
     this.ringBufferSize = ringBufferSize;
   }
@@ -76,4 +178,92 @@ public class AvroWriterFactory {
   public void setRollingPolicy(RollingPolicy rollingPolicy) {
     this.rollingPolicy = rollingPolicy;
   }
+
+  public void setProducerSideSerialization(boolean producerSideSerialization) {
+    this.producerSideSerialization = producerSideSerialization;
+  }
+
+  public void setOffHeapSlotCapacity(int offHeapSlotCapacity) {
+    this.offHeapSlotCapacity = offHeapSlotCapacity;
+  }
+
+  public void setNumberOfShards(int numberOfShards) {
+    this.numberOfShards = numberOfShards;
+  }
+
+  public void setShardSelector(ShardSelector shardSelector) {
+    this.shardSelector = shardSelector;
+  }
+
+  public void setRollingPolicyFactory(RollingPolicyFactory rollingPolicyFactory) {
+    this.rollingPolicyFactory = rollingPolicyFactory;
+  }
+
+  public void setEventTimePartitioning(EventTimePartitioningConfig eventTimePartitioning) {
+    this.eventTimePartitioning = eventTimePartitioning;
+  }
+
+  public void setRecordFilter(RecordFilter recordFilter) {
+    this.recordFilter = recordFilter;
+  }
+
+  public void setProjectedSchema(Schema projectedSchema) {
+    this.projectedSchema = projectedSchema;
+  }
+
+  public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+    this.overflowPolicy = overflowPolicy;
+  }
+
+  public void setFlushPolicy(FlushPolicy flushPolicy) {
+    this.flushPolicy = flushPolicy;
+  }
+
+  public void setDurabilityPolicy(DurabilityPolicy durabilityPolicy) {
+    this.durabilityPolicy = durabilityPolicy;
+  }
+
+  public void setCodec(CodecFactory codec) {
+    this.codec = codec;
+  }
+
+  public void setSyncInterval(int syncInterval) {
+    this.syncInterval = syncInterval;
+  }
+
+  public void setSchemaSpecializedEncoding(boolean schemaSpecializedEncoding) {
+    this.schemaSpecializedEncoding = schemaSpecializedEncoding;
+  }
+
+  public void setStringCacheEntries(int stringCacheEntries) {
+    this.stringCacheEntries = stringCacheEntries;
+  }
+
+  public void setEncodingThreads(int encodingThreads) {
+    this.encodingThreads = encodingThreads;
+  }
+
+  public void setCompressionThreads(int compressionThreads) {
+    this.compressionThreads = compressionThreads;
+  }
+
+  public void setBackgroundRollover(boolean backgroundRollover) {
+    this.backgroundRollover = backgroundRollover;
+  }
+
+  public void setRolledFileCompression(boolean rolledFileCompression) {
+    this.rolledFileCompression = rolledFileCompression;
+  }
+
+  public void setStandbyFile(boolean standbyFile) {
+    this.standbyFile = standbyFile;
+  }
+
+  public void setMemoryMappingSizeInMb(int memoryMappingSizeInMb) {
+    this.memoryMappingSizeInMb = memoryMappingSizeInMb;
+  }
+
+  public void setMetricsPublishedThroughJmx(boolean metricsPublishedThroughJmx) {
+    this.metricsPublishedThroughJmx = metricsPublishedThroughJmx;
+  }
 }
@@ -2,6 +2,8 @@ package com.aol.advertising.vulcan.api.builder.steps;
 
 import org.apache.avro.Schema;
 
+import com.aol.advertising.vulcan.api.rolling.RollingPolicyFactory;
+
 /**
  * @author Jaime Nuche
  *
@@ -18,4 +20,21 @@ public interface AvroSchemaStep {
    */
   OptionalSteps thatWritesRecordsOf(Schema avroSchema);
 
+  /**
+   * Configures the Avro writer to accept records of any schema, each schema written to a file of its
+   * own named after the destination file plus the full name of the schema, i.e. {@code name.avro}
+   * becomes {@code name-com.example.Click.avro}. All files are written from one ring buffer by one
+   * consumer thread, and each one is rolled independently, so custom rolling policies must be
+   * provided with {@link OptionalSteps#withRollingPolicyPerShard(RollingPolicyFactory)}. Files are
+   * created the first time a record of their schema is written. Options that add threads, such as
+   * parallel compression or background rollover, add them per file
+   * <p>
+   * Records cannot be written already encoded, nor serialized by producers or by an encoding stage,
+   * and the writer cannot be sharded
+   * 
+   * @throws IllegalStateException when creating the writer if any of the options above was
+   *         configured, or a rolling policy or overflow policy that cannot be shared between files
+   */
+  OptionalSteps thatWritesRecordsOfAnySchema();
+
 }
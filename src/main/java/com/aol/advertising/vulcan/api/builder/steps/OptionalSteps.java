@@ -1,10 +1,27 @@
 package com.aol.advertising.vulcan.api.builder.steps;
 
+import org.apache.avro.Schema;
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.specific.SpecificRecord;
+
 import com.aol.advertising.vulcan.api.AvroWriter;
+import com.aol.advertising.vulcan.api.durability.DurabilityPolicy;
+import com.aol.advertising.vulcan.api.filter.RecordFilter;
+import com.aol.advertising.vulcan.api.flush.FlushPolicy;
+import com.aol.advertising.vulcan.api.overflow.ConsumerAssistedOverflowPolicy;
+import com.aol.advertising.vulcan.api.overflow.OverflowPolicy;
+import com.aol.advertising.vulcan.api.rolling.RolledFileAwareRollingPolicy;
 import com.aol.advertising.vulcan.api.rolling.RollingPolicy;
+import com.aol.advertising.vulcan.api.rolling.RollingPolicyFactory;
+import com.aol.advertising.vulcan.api.sharding.ShardSelector;
+import com.aol.advertising.vulcan.durability.NoForceDurabilityPolicy;
+import com.aol.advertising.vulcan.flush.EndOfBatchFlushPolicy;
+import com.aol.advertising.vulcan.partitioning.EventTimePartitioningConfig;
 import com.aol.advertising.vulcan.rolling.TimeAndSizeBasedRollingPolicy;
 import com.aol.advertising.vulcan.rolling.TimeAndSizeBasedRollingPolicyConfig;
+import com.aol.advertising.vulcan.sharding.RoundRobinShardSelector;
 import com.lmax.disruptor.SleepingWaitStrategy;
+import com.lmax.disruptor.TimeoutBlockingWaitStrategy;
 import com.lmax.disruptor.WaitStrategy;
 import com.lmax.disruptor.dsl.ProducerType;
 
@@ -37,7 +54,12 @@ public interface OptionalSteps {
    * is used to consume new events from the ring buffer. Typically, they represent varying degrees
    * of compromise between optimal latency and throughput, and CPU usage.
    * <p>
-   * Default is {@link SleepingWaitStrategy}
+   * Default is {@link SleepingWaitStrategy}, unless the flush or durability policy has a maximum
+   * delay, e.g. {@code TimeIntervalFlushPolicy} or {@code PeriodicForceDurabilityPolicy}. The
+   * default is then a {@link TimeoutBlockingWaitStrategy} that times out after the shortest of those
+   * delays, so the consumer wakes up to flush and force while no events arrive. A wait strategy
+   * configured here is always used as it is, and a warning is logged if it does not time out while
+   * a policy needs it to
    */
   OptionalSteps withWaitStrategy(WaitStrategy waitStrategy);
 
@@ -53,6 +75,278 @@ public interface OptionalSteps {
    */
   OptionalSteps withDefaultRollingPolicyConfiguration(TimeAndSizeBasedRollingPolicyConfig configuration);
 
+  /**
+   * Stripes records across {@code numberOfShards} independent writers, each one with its own ring
+   * buffer, consumer thread and destination file. Shard files are named after the configured
+   * destination file plus the shard index, i.e. {@code name.avro} becomes {@code name-0.avro}
+   * &hellip; {@code name-<numberOfShards - 1>.avro}. Every shard rolls its file independently, so
+   * custom rolling policies must be provided with
+   * {@link #withRollingPolicyPerShard(RollingPolicyFactory)}
+   * <p>
+   * Default is 1 shard, i.e. a plain writer bound to the destination file
+   * 
+   * @throws IllegalArgumentException if {@code numberOfShards} is lower than 1
+   */
+  OptionalSteps withShards(int numberOfShards);
+
+  /**
+   * Strategy used to pick the shard for each record when writing to more than one shard
+   * <p>
+   * Default is {@link RoundRobinShardSelector}
+   */
+  OptionalSteps withShardSelector(ShardSelector shardSelector);
+
+  /**
+   * Rolling policies for writers with more than one destination file. A new policy is obtained for
+   * each file. Takes precedence over {@link #withRollingPolicy(RollingPolicy)}
+   */
+  OptionalSteps withRollingPolicyPerShard(RollingPolicyFactory rollingPolicyFactory);
+
+  /**
+   * Partitions records by the time of the events they describe instead of by arrival time: each
+   * record goes to the file of the time bucket its event time falls in, named after the configured
+   * destination file plus the local start time of the bucket, i.e. {@code name.avro} becomes
+   * {@code name-2015-06-01-13.avro} for hourly buckets. A bounded number of buckets is kept open
+   * for late records, and the file of a bucket is closed once a record far enough ahead arrives (see
+   * {@link EventTimePartitioningConfig}). Every bucket file rolls independently, so custom rolling
+   * policies must be provided with {@link #withRollingPolicyPerShard(RollingPolicyFactory)}
+   * <p>
+   * Default is to write every record to the destination file
+   * 
+   * @throws IllegalStateException when creating the writer if it is sharded, has an off-heap ring
+   *         buffer or accepts records of any schema, or with a rolling policy or overflow policy
+   *         that cannot be shared between files
+   */
+  OptionalSteps withEventTimePartitioning(EventTimePartitioningConfig configuration);
+
+  /**
+   * Drops the records {@code recordFilter} rejects on the consumer thread, before they are
+   * serialized, e.g. to keep a deterministic sample with a
+   * {@link com.aol.advertising.vulcan.filter.SamplingRecordFilter}. The same filter is used for every
+   * destination file. Records serialized by producers are still filtered, but after paying for their
+   * serialization; records already encoded and appended files are never filtered
+   * <p>
+   * Default is to write every record
+   * 
+   * @throws IllegalStateException when creating the writer if it has an off-heap ring buffer, as its
+   *         records are gone by the time they are consumed
+   */
+  OptionalSteps withRecordFilter(RecordFilter recordFilter);
+
+  /**
+   * Writes only the top-level fields of {@code projectedSchema}, which must all be fields of the
+   * schema of the records with the same name and schema. Files are written with the projected
+   * schema, so they can be read with it or with any reader schema compatible with it. Encoded
+   * records and appended files must already be in the projected schema
+   * <p>
+   * Default is to write the whole records
+   * 
+   * @throws IllegalStateException when creating the writer if records are serialized by producers
+   *         or by an encoding stage, or if it accepts records of any schema
+   * @throws IllegalArgumentException when creating the writer if {@code projectedSchema} is not a
+   *         projection of the schema of the records
+   */
+  OptionalSteps withProjectionTo(Schema projectedSchema);
+
+  /**
+   * Serializes Avro records on the threads calling {@link AvroWriter#write} instead of on the
+   * single consumer thread. Encoding is usually the most CPU-intensive part of writing a record,
+   * so this spreads that cost across all the producers and lets the consumer keep up with higher
+   * event rates. Each ring buffer slot keeps a reusable buffer for the encoded bytes, so memory
+   * usage grows with the ring buffer size and the size of the records.
+   * <p>
+   * Default is to serialize on the consumer thread
+   */
+  OptionalSteps withProducerSideSerialization();
+
+  /**
+   * Keeps the records waiting in the ring buffer off the Java heap. Each slot gets a region of
+   * {@code slotCapacity} bytes in a direct buffer allocated when the writer is created, records are
+   * serialized into it on the threads calling {@link AvroWriter#write} (see
+   * {@link #withProducerSideSerialization()}, which this option implies) and the ring buffer drops
+   * its reference to them, so they can be garbage collected or reused as soon as {@code write}
+   * returns. Records bigger than a slot are still written, through a temporary heap buffer. The
+   * direct buffer takes ring buffer size times {@code slotCapacity} bytes, up to 2GB. Rolling
+   * policies receive a null record
+   * <p>
+   * Default is to keep references to the records in the ring buffer
+   * 
+   * @throws IllegalArgumentException if {@code slotCapacity} is lower than 1, or when creating the
+   *         writer if the slots would take more than 2GB
+   */
+  OptionalSteps withOffHeapRingBuffer(int slotCapacity);
+
+  /**
+   * What {@link AvroWriter#write(SpecificRecord)} does when the ring buffer is full. See the
+   * implementations in {@code com.aol.advertising.vulcan.overflow}: block, drop the new record,
+   * drop old records by sampling, spill to a secondary buffer or wait for a bounded time. Policies
+   * implementing {@link ConsumerAssistedOverflowPolicy} cannot be used with more than one shard
+   * <p>
+   * Default is to block until a slot is free, without counting overflows
+   */
+  OptionalSteps withOverflowPolicy(OverflowPolicy overflowPolicy);
+
+  /**
+   * When buffered records are pushed to the destination file. See the implementations in
+   * {@code com.aol.advertising.vulcan.flush}: at the end of every batch, every N records, every N
+   * bytes, every T milliseconds, or any combination of them. Flushing less often means fewer write
+   * syscalls in exchange for a bounded window of records that are only in memory. Unless a wait
+   * strategy is configured explicitly, policies with a maximum flush delay make the writer use a
+   * {@link TimeoutBlockingWaitStrategy} so pending records are flushed while no events arrive
+   * <p>
+   * Default is {@link EndOfBatchFlushPolicy}
+   */
+  OptionalSteps withFlushPolicy(FlushPolicy flushPolicy);
+
+  /**
+   * When written records are forced to the storage device, beyond the page cache of the OS. See the
+   * implementations in {@code com.aol.advertising.vulcan.durability}: never, periodically, or once
+   * per batch so concurrent producers share the cost of each force. Records written with
+   * {@link AvroWriter#writeDurably(SpecificRecord)} are forced at the end of their batch whatever
+   * the policy. Periodic policies make the writer use a {@link TimeoutBlockingWaitStrategy} in the
+   * same way as flush policies with a maximum delay
+   * <p>
+   * Default is {@link NoForceDurabilityPolicy}
+   */
+  OptionalSteps withDurabilityPolicy(DurabilityPolicy durabilityPolicy);
+
+  /**
+   * Codec used to compress the blocks of the destination file, e.g.
+   * {@link CodecFactory#deflateCodec(int)}, {@link CodecFactory#snappyCodec()},
+   * {@link CodecFactory#bzip2Codec()} or {@link CodecFactory#xzCodec(int)}. An existing destination
+   * file written with a different codec is rolled when the writer starts
+   * <p>
+   * Default is no compression
+   * 
+   * @throws IllegalArgumentException when creating the writer if the codec cannot be used in this
+   *         platform, e.g. the native library of snappy is missing
+   */
+  OptionalSteps withCodec(CodecFactory codec);
+
+  /**
+   * Approximate size in bytes of the blocks of the destination file, i.e. how many bytes of records
+   * are buffered before they are compressed and a sync marker is written. Bigger blocks compress
+   * better and smaller ones lose less data if the process crashes without flushing
+   * <p>
+   * Default is 2MB
+   * 
+   * @throws IllegalArgumentException if {@code syncInterval} is not between 32 bytes and 1GB
+   */
+  OptionalSteps withSyncInterval(int syncInterval);
+
+  /**
+   * Serializes records with a datum writer specialized for the schema of the writer when it is
+   * created, instead of Avro's {@code SpecificDatumWriter}, which works out how to write every value
+   * of every record from its schema. Files hold the same bytes either way. Applies wherever records
+   * are serialized: on the consumer, on the producers or on the encoding stage
+   * <p>
+   * Default is {@code SpecificDatumWriter}
+   */
+  OptionalSteps withSchemaSpecializedEncoding();
+
+  /**
+   * Keeps the UTF-8 bytes of up to {@code entries} recently written strings, rounded up to a power of
+   * two, so low-cardinality values repeated across records, e.g. countries or device types, are only
+   * encoded the first times they are seen. Each consumer has its own cache, and a string is only
+   * cached the second time in a row it misses its slot, so values that never repeat do not evict the
+   * ones that do. Files hold the same bytes either way. Hits and misses are reported in the metrics
+   * of the writer
+   * <p>
+   * Default is to encode every string
+   * 
+   * @throws IllegalArgumentException if {@code entries} is not between 1 and 1M
+   * @throws IllegalStateException when creating the writer if records are serialized by producers or
+   *         by an encoding stage, as the cache only applies to the consumer
+   */
+  OptionalSteps withStringCache(int entries);
+
+  /**
+   * Serializes records on a pool of {@code encodingThreads} threads placed between the publishers
+   * and the consumer thread, which then only copies serialized records into the file. Useful when
+   * serialization of large or complex records caps the throughput of the single consumer thread and
+   * publishers should not pay for it either (see {@link #withProducerSideSerialization()}).
+   * Compression can be taken off the consumer thread as well, see
+   * {@link #withParallelCompression(int)}
+   * <p>
+   * Default is to serialize records on the consumer thread
+   * 
+   * @throws IllegalArgumentException if {@code encodingThreads} is lower than 1
+   * @throws IllegalStateException when creating the writer if producer-side serialization or an
+   *         off-heap ring buffer was also configured
+   */
+  OptionalSteps withParallelEncoding(int encodingThreads);
+
+  /**
+   * Compresses full blocks on a pool of {@code compressionThreads} threads instead of on the consumer
+   * thread, which then only copies compressed blocks into the file in their original order. Useful
+   * with expensive codecs such as xz or bzip2, whose compression would otherwise cap the throughput
+   * of the writer. Each flush compresses the current block even if it is not full, so pair it with a
+   * flush policy that does not flush on every batch, e.g. a {@code TimeIntervalFlushPolicy}
+   * <p>
+   * Default is to compress on the consumer thread
+   * 
+   * @throws IllegalArgumentException if {@code compressionThreads} is lower than 1
+   * @throws IllegalStateException when creating the writer if no codec was configured
+   */
+  OptionalSteps withParallelCompression(int compressionThreads);
+
+  /**
+   * Rolls files without stopping the consumer thread: the file is renamed while still open, to
+   * {@code <rolled file>.part}, records go to a new file straight away and the rolled file is closed
+   * on a background thread, which only then gives it its rolled name. Files that cannot be closed
+   * keep the {@code .part} name. Renaming open files needs a POSIX file system, and the rolling
+   * policy has to implement {@link RolledFileAwareRollingPolicy}, as the default one does. If the
+   * file cannot be renamed, records keep going to it as with the default rollover
+   * <p>
+   * Default is to close and rename the file on the consumer thread before writing more records
+   * 
+   * @throws IllegalStateException when creating the writer if the rolling policy does not report
+   *         where rolled files go
+   */
+  OptionalSteps withBackgroundRollover();
+
+  /**
+   * Gzips rolled files in the background (see {@link #withBackgroundRollover()}, which this option
+   * implies) into {@code <rolled file>.gz}, which only appears once complete. The rolled file is
+   * deleted afterwards
+   * <p>
+   * Default is to leave rolled files uncompressed
+   */
+  OptionalSteps withRolledFilesCompressed();
+
+  /**
+   * Keeps the next destination file ready in the destination directory, as a hidden
+   * {@code .<destination file name>.standby} file with the Avro header already written, so a roll
+   * only has to rename it. The file is prepared in the background (see
+   * {@link #withBackgroundRollover()}, which this option implies) right after each roll, and removed
+   * when the writer is closed
+   * <p>
+   * Default is to create the new file when rolling
+   */
+  OptionalSteps withStandbyFile();
+
+  /**
+   * Writes files through memory-mapped windows of {@code mappingSizeInMb} instead of an output
+   * stream, which saves a system call and a copy per block written. Files are extended a window at a
+   * time and truncated to their contents when closed or rolled, so until then they end in zeros that
+   * Avro readers fail on. Use a window as large as the rolling size, so each file only needs one. A
+   * file left padded by a crash is trimmed back to its last complete block when written to again
+   * <p>
+   * Default is to write through an output stream
+   * 
+   * @throws IllegalArgumentException if {@code mappingSizeInMb} is not between 1 and 1024
+   */
+  OptionalSteps withMemoryMappedOutput(int mappingSizeInMb);
+
+  /**
+   * Registers the metrics of the writer (see {@link AvroWriter#getMetrics()}) as an MXBean in the
+   * platform MBean server, named after the destination file. The MXBean is unregistered when the
+   * writer is closed
+   * <p>
+   * Default is to expose metrics only through {@link AvroWriter#getMetrics()}
+   */
+  OptionalSteps withMetricsPublishedThroughJmx();
+
   /**
    * Finish configuration and create a new {@link AvroWriter} instance
    */
@@ -0,0 +1,40 @@
+package com.aol.advertising.vulcan.api.durability;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides when the consumer forces written records to the storage device with
+ * {@link java.nio.channels.FileChannel#force(boolean)}. Flushing only hands records to the page
+ * cache of the OS, so they can still be lost on a power failure or kernel crash. Every force waits
+ * for the device, so it is done for whole batches of records at once
+ * <p>
+ * Records written with {@link com.aol.advertising.vulcan.api.AvroWriter#writeDurably} are forced at
+ * the end of their batch whatever the policy. Called from the single consumer thread.
+ * Implementations are expected to be stateless, so the same instance can be shared between shards
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public interface DurabilityPolicy {
+
+  /**
+   * Called when there are unforced records and the consumer has caught up with the producers, i.e.
+   * at the end of every batch of events, and whenever waiting for new events times out
+   * 
+   * @param nanosSinceLastForce time elapsed since the last force
+   */
+  boolean shouldForceWhenIdle(long nanosSinceLastForce);
+
+  /**
+   * Called when there are unforced records and the file is about to be closed, either because it
+   * is rolled or because the writer is closed
+   */
+  boolean shouldForceBeforeClosing();
+
+  /**
+   * Longest time records may stay unforced while no new events arrive, or 0 if time is not a
+   * criterion for this policy. Writers use it to wake up the consumer with a
+   * {@link com.lmax.disruptor.TimeoutBlockingWaitStrategy}
+   */
+  long getMaximumForceDelay(TimeUnit unit);
+}
@@ -0,0 +1,25 @@
+package com.aol.advertising.vulcan.api.filter;
+
+import org.apache.avro.specific.SpecificRecord;
+
+/**
+ * Decides which records reach the destination file, e.g. to keep a sample of debug events. Records
+ * are filtered on the consumer thread, so producers do not pay for it. Records written already
+ * encoded and appended files are never filtered
+ * <p>
+ * Called from consumer threads. The same instance is used by every shard of a writer, so
+ * implementations must be safe to call from several threads at once
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public interface RecordFilter {
+
+  /**
+   * Decide if a record is written
+   * 
+   * @param avroRecord the Avro record about to be written
+   * @return false to drop the record
+   */
+  boolean shouldWrite(SpecificRecord avroRecord);
+}
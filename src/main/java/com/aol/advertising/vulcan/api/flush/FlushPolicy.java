@@ -0,0 +1,49 @@
+package com.aol.advertising.vulcan.api.flush;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides when the consumer pushes the records it has buffered to the destination file. Every
+ * flush is at least one write syscall, so flushing less often trades a bounded window of records
+ * that only live in memory for higher throughput. Rolling a file and closing the writer always
+ * flush
+ * <p>
+ * Called from the single consumer thread. Implementations are expected to be stateless, so the
+ * same instance can be shared between shards
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public interface FlushPolicy {
+
+  /**
+   * Called after every record appended to the current file
+   * 
+   * @param unflushedRecords records appended since the last flush, including this one
+   * @param unflushedBytes serialized size of those records
+   */
+  boolean shouldFlushAfterRecord(long unflushedRecords, long unflushedBytes);
+
+  /**
+   * Called when the consumer has caught up with the producers, i.e. at the end of every batch of
+   * events, and whenever waiting for new events times out
+   * 
+   * @param unflushedRecords records appended since the last flush
+   * @param nanosSinceLastFlush time elapsed since the last flush
+   */
+  boolean shouldFlushWhenIdle(long unflushedRecords, long nanosSinceLastFlush);
+
+  /**
+   * Longest time records may stay unflushed while no new events arrive, or 0 if time is not a
+   * flushing criterion for this policy. Writers use it to wake up the consumer with a
+   * {@link com.lmax.disruptor.TimeoutBlockingWaitStrategy}
+   */
+  long getMaximumFlushDelay(TimeUnit unit);
+
+  /**
+   * Whether this policy looks at the serialized size of the unflushed records. Measuring records
+   * serialized by the consumer costs an extra copy of every record, so it is only done for policies
+   * that need it; otherwise the consumer reports 0 bytes for them
+   */
+  boolean isSizeBased();
+}
@@ -0,0 +1,22 @@
+package com.aol.advertising.vulcan.api.metrics;
+
+/**
+ * Snapshot of the values recorded by a histogram. Values are bucketed with a relative error of at
+ * most 12.5%, except for {@link #getMax()}, which is exact
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public interface Distribution {
+
+  long getCount();
+
+  long getMax();
+
+  double getMean();
+
+  /**
+   * @param percentile between 0 and 100
+   */
+  long getValueAtPercentile(double percentile);
+}
@@ -0,0 +1,103 @@
+package com.aol.advertising.vulcan.api.metrics;
+
+/**
+ * Live metrics of an {@link com.aol.advertising.vulcan.api.AvroWriter}. Counters are updated
+ * without locks by the writer threads and can be read at any time from any thread. Latencies and
+ * durations are in nanoseconds
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public interface WriterMetrics {
+
+  /**
+   * Events published to the ring buffer and not consumed yet
+   */
+  long getQueueDepth();
+
+  /**
+   * Free slots in the ring buffer
+   */
+  long getRemainingCapacity();
+
+  /**
+   * Records written to file since the writer was created
+   */
+  long getRecordsWritten();
+
+  /**
+   * Bytes written to file since the writer was created, including Avro headers and sync markers
+   */
+  long getBytesWritten();
+
+  /**
+   * Records written per second. The rate is recomputed when read, at most once per second, over the
+   * time elapsed since it was last recomputed, so it stays at 0 during the first second
+   */
+  double getRecordsPerSecond();
+
+  /**
+   * Bytes written per second, measured like {@link #getRecordsPerSecond()}
+   */
+  double getBytesPerSecond();
+
+  /**
+   * Strings written with the UTF-8 bytes cached from a previous record, see
+   * {@link com.aol.advertising.vulcan.api.builder.steps.OptionalSteps#withStringCache(int)}. Always 0
+   * without a string cache
+   */
+  long getStringCacheHits();
+
+  /**
+   * Strings looked up in the string cache and encoded because they were not in it
+   */
+  long getStringCacheMisses();
+
+  /**
+   * Records that found the ring buffer full and were handed to the overflow policy, see
+   * {@link com.aol.advertising.vulcan.api.builder.steps.OptionalSteps#withOverflowPolicy}. Always 0
+   * without an overflow policy
+   */
+  long getOverflowedRecords();
+
+  /**
+   * Records dropped by the overflow policy, either because they found the ring buffer full, e.g.
+   * when a timed wait ran out or the secondary buffer was full too, or because the consumer shed
+   * them to make room for newer ones
+   */
+  long getDroppedRecords();
+
+  /**
+   * Records dropped by writers partitioned by event time because their bucket was already closed,
+   * see {@link com.aol.advertising.vulcan.partitioning.EventTimePartitioningConfig#withOpenBuckets}.
+   * Always 0 without event time partitioning
+   */
+  long getLateRecords();
+
+  /**
+   * Records dropped by writers partitioned by event time because their bucket starts more than one
+   * bucket after the current one, which would otherwise close every bucket still being written
+   */
+  long getFutureRecords();
+
+  /**
+   * Number of events taken from the ring buffer by the consumer at once
+   */
+  Distribution getBatchSizes();
+
+  /**
+   * Time spent flushing buffered data to the file
+   */
+  Distribution getFlushLatencies();
+
+  /**
+   * Time spent forcing written data to the storage device, see
+   * {@link com.aol.advertising.vulcan.api.durability.DurabilityPolicy}
+   */
+  Distribution getForceLatencies();
+
+  /**
+   * Time spent rolling the file, from closing it to opening its replacement
+   */
+  Distribution getRollDurations();
+}
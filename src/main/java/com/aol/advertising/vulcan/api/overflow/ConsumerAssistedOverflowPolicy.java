@@ -0,0 +1,29 @@
+package com.aol.advertising.vulcan.api.overflow;
+
+import java.io.IOException;
+
+/**
+ * {@link OverflowPolicy} that also needs to act on the consumer side of the writer, either to shed
+ * load from the ring buffer or to write records it retained outside of it. Consumer hooks are
+ * called from the single consumer thread
+ * <p>
+ * These policies keep per-writer state and cannot be shared between writers or shards
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public interface ConsumerAssistedOverflowPolicy extends OverflowPolicy {
+
+  /**
+   * Called for every event taken from the ring buffer, before writing it
+   * 
+   * @return true if the event should be dropped instead of written
+   */
+  boolean shouldDiscardNextEvent();
+
+  /**
+   * Called at the end of every batch of events and on shutdown, to write any records the policy
+   * kept outside of the ring buffer
+   */
+  void drainRetainedRecordsTo(RecordAppender recordAppender) throws IOException;
+}
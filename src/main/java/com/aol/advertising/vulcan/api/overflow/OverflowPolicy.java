@@ -0,0 +1,30 @@
+package com.aol.advertising.vulcan.api.overflow;
+
+import org.apache.avro.specific.SpecificRecord;
+
+import com.aol.advertising.vulcan.api.AvroWriter;
+
+/**
+ * Decides what {@link AvroWriter#write(SpecificRecord)} does with a record when the ring buffer is
+ * full, i.e. when the consumer cannot keep up with the producers. Called on the producer thread,
+ * so implementations must be thread-safe and should not allocate
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public interface OverflowPolicy {
+
+  /**
+   * Handle a record that could not be published because the ring buffer was full
+   * 
+   * @param avroRecord the record being written
+   * @param ringBuffer access to the ring buffer of the writer, to retry publishing the record
+   * @return true if the record was accepted and will be written, false if it was dropped
+   */
+  boolean onRingBufferFull(SpecificRecord avroRecord, RingBufferAccess ringBuffer);
+
+  /**
+   * Number of records this policy had to handle because they found the ring buffer full
+   */
+  long getAffectedRecords();
+}
@@ -0,0 +1,17 @@
+package com.aol.advertising.vulcan.api.overflow;
+
+import java.io.IOException;
+
+import org.apache.avro.specific.SpecificRecord;
+
+/**
+ * Direct access to the destination file of a writer, bypassing the ring buffer. Only usable from
+ * the consumer thread
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public interface RecordAppender {
+
+  void append(SpecificRecord avroRecord) throws IOException;
+}
@@ -0,0 +1,27 @@
+package com.aol.advertising.vulcan.api.overflow;
+
+import org.apache.avro.specific.SpecificRecord;
+
+/**
+ * Publishing operations on the ring buffer of a writer, available to {@link OverflowPolicy}
+ * implementations
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public interface RingBufferAccess {
+
+  /**
+   * Publish a record if there is a free slot in the ring buffer
+   * 
+   * @return false if the ring buffer was full and the record was not published
+   */
+  boolean tryPublish(SpecificRecord avroRecord);
+
+  /**
+   * Publish a record, waiting for as long as necessary for a free slot in the ring buffer
+   */
+  void publish(SpecificRecord avroRecord);
+
+  int getBufferSize();
+}
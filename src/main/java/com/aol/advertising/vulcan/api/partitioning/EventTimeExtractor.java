@@ -0,0 +1,22 @@
+package com.aol.advertising.vulcan.api.partitioning;
+
+import org.apache.avro.specific.SpecificRecord;
+
+/**
+ * Reads the time of the event a record describes, which decides the time bucket, and so the file,
+ * the record is written to by writers partitioned by event time. Implementations are only called
+ * from the consumer thread of the writer
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public interface EventTimeExtractor {
+
+  /**
+   * Extract the event time of the record
+   * 
+   * @param avroRecord the Avro record about to be written
+   * @return the event time in milliseconds since the epoch
+   */
+  long extractEventTimeFrom(SpecificRecord avroRecord);
+}
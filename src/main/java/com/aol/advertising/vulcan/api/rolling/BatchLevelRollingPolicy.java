@@ -0,0 +1,32 @@
+package com.aol.advertising.vulcan.api.rolling;
+
+import org.apache.avro.specific.SpecificRecord;
+
+/**
+ * Rolling policy whose decisions do not depend on the records written, so the writer can check it
+ * less often than after every record: once at the end of every batch of events in which records
+ * were appended and, within long batches, every so many records or bytes. The record passed to
+ * {@link #shouldRollover(SpecificRecord)} is always null
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public interface BatchLevelRollingPolicy extends RollingPolicy {
+
+  /**
+   * Called by the writer once, before any record is written
+   * 
+   * @return records appended between checks within a batch, or 0 if the number of records is not a
+   *         checking criterion for this policy
+   */
+  long getRecordsBetweenChecks();
+
+  /**
+   * Called by the writer once, before any record is written. Records only reach the file a block at
+   * a time, so 1 means checking whenever a block is written
+   * 
+   * @return bytes written to the target Avro file between checks within a batch, or 0 if the file
+   *         size is not a checking criterion for this policy
+   */
+  long getBytesBetweenChecks();
+}
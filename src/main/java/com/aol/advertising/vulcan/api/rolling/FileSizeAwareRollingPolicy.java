@@ -0,0 +1,18 @@
+package com.aol.advertising.vulcan.api.rolling;
+
+/**
+ * Rolling policy that can base its decisions on the size of the destination file tracked by the
+ * writer, instead of reading it from disk
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public interface FileSizeAwareRollingPolicy extends RollingPolicy {
+
+  /**
+   * Called by the writer once, before any record is written
+   * 
+   * @param fileSizeTracker live size of the target Avro file
+   */
+  void trackFileSizeWith(FileSizeTracker fileSizeTracker);
+}
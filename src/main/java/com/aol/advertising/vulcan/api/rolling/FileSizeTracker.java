@@ -0,0 +1,17 @@
+package com.aol.advertising.vulcan.api.rolling;
+
+/**
+ * Size of the destination file of a writer as the writer itself accounts for it, without asking
+ * the file system. Only usable from the consumer thread
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public interface FileSizeTracker {
+
+  /**
+   * @return bytes in the destination file when the writer opened it plus every byte the writer has
+   *         written to it since. Records still buffered by the writer are not included
+   */
+  long getFileSizeInBytes();
+}
@@ -0,0 +1,30 @@
+package com.aol.advertising.vulcan.api.rolling;
+
+import java.nio.file.Path;
+
+import com.aol.advertising.vulcan.exception.FileRollingException;
+
+/**
+ * Rolling policy that tells the writer where the last rolled file went, so the writer can keep
+ * working on it after rolling, e.g. to close it in the background and compress it
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public interface RolledFileAwareRollingPolicy extends RollingPolicy {
+
+  /**
+   * @return the name the target Avro file got in the last call to {@link #rolloverAvroFile()}, null
+   *         if it has not been rolled yet
+   */
+  Path getLastRolledFilename();
+
+  /**
+   * Rolls over the target Avro file like {@link #rolloverAvroFile()}, but leaves it under its rolled
+   * name plus {@code partialFileExtension}, for the writer to give it the rolled name once it is
+   * complete. {@link #getLastRolledFilename()} still returns the rolled name
+   * 
+   * @throws {@code FileRollingException} if the file could not be rolled
+   */
+  void rolloverAvroFileAsPartial(String partialFileExtension) throws FileRollingException;
+}
@@ -24,7 +24,9 @@ public interface RollingPolicy {
   /**
    * Decide if a rollover on the target Avro file is due
    * 
-   * @param avroRecord the Avro record from the latest event consumed from the ring buffer
+   * @param avroRecord the Avro record from the latest event consumed from the ring buffer. Null
+   *        when the writer keeps records off-heap or the record was written already encoded, as
+   *        only its serialized form is available
    */
   boolean shouldRollover(SpecificRecord avroRecord);
 
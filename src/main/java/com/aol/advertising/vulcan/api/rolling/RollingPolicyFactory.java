@@ -0,0 +1,16 @@
+package com.aol.advertising.vulcan.api.rolling;
+
+/**
+ * Provides independent {@link RollingPolicy} instances for writers that manage more than one
+ * target Avro file, such as sharded writers
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public interface RollingPolicyFactory {
+
+  /**
+   * Create a new, unregistered rolling policy. Every call must return a different instance
+   */
+  RollingPolicy newRollingPolicy();
+}
@@ -0,0 +1,22 @@
+package com.aol.advertising.vulcan.api.sharding;
+
+import org.apache.avro.specific.SpecificRecord;
+
+/**
+ * Decides which shard of a sharded writer receives each record. Implementations are called from
+ * the threads writing records and must be thread-safe
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public interface ShardSelector {
+
+  /**
+   * Select the shard the record will be written to
+   * 
+   * @param avroRecord the Avro record about to be written
+   * @param numberOfShards total number of shards in the writer
+   * @return a shard index between 0 and {@code numberOfShards - 1}
+   */
+  int selectShardFor(SpecificRecord avroRecord, int numberOfShards);
+}
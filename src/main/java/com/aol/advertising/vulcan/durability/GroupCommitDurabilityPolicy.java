@@ -0,0 +1,31 @@
+package com.aol.advertising.vulcan.durability;
+
+import java.util.concurrent.TimeUnit;
+
+import com.aol.advertising.vulcan.api.durability.DurabilityPolicy;
+
+/**
+ * Forces written records at the end of every batch, so all the records the producers published
+ * while the previous force was in progress share the next one. The cost of forcing is amortized
+ * over more records the higher the event rate
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public class GroupCommitDurabilityPolicy implements DurabilityPolicy {
+
+  @Override
+  public boolean shouldForceWhenIdle(long nanosSinceLastForce) {
+    return true;
+  }
+
+  @Override
+  public boolean shouldForceBeforeClosing() {
+    return true;
+  }
+
+  @Override
+  public long getMaximumForceDelay(TimeUnit unit) {
+    return 0;
+  }
+}
@@ -0,0 +1,30 @@
+package com.aol.advertising.vulcan.durability;
+
+import java.util.concurrent.TimeUnit;
+
+import com.aol.advertising.vulcan.api.durability.DurabilityPolicy;
+
+/**
+ * Leaves it to the OS to write records to the storage device. Only records written durably are
+ * forced
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public class NoForceDurabilityPolicy implements DurabilityPolicy {
+
+  @Override
+  public boolean shouldForceWhenIdle(long nanosSinceLastForce) {
+    return false;
+  }
+
+  @Override
+  public boolean shouldForceBeforeClosing() {
+    return false;
+  }
+
+  @Override
+  public long getMaximumForceDelay(TimeUnit unit) {
+    return 0;
+  }
+}
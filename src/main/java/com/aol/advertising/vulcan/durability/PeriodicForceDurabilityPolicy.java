@@ -0,0 +1,40 @@
+package com.aol.advertising.vulcan.durability;
+
+import java.util.concurrent.TimeUnit;
+
+import com.aol.advertising.vulcan.api.durability.DurabilityPolicy;
+
+/**
+ * Forces written records once a given time has passed since the previous force, and before
+ * closing each file. Bounds the window of records that can be lost on a crash to roughly the
+ * interval, with at most one force per interval
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public class PeriodicForceDurabilityPolicy implements DurabilityPolicy {
+
+  private final long forceIntervalInNanos;
+
+  public PeriodicForceDurabilityPolicy(long forceInterval, TimeUnit unit) {
+    if (forceInterval < 1) {
+      throw new IllegalArgumentException("Force interval must be positive");
+    }
+    this.forceIntervalInNanos = unit.toNanos(forceInterval);
+  }
+
+  @Override
+  public boolean shouldForceWhenIdle(long nanosSinceLastForce) {
+    return nanosSinceLastForce >= forceIntervalInNanos;
+  }
+
+  @Override
+  public boolean shouldForceBeforeClosing() {
+    return true;
+  }
+
+  @Override
+  public long getMaximumForceDelay(TimeUnit unit) {
+    return unit.convert(forceIntervalInNanos, TimeUnit.NANOSECONDS);
+  }
+}
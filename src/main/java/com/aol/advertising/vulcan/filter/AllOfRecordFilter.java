@@ -0,0 +1,31 @@
+package com.aol.advertising.vulcan.filter;
+
+import org.apache.avro.specific.SpecificRecord;
+
+import com.aol.advertising.vulcan.api.filter.RecordFilter;
+
+/**
+ * Writes records that all of the combined filters would write. Filters are asked in order until one
+ * drops the record
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public class AllOfRecordFilter implements RecordFilter {
+
+  private final RecordFilter[] recordFilters;
+
+  public AllOfRecordFilter(RecordFilter... recordFilters) {
+    this.recordFilters = RecordFilters.validate(recordFilters);
+  }
+
+  @Override
+  public boolean shouldWrite(SpecificRecord avroRecord) {
+    for (RecordFilter recordFilter : recordFilters) {
+      if (!recordFilter.shouldWrite(avroRecord)) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,31 @@
+package com.aol.advertising.vulcan.filter;
+
+import org.apache.avro.specific.SpecificRecord;
+
+import com.aol.advertising.vulcan.api.filter.RecordFilter;
+
+/**
+ * Writes records that any of the combined filters would write, e.g. every record that is not a
+ * debug event plus a sample of debug events. Filters are asked in order until one writes the record
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public class AnyOfRecordFilter implements RecordFilter {
+
+  private final RecordFilter[] recordFilters;
+
+  public AnyOfRecordFilter(RecordFilter... recordFilters) {
+    this.recordFilters = RecordFilters.validate(recordFilters);
+  }
+
+  @Override
+  public boolean shouldWrite(SpecificRecord avroRecord) {
+    for (RecordFilter recordFilter : recordFilters) {
+      if (recordFilter.shouldWrite(avroRecord)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,20 @@
+package com.aol.advertising.vulcan.filter;
+
+import com.aol.advertising.vulcan.api.filter.RecordFilter;
+
+final class RecordFilters {
+
+  private RecordFilters() {}
+
+  static RecordFilter[] validate(RecordFilter[] recordFilters) {
+    if (recordFilters.length == 0) {
+      throw new IllegalArgumentException("At least one record filter must be combined");
+    }
+    for (RecordFilter recordFilter : recordFilters) {
+      if (recordFilter == null) {
+        throw new IllegalArgumentException("Combined record filters cannot be null");
+      }
+    }
+    return recordFilters.clone();
+  }
+}
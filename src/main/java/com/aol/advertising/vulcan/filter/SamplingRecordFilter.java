@@ -0,0 +1,93 @@
+package com.aol.advertising.vulcan.filter;
+
+import org.apache.avro.Schema;
+import org.apache.avro.Schema.Field;
+import org.apache.avro.specific.SpecificRecord;
+
+import com.aol.advertising.vulcan.api.filter.RecordFilter;
+
+/**
+ * Writes a deterministic sample of the records, chosen by the hash of the value of a top-level field
+ * of the record, e.g. a user or request id. All the records with the same key are either written or
+ * dropped, in every writer and every run, so samples of different files can be joined. Strings are
+ * hashed by their characters, whether they are {@code String} or {@code Utf8}; records with a null
+ * key are sampled as if their key hashed to 0
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public class SamplingRecordFilter implements RecordFilter {
+
+  private static final long HASH_RANGE = 1L << 32;
+
+  private final String keyFieldName;
+  private final long sampledHashes;
+
+  // Records of a generated class share their schema instance, so the field is only looked up when
+  // it changes. Shards may race to replace it, but always with a consistent pair
+  private KeyField lastKeyField;
+
+  /**
+   * @param keyFieldName name of the top-level field whose value decides if a record is sampled
+   * @param samplingRate fraction of the keys whose records are written, between 0 and 1
+   */
+  public SamplingRecordFilter(String keyFieldName, double samplingRate) {
+    if (keyFieldName == null) {
+      throw new NullPointerException("Specified sampling key field was null");
+    }
+    if (!(samplingRate >= 0 && samplingRate <= 1)) {
+      throw new IllegalArgumentException("Sampling rate must be between 0 and 1");
+    }
+    this.keyFieldName = keyFieldName;
+    this.sampledHashes = (long) (samplingRate * HASH_RANGE);
+  }
+
+  @Override
+  public boolean shouldWrite(SpecificRecord avroRecord) {
+    Object samplingKey = avroRecord.get(getKeyFieldPositionIn(avroRecord.getSchema()));
+    return (mix(hashOf(samplingKey)) & 0xFFFFFFFFL) < sampledHashes;
+  }
+
+  private int getKeyFieldPositionIn(Schema avroSchema) {
+    KeyField keyField = lastKeyField;
+    if (keyField == null || keyField.schema != avroSchema) {
+      Field field = avroSchema.getField(keyFieldName);
+      if (field == null) {
+        throw new IllegalArgumentException("Records of schema " + avroSchema.getFullName() + " have no field \""
+            + keyFieldName + "\" to sample by");
+      }
+      keyField = new KeyField(avroSchema, field.pos());
+      lastKeyField = keyField;
+    }
+    return keyField.position;
+  }
+
+  // Utf8 and String hash differently, but both keep their String form once built
+  private int hashOf(Object samplingKey) {
+    if (samplingKey instanceof CharSequence) {
+      return samplingKey.toString().hashCode();
+    }
+    return samplingKey == null ? 0 : samplingKey.hashCode();
+  }
+
+  // Finalization step of MurmurHash3, so that similar keys, e.g. consecutive ids, are sampled independently
+  private int mix(int hash) {
+    hash ^= hash >>> 16;
+    hash *= 0x85ebca6b;
+    hash ^= hash >>> 13;
+    hash *= 0xc2b2ae35;
+    hash ^= hash >>> 16;
+    return hash;
+  }
+
+  private static class KeyField {
+
+    private final Schema schema;
+    private final int position;
+
+    KeyField(Schema schema, int position) {
+      this.schema = schema;
+      this.position = position;
+    }
+  }
+}
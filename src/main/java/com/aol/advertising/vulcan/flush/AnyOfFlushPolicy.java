@@ -0,0 +1,74 @@
+package com.aol.advertising.vulcan.flush;
+
+import java.util.concurrent.TimeUnit;
+
+import com.aol.advertising.vulcan.api.flush.FlushPolicy;
+
+/**
+ * Flushes as soon as any of the combined policies would, e.g. every 10000 records or every second,
+ * whatever comes first
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public class AnyOfFlushPolicy implements FlushPolicy {
+
+  private final FlushPolicy[] flushPolicies;
+
+  public AnyOfFlushPolicy(FlushPolicy... flushPolicies) {
+    if (flushPolicies.length == 0) {
+      throw new IllegalArgumentException("At least one flush policy must be combined");
+    }
+    for (FlushPolicy flushPolicy : flushPolicies) {
+      if (flushPolicy == null) {
+        throw new IllegalArgumentException("Combined flush policies cannot be null");
+      }
+    }
+    this.flushPolicies = flushPolicies.clone();
+  }
+
+  @Override
+  public boolean shouldFlushAfterRecord(long unflushedRecords, long unflushedBytes) {
+    for (FlushPolicy flushPolicy : flushPolicies) {
+      if (flushPolicy.shouldFlushAfterRecord(unflushedRecords, unflushedBytes)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public boolean shouldFlushWhenIdle(long unflushedRecords, long nanosSinceLastFlush) {
+    for (FlushPolicy flushPolicy : flushPolicies) {
+      if (flushPolicy.shouldFlushWhenIdle(unflushedRecords, nanosSinceLastFlush)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Shortest delay among the combined policies that have one
+   */
+  @Override
+  public long getMaximumFlushDelay(TimeUnit unit) {
+    long maximumFlushDelay = 0;
+    for (FlushPolicy flushPolicy : flushPolicies) {
+      long delay = flushPolicy.getMaximumFlushDelay(unit);
+      if (delay > 0 && (maximumFlushDelay == 0 || delay < maximumFlushDelay)) {
+        maximumFlushDelay = delay;
+      }
+    }
+    return maximumFlushDelay;
+  }
+
+  @Override
+  public boolean isSizeBased() {
+    for (FlushPolicy flushPolicy : flushPolicies) {
+      if (flushPolicy.isSizeBased()) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,45 @@
+package com.aol.advertising.vulcan.flush;
+
+import java.util.concurrent.TimeUnit;
+
+import com.aol.advertising.vulcan.api.flush.FlushPolicy;
+
+/**
+ * Flushes every time the serialized size of the appended records reaches a threshold. Records
+ * below that threshold are not flushed while the writer is idle, so this policy is usually
+ * combined with a {@link TimeIntervalFlushPolicy} through {@link AnyOfFlushPolicy}
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public class ByteCountFlushPolicy implements FlushPolicy {
+
+  private final long bytesPerFlush;
+
+  public ByteCountFlushPolicy(long bytesPerFlush) {
+    if (bytesPerFlush < 1) {
+      throw new IllegalArgumentException("Number of bytes per flush must be at least 1");
+    }
+    this.bytesPerFlush = bytesPerFlush;
+  }
+
+  @Override
+  public boolean shouldFlushAfterRecord(long unflushedRecords, long unflushedBytes) {
+    return unflushedBytes >= bytesPerFlush;
+  }
+
+  @Override
+  public boolean shouldFlushWhenIdle(long unflushedRecords, long nanosSinceLastFlush) {
+    return false;
+  }
+
+  @Override
+  public long getMaximumFlushDelay(TimeUnit unit) {
+    return 0;
+  }
+
+  @Override
+  public boolean isSizeBased() {
+    return true;
+  }
+}
@@ -0,0 +1,36 @@
+package com.aol.advertising.vulcan.flush;
+
+import java.util.concurrent.TimeUnit;
+
+import com.aol.advertising.vulcan.api.flush.FlushPolicy;
+
+/**
+ * Flushes whenever the consumer catches up with the producers. Records reach the file as soon as
+ * possible, at the cost of one write per batch, which at moderate event rates can be a handful of
+ * records
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public class EndOfBatchFlushPolicy implements FlushPolicy {
+
+  @Override
+  public boolean shouldFlushAfterRecord(long unflushedRecords, long unflushedBytes) {
+    return false;
+  }
+
+  @Override
+  public boolean shouldFlushWhenIdle(long unflushedRecords, long nanosSinceLastFlush) {
+    return unflushedRecords > 0;
+  }
+
+  @Override
+  public long getMaximumFlushDelay(TimeUnit unit) {
+    return 0;
+  }
+
+  @Override
+  public boolean isSizeBased() {
+    return false;
+  }
+}
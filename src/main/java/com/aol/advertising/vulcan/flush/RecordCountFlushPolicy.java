@@ -0,0 +1,45 @@
+package com.aol.advertising.vulcan.flush;
+
+import java.util.concurrent.TimeUnit;
+
+import com.aol.advertising.vulcan.api.flush.FlushPolicy;
+
+/**
+ * Flushes every time a number of records has been appended. Records below that number are not
+ * flushed while the writer is idle, so this policy is usually combined with a
+ * {@link TimeIntervalFlushPolicy} through {@link AnyOfFlushPolicy}
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public class RecordCountFlushPolicy implements FlushPolicy {
+
+  private final long recordsPerFlush;
+
+  public RecordCountFlushPolicy(long recordsPerFlush) {
+    if (recordsPerFlush < 1) {
+      throw new IllegalArgumentException("Number of records per flush must be at least 1");
+    }
+    this.recordsPerFlush = recordsPerFlush;
+  }
+
+  @Override
+  public boolean shouldFlushAfterRecord(long unflushedRecords, long unflushedBytes) {
+    return unflushedRecords >= recordsPerFlush;
+  }
+
+  @Override
+  public boolean shouldFlushWhenIdle(long unflushedRecords, long nanosSinceLastFlush) {
+    return false;
+  }
+
+  @Override
+  public long getMaximumFlushDelay(TimeUnit unit) {
+    return 0;
+  }
+
+  @Override
+  public boolean isSizeBased() {
+    return false;
+  }
+}
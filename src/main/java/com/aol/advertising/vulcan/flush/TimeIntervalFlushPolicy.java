@@ -0,0 +1,46 @@
+package com.aol.advertising.vulcan.flush;
+
+import java.util.concurrent.TimeUnit;
+
+import com.aol.advertising.vulcan.api.flush.FlushPolicy;
+
+/**
+ * Flushes pending records once a given time has passed since the previous flush. The interval is
+ * checked whenever the consumer catches up with the producers; writers configured with this policy
+ * wake up the consumer when no events arrive, so records never stay unflushed much longer than the
+ * interval. Under sustained load Avro still writes every full data block as it goes
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public class TimeIntervalFlushPolicy implements FlushPolicy {
+
+  private final long flushIntervalInNanos;
+
+  public TimeIntervalFlushPolicy(long flushInterval, TimeUnit unit) {
+    if (flushInterval < 1) {
+      throw new IllegalArgumentException("Flush interval must be positive");
+    }
+    this.flushIntervalInNanos = unit.toNanos(flushInterval);
+  }
+
+  @Override
+  public boolean shouldFlushAfterRecord(long unflushedRecords, long unflushedBytes) {
+    return false;
+  }
+
+  @Override
+  public boolean shouldFlushWhenIdle(long unflushedRecords, long nanosSinceLastFlush) {
+    return unflushedRecords > 0 && nanosSinceLastFlush >= flushIntervalInNanos;
+  }
+
+  @Override
+  public long getMaximumFlushDelay(TimeUnit unit) {
+    return unit.convert(flushIntervalInNanos, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public boolean isSizeBased() {
+    return false;
+  }
+}
@@ -0,0 +1,95 @@
+package com.aol.advertising.vulcan.metrics;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+import java.util.List;
+
+import com.aol.advertising.vulcan.api.metrics.Distribution;
+
+/**
+ * Immutable copy of the counts of a {@link SingleWriterHistogram}
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public class HistogramSnapshot implements Distribution {
+
+  private final long[] counts;
+  private final long count;
+  private final long sum;
+  private final long max;
+
+  HistogramSnapshot(long[] counts, long sum, long max) {
+    this.counts = counts;
+    this.sum = sum;
+    this.max = max;
+    this.count = total(counts);
+  }
+
+  private static long total(long[] counts) {
+    long total = 0;
+    for (long bucketCount : counts) {
+      total += bucketCount;
+    }
+    return total;
+  }
+
+  /**
+   * Combines snapshots of several histograms, e.g. one per shard, into one
+   * 
+   * @throws IllegalArgumentException if any of the distributions is not a {@link HistogramSnapshot}
+   */
+  public static HistogramSnapshot merge(List<? extends Distribution> distributions) {
+    long[] mergedCounts = new long[SingleWriterHistogram.BUCKETS];
+    long mergedSum = 0;
+    long mergedMax = 0;
+    for (Distribution distribution : distributions) {
+      if (!(distribution instanceof HistogramSnapshot)) {
+        throw new IllegalArgumentException("Only histogram snapshots can be merged");
+      }
+      HistogramSnapshot snapshot = (HistogramSnapshot) distribution;
+      for (int bucket = 0; bucket < mergedCounts.length; bucket++) {
+        mergedCounts[bucket] += snapshot.counts[bucket];
+      }
+      mergedSum += snapshot.sum;
+      mergedMax = max(mergedMax, snapshot.max);
+    }
+    return new HistogramSnapshot(mergedCounts, mergedSum, mergedMax);
+  }
+
+  @Override
+  public long getCount() {
+    return count;
+  }
+
+  @Override
+  public long getMax() {
+    return max;
+  }
+
+  @Override
+  public double getMean() {
+    return count == 0 ? 0 : (double) sum / count;
+  }
+
+  /*
+   * Returns the highest value of the bucket where the percentile falls, capped by the actual
+   * maximum, so it never underestimates by more than the bucket width
+   */
+  @Override
+  public long getValueAtPercentile(double percentile) {
+    if (count == 0) {
+      return 0;
+    }
+    long rank = max(1, (long) Math.ceil(min(100, max(0, percentile)) / 100 * count));
+    long seen = 0;
+    for (int bucket = 0; bucket < counts.length; bucket++) {
+      seen += counts[bucket];
+      if (seen >= rank) {
+        return min(SingleWriterHistogram.highestValueOf(bucket), max);
+      }
+    }
+    return max;
+  }
+}
@@ -0,0 +1,205 @@
+package com.aol.advertising.vulcan.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.aol.advertising.vulcan.api.metrics.WriterMetrics;
+
+/**
+ * Publishes the metrics of a writer in the platform MBean server under
+ * {@code com.aol.advertising.vulcan:type=AvroWriter,file="<destination file>"}. Failing to register
+ * or unregister is logged and otherwise ignored, since monitoring should never stop a writer
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public class JmxWriterMetrics implements WriterMetricsMXBean {
+
+  private static final Logger log = LoggerFactory.getLogger(JmxWriterMetrics.class);
+  private static final String DOMAIN = "com.aol.advertising.vulcan";
+
+  private final WriterMetrics writerMetrics;
+  private final ObjectName objectName;
+
+  public JmxWriterMetrics(WriterMetrics writerMetrics, Path avroFilename) {
+    this.writerMetrics = writerMetrics;
+    this.objectName = objectNameFor(avroFilename);
+  }
+
+  private static ObjectName objectNameFor(Path avroFilename) {
+    try {
+      return new ObjectName(DOMAIN + ":type=AvroWriter,file=" + ObjectName.quote(avroFilename.toString()));
+    } catch (JMException jme) {
+      throw new IllegalArgumentException(jme);
+    }
+  }
+
+  public void register() {
+    MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+    try {
+      mbeanServer.registerMBean(this, objectName);
+    } catch (JMException jme) {
+      log.warn("Could not register writer metrics in JMX as " + objectName, jme);
+    }
+  }
+
+  public void unregister() {
+    MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+    try {
+      if (mbeanServer.isRegistered(objectName)) {
+        mbeanServer.unregisterMBean(objectName);
+      }
+    } catch (JMException jme) {
+      log.warn("Could not unregister writer metrics from JMX as " + objectName, jme);
+    }
+  }
+
+  public ObjectName getObjectName() {
+    return objectName;
+  }
+
+  @Override
+  public long getQueueDepth() {
+    return writerMetrics.getQueueDepth();
+  }
+
+  @Override
+  public long getRemainingCapacity() {
+    return writerMetrics.getRemainingCapacity();
+  }
+
+  @Override
+  public long getRecordsWritten() {
+    return writerMetrics.getRecordsWritten();
+  }
+
+  @Override
+  public long getBytesWritten() {
+    return writerMetrics.getBytesWritten();
+  }
+
+  @Override
+  public double getRecordsPerSecond() {
+    return writerMetrics.getRecordsPerSecond();
+  }
+
+  @Override
+  public double getBytesPerSecond() {
+    return writerMetrics.getBytesPerSecond();
+  }
+
+  @Override
+  public long getStringCacheHits() {
+    return writerMetrics.getStringCacheHits();
+  }
+
+  @Override
+  public long getStringCacheMisses() {
+    return writerMetrics.getStringCacheMisses();
+  }
+
+  // Fraction of all the lookups so far, 0 before the first one
+  @Override
+  public double getStringCacheHitRate() {
+    long hits = writerMetrics.getStringCacheHits();
+    long lookups = hits + writerMetrics.getStringCacheMisses();
+    return lookups == 0 ? 0 : (double) hits / lookups;
+  }
+
+  @Override
+  public long getOverflowedRecords() {
+    return writerMetrics.getOverflowedRecords();
+  }
+
+  @Override
+  public long getDroppedRecords() {
+    return writerMetrics.getDroppedRecords();
+  }
+
+  @Override
+  public long getLateRecords() {
+    return writerMetrics.getLateRecords();
+  }
+
+  @Override
+  public long getFutureRecords() {
+    return writerMetrics.getFutureRecords();
+  }
+
+  @Override
+  public double getBatchSizeMean() {
+    return writerMetrics.getBatchSizes().getMean();
+  }
+
+  @Override
+  public long getBatchSize99thPercentile() {
+    return writerMetrics.getBatchSizes().getValueAtPercentile(99);
+  }
+
+  @Override
+  public long getBatchSizeMax() {
+    return writerMetrics.getBatchSizes().getMax();
+  }
+
+  @Override
+  public long getFlushCount() {
+    return writerMetrics.getFlushLatencies().getCount();
+  }
+
+  @Override
+  public double getFlushLatencyMean() {
+    return writerMetrics.getFlushLatencies().getMean();
+  }
+
+  @Override
+  public long getFlushLatency99thPercentile() {
+    return writerMetrics.getFlushLatencies().getValueAtPercentile(99);
+  }
+
+  @Override
+  public long getFlushLatencyMax() {
+    return writerMetrics.getFlushLatencies().getMax();
+  }
+
+  @Override
+  public long getForceCount() {
+    return writerMetrics.getForceLatencies().getCount();
+  }
+
+  @Override
+  public double getForceLatencyMean() {
+    return writerMetrics.getForceLatencies().getMean();
+  }
+
+  @Override
+  public long getForceLatency99thPercentile() {
+    return writerMetrics.getForceLatencies().getValueAtPercentile(99);
+  }
+
+  @Override
+  public long getForceLatencyMax() {
+    return writerMetrics.getForceLatencies().getMax();
+  }
+
+  @Override
+  public long getRollCount() {
+    return writerMetrics.getRollDurations().getCount();
+  }
+
+  @Override
+  public double getRollDurationMean() {
+    return writerMetrics.getRollDurations().getMean();
+  }
+
+  @Override
+  public long getRollDurationMax() {
+    return writerMetrics.getRollDurations().getMax();
+  }
+}
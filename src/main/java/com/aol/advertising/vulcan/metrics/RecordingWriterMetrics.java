@@ -0,0 +1,208 @@
+package com.aol.advertising.vulcan.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.aol.advertising.vulcan.api.metrics.Distribution;
+import com.aol.advertising.vulcan.api.metrics.WriterMetrics;
+import com.lmax.disruptor.RingBuffer;
+
+/**
+ * Metrics of a single writer. The queue gauges are read straight from the ring buffer, so
+ * publishing records costs nothing extra; everything else is recorded by the consumer thread,
+ * mostly once per batch. The exceptions are bytes written, which the rollover thread also records
+ * when it finishes rolled files in the background, and overflows, which producers record when they
+ * find the ring buffer full
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public class RecordingWriterMetrics implements WriterMetrics {
+
+  private static final long ONE_SECOND_IN_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private final AtomicLong recordsWritten = new AtomicLong();
+  private final AtomicLong bytesWritten = new AtomicLong();
+  private final AtomicLong stringCacheHits = new AtomicLong();
+  private final AtomicLong stringCacheMisses = new AtomicLong();
+  private final AtomicLong overflowedRecords = new AtomicLong();
+  private final AtomicLong droppedRecords = new AtomicLong();
+  private final AtomicLong lateRecords = new AtomicLong();
+  private final AtomicLong futureRecords = new AtomicLong();
+  private final SingleWriterHistogram batchSizes = new SingleWriterHistogram();
+  private final SingleWriterHistogram flushLatencies = new SingleWriterHistogram();
+  private final SingleWriterHistogram forceLatencies = new SingleWriterHistogram();
+  private final SingleWriterHistogram rollDurations = new SingleWriterHistogram();
+  private final Rate recordsPerSecond = new Rate(recordsWritten);
+  private final Rate bytesPerSecond = new Rate(bytesWritten);
+
+  private volatile RingBuffer<?> ringBuffer;
+
+  public void monitorRingBuffer(RingBuffer<?> ringBuffer) {
+    this.ringBuffer = ringBuffer;
+  }
+
+  /*
+   * Recording methods below are meant to be called from the consumer thread only, except for
+   * recordBytesWritten and recordOverflow
+   */
+
+  public void recordBatch(int batchSize, int recordsWrittenInBatch) {
+    batchSizes.record(batchSize);
+    recordsWritten.lazySet(recordsWritten.get() + recordsWrittenInBatch);
+  }
+
+  // Rolled files closed on the rollover thread write their last block while the consumer writes to the new file
+  public void recordBytesWritten(long numberOfBytes) {
+    bytesWritten.getAndAdd(numberOfBytes);
+  }
+
+  public void recordStringCacheLookups(long hits, long misses) {
+    stringCacheHits.lazySet(stringCacheHits.get() + hits);
+    stringCacheMisses.lazySet(stringCacheMisses.get() + misses);
+  }
+
+  // Any number of producers may find the ring buffer full at the same time
+  public void recordOverflow(boolean recordAccepted) {
+    overflowedRecords.incrementAndGet();
+    if (!recordAccepted) {
+      droppedRecords.incrementAndGet();
+    }
+  }
+
+  // Shed by the consumer, while producers may be recording drops of their own
+  public void recordShedRecord() {
+    droppedRecords.incrementAndGet();
+  }
+
+  public void recordLateRecord() {
+    lateRecords.lazySet(lateRecords.get() + 1);
+  }
+
+  public void recordFutureRecord() {
+    futureRecords.lazySet(futureRecords.get() + 1);
+  }
+
+  public void recordFlush(long latencyInNanos) {
+    flushLatencies.record(latencyInNanos);
+  }
+
+  public void recordForce(long latencyInNanos) {
+    forceLatencies.record(latencyInNanos);
+  }
+
+  public void recordRoll(long durationInNanos) {
+    rollDurations.record(durationInNanos);
+  }
+
+  @Override
+  public long getQueueDepth() {
+    RingBuffer<?> monitoredRingBuffer = ringBuffer;
+    return monitoredRingBuffer == null ? 0 : monitoredRingBuffer.getBufferSize() - monitoredRingBuffer.remainingCapacity();
+  }
+
+  @Override
+  public long getRemainingCapacity() {
+    RingBuffer<?> monitoredRingBuffer = ringBuffer;
+    return monitoredRingBuffer == null ? 0 : monitoredRingBuffer.remainingCapacity();
+  }
+
+  @Override
+  public long getRecordsWritten() {
+    return recordsWritten.get();
+  }
+
+  @Override
+  public long getBytesWritten() {
+    return bytesWritten.get();
+  }
+
+  @Override
+  public double getRecordsPerSecond() {
+    return recordsPerSecond.perSecond();
+  }
+
+  @Override
+  public double getBytesPerSecond() {
+    return bytesPerSecond.perSecond();
+  }
+
+  @Override
+  public long getStringCacheHits() {
+    return stringCacheHits.get();
+  }
+
+  @Override
+  public long getStringCacheMisses() {
+    return stringCacheMisses.get();
+  }
+
+  @Override
+  public long getOverflowedRecords() {
+    return overflowedRecords.get();
+  }
+
+  @Override
+  public long getDroppedRecords() {
+    return droppedRecords.get();
+  }
+
+  @Override
+  public long getLateRecords() {
+    return lateRecords.get();
+  }
+
+  @Override
+  public long getFutureRecords() {
+    return futureRecords.get();
+  }
+
+  @Override
+  public Distribution getBatchSizes() {
+    return batchSizes.snapshot();
+  }
+
+  @Override
+  public Distribution getFlushLatencies() {
+    return flushLatencies.snapshot();
+  }
+
+  @Override
+  public Distribution getForceLatencies() {
+    return forceLatencies.snapshot();
+  }
+
+  @Override
+  public Distribution getRollDurations() {
+    return rollDurations.snapshot();
+  }
+
+  /*
+   * Computed lazily by readers, so writers only need to keep counting
+   */
+  private static class Rate {
+
+    private final AtomicLong counter;
+
+    private long lastTick;
+    private long countAtLastTick;
+    private double lastRate;
+
+    private Rate(AtomicLong counter) {
+      this.counter = counter;
+      this.lastTick = System.nanoTime();
+    }
+
+    private synchronized double perSecond() {
+      long now = System.nanoTime();
+      long elapsed = now - lastTick;
+      if (elapsed >= ONE_SECOND_IN_NANOS) {
+        long count = counter.get();
+        lastRate = (double) (count - countAtLastTick) * ONE_SECOND_IN_NANOS / elapsed;
+        lastTick = now;
+        countAtLastTick = count;
+      }
+      return lastRate;
+    }
+  }
+}
@@ -0,0 +1,167 @@
+package com.aol.advertising.vulcan.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.aol.advertising.vulcan.api.AvroWriter;
+import com.aol.advertising.vulcan.api.metrics.Distribution;
+import com.aol.advertising.vulcan.api.metrics.WriterMetrics;
+
+/**
+ * Metrics of a sharded writer: the sum of the metrics of all its shards, with distributions merged
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public class ShardedWriterMetrics implements WriterMetrics {
+
+  private final AvroWriter[] shards;
+
+  public ShardedWriterMetrics(AvroWriter[] shards) {
+    this.shards = shards;
+  }
+
+  @Override
+  public long getQueueDepth() {
+    long queueDepth = 0;
+    for (AvroWriter shard : shards) {
+      queueDepth += shard.getMetrics().getQueueDepth();
+    }
+    return queueDepth;
+  }
+
+  @Override
+  public long getRemainingCapacity() {
+    long remainingCapacity = 0;
+    for (AvroWriter shard : shards) {
+      remainingCapacity += shard.getMetrics().getRemainingCapacity();
+    }
+    return remainingCapacity;
+  }
+
+  @Override
+  public long getRecordsWritten() {
+    long recordsWritten = 0;
+    for (AvroWriter shard : shards) {
+      recordsWritten += shard.getMetrics().getRecordsWritten();
+    }
+    return recordsWritten;
+  }
+
+  @Override
+  public long getBytesWritten() {
+    long bytesWritten = 0;
+    for (AvroWriter shard : shards) {
+      bytesWritten += shard.getMetrics().getBytesWritten();
+    }
+    return bytesWritten;
+  }
+
+  @Override
+  public long getStringCacheHits() {
+    long stringCacheHits = 0;
+    for (AvroWriter shard : shards) {
+      stringCacheHits += shard.getMetrics().getStringCacheHits();
+    }
+    return stringCacheHits;
+  }
+
+  @Override
+  public long getStringCacheMisses() {
+    long stringCacheMisses = 0;
+    for (AvroWriter shard : shards) {
+      stringCacheMisses += shard.getMetrics().getStringCacheMisses();
+    }
+    return stringCacheMisses;
+  }
+
+  @Override
+  public long getOverflowedRecords() {
+    long overflowedRecords = 0;
+    for (AvroWriter shard : shards) {
+      overflowedRecords += shard.getMetrics().getOverflowedRecords();
+    }
+    return overflowedRecords;
+  }
+
+  @Override
+  public long getDroppedRecords() {
+    long droppedRecords = 0;
+    for (AvroWriter shard : shards) {
+      droppedRecords += shard.getMetrics().getDroppedRecords();
+    }
+    return droppedRecords;
+  }
+
+  @Override
+  public long getLateRecords() {
+    long lateRecords = 0;
+    for (AvroWriter shard : shards) {
+      lateRecords += shard.getMetrics().getLateRecords();
+    }
+    return lateRecords;
+  }
+
+  @Override
+  public long getFutureRecords() {
+    long futureRecords = 0;
+    for (AvroWriter shard : shards) {
+      futureRecords += shard.getMetrics().getFutureRecords();
+    }
+    return futureRecords;
+  }
+
+  @Override
+  public double getRecordsPerSecond() {
+    double recordsPerSecond = 0;
+    for (AvroWriter shard : shards) {
+      recordsPerSecond += shard.getMetrics().getRecordsPerSecond();
+    }
+    return recordsPerSecond;
+  }
+
+  @Override
+  public double getBytesPerSecond() {
+    double bytesPerSecond = 0;
+    for (AvroWriter shard : shards) {
+      bytesPerSecond += shard.getMetrics().getBytesPerSecond();
+    }
+    return bytesPerSecond;
+  }
+
+  @Override
+  public Distribution getBatchSizes() {
+    List<Distribution> batchSizes = new ArrayList<>(shards.length);
+    for (AvroWriter shard : shards) {
+      batchSizes.add(shard.getMetrics().getBatchSizes());
+    }
+    return HistogramSnapshot.merge(batchSizes);
+  }
+
+  @Override
+  public Distribution getFlushLatencies() {
+    List<Distribution> flushLatencies = new ArrayList<>(shards.length);
+    for (AvroWriter shard : shards) {
+      flushLatencies.add(shard.getMetrics().getFlushLatencies());
+    }
+    return HistogramSnapshot.merge(flushLatencies);
+  }
+
+  @Override
+  public Distribution getForceLatencies() {
+    List<Distribution> forceLatencies = new ArrayList<>(shards.length);
+    for (AvroWriter shard : shards) {
+      forceLatencies.add(shard.getMetrics().getForceLatencies());
+    }
+    return HistogramSnapshot.merge(forceLatencies);
+  }
+
+  @Override
+  public Distribution getRollDurations() {
+    List<Distribution> rollDurations = new ArrayList<>(shards.length);
+    for (AvroWriter shard : shards) {
+      rollDurations.add(shard.getMetrics().getRollDurations());
+    }
+    return HistogramSnapshot.merge(rollDurations);
+  }
+}
@@ -0,0 +1,69 @@
+package com.aol.advertising.vulcan.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Log-linear histogram in the spirit of HdrHistogram: values below 16 get a bucket each and every
+ * power of two above is split in 8 buckets, so a fixed array of counts covers all non-negative
+ * longs with a bounded relative error. Recording does not allocate or lock, but it must happen
+ * from a single thread: counts are updated with plain lazy sets, so concurrent recordings would
+ * lose values. Snapshots can be taken from any thread
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public class SingleWriterHistogram {
+
+  static final int LINEAR_BUCKETS = 16;
+  static final int SUB_BUCKET_BITS = 3;
+  static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  static final int BUCKETS = LINEAR_BUCKETS + (63 - 4) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final AtomicLong sum = new AtomicLong();
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * Single writer only. Negative values are recorded as 0
+   */
+  public void record(long value) {
+    long recordedValue = value < 0 ? 0 : value;
+    int bucket = bucketOf(recordedValue);
+    counts.lazySet(bucket, counts.get(bucket) + 1);
+    sum.lazySet(sum.get() + recordedValue);
+    if (recordedValue > max.get()) {
+      max.lazySet(recordedValue);
+    }
+  }
+
+  public HistogramSnapshot snapshot() {
+    long[] snapshotCounts = new long[BUCKETS];
+    for (int bucket = 0; bucket < BUCKETS; bucket++) {
+      snapshotCounts[bucket] = counts.get(bucket);
+    }
+    return new HistogramSnapshot(snapshotCounts, sum.get(), max.get());
+  }
+
+  static int bucketOf(long value) {
+    if (value < LINEAR_BUCKETS) {
+      return (int) value;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return LINEAR_BUCKETS + (exponent - 4) * SUB_BUCKETS + subBucket;
+  }
+
+  static long lowestValueOf(int bucket) {
+    if (bucket < LINEAR_BUCKETS) {
+      return bucket;
+    }
+    int exponent = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS + 4;
+    int subBucket = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS;
+    return (long) (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+  }
+
+  static long highestValueOf(int bucket) {
+    return bucket + 1 < BUCKETS ? lowestValueOf(bucket + 1) - 1 : Long.MAX_VALUE;
+  }
+}
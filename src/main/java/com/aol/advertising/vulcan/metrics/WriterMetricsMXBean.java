@@ -0,0 +1,65 @@
+package com.aol.advertising.vulcan.metrics;
+
+/**
+ * JMX view of {@link com.aol.advertising.vulcan.api.metrics.WriterMetrics}, flattened into simple
+ * attributes so any JMX console can display and graph them. Times are in nanoseconds
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public interface WriterMetricsMXBean {
+
+  long getQueueDepth();
+
+  long getRemainingCapacity();
+
+  long getRecordsWritten();
+
+  long getBytesWritten();
+
+  double getRecordsPerSecond();
+
+  double getBytesPerSecond();
+
+  long getStringCacheHits();
+
+  long getStringCacheMisses();
+
+  double getStringCacheHitRate();
+
+  long getOverflowedRecords();
+
+  long getDroppedRecords();
+
+  long getLateRecords();
+
+  long getFutureRecords();
+
+  double getBatchSizeMean();
+
+  long getBatchSize99thPercentile();
+
+  long getBatchSizeMax();
+
+  long getFlushCount();
+
+  double getFlushLatencyMean();
+
+  long getFlushLatency99thPercentile();
+
+  long getFlushLatencyMax();
+
+  long getForceCount();
+
+  double getForceLatencyMean();
+
+  long getForceLatency99thPercentile();
+
+  long getForceLatencyMax();
+
+  long getRollCount();
+
+  double getRollDurationMean();
+
+  long getRollDurationMax();
+}
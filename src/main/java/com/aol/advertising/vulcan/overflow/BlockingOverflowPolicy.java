@@ -0,0 +1,32 @@
+package com.aol.advertising.vulcan.overflow;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.avro.specific.SpecificRecord;
+
+import com.aol.advertising.vulcan.api.overflow.OverflowPolicy;
+import com.aol.advertising.vulcan.api.overflow.RingBufferAccess;
+
+/**
+ * Waits for as long as necessary for a free slot, which is what writers do when no overflow
+ * policy is configured. Use it to count how often producers block
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public class BlockingOverflowPolicy implements OverflowPolicy {
+
+  private final AtomicLong blockedRecords = new AtomicLong();
+
+  @Override
+  public boolean onRingBufferFull(SpecificRecord avroRecord, RingBufferAccess ringBuffer) {
+    blockedRecords.incrementAndGet();
+    ringBuffer.publish(avroRecord);
+    return true;
+  }
+
+  @Override
+  public long getAffectedRecords() {
+    return blockedRecords.get();
+  }
+}
@@ -0,0 +1,30 @@
+package com.aol.advertising.vulcan.overflow;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.avro.specific.SpecificRecord;
+
+import com.aol.advertising.vulcan.api.overflow.OverflowPolicy;
+import com.aol.advertising.vulcan.api.overflow.RingBufferAccess;
+
+/**
+ * Drops the record being written. Producers never wait for the consumer
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public class DropNewestOverflowPolicy implements OverflowPolicy {
+
+  private final AtomicLong droppedRecords = new AtomicLong();
+
+  @Override
+  public boolean onRingBufferFull(SpecificRecord avroRecord, RingBufferAccess ringBuffer) {
+    droppedRecords.incrementAndGet();
+    return false;
+  }
+
+  @Override
+  public long getAffectedRecords() {
+    return droppedRecords.get();
+  }
+}
@@ -0,0 +1,70 @@
+package com.aol.advertising.vulcan.overflow;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.avro.specific.SpecificRecord;
+
+import com.aol.advertising.vulcan.api.overflow.ConsumerAssistedOverflowPolicy;
+import com.aol.advertising.vulcan.api.overflow.RecordAppender;
+import com.aol.advertising.vulcan.api.overflow.RingBufferAccess;
+
+/**
+ * Favors recent records over old ones. Slots in the ring buffer cannot be reclaimed by producers,
+ * so when it is full the consumer is told to shed load instead: for the next half ring buffer of
+ * events (the oldest ones) it only writes one out of every {@code samplingRate} and drops the rest,
+ * which frees slots much faster than writing them. Meanwhile the producer waits for a slot for the
+ * new record, which should only take a short time
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public class DropOldestBySamplingOverflowPolicy implements ConsumerAssistedOverflowPolicy {
+
+  private final int samplingRate;
+  private final AtomicLong eventsLeftToShed = new AtomicLong();
+  private final AtomicLong droppedRecords = new AtomicLong();
+
+  private long shedEvents;
+
+  /**
+   * @param samplingRate while shedding load, one out of every {@code samplingRate} events is still
+   *        written. Use 1 to keep all of them, i.e. to never drop records
+   */
+  public DropOldestBySamplingOverflowPolicy(int samplingRate) {
+    if (samplingRate < 1) {
+      throw new IllegalArgumentException("Sampling rate must be at least 1");
+    }
+    this.samplingRate = samplingRate;
+  }
+
+  @Override
+  public boolean onRingBufferFull(SpecificRecord avroRecord, RingBufferAccess ringBuffer) {
+    eventsLeftToShed.compareAndSet(0, ringBuffer.getBufferSize() / 2);
+    ringBuffer.publish(avroRecord);
+    return true;
+  }
+
+  @Override
+  public boolean shouldDiscardNextEvent() {
+    if (eventsLeftToShed.get() == 0) {
+      return false;
+    }
+    eventsLeftToShed.decrementAndGet();
+    if (++shedEvents % samplingRate == 0) {
+      return false;
+    }
+    droppedRecords.incrementAndGet();
+    return true;
+  }
+
+  @Override
+  public void drainRetainedRecordsTo(RecordAppender recordAppender) {}
+
+  /**
+   * Buffered records dropped to make room for newer ones
+   */
+  @Override
+  public long getAffectedRecords() {
+    return droppedRecords.get();
+  }
+}
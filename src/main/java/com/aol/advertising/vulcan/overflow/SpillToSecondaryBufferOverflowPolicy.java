@@ -0,0 +1,74 @@
+package com.aol.advertising.vulcan.overflow;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.avro.specific.SpecificRecord;
+
+import com.aol.advertising.vulcan.api.overflow.ConsumerAssistedOverflowPolicy;
+import com.aol.advertising.vulcan.api.overflow.RecordAppender;
+import com.aol.advertising.vulcan.api.overflow.RingBufferAccess;
+
+/**
+ * Keeps records that find the ring buffer full in a bounded secondary buffer, which the consumer
+ * writes to file after each batch of ring buffer events. Records that find the secondary buffer
+ * full too are dropped. Records spilled this way may be written out of order with respect to
+ * records in the ring buffer
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public class SpillToSecondaryBufferOverflowPolicy implements ConsumerAssistedOverflowPolicy {
+
+  private final BlockingQueue<SpecificRecord> secondaryBuffer;
+  private final AtomicLong spilledRecords = new AtomicLong();
+  private final AtomicLong droppedRecords = new AtomicLong();
+
+  public SpillToSecondaryBufferOverflowPolicy(int secondaryBufferCapacity) {
+    if (secondaryBufferCapacity < 1) {
+      throw new IllegalArgumentException("Secondary buffer capacity must be at least 1");
+    }
+    // Array-backed so spilling a record does not allocate
+    this.secondaryBuffer = new ArrayBlockingQueue<>(secondaryBufferCapacity);
+  }
+
+  @Override
+  public boolean onRingBufferFull(SpecificRecord avroRecord, RingBufferAccess ringBuffer) {
+    if (secondaryBuffer.offer(avroRecord)) {
+      spilledRecords.incrementAndGet();
+      return true;
+    }
+    droppedRecords.incrementAndGet();
+    return false;
+  }
+
+  @Override
+  public boolean shouldDiscardNextEvent() {
+    return false;
+  }
+
+  @Override
+  public void drainRetainedRecordsTo(RecordAppender recordAppender) throws IOException {
+    SpecificRecord spilledRecord;
+    while ((spilledRecord = secondaryBuffer.poll()) != null) {
+      recordAppender.append(spilledRecord);
+    }
+  }
+
+  /**
+   * Records kept in the secondary buffer
+   */
+  @Override
+  public long getAffectedRecords() {
+    return spilledRecords.get();
+  }
+
+  /**
+   * Records dropped because the secondary buffer was full too
+   */
+  public long getDroppedRecords() {
+    return droppedRecords.get();
+  }
+}
@@ -0,0 +1,67 @@
+package com.aol.advertising.vulcan.overflow;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.avro.specific.SpecificRecord;
+
+import com.aol.advertising.vulcan.api.overflow.OverflowPolicy;
+import com.aol.advertising.vulcan.api.overflow.RingBufferAccess;
+
+/**
+ * Waits for a free slot for a bounded amount of time and drops the record if none becomes
+ * available, so the latency added to producers is capped
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public class TimedWaitOverflowPolicy implements OverflowPolicy {
+
+  private static final long RETRY_PAUSE_IN_NANOS = TimeUnit.MICROSECONDS.toNanos(10);
+
+  private final long maximumWaitInNanos;
+  private final AtomicLong waitingRecords = new AtomicLong();
+  private final AtomicLong droppedRecords = new AtomicLong();
+
+  public TimedWaitOverflowPolicy(long maximumWait, TimeUnit unit) {
+    if (maximumWait < 0) {
+      throw new IllegalArgumentException("Maximum wait cannot be negative");
+    }
+    this.maximumWaitInNanos = unit.toNanos(maximumWait);
+  }
+
+  @Override
+  public boolean onRingBufferFull(SpecificRecord avroRecord, RingBufferAccess ringBuffer) {
+    waitingRecords.incrementAndGet();
+    long deadline = now() + maximumWaitInNanos;
+    do {
+      LockSupport.parkNanos(RETRY_PAUSE_IN_NANOS);
+      if (ringBuffer.tryPublish(avroRecord)) {
+        return true;
+      }
+    } while (now() - deadline < 0);
+    droppedRecords.incrementAndGet();
+    return false;
+  }
+
+  // Overridden by tests to wait on a fake clock
+  long now() {
+    return System.nanoTime();
+  }
+
+  /**
+   * Records that had to wait for a free slot, whether they were finally written or not
+   */
+  @Override
+  public long getAffectedRecords() {
+    return waitingRecords.get();
+  }
+
+  /**
+   * Records dropped because no slot became free in time
+   */
+  public long getDroppedRecords() {
+    return droppedRecords.get();
+  }
+}
@@ -0,0 +1,92 @@
+package com.aol.advertising.vulcan.partitioning;
+
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.DateTimeZone;
+
+import com.aol.advertising.vulcan.api.partitioning.EventTimeExtractor;
+
+public class EventTimePartitioningConfig {
+
+  private final EventTimeExtractor eventTimeExtractor;
+  private long bucketLengthInMillis;
+  private int openBuckets;
+  private DateTimeZone timeZone;
+
+  public EventTimePartitioningConfig(EventTimeExtractor eventTimeExtractor) {
+    if (eventTimeExtractor == null) {
+      throw new NullPointerException("Specified event time extractor was null");
+    }
+    this.eventTimeExtractor = eventTimeExtractor;
+    bucketLengthInMillis = TimeUnit.HOURS.toMillis(1);
+    openBuckets = 2;
+    timeZone = DateTimeZone.UTC;
+  }
+
+  /**
+   * Length of the time buckets records are partitioned into. Buckets are aligned to the start of the
+   * day, so the length has to be a whole number of minutes that divides a day, e.g. 1 day, 1 hour or
+   * 15 minutes
+   * <p>
+   * Default is 1 hour
+   */
+  public EventTimePartitioningConfig withBucketsOf(long bucketLength, TimeUnit unit) {
+    long bucketLengthInMillis = unit.toMillis(bucketLength);
+    if (!TimeBuckets.canBeAlignedToDays(bucketLengthInMillis)) {
+      throw new IllegalArgumentException("Time buckets must last a whole number of minutes that divides a day");
+    }
+    this.bucketLengthInMillis = bucketLengthInMillis;
+    return this;
+  }
+
+  /**
+   * How many buckets, counting the newest one, are kept open for late records. Once a record of a
+   * newer bucket arrives, the files of the buckets falling out of the window are closed and their
+   * late records are dropped, see
+   * {@link com.aol.advertising.vulcan.api.metrics.WriterMetrics#getLateRecords()}. Lateness is
+   * measured against the newest event time seen, not against the clock. Records more than one
+   * bucket ahead of the clock are dropped too, so they cannot close the buckets in use
+   * <p>
+   * Default is 2 buckets, i.e. records up to one bucket late are written to their own bucket
+   */
+  public EventTimePartitioningConfig withOpenBuckets(int openBuckets) {
+    if (openBuckets < 1) {
+      throw new IllegalArgumentException("At least 1 time bucket must be kept open");
+    }
+    this.openBuckets = openBuckets;
+    return this;
+  }
+
+  /**
+   * Time zone whose local time buckets are aligned to and named after
+   * <p>
+   * Default is UTC
+   */
+  public EventTimePartitioningConfig inTimeZone(DateTimeZone timeZone) {
+    if (timeZone == null) {
+      throw new NullPointerException("Specified time zone was null");
+    }
+    this.timeZone = timeZone;
+    return this;
+  }
+
+  public TimeBuckets newTimeBuckets() {
+    return new TimeBuckets(bucketLengthInMillis, timeZone);
+  }
+
+  public EventTimeExtractor getEventTimeExtractor() {
+    return eventTimeExtractor;
+  }
+
+  public long getBucketLengthInMillis() {
+    return bucketLengthInMillis;
+  }
+
+  public int getOpenBuckets() {
+    return openBuckets;
+  }
+
+  public DateTimeZone getTimeZone() {
+    return timeZone;
+  }
+}
@@ -0,0 +1,53 @@
+package com.aol.advertising.vulcan.partitioning;
+
+import org.apache.avro.Schema;
+import org.apache.avro.Schema.Field;
+import org.apache.avro.specific.SpecificRecord;
+
+import com.aol.advertising.vulcan.api.partitioning.EventTimeExtractor;
+
+/**
+ * Uses the value of a top-level numeric field of the record, e.g. a {@code timestamp-millis} long,
+ * as the event time in milliseconds since the epoch
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public class FieldValueEventTimeExtractor implements EventTimeExtractor {
+
+  private final String fieldName;
+
+  // Records of a generated class share their schema instance, so the field is only looked up when it changes
+  private Schema lastSchema;
+  private int lastFieldPosition;
+
+  public FieldValueEventTimeExtractor(String fieldName) {
+    if (fieldName == null) {
+      throw new NullPointerException("Specified event time field was null");
+    }
+    this.fieldName = fieldName;
+  }
+
+  @Override
+  public long extractEventTimeFrom(SpecificRecord avroRecord) {
+    Object eventTime = avroRecord.get(getFieldPositionIn(avroRecord.getSchema()));
+    if (!(eventTime instanceof Number)) {
+      throw new IllegalArgumentException("Field \"" + fieldName + "\" of a record of schema "
+          + avroRecord.getSchema().getFullName() + " does not hold a time in milliseconds: " + eventTime);
+    }
+    return ((Number) eventTime).longValue();
+  }
+
+  private int getFieldPositionIn(Schema avroSchema) {
+    if (avroSchema != lastSchema) {
+      Field eventTimeField = avroSchema.getField(fieldName);
+      if (eventTimeField == null) {
+        throw new IllegalArgumentException("Records of schema " + avroSchema.getFullName() + " have no field \""
+            + fieldName + "\" to read the event time from");
+      }
+      lastFieldPosition = eventTimeField.pos();
+      lastSchema = avroSchema;
+    }
+    return lastFieldPosition;
+  }
+}
@@ -0,0 +1,100 @@
+package com.aol.advertising.vulcan.partitioning;
+
+import org.joda.time.DateTimeZone;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+
+/**
+ * Splits time into buckets of a fixed length aligned to the local time of a time zone, e.g. the
+ * hours or the quarters of an hour of a day. Buckets are identified by the instant they start at,
+ * in milliseconds since the epoch, and named after their local start time
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public class TimeBuckets {
+
+  private static final long ONE_MINUTE_IN_MILLIS = 60_000;
+  private static final long ONE_HOUR_IN_MILLIS = 60 * ONE_MINUTE_IN_MILLIS;
+  private static final long ONE_DAY_IN_MILLIS = 24 * ONE_HOUR_IN_MILLIS;
+
+  private final long bucketLengthInMillis;
+  private final DateTimeZone timeZone;
+  private final String bucketNamePattern;
+  private final DateTimeFormatter bucketNameFormatter;
+
+  public TimeBuckets(long bucketLengthInMillis, DateTimeZone timeZone) {
+    this.bucketLengthInMillis = bucketLengthInMillis;
+    this.timeZone = timeZone;
+    this.bucketNamePattern = getBucketNamePattern();
+    this.bucketNameFormatter = DateTimeFormat.forPattern(bucketNamePattern).withZone(timeZone);
+  }
+
+  /**
+   * Whether buckets of {@code bucketLengthInMillis} can be aligned to the start of the day, i.e. it
+   * is a whole number of minutes that divides a day
+   */
+  public static boolean canBeAlignedToDays(long bucketLengthInMillis) {
+    return bucketLengthInMillis >= ONE_MINUTE_IN_MILLIS && bucketLengthInMillis % ONE_MINUTE_IN_MILLIS == 0
+        && ONE_DAY_IN_MILLIS % bucketLengthInMillis == 0;
+  }
+
+  // As coarse as the buckets allow
+  private String getBucketNamePattern() {
+    if (bucketLengthInMillis % ONE_DAY_IN_MILLIS == 0) {
+      return "yyyy-MM-dd";
+    }
+    if (bucketLengthInMillis % ONE_HOUR_IN_MILLIS == 0) {
+      return "yyyy-MM-dd-HH";
+    }
+    return "yyyy-MM-dd-HH-mm";
+  }
+
+  /**
+   * Start of the bucket {@code instant} belongs to
+   */
+  public long bucketOf(long instant) {
+    long localInstant = timeZone.convertUTCToLocal(instant);
+    return toBucketStart(floorDiv(localInstant, bucketLengthInMillis) * bucketLengthInMillis);
+  }
+
+  // Rounds towards negative infinity, so instants before the epoch fall in the bucket they start
+  private static long floorDiv(long dividend, long divisor) {
+    long quotient = dividend / divisor;
+    if (dividend % divisor != 0 && (dividend ^ divisor) < 0) {
+      quotient--;
+    }
+    return quotient;
+  }
+
+  /**
+   * Start of the bucket following the one starting at {@code bucketStart}
+   */
+  public long bucketAfter(long bucketStart) {
+    return toBucketStart(timeZone.convertUTCToLocal(bucketStart) + bucketLengthInMillis);
+  }
+
+  // Local times repeated when clocks go back start at their earliest instant, so both repetitions share the bucket
+  private long toBucketStart(long localBucketStart) {
+    return timeZone.convertLocalToUTC(localBucketStart, false);
+  }
+
+  /**
+   * Local start time of the bucket, e.g. {@code 2015-06-01-13} for hourly buckets
+   */
+  public String nameOf(long bucketStart) {
+    return bucketNameFormatter.print(bucketStart);
+  }
+
+  /**
+   * Regular expression matching the names of all buckets, e.g. {@code \d\d\d\d-\d\d-\d\d-\d\d} for
+   * hourly buckets
+   */
+  public String getNameRegex() {
+    return bucketNamePattern.replaceAll("[a-zA-Z]", "\\\\d");
+  }
+
+  public long getBucketLengthInMillis() {
+    return bucketLengthInMillis;
+  }
+}
@@ -1,10 +1,27 @@
 package com.aol.advertising.vulcan.ringbuffer;
 
+import java.nio.ByteBuffer;
+
+import org.apache.avro.file.DataFileStream;
 import org.apache.avro.specific.SpecificRecord;
 
 public class AvroEvent {
 
   private SpecificRecord avroRecord;
+  private EncodedRecordBuffer encodedRecord;
+  private boolean recordEncoded;
+  private boolean discarded;
+  private DurableWrite durableWrite;
+  private DataFileStream<?> fileToAppend;
+
+  public AvroEvent() {}
+
+  /**
+   * Event whose record is always serialized into {@code encodedRecord}
+   */
+  public AvroEvent(EncodedRecordBuffer encodedRecord) {
+    this.encodedRecord = encodedRecord;
+  }
 
   public SpecificRecord getAvroRecord() {
     return avroRecord;
@@ -12,5 +29,100 @@ public class AvroEvent {
 
   public void setAvroRecord(SpecificRecord avroRecord) {
     this.avroRecord = avroRecord;
+    this.recordEncoded = false;
+    this.discarded = false;
+    this.durableWrite = null;
+    this.fileToAppend = null;
+    if (encodedRecord != null) {
+      encodedRecord.reset();
+    }
+  }
+
+  /**
+   * Fills this slot with a copy of the remaining bytes of a record already serialized, and no
+   * record object
+   */
+  public void setEncodedRecord(ByteBuffer encodedBytes) {
+    setAvroRecord(null);
+    getEncodedRecord().write(encodedBytes);
+    recordEncoded = true;
+  }
+
+  /**
+   * Fills this slot with an Avro file whose blocks are to be appended to the destination file, and
+   * no record
+   */
+  public void setFileToAppend(DataFileStream<?> avroFileStream) {
+    setAvroRecord(null);
+    this.fileToAppend = avroFileStream;
+  }
+
+  public DataFileStream<?> getFileToAppend() {
+    return fileToAppend;
+  }
+
+  /**
+   * Drops the reference to the record once it has been serialized into
+   * {@link #getEncodedRecord()}, so it can be garbage collected or reused while the event waits in
+   * the ring buffer. {@link #getAvroRecord()} returns null afterwards
+   */
+  public void releaseAvroRecord() {
+    avroRecord = null;
+  }
+
+  /**
+   * Marks this slot as holding no record, so consumers skip it. Used when a slot has been claimed
+   * but could not be filled in
+   */
+  public void discard() {
+    avroRecord = null;
+    if (encodedRecord != null) {
+      encodedRecord.reset();
+    }
+    recordEncoded = false;
+    discarded = true;
+    durableWrite = null;
+    fileToAppend = null;
+  }
+
+  public boolean isDiscarded() {
+    return discarded;
+  }
+
+  /**
+   * Buffer where producers can leave the record already serialized. Lazily allocated so writers
+   * not using producer-side serialization do not pay for it
+   */
+  public EncodedRecordBuffer getEncodedRecord() {
+    if (encodedRecord == null) {
+      encodedRecord = new EncodedRecordBuffer();
+    }
+    return encodedRecord;
+  }
+
+  /**
+   * Tells consumers that the record of this slot has been serialized into
+   * {@link #getEncodedRecord()}, so those bytes are written instead of the record. Some records,
+   * e.g. those with no fields or only null fields, serialize to no bytes at all, so the size of the
+   * encoded record cannot tell
+   */
+  public void markRecordEncoded() {
+    recordEncoded = true;
+  }
+
+  public boolean hasEncodedRecord() {
+    return recordEncoded;
+  }
+
+  /**
+   * Asks the consumer to force the record in this slot to the storage device and to report it
+   * through {@code durableWrite}. Must be called after {@link #setAvroRecord(SpecificRecord)}
+   */
+  public void writeDurably(DurableWrite durableWrite) {
+    this.durableWrite = durableWrite;
+  }
+
+  public DurableWrite getDurableWrite() {
+    return durableWrite;
   }
 }
@@ -0,0 +1,66 @@
+package com.aol.advertising.vulcan.ringbuffer;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Pending result of writing a record durably. Completed by the consumer once the record has been
+ * forced to the storage device, or failed if it could not be written or forced. Cannot be
+ * cancelled, since the record is already in the ring buffer when the producer gets it
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public class DurableWrite implements Future<Void> {
+
+  private final CountDownLatch done = new CountDownLatch(1);
+  private volatile Throwable failure;
+
+  public void complete() {
+    done.countDown();
+  }
+
+  public void fail(Throwable failure) {
+    this.failure = failure;
+    done.countDown();
+  }
+
+  @Override
+  public boolean cancel(boolean mayInterruptIfRunning) {
+    return false;
+  }
+
+  @Override
+  public boolean isCancelled() {
+    return false;
+  }
+
+  @Override
+  public boolean isDone() {
+    return done.getCount() == 0;
+  }
+
+  @Override
+  public Void get() throws InterruptedException, ExecutionException {
+    done.await();
+    return result();
+  }
+
+  @Override
+  public Void get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+    if (!done.await(timeout, unit)) {
+      throw new TimeoutException("Record has not been forced to the storage device yet");
+    }
+    return result();
+  }
+
+  private Void result() throws ExecutionException {
+    if (failure != null) {
+      throw new ExecutionException(failure);
+    }
+    return null;
+  }
+}
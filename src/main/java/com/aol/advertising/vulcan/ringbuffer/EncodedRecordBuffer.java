@@ -0,0 +1,84 @@
+package com.aol.advertising.vulcan.ringbuffer;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Growable, reusable byte sink holding the binary encoding of a single Avro record. Unlike
+ * {@link java.io.ByteArrayOutputStream} it is not synchronized and exposes its contents without
+ * copying, so a ring buffer slot can keep the same instance (and the same backing array) for its
+ * whole lifetime
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public class EncodedRecordBuffer extends OutputStream {
+
+  private static final int INITIAL_CAPACITY_IN_BYTES = 256;
+
+  private byte[] buffer;
+  private ByteBuffer view;
+  private int size;
+
+  public EncodedRecordBuffer() {
+    this(INITIAL_CAPACITY_IN_BYTES);
+  }
+
+  protected EncodedRecordBuffer(int initialCapacity) {
+    buffer = new byte[initialCapacity];
+    view = ByteBuffer.wrap(buffer);
+    size = 0;
+  }
+
+  @Override
+  public void write(int b) {
+    ensureCapacity(size + 1);
+    buffer[size++] = (byte) b;
+  }
+
+  @Override
+  public void write(byte[] bytes, int offset, int length) {
+    ensureCapacity(size + length);
+    System.arraycopy(bytes, offset, buffer, size, length);
+    size += length;
+  }
+
+  /**
+   * Appends the remaining bytes of {@code bytes}, which can be a direct buffer. Its position is
+   * left untouched
+   */
+  public void write(ByteBuffer bytes) {
+    int length = bytes.remaining();
+    ensureCapacity(size + length);
+    bytes.duplicate().get(buffer, size, length);
+    size += length;
+  }
+
+  private void ensureCapacity(int requiredCapacity) {
+    if (requiredCapacity > buffer.length) {
+      buffer = Arrays.copyOf(buffer, Math.max(requiredCapacity, buffer.length << 1));
+      view = ByteBuffer.wrap(buffer);
+    }
+  }
+
+  /**
+   * Discards the current contents. The backing array is kept for reuse
+   */
+  public void reset() {
+    size = 0;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * View over the encoded bytes currently held. The returned buffer is reused and only valid until
+   * the next modification of this instance
+   */
+  public ByteBuffer asByteBuffer() {
+    view.limit(size).position(0);
+    return view;
+  }
+}
@@ -0,0 +1,44 @@
+package com.aol.advertising.vulcan.ringbuffer;
+
+import java.nio.ByteBuffer;
+
+import com.lmax.disruptor.EventFactory;
+
+/**
+ * Creates events whose encoded record buffers are consecutive regions of a single direct buffer
+ * allocated up front, one region per ring buffer slot. Each factory serves a single ring buffer
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public class OffHeapAvroEventFactory implements EventFactory<AvroEvent> {
+
+  private final ByteBuffer slots;
+  private final int slotCapacity;
+
+  /**
+   * @throws IllegalArgumentException if the slots would take more than 2GB
+   */
+  public OffHeapAvroEventFactory(int ringBufferSize, int slotCapacity) {
+    long totalCapacity = (long) ringBufferSize * slotCapacity;
+    if (totalCapacity > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Off-heap slots cannot take more than " + Integer.MAX_VALUE + " bytes");
+    }
+    this.slots = ByteBuffer.allocateDirect((int) totalCapacity);
+    this.slotCapacity = slotCapacity;
+  }
+
+  /**
+   * @throws IllegalStateException if asked for more events than the ring buffer size
+   */
+  @Override
+  public AvroEvent newInstance() {
+    if (slots.remaining() < slotCapacity) {
+      throw new IllegalStateException("All the off-heap slots have already been handed out");
+    }
+    slots.limit(slots.position() + slotCapacity);
+    OffHeapEncodedRecordBuffer slot = new OffHeapEncodedRecordBuffer(slots);
+    slots.position(slots.limit()).limit(slots.capacity());
+    return new AvroEvent(slot);
+  }
+}
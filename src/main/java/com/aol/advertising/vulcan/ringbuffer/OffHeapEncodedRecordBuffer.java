@@ -0,0 +1,97 @@
+package com.aol.advertising.vulcan.ringbuffer;
+
+import java.nio.ByteBuffer;
+
+/**
+ * {@link EncodedRecordBuffer} backed by a fixed-capacity region of a direct buffer, so encoded
+ * records waiting in the ring buffer live off-heap. Records that do not fit in the region are
+ * moved to a heap buffer that is dropped as soon as the slot is reused
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public class OffHeapEncodedRecordBuffer extends EncodedRecordBuffer {
+
+  private final ByteBuffer region;
+  private final ByteBuffer view;
+  private EncodedRecordBuffer oversizedRecord;
+
+  /**
+   * @param region where records are encoded, from its position to its limit. Not shared with any
+   *        other buffer
+   */
+  public OffHeapEncodedRecordBuffer(ByteBuffer region) {
+    super(0);
+    this.region = region.slice();
+    this.view = this.region.duplicate();
+  }
+
+  @Override
+  public void write(int b) {
+    if (oversizedRecord == null) {
+      if (region.hasRemaining()) {
+        region.put((byte) b);
+        return;
+      }
+      moveToHeap();
+    }
+    oversizedRecord.write(b);
+  }
+
+  @Override
+  public void write(byte[] bytes, int offset, int length) {
+    if (oversizedRecord == null) {
+      if (region.remaining() >= length) {
+        region.put(bytes, offset, length);
+        return;
+      }
+      moveToHeap();
+    }
+    oversizedRecord.write(bytes, offset, length);
+  }
+
+  @Override
+  public void write(ByteBuffer bytes) {
+    if (oversizedRecord == null) {
+      if (region.remaining() >= bytes.remaining()) {
+        region.put(bytes.duplicate());
+        return;
+      }
+      moveToHeap();
+    }
+    oversizedRecord.write(bytes);
+  }
+
+  private void moveToHeap() {
+    ByteBuffer encodedSoFar = asByteBuffer();
+    oversizedRecord = new EncodedRecordBuffer();
+    oversizedRecord.write(encodedSoFar);
+  }
+
+  @Override
+  public void reset() {
+    region.clear();
+    oversizedRecord = null;
+  }
+
+  @Override
+  public int size() {
+    return oversizedRecord == null ? region.position() : oversizedRecord.size();
+  }
+
+  /**
+   * A direct buffer unless the record did not fit in the off-heap region
+   */
+  @Override
+  public ByteBuffer asByteBuffer() {
+    if (oversizedRecord != null) {
+      return oversizedRecord.asByteBuffer();
+    }
+    view.limit(region.position()).position(0);
+    return view;
+  }
+
+  public int getCapacity() {
+    return region.capacity();
+  }
+}
@@ -0,0 +1,39 @@
+package com.aol.advertising.vulcan.rolling;
+
+import java.nio.file.Path;
+
+import com.aol.advertising.vulcan.api.rolling.FileSizeTracker;
+import com.aol.advertising.vulcan.rolling.RollingCondition.FileAwareRollingCondition;
+
+/**
+ * Compares the size of the file accounted for by the writer with the rolling size, so it costs no
+ * disk access at all. The writer only hands complete blocks to the file, so files can overshoot the
+ * rolling size by up to a block (the sync interval of the writer)
+ * 
+ * @author Jaime Nuche
+ *
+ */
+class ExactSizeBasedRollingCondition implements FileAwareRollingCondition {
+
+  private static final long ONE_MB_IN_BYTES = 1_048_576L;
+
+  private final long rolloverTriggeringSizeInBytes;
+  private final FileSizeTracker fileSizeTracker;
+
+  ExactSizeBasedRollingCondition(int rolloverTriggeringSizeInMb, FileSizeTracker fileSizeTracker) {
+    this.rolloverTriggeringSizeInBytes = rolloverTriggeringSizeInMb * ONE_MB_IN_BYTES;
+    this.fileSizeTracker = fileSizeTracker;
+  }
+
+  // The tracker always follows the file the writer has open
+  @Override
+  public void registerAvroFileName(Path avroFilename) {}
+
+  @Override
+  public boolean shouldRollover() {
+    return fileSizeTracker.getFileSizeInBytes() >= rolloverTriggeringSizeInBytes;
+  }
+
+  @Override
+  public void signalRollover() {}
+}
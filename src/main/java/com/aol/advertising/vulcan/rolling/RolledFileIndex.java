@@ -0,0 +1,139 @@
+package com.aol.advertising.vulcan.rolling;
+
+import static java.lang.Math.max;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Next index to use for the rolled files of each date, or of each rolling period when files roll
+ * more often than daily. It is built by scanning the destination directory once, or read from a
+ * hidden {@code .<destination file name>.index} file when one is kept. The index file only holds the
+ * date of the last roll and the next index for it, so other dates are looked up in the directory if
+ * they are ever needed. It is written before each roll, so
+ * it can get ahead of the files in the directory but never behind them
+ * 
+ * @author Jaime Nuche
+ *
+ */
+class RolledFileIndex {
+
+  private static final Logger log = LoggerFactory.getLogger(RolledFileIndex.class);
+
+  private static final String INDEX_FILE_PREFIX = ".";
+  private static final String INDEX_FILE_EXTENSION = ".index";
+
+  private final Path avroFilename;
+  private final Path indexFilename;
+  private final Pattern indexFileContentsPattern;
+  private final Pattern rolledFilePattern;
+  private final Map<String, Integer> nextIndexPerDate;
+
+  private boolean directoryScanned;
+
+  /**
+   * @param rolledFilePrefix what every rolled file name starts with, before the date
+   * @param dateRegex matches the dates in rolled file names, as named by the rolling policy
+   * @param indexFileKept whether the index is persisted in an index file
+   */
+  RolledFileIndex(Path avroFilename, String rolledFilePrefix, String dateRegex, boolean indexFileKept) {
+    this.avroFilename = avroFilename;
+    this.indexFilename = indexFileKept ? getIndexFilenameFor(avroFilename) : null;
+    this.indexFileContentsPattern = Pattern.compile("(" + dateRegex + ") (\\d+)\\s*");
+    this.rolledFilePattern = Pattern.compile(Pattern.quote(rolledFilePrefix) + "(" + dateRegex + ")\\.(\\d+)\\.log");
+    this.nextIndexPerDate = new HashMap<>();
+    this.directoryScanned = false;
+  }
+
+  static Path getIndexFilenameFor(Path avroFilename) {
+    return avroFilename.resolveSibling(INDEX_FILE_PREFIX + avroFilename.getFileName() + INDEX_FILE_EXTENSION);
+  }
+
+  void load() {
+    if (indexFilename == null || !readIndexFile()) {
+      scanDirectory();
+    }
+  }
+
+  int getNextIndexFor(String date) {
+    if (!nextIndexPerDate.containsKey(date) && !directoryScanned) {
+      scanDirectory();
+    }
+    Integer nextIndex = nextIndexPerDate.get(date);
+    return nextIndex != null ? nextIndex : 0;
+  }
+
+  /**
+   * Persists {@code index} as used before the file is actually rolled to it
+   */
+  void reserve(String date, int index) {
+    if (indexFilename != null) {
+      writeIndexFile(date, index + 1);
+    }
+  }
+
+  void markAsUsed(String date, int index) {
+    recordUsed(date, index);
+  }
+
+  private boolean readIndexFile() {
+    try {
+      if (Files.exists(indexFilename)) {
+        Matcher indexFileContents =
+            indexFileContentsPattern.matcher(new String(Files.readAllBytes(indexFilename), US_ASCII));
+        if (indexFileContents.matches()) {
+          nextIndexPerDate.put(indexFileContents.group(1), Integer.parseInt(indexFileContents.group(2)));
+          return true;
+        }
+        log.warn("Ignoring unreadable index file " + indexFilename);
+      }
+    } catch (IOException | NumberFormatException e) {
+      log.warn("Could not read index file " + indexFilename, e);
+    }
+    return false;
+  }
+
+  // An index file left behind the directory contents could make rolls overwrite rolled files, so it
+  // is removed if it cannot be updated
+  private void writeIndexFile(String date, int nextIndex) {
+    try {
+      Files.write(indexFilename, (date + " " + nextIndex + "\n").getBytes(US_ASCII));
+    } catch (IOException ioe) {
+      log.warn("Could not update index file " + indexFilename + ", removing it", ioe);
+      try {
+        Files.deleteIfExists(indexFilename);
+      } catch (IOException ioe2) {
+        log.error("Could not remove index file " + indexFilename + ". Delete it before restarting the writer", ioe2);
+      }
+    }
+  }
+
+  private void scanDirectory() {
+    directoryScanned = true;
+    try (DirectoryStream<Path> dirContents = Files.newDirectoryStream(avroFilename.getParent())) {
+      for (Path fileInDir : dirContents) {
+        Matcher rolledFileMatcher = rolledFilePattern.matcher(fileInDir.getFileName().toString());
+        if (rolledFileMatcher.lookingAt()) {
+          recordUsed(rolledFileMatcher.group(1), Integer.parseInt(rolledFileMatcher.group(2)));
+        }
+      }
+    } catch (IOException | NumberFormatException e) {
+      log.error("Could not scan rolled files. New rolled files may overwrite existing ones", e);
+    }
+  }
+
+  private void recordUsed(String date, int index) {
+    Integer nextIndex = nextIndexPerDate.get(date);
+    nextIndexPerDate.put(date, nextIndex != null ? max(nextIndex, index + 1) : index + 1);
+  }
+}
@@ -1,62 +1,70 @@
 package com.aol.advertising.vulcan.rolling;
 
-import static java.lang.Math.max;
 import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
 
 import java.io.IOException;
-import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.avro.specific.SpecificRecord;
-import org.joda.time.DateTime;
-import org.joda.time.format.DateTimeFormat;
-import org.joda.time.format.DateTimeFormatter;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.joda.time.DateTimeUtils;
 
-import com.aol.advertising.vulcan.api.rolling.RollingPolicy;
+import com.aol.advertising.vulcan.api.rolling.BatchLevelRollingPolicy;
+import com.aol.advertising.vulcan.api.rolling.FileSizeAwareRollingPolicy;
+import com.aol.advertising.vulcan.api.rolling.FileSizeTracker;
+import com.aol.advertising.vulcan.api.rolling.RolledFileAwareRollingPolicy;
 import com.aol.advertising.vulcan.exception.FileRollingException;
+import com.aol.advertising.vulcan.partitioning.TimeBuckets;
 import com.aol.advertising.vulcan.rolling.RollingCondition.FileAwareRollingCondition;
 
 /**
  * Rolled files names are indexed beginning at 0. File format:
- * &lt;filename_minus_extension&gt;-yyyy-MM-dd.&lt;index&gt;.log
+ * &lt;filename_minus_extension&gt;-yyyy-MM-dd.&lt;index&gt;.log, with the hour and minute appended
+ * to the date when rolling more often than daily
  * <p>
  * Two criteria for rolling:
  * <ul>
- * <li>Time-based: Destination file should be rolled every day at midnight. File index reset to 0
- * </li>
+ * <li>Time-based: Destination file should be rolled every day at midnight, or at the end of every
+ * configured interval. File index reset to 0</li>
  * <li>Size-based: Destination file should be rolled when size > {@code rolloverTriggeringSizeInMB}
  * </li>
  * </ul>
+ * Indexes continue from the highest one found in the directory for the same date, or from the index
+ * file if {@link TimeAndSizeBasedRollingPolicyConfig#withRollingIndexFile()} is configured.
+ * <p>
+ * The size is taken from the writer when it provides a {@link FileSizeTracker}. Otherwise it is
+ * sampled from disk at intervals predicted from the size of the records written
+ * <p>
+ * Writers check the policy at the end of every batch and whenever a block reaches the file, which is
+ * when the tracked size changes, instead of after every record
  * 
  * @author Jaime Nuche
  *
  */
-public class TimeAndSizeBasedRollingPolicy implements RollingPolicy {
+public class TimeAndSizeBasedRollingPolicy
+    implements FileSizeAwareRollingPolicy, RolledFileAwareRollingPolicy, BatchLevelRollingPolicy {
 
-  private static final Logger log = LoggerFactory.getLogger(TimeAndSizeBasedRollingPolicy.class);
-
-  private static final String ROLLED_FILENAME_DATETIME_PATTERN = "yyyy-MM-dd";
-  private static final DateTimeFormatter dateTimeFormatterForRolledFiles =
-      DateTimeFormat.forPattern(ROLLED_FILENAME_DATETIME_PATTERN);
   private static final Pattern FILE_EXTENSION_PATTERN = Pattern.compile("\\.[^.]+$");
 
-  private final RollingCondition lastRolloverHappenedBeforeToday;
-  private final FileAwareRollingCondition sizeThresholdHasBeenHit;
+  private final TimeBuckets rollingPeriods;
+  private final TimeBasedRollingCondition rollingPeriodHasEnded;
+  private final int rollingSizeInMb;
+  private final boolean rollingIndexFileUsed;
+
+  private FileAwareRollingCondition sizeThresholdHasBeenHit;
 
   private Path avroFilename;
-  private int rollingIndex;
+  private Path lastRolledFilename;
+  private RolledFileIndex rolledFileIndex;
 
   public TimeAndSizeBasedRollingPolicy(TimeAndSizeBasedRollingPolicyConfig configuration) {
-    this.lastRolloverHappenedBeforeToday = new TimeBasedRollingCondition();
-    this.sizeThresholdHasBeenHit = new SizeBasedRollingCondition(configuration.getRollingSizeInMb());
-
-    this.rollingIndex = 0;
+    this.rollingPeriods = new TimeBuckets(configuration.getRollingIntervalInMillis(), configuration.getTimeZone());
+    this.rollingPeriodHasEnded = new TimeBasedRollingCondition(rollingPeriods);
+    this.rollingSizeInMb = configuration.getRollingSizeInMb();
+    this.sizeThresholdHasBeenHit = new SizeBasedRollingCondition(rollingSizeInMb);
+    this.rollingIndexFileUsed = configuration.isRollingIndexFileUsed();
   }
 
   @Override
@@ -64,97 +72,91 @@ public class TimeAndSizeBasedRollingPolicy implements RollingPolicy {
     this.avroFilename = avroFilename;
     sizeThresholdHasBeenHit.registerAvroFileName(avroFilename);
 
-    init();
+    rolledFileIndex = new RolledFileIndex(avroFilename, removeFileExtensionFrom(avroFilename) + "-",
+                                          rollingPeriods.getNameRegex(), rollingIndexFileUsed);
+    rolledFileIndex.load();
   }
 
   @Override
-  public boolean shouldRollover(SpecificRecord avroRecord) {
-    return sizeThresholdHasBeenHit.shouldRollover() || lastRolloverHappenedBeforeToday.shouldRollover();
+  public void trackFileSizeWith(FileSizeTracker fileSizeTracker) {
+    sizeThresholdHasBeenHit = new ExactSizeBasedRollingCondition(rollingSizeInMb, fileSizeTracker);
   }
 
   @Override
-  public void rolloverAvroFile() throws FileRollingException {
-    signalRolloverToConditions();
-    renameAvroFile();
-    updateRollingIndex();
+  public long getRecordsBetweenChecks() {
+    return 0;
   }
 
-  private void renameAvroFile() throws FileRollingException {
-    try {
-      Files.move(avroFilename, getNextRolledFilename(), REPLACE_EXISTING);
-    } catch (IOException e) {
-      throw new FileRollingException("File \"" + getNextRolledFilename()
-          + "\" could not be used to roll the current output Avro file");
-    }
-  }
-
-  private Path getNextRolledFilename() {
-    DateTime nextDateTimeToUse = selectNextDateTimeToUse();
-    // @formatter:off
-    Path nextRolledFilename = Paths.get(avroFilename.getParent().toString(),
-                                        avroFilename.getFileSystem().getSeparator()
-                                        + removeFileExtensionFrom(avroFilename)
-                                        + "-"
-                                        + dateTimeFormatterForRolledFiles.print(nextDateTimeToUse)
-                                        + "."
-                                        + rollingIndex
-                                        + ".log");
-    // @formatter:on
-    return nextRolledFilename;
+  @Override
+  public long getBytesBetweenChecks() {
+    return 1;
   }
 
-  private DateTime selectNextDateTimeToUse() {
-    if (lastRolloverHappenedBeforeToday.shouldRollover()) {
-      return yesterday();
-    } else {
-      return DateTime.now();
-    }
+  @Override
+  public boolean shouldRollover(SpecificRecord avroRecord) {
+    return sizeThresholdHasBeenHit.shouldRollover() || rollingPeriodHasEnded.shouldRollover();
   }
 
-  private DateTime yesterday() {
-    return DateTime.now().minusDays(1);
+  @Override
+  public void rolloverAvroFile() throws FileRollingException {
+    rolloverAvroFileAsPartial("");
   }
 
-  private void updateRollingIndex() {
-    if (lastRolloverHappenedBeforeToday.shouldRollover()) {
-      rollingIndex = 0;
-    } else {
-      rollingIndex++;
-    }
+  @Override
+  public void rolloverAvroFileAsPartial(String partialFileExtension) throws FileRollingException {
+    // The period is picked before the time condition moves on to the next one
+    String rolledPeriod = rollingPeriods.nameOf(selectRolledPeriod());
+    signalRolloverToConditions();
+    renameAvroFile(rolledPeriod, partialFileExtension);
   }
 
-  private void signalRolloverToConditions() {
-    lastRolloverHappenedBeforeToday.signalRollover();
-    sizeThresholdHasBeenHit.signalRollover();
+  @Override
+  public Path getLastRolledFilename() {
+    return lastRolledFilename;
   }
 
-  private void init() {
+  // Partial files still match the rolled file names, so the index counts them as used after a restart
+  private void renameAvroFile(String nextDate, String partialFileExtension) throws FileRollingException {
+    int nextIndex = rolledFileIndex.getNextIndexFor(nextDate);
+    Path nextRolledFilename = getRolledFilename(nextDate, nextIndex);
+    Path renamedFilename = nextRolledFilename.resolveSibling(nextRolledFilename.getFileName() + partialFileExtension);
+    rolledFileIndex.reserve(nextDate, nextIndex);
     try {
-      determineInitialRollingIndex();
-    } catch (IOException ioe) {
-      log.error("Could not initialize rolling policy. Resorting to defaults", ioe);
-      rollingIndex = 0;
+      Files.move(avroFilename, renamedFilename, REPLACE_EXISTING);
+      lastRolledFilename = nextRolledFilename;
+    } catch (IOException e) {
+      throw new FileRollingException("File \"" + renamedFilename
+          + "\" could not be used to roll the current output Avro file");
     }
+    rolledFileIndex.markAsUsed(nextDate, nextIndex);
   }
 
-  private void determineInitialRollingIndex() throws IOException {
-    rollingIndex = getHighestIndexFromArchivedFilesInDir() + 1;
+  private Path getRolledFilename(String date, int index) {
+    // @formatter:off
+    Path rolledFilename = Paths.get(avroFilename.getParent().toString(),
+                                    avroFilename.getFileSystem().getSeparator()
+                                    + removeFileExtensionFrom(avroFilename)
+                                    + "-"
+                                    + date
+                                    + "."
+                                    + index
+                                    + ".log");
+    // @formatter:on
+    return rolledFilename;
   }
 
-  private int getHighestIndexFromArchivedFilesInDir() throws IOException {
-    int highestIndex = -1;
-    try (DirectoryStream<Path> dirContents = Files.newDirectoryStream(avroFilename.getParent())) {
-      for (Path archivedFileName : dirContents) {
-        highestIndex = max(highestIndex, getIndexFrom(archivedFileName.getFileName().toString()));
-      }
+  // Files rolled because their period ended are named after that period, e.g. yesterday
+  private long selectRolledPeriod() {
+    long currentPeriod = rollingPeriods.bucketOf(DateTimeUtils.currentTimeMillis());
+    if (rollingPeriodHasEnded.shouldRollover()) {
+      return rollingPeriods.bucketOf(currentPeriod - 1);
     }
-    return highestIndex;
+    return currentPeriod;
   }
 
-  private int getIndexFrom(String archivedFileName) {
-    Matcher fileIndexMatcher =
-        Pattern.compile(removeFileExtensionFrom(avroFilename) + ".+\\d{2}\\.(\\d+)").matcher(archivedFileName);
-    return fileIndexMatcher.find() ? Integer.parseInt(fileIndexMatcher.group(1)) : Integer.MIN_VALUE;
+  private void signalRolloverToConditions() {
+    rollingPeriodHasEnded.signalRollover();
+    sizeThresholdHasBeenHit.signalRollover();
   }
 
   private String removeFileExtensionFrom(Path avroFileName) {
@@ -1,11 +1,23 @@
 package com.aol.advertising.vulcan.rolling;
 
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.DateTimeZone;
+
+import com.aol.advertising.vulcan.partitioning.TimeBuckets;
+
 public class TimeAndSizeBasedRollingPolicyConfig {
 
   private int rollingSizeInMb;
+  private boolean rollingIndexFileUsed;
+  private long rollingIntervalInMillis;
+  private DateTimeZone timeZone;
 
   public TimeAndSizeBasedRollingPolicyConfig() {
     rollingSizeInMb = 50;
+    rollingIndexFileUsed = false;
+    rollingIntervalInMillis = TimeUnit.DAYS.toMillis(1);
+    timeZone = DateTimeZone.getDefault();
   }
 
   public TimeAndSizeBasedRollingPolicyConfig withFileRollingSizeOf(int rollingSizeInMb) {
@@ -16,7 +28,59 @@ public class TimeAndSizeBasedRollingPolicyConfig {
     return this;
   }
 
+  /**
+   * Keeps the next rolling index in a hidden {@code .<file name>.index} file next to the Avro file,
+   * so writers do not have to list the directory to find the last index when they start. Useful with
+   * directories holding many rolled files
+   */
+  public TimeAndSizeBasedRollingPolicyConfig withRollingIndexFile() {
+    this.rollingIndexFileUsed = true;
+    return this;
+  }
+
+  /**
+   * How often files are rolled regardless of their size. Rolls are aligned to the start of the day,
+   * so the interval has to be a whole number of minutes that divides a day, e.g. 1 hour. Rolled
+   * files are named after the local start time of the interval, down to the hour or minute when
+   * needed
+   * <p>
+   * Default is 1 day, i.e. files roll at midnight
+   */
+  public TimeAndSizeBasedRollingPolicyConfig withRollingIntervalOf(long rollingInterval, TimeUnit unit) {
+    long rollingIntervalInMillis = unit.toMillis(rollingInterval);
+    if (!TimeBuckets.canBeAlignedToDays(rollingIntervalInMillis)) {
+      throw new IllegalArgumentException("File rolling interval must be a whole number of minutes that divides a day");
+    }
+    this.rollingIntervalInMillis = rollingIntervalInMillis;
+    return this;
+  }
+
+  /**
+   * Time zone whose local time rolls are aligned to and rolled files are named after
+   * <p>
+   * Default is the time zone of the JVM
+   */
+  public TimeAndSizeBasedRollingPolicyConfig inTimeZone(DateTimeZone timeZone) {
+    if (timeZone == null) {
+      throw new NullPointerException("Specified time zone was null");
+    }
+    this.timeZone = timeZone;
+    return this;
+  }
+
   public int getRollingSizeInMb() {
     return rollingSizeInMb;
   }
+
+  public boolean isRollingIndexFileUsed() {
+    return rollingIndexFileUsed;
+  }
+
+  public long getRollingIntervalInMillis() {
+    return rollingIntervalInMillis;
+  }
+
+  public DateTimeZone getTimeZone() {
+    return timeZone;
+  }
 }
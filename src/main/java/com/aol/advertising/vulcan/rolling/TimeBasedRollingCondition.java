@@ -1,22 +1,31 @@
 package com.aol.advertising.vulcan.rolling;
 
-import org.joda.time.DateTime;
+import org.joda.time.DateTimeUtils;
 
+import com.aol.advertising.vulcan.partitioning.TimeBuckets;
+
+/**
+ * Due once the rolling period the last rollover happened in has ended. The end of the period is
+ * worked out when rolling, so checks only compare the clock against it and allocate nothing
+ */
 class TimeBasedRollingCondition implements RollingCondition {
 
-  private DateTime lastRolloverDate;
+  private final TimeBuckets rollingPeriods;
+
+  private long nextRolloverMillis;
 
-  TimeBasedRollingCondition() {
-    lastRolloverDate = DateTime.now();
+  TimeBasedRollingCondition(TimeBuckets rollingPeriods) {
+    this.rollingPeriods = rollingPeriods;
+    signalRollover();
   }
 
   @Override
   public boolean shouldRollover() {
-    return lastRolloverDate.isBefore(new DateTime().withTimeAtStartOfDay());
+    return DateTimeUtils.currentTimeMillis() >= nextRolloverMillis;
   }
 
   @Override
   public void signalRollover() {
-    lastRolloverDate = DateTime.now();
+    nextRolloverMillis = rollingPeriods.bucketAfter(rollingPeriods.bucketOf(DateTimeUtils.currentTimeMillis()));
   }
 }
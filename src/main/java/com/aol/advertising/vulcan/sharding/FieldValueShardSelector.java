@@ -0,0 +1,32 @@
+package com.aol.advertising.vulcan.sharding;
+
+import org.apache.avro.Schema.Field;
+import org.apache.avro.specific.SpecificRecord;
+
+/**
+ * Uses the value of a top-level field of the record as the shard key
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public class FieldValueShardSelector extends KeyBasedShardSelector {
+
+  private final String fieldName;
+
+  public FieldValueShardSelector(String fieldName) {
+    if (fieldName == null) {
+      throw new NullPointerException("Specified shard key field was null");
+    }
+    this.fieldName = fieldName;
+  }
+
+  @Override
+  protected Object extractShardKeyFrom(SpecificRecord avroRecord) {
+    Field keyField = avroRecord.getSchema().getField(fieldName);
+    if (keyField == null) {
+      throw new IllegalArgumentException("Records of schema " + avroRecord.getSchema().getFullName()
+          + " have no field \"" + fieldName + "\" to select a shard");
+    }
+    return avroRecord.get(keyField.pos());
+  }
+}
@@ -0,0 +1,32 @@
+package com.aol.advertising.vulcan.sharding;
+
+import org.apache.avro.specific.SpecificRecord;
+
+import com.aol.advertising.vulcan.api.sharding.ShardSelector;
+
+/**
+ * Routes records with the same key to the same shard, so all records for a given key end up in
+ * the same file. Keys are distributed using their {@link Object#hashCode()}; records with a null
+ * key go to shard 0
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public abstract class KeyBasedShardSelector implements ShardSelector {
+
+  @Override
+  public int selectShardFor(SpecificRecord avroRecord, int numberOfShards) {
+    Object shardKey = extractShardKeyFrom(avroRecord);
+    return shardKey == null ? 0 : (spread(shardKey.hashCode()) & Integer.MAX_VALUE) % numberOfShards;
+  }
+
+  // Same bit mixing as java.util.HashMap, to avoid poorly distributed hashes piling up in a few shards
+  private int spread(int hash) {
+    return hash ^ (hash >>> 16);
+  }
+
+  /**
+   * Extract the key used to select the shard of {@code avroRecord}
+   */
+  protected abstract Object extractShardKeyFrom(SpecificRecord avroRecord);
+}
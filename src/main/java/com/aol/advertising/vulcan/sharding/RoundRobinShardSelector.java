@@ -0,0 +1,23 @@
+package com.aol.advertising.vulcan.sharding;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.avro.specific.SpecificRecord;
+
+import com.aol.advertising.vulcan.api.sharding.ShardSelector;
+
+/**
+ * Spreads records evenly across all shards in turn, regardless of the writing thread
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public class RoundRobinShardSelector implements ShardSelector {
+
+  private final AtomicLong recordsSelected = new AtomicLong();
+
+  @Override
+  public int selectShardFor(SpecificRecord avroRecord, int numberOfShards) {
+    return (int) (recordsSelected.getAndIncrement() % numberOfShards);
+  }
+}
@@ -0,0 +1,21 @@
+package com.aol.advertising.vulcan.sharding;
+
+import org.apache.avro.specific.SpecificRecord;
+
+import com.aol.advertising.vulcan.api.sharding.ShardSelector;
+
+/**
+ * Binds each writing thread to a single shard. Producers never share state to pick a shard, so
+ * with many producers this has the lowest contention, but load is only balanced if producers
+ * write at similar rates
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public class ThreadAffinityShardSelector implements ShardSelector {
+
+  @Override
+  public int selectShardFor(SpecificRecord avroRecord, int numberOfShards) {
+    return (int) (Thread.currentThread().getId() % numberOfShards);
+  }
+}
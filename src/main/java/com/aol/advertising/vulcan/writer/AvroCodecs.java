@@ -0,0 +1,67 @@
+package com.aol.advertising.vulcan.writer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.apache.avro.Schema;
+import org.apache.avro.Schema.Type;
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileConstants;
+import org.apache.avro.file.DataFileStream;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+
+/**
+ * {@link CodecFactory} does not tell which codec it creates, and Avro only creates codecs when a
+ * block is written, so a codec whose native library is missing goes unnoticed until then
+ * 
+ * @author Jaime Nuche
+ *
+ */
+final class AvroCodecs {
+
+  private static final ByteBuffer EMPTY_RECORD = ByteBuffer.allocate(0);
+
+  private AvroCodecs() {}
+
+  /**
+   * Name of the codec as stored in the metadata of Avro files. Compresses a block in memory to find
+   * out, so codecs that cannot be used in this platform are detected
+   * 
+   * @throws IllegalArgumentException if the codec cannot compress
+   */
+  static String nameOf(CodecFactory codec) {
+    try {
+      return readCodecNameFrom(writeSingleBlockContainer(codec));
+    } catch (IOException | RuntimeException | Error e) {
+      throw new IllegalArgumentException("Codec " + codec + " cannot be used", e);
+    }
+  }
+
+  private static byte[] writeSingleBlockContainer(CodecFactory codec) throws IOException {
+    ByteArrayOutputStream container = new ByteArrayOutputStream();
+    try (DataFileWriter<Object> fileWriter = new DataFileWriter<>(new GenericDatumWriter<>())) {
+      fileWriter.setCodec(codec);
+      fileWriter.create(Schema.create(Type.NULL), container);
+      fileWriter.appendEncoded(EMPTY_RECORD);
+    }
+    return container.toByteArray();
+  }
+
+  private static String readCodecNameFrom(byte[] container) throws IOException {
+    try (DataFileStream<Object> fileReader =
+        new DataFileStream<>(new ByteArrayInputStream(container), new GenericDatumReader<>())) {
+      return nameOf(fileReader.getMetaString(DataFileConstants.CODEC));
+    }
+  }
+
+  /**
+   * Files written without a codec may not store its name
+   */
+  static String nameOf(String codecMetadata) {
+    return codecMetadata == null ? DataFileConstants.NULL_CODEC : codecMetadata;
+  }
+}
@@ -1,65 +1,498 @@
 package com.aol.advertising.vulcan.writer;
 
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+
+import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.apache.avro.Schema;
 import org.apache.avro.Schema.Type;
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileConstants;
 import org.apache.avro.file.DataFileReader;
+import org.apache.avro.file.DataFileStream;
 import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.file.SeekableFileInput;
 import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.io.DatumWriter;
 import org.apache.avro.specific.SpecificDatumWriter;
 import org.apache.avro.specific.SpecificRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import com.aol.advertising.vulcan.api.durability.DurabilityPolicy;
+import com.aol.advertising.vulcan.api.filter.RecordFilter;
+import com.aol.advertising.vulcan.api.flush.FlushPolicy;
+import com.aol.advertising.vulcan.api.overflow.ConsumerAssistedOverflowPolicy;
+import com.aol.advertising.vulcan.api.overflow.RecordAppender;
+import com.aol.advertising.vulcan.api.rolling.BatchLevelRollingPolicy;
+import com.aol.advertising.vulcan.api.rolling.FileSizeAwareRollingPolicy;
+import com.aol.advertising.vulcan.api.rolling.FileSizeTracker;
+import com.aol.advertising.vulcan.api.rolling.RolledFileAwareRollingPolicy;
 import com.aol.advertising.vulcan.api.rolling.RollingPolicy;
+import com.aol.advertising.vulcan.durability.NoForceDurabilityPolicy;
 import com.aol.advertising.vulcan.exception.FileRollingException;
+import com.aol.advertising.vulcan.flush.EndOfBatchFlushPolicy;
+import com.aol.advertising.vulcan.metrics.RecordingWriterMetrics;
 import com.aol.advertising.vulcan.ringbuffer.AvroEvent;
+import com.aol.advertising.vulcan.ringbuffer.DurableWrite;
+import com.aol.advertising.vulcan.ringbuffer.EncodedRecordBuffer;
 import com.lmax.disruptor.EventHandler;
 import com.lmax.disruptor.LifecycleAware;
+import com.lmax.disruptor.TimeoutHandler;
+
+public class AvroEventConsumer implements EventHandler<AvroEvent>, TimeoutHandler, LifecycleAware, RecordAppender,
+    FileSizeTracker {
 
-public class AvroEventConsumer implements EventHandler<AvroEvent>, LifecycleAware {
+  private static final Logger log = LoggerFactory.getLogger(AvroEventConsumer.class);
 
   private static final int TWO_MB_IN_BYTES = 2_097_152;
 
   private final Path avroFilename;
   private final Schema avroSchema;
   private final RollingPolicy rollingPolicy;
-  private final SpecificDatumWriter<SpecificRecord> datumWriter;
+  private final boolean rollingPolicyCheckedPerBatch;
+  private final long recordsBetweenRollingChecks;
+  private final long bytesBetweenRollingChecks;
+  private final List<DurableWrite> pendingDurableWrites;
+  private final EncodedRecordBuffer onHeapCopy;
 
+  private DatumWriter<SpecificRecord> datumWriter;
+  private boolean schemaSpecializedEncoding;
+  private Utf8Cache utf8Cache;
   private DataFileWriter<SpecificRecord> avroFileWriter;
+  private AvroFileSink avroFileOutputStream;
+  private SizeTrackingDatumWriter sizeTrackingDatumWriter;
+  private ConsumerAssistedOverflowPolicy overflowPolicy;
+  private RecordFilter recordFilter;
+  private RecordProjection recordProjection;
+  private FlushPolicy flushPolicy;
+  private DurabilityPolicy durabilityPolicy;
+  private RecordingWriterMetrics metrics;
+  private CodecFactory codec;
+  private String codecName;
+  private int syncInterval;
+  private ExecutorService compressionPool;
+  private int maximumBlocksInFlight;
+  private ParallelBlockCompressor blockCompressor;
+  private RolledFileFinisher rolledFileFinisher;
+  private boolean executorsShared;
+  private boolean standbyFileKept;
+  private Future<StandbyFile> standbyFile;
+  private int mappingSize;
+  private int eventsInBatch;
+  private int recordsWrittenInBatch;
+  private long unflushedRecords;
+  private long unflushedBytes;
+  private long lastFlushTime;
+  private long unforcedRecords;
+  private long lastForceTime;
+  private long recordsSinceRollingCheck;
+  private long fileSizeAtRollingCheck;
 
   public AvroEventConsumer(Path avroFilename, Schema avroSchema, RollingPolicy rollingPolicy) {
     this.avroFilename = avroFilename;
     this.avroSchema = avroSchema;
     this.rollingPolicy = rollingPolicy;
     this.datumWriter = new SpecificDatumWriter<>(avroSchema);
+    this.pendingDurableWrites = new ArrayList<>();
+    this.onHeapCopy = new EncodedRecordBuffer();
+    this.flushPolicy = new EndOfBatchFlushPolicy();
+    this.durabilityPolicy = new NoForceDurabilityPolicy();
+    this.metrics = new RecordingWriterMetrics();
+    this.codecName = DataFileConstants.NULL_CODEC;
+    this.syncInterval = TWO_MB_IN_BYTES;
+    if (rollingPolicy instanceof FileSizeAwareRollingPolicy) {
+      ((FileSizeAwareRollingPolicy) rollingPolicy).trackFileSizeWith(this);
+    }
+    this.rollingPolicyCheckedPerBatch = rollingPolicy instanceof BatchLevelRollingPolicy;
+    if (rollingPolicyCheckedPerBatch) {
+      this.recordsBetweenRollingChecks = ((BatchLevelRollingPolicy) rollingPolicy).getRecordsBetweenChecks();
+      this.bytesBetweenRollingChecks = ((BatchLevelRollingPolicy) rollingPolicy).getBytesBetweenChecks();
+    } else {
+      this.recordsBetweenRollingChecks = 0;
+      this.bytesBetweenRollingChecks = 0;
+    }
+  }
+
+  /**
+   * Serializes records with a {@link SchemaSpecializedDatumWriter} instead of a
+   * {@code SpecificDatumWriter}
+   */
+  public void useSchemaSpecializedDatumWriter() {
+    this.schemaSpecializedEncoding = true;
+    replaceDatumWriter();
+  }
+
+  /**
+   * Keeps the UTF-8 bytes of up to {@code capacity} recently written strings, rounded up to a power
+   * of two, so repeated values are not encoded again, see {@link Utf8Cache}. Lookups are reported
+   * to the metrics at the end of every batch
+   */
+  public void cacheEncodedStrings(int capacity) {
+    this.utf8Cache = new Utf8Cache(capacity);
+    replaceDatumWriter();
+  }
+
+  private void replaceDatumWriter() {
+    if (utf8Cache != null) {
+      this.datumWriter = schemaSpecializedEncoding ? new SchemaSpecializedDatumWriter(avroSchema, utf8Cache)
+          : new Utf8CachingDatumWriter(avroSchema, utf8Cache);
+    } else {
+      this.datumWriter = schemaSpecializedEncoding ? new SchemaSpecializedDatumWriter(avroSchema)
+          : new SpecificDatumWriter<SpecificRecord>(avroSchema);
+    }
+    if (sizeTrackingDatumWriter != null) {
+      this.sizeTrackingDatumWriter = new SizeTrackingDatumWriter(datumWriter);
+    }
+  }
+
+  public void flushAccordingTo(FlushPolicy flushPolicy) {
+    this.flushPolicy = flushPolicy;
+    this.sizeTrackingDatumWriter = flushPolicy.isSizeBased() ? new SizeTrackingDatumWriter(datumWriter) : null;
+  }
+
+  public void forceAccordingTo(DurabilityPolicy durabilityPolicy) {
+    this.durabilityPolicy = durabilityPolicy;
+  }
+
+  public void reportMetricsTo(RecordingWriterMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  /**
+   * @throws IllegalArgumentException if the codec cannot be used in this platform, e.g. its native
+   *         library is missing
+   */
+  public void compressWith(CodecFactory codec) {
+    this.codecName = AvroCodecs.nameOf(codec);
+    this.codec = codec;
+  }
+
+  public void useSyncInterval(int syncInterval) {
+    this.syncInterval = syncInterval;
+  }
+
+  /**
+   * Compresses full blocks on {@code compressionPool} instead of on the consumer thread, with up to
+   * {@code maximumBlocksInFlight} blocks waiting to be written. The pool is shut down with the
+   * consumer, unless {@link #shareExecutors()}
+   */
+  public void compressBlocksOn(ExecutorService compressionPool, int maximumBlocksInFlight) {
+    this.compressionPool = compressionPool;
+    this.maximumBlocksInFlight = maximumBlocksInFlight;
+  }
+
+  /**
+   * Rolls files by renaming them while still open and switching to a new file straight away. The
+   * rolled file is closed, and gzipped if {@code compressRolledFiles}, on {@code rolloverExecutor},
+   * which is shut down with the consumer once every rolled file is finished, unless
+   * {@link #shareExecutors()}. Rolled files named by a {@link RolledFileAwareRollingPolicy} keep a
+   * {@code .part} extension until they are complete, and only those can be compressed
+   */
+  public void finishRolledFilesOn(ExecutorService rolloverExecutor, boolean compressRolledFiles) {
+    this.rolledFileFinisher = new RolledFileFinisher(rolloverExecutor, compressRolledFiles);
+  }
+
+  /**
+   * The compression pool and the rollover executor are shared with the consumers of other files,
+   * so shutting this consumer down only waits for its own rolled files and leaves them running.
+   * Their owner shuts them down once every consumer is
+   */
+  public void shareExecutors() {
+    this.executorsShared = true;
+  }
+
+  /**
+   * Keeps the next destination file ready, created and with its header written on the rollover
+   * executor, so rolling only takes renaming it. Needs {@link #finishRolledFilesOn}
+   */
+  public void keepAStandbyFile() {
+    this.standbyFileKept = true;
+  }
+
+  /**
+   * Writes files through memory-mapped windows of {@code mappingSize} bytes instead of output
+   * streams, see {@link MappedAvroFileOutputStream}
+   */
+  public void memoryMapFilesIn(int mappingSize) {
+    this.mappingSize = mappingSize;
+  }
+
+  public void assistOverflowPolicy(ConsumerAssistedOverflowPolicy overflowPolicy) {
+    this.overflowPolicy = overflowPolicy;
+  }
+
+  /**
+   * Drops the records {@code recordFilter} rejects before they are serialized. Records written
+   * already encoded and appended files are never filtered
+   */
+  public void filterRecordsWith(RecordFilter recordFilter) {
+    this.recordFilter = recordFilter;
+  }
+
+  /**
+   * Writes the projection of every record instead of the whole record. The schema of the consumer
+   * has to be the projected schema
+   */
+  public void projectRecordsWith(RecordProjection recordProjection) {
+    this.recordProjection = recordProjection;
   }
 
   @Override
   public void onStart() {
+    if (compressionPool != null) {
+      blockCompressor =
+          new ParallelBlockCompressor(avroSchema, datumWriter, codec, syncInterval, compressionPool, maximumBlocksInFlight);
+    }
     initializeWriter();
+    prepareStandbyFile();
+    lastFlushTime = System.nanoTime();
+    lastForceTime = lastFlushTime;
+    fileSizeAtRollingCheck = getFileSizeInBytes();
   }
 
   @Override
   public void onShutdown() {
     try {
-      avroFileWriter.close();
+      drainOverflowedRecords();
+      forceBeforeClosing();
+      closeWriter();
     } catch (IOException e) {
       throw new RuntimeException(e);
+    } finally {
+      if (blockCompressor != null && !executorsShared) {
+        blockCompressor.shutdown();
+      }
+      if (rolledFileFinisher != null) {
+        discardStandbyFile();
+        if (executorsShared) {
+          rolledFileFinisher.awaitFilesRolledSoFar();
+        } else {
+          rolledFileFinisher.shutdown();
+        }
+      }
     }
   }
 
   @Override
   public void onEvent(AvroEvent event, long sequence, boolean endOfBatch) throws Exception {
+    eventsInBatch++;
+    if (consume(event)) {
+      recordsWrittenInBatch++;
+    }
+    if (endOfBatch) {
+      endBatch();
+      recordBatch();
+    }
+  }
+
+  /**
+   * Appends the record of {@code event} to the file, unless it was discarded, is shed by the
+   * overflow policy or is dropped by the record filter, for consumers driven by another event
+   * handler. Batches are then recorded by that handler
+   * 
+   * @return false if nothing was appended
+   */
+  public boolean consume(AvroEvent event) throws IOException {
+    if (event.isDiscarded() || (event.getDurableWrite() == null && isShedByOverflowPolicy())) {
+      return false;
+    }
     SpecificRecord avroRecord = event.getAvroRecord();
-    avroFileWriter.append(avroRecord);
+    if (isDroppedByRecordFilter(avroRecord)) {
+      // Nothing will be written for it, so there is nothing to wait for
+      if (event.getDurableWrite() != null) {
+        event.getDurableWrite().complete();
+      }
+      return false;
+    }
+    int recordSize = appendToFile(event);
+    applyFlushPolicy(recordSize);
     applyRollingPolicy(avroRecord);
-    if (endOfBatch) {
+    return true;
+  }
+
+  /**
+   * Applies the policies due at the end of every batch, see {@link #consume(AvroEvent)}
+   */
+  public void endBatch() throws IOException {
+    drainOverflowedRecords();
+    applyRollingPolicyAtEndOfBatch();
+    applyIdlePolicies();
+    if (utf8Cache != null) {
+      utf8Cache.reportLookupsTo(metrics);
+    }
+  }
+
+  /*
+   * Only called when the wait strategy supports timeouts, which writers configure for flush and
+   * durability policies with a maximum delay
+   */
+  @Override
+  public void onTimeout(long sequence) throws Exception {
+    applyIdlePolicies();
+  }
+
+  private void recordBatch() {
+    metrics.recordBatch(eventsInBatch, recordsWrittenInBatch);
+    eventsInBatch = 0;
+    recordsWrittenInBatch = 0;
+  }
+
+  /*
+   * Bytes that reached the destination file, including those already there when it was opened.
+   * Only to be called from the consumer thread
+   */
+  @Override
+  public long getFileSizeInBytes() {
+    return avroFileOutputStream == null ? 0 : avroFileOutputStream.getSize();
+  }
+
+  private boolean isShedByOverflowPolicy() {
+    if (overflowPolicy == null || !overflowPolicy.shouldDiscardNextEvent()) {
+      return false;
+    }
+    metrics.recordShedRecord();
+    return true;
+  }
+
+  // Records already encoded, or appended with their file, come with no record to filter
+  private boolean isDroppedByRecordFilter(SpecificRecord avroRecord) {
+    return recordFilter != null && avroRecord != null && !recordFilter.shouldWrite(avroRecord);
+  }
+
+  private void drainOverflowedRecords() throws IOException {
+    if (overflowPolicy != null) {
+      overflowPolicy.drainRetainedRecordsTo(this);
+    }
+  }
+
+  /*
+   * Writes records that did not go through the ring buffer. Only to be called from the consumer
+   * thread
+   */
+  @Override
+  public void append(SpecificRecord avroRecord) throws IOException {
+    if (isDroppedByRecordFilter(avroRecord)) {
+      return;
+    }
+    int recordSize = appendRecord(avroRecord);
+    recordsWrittenInBatch++;
+    applyFlushPolicy(recordSize);
+    applyRollingPolicy(avroRecord);
+  }
+
+  // Returns the serialized size of the record
+  private int appendToFile(AvroEvent event) throws IOException {
+    DurableWrite durableWrite = event.getDurableWrite();
+    if (durableWrite == null) {
+      return appendRecordOf(event);
+    }
+    try {
+      int recordSize = appendRecordOf(event);
+      pendingDurableWrites.add(durableWrite);
+      return recordSize;
+    } catch (IOException | RuntimeException e) {
+      durableWrite.fail(e);
+      throw e;
+    }
+  }
+
+  private int appendRecordOf(AvroEvent event) throws IOException {
+    if (event.getFileToAppend() != null) {
+      return appendAllFrom(event.getFileToAppend());
+    }
+    if (event.hasEncodedRecord()) {
+      return appendEncodedRecord(event.getEncodedRecord());
+    }
+    return appendRecord(event.getAvroRecord());
+  }
+
+  private int appendEncodedRecord(EncodedRecordBuffer encodedRecord) throws IOException {
+    if (blockCompressor != null) {
+      int recordSize = blockCompressor.appendEncoded(encodedRecord.asByteBuffer());
+      blockCompressor.writeCompressedBlocksTo(avroFileWriter);
+      return recordSize;
+    }
+    avroFileWriter.appendEncoded(asHeapBuffer(encodedRecord.asByteBuffer()));
+    return encodedRecord.size();
+  }
+
+  /*
+   * Blocks are copied, or recompressed if codecs differ, but never read as records, so the type of
+   * the records of the stream does not matter. The size of the appended records is not known
+   */
+  @SuppressWarnings("unchecked")
+  private int appendAllFrom(DataFileStream<?> avroFileStream) throws IOException {
+    try (DataFileStream<SpecificRecord> appendedFile = (DataFileStream<SpecificRecord>) avroFileStream) {
+      writePendingBlocks();
+      avroFileWriter.appendAllFrom(appendedFile, false);
+    }
+    return 0;
+  }
+
+  // Avro copies direct buffers into a new array on every append
+  private ByteBuffer asHeapBuffer(ByteBuffer encodedBytes) {
+    if (encodedBytes.hasArray()) {
+      return encodedBytes;
+    }
+    onHeapCopy.reset();
+    onHeapCopy.write(encodedBytes);
+    return onHeapCopy.asByteBuffer();
+  }
+
+  private int appendRecord(SpecificRecord avroRecord) throws IOException {
+    if (recordProjection != null) {
+      avroRecord = recordProjection.project(avroRecord);
+    }
+    if (blockCompressor != null) {
+      int recordSize = blockCompressor.append(avroRecord);
+      blockCompressor.writeCompressedBlocksTo(avroFileWriter);
+      return recordSize;
+    }
+    avroFileWriter.append(avroRecord);
+    return getLastRecordSize();
+  }
+
+  private int getLastRecordSize() {
+    return sizeTrackingDatumWriter != null ? sizeTrackingDatumWriter.getLastRecordSize() : 0;
+  }
+
+  private void applyFlushPolicy(int recordSize) throws IOException {
+    unflushedRecords++;
+    unflushedBytes += recordSize;
+    unforcedRecords++;
+    if (flushPolicy.shouldFlushAfterRecord(unflushedRecords, unflushedBytes)) {
       writeToDisk();
     }
   }
 
+  private void applyIdlePolicies() throws IOException {
+    long now = System.nanoTime();
+    if (flushPolicy.shouldFlushWhenIdle(unflushedRecords, now - lastFlushTime)) {
+      writeToDisk();
+    }
+    if (unforcedRecords > 0
+        && (!pendingDurableWrites.isEmpty() || durabilityPolicy.shouldForceWhenIdle(now - lastForceTime))) {
+      forceToDisk();
+    }
+  }
+
+  private void forceBeforeClosing() throws IOException {
+    if (unforcedRecords > 0 && (!pendingDurableWrites.isEmpty() || durabilityPolicy.shouldForceBeforeClosing())) {
+      forceToDisk();
+    }
+  }
+
   private void initializeWriter() {
     try {
       tryToInitializeWriter();
@@ -74,23 +507,45 @@ public class AvroEventConsumer implements EventHandler<AvroEvent>, LifecycleAwar
   }
 
   private void getNewFileWriter() {
-    avroFileWriter = new DataFileWriter<>(datumWriter);
-    avroFileWriter.setSyncInterval(TWO_MB_IN_BYTES);
+    avroFileWriter = newFileWriter();
+  }
+
+  private DataFileWriter<SpecificRecord> newFileWriter() {
+    return newFileWriter(getRecordDatumWriter());
+  }
+
+  private DatumWriter<SpecificRecord> getRecordDatumWriter() {
+    return sizeTrackingDatumWriter != null ? sizeTrackingDatumWriter : datumWriter;
+  }
+
+  private DataFileWriter<SpecificRecord> newFileWriter(DatumWriter<SpecificRecord> recordDatumWriter) {
+    DataFileWriter<SpecificRecord> fileWriter = new DataFileWriter<>(recordDatumWriter);
+    fileWriter.setSyncInterval(syncInterval);
+    if (blockCompressor != null) {
+      // Compressed blocks are only copied as they are if both codecs are equal, and codecs read from
+      // files always have default settings
+      fileWriter.setCodec(CodecFactory.fromString(codecName));
+    } else if (codec != null) {
+      fileWriter.setCodec(codec);
+    }
+    return fileWriter;
   }
 
   private void bindWriterToAvroFile() throws IOException {
     if (Files.exists(avroFilename)) {
       ensureBindingToAFileWithConfiguredSchema();
     } else {
-      avroFileWriter.create(avroSchema, avroFilename.toFile());
+      createAvroFile();
     }
   }
 
+  // Blocks of a file can only be written with the codec declared in its header. Without a codec
+  // configured, existing files keep theirs
   private void ensureBindingToAFileWithConfiguredSchema() throws IOException {
-    if (schemasDiffer()) {
+    if (schemasDiffer() || codecsDiffer()) {
       rollFile();
     } else {
-      avroFileWriter.appendTo(avroFilename.toFile());
+      appendToAvroFile();
     }
   }
 
@@ -107,33 +562,275 @@ public class AvroEventConsumer implements EventHandler<AvroEvent>, LifecycleAwar
     }
   }
 
+  private boolean codecsDiffer() {
+    return codec != null && !codecName.equals(readCodecFromExistingFile());
+  }
+
+  private String readCodecFromExistingFile() {
+    try (DataFileReader<SpecificRecord> fileReader =
+        new DataFileReader<>(avroFilename.toFile(), new GenericDatumReader<SpecificRecord>())) {
+      return AvroCodecs.nameOf(fileReader.getMetaString(DataFileConstants.CODEC));
+    } catch (IOException ioe) {
+      return null;
+    }
+  }
+
   private void applyRollingPolicy(SpecificRecord avroRecord) throws IOException {
-    if (rollingPolicy.shouldRollover(avroRecord)) {
-      rollFile();
+    if (!rollingPolicyCheckedPerBatch) {
+      if (rollingPolicy.shouldRollover(avroRecord)) {
+        rollFile();
+      }
+    } else {
+      recordsSinceRollingCheck++;
+      if (isRollingCheckDueWithinBatch()) {
+        checkBatchLevelRollingPolicy();
+      }
+    }
+  }
+
+  private boolean isRollingCheckDueWithinBatch() {
+    return (recordsBetweenRollingChecks > 0 && recordsSinceRollingCheck >= recordsBetweenRollingChecks)
+        || (bytesBetweenRollingChecks > 0 && getFileSizeInBytes() - fileSizeAtRollingCheck >= bytesBetweenRollingChecks);
+  }
+
+  // Only checked after appends, as policies checked per record are
+  private void applyRollingPolicyAtEndOfBatch() throws IOException {
+    if (rollingPolicyCheckedPerBatch && recordsSinceRollingCheck > 0) {
+      checkBatchLevelRollingPolicy();
+    }
+  }
+
+  private void checkBatchLevelRollingPolicy() throws IOException {
+    recordsSinceRollingCheck = 0;
+    try {
+      if (rollingPolicy.shouldRollover(null)) {
+        rollFile();
+      }
+    } finally {
+      fileSizeAtRollingCheck = getFileSizeInBytes();
     }
   }
 
   private void rollFile() throws IOException {
+    long rollStart = System.nanoTime();
     try {
       tryToRollFile();
     } catch (FileRollingException e) {
-      avroFileWriter.appendTo(avroFilename.toFile());
+      if (rolledFileFinisher == null || avroFileOutputStream == null) {
+        appendToAvroFile();
+      }
       throw new IOException("Failed to do rollover, new events will still be written to old file", e);
+    } finally {
+      metrics.recordRoll(System.nanoTime() - rollStart);
     }
   }
 
   private void tryToRollFile() throws IOException {
-    refreshWriter();
-    rollingPolicy.rolloverAvroFile();
-    avroFileWriter.create(avroSchema, avroFilename.toFile());
+    forceBeforeClosing();
+    if (rolledFileFinisher != null) {
+      switchToANewFile();
+    } else {
+      refreshWriter();
+      rollingPolicy.rolloverAvroFile();
+      createAvroFile();
+    }
+  }
+
+  // The open file keeps receiving the writes of the old writer after being renamed, under a partial
+  // name until the rolled file finisher closes it. If it cannot be renamed, the old writer is still
+  // bound to it
+  private void switchToANewFile() throws IOException {
+    writePendingBlocks();
+    if (rollingPolicy instanceof RolledFileAwareRollingPolicy) {
+      RolledFileAwareRollingPolicy rolledFileAwarePolicy = (RolledFileAwareRollingPolicy) rollingPolicy;
+      rolledFileAwarePolicy.rolloverAvroFileAsPartial(RolledFileFinisher.PARTIAL_FILE_EXTENSION);
+    } else {
+      rollingPolicy.rolloverAvroFile();
+    }
+    DataFileWriter<SpecificRecord> rolledFileWriter = avroFileWriter;
+    long switchTime = System.nanoTime();
+    resetUnflushedData(switchTime);
+    resetUnforcedData(switchTime);
+    if (!switchedToStandbyFile()) {
+      getNewFileWriter();
+      createAvroFile();
+    }
+    rolledFileFinisher.finish(rolledFileWriter, getLastRolledFilename());
+    prepareStandbyFile();
+  }
+
+  private void prepareStandbyFile() {
+    if (standbyFileKept && rolledFileFinisher != null) {
+      standbyFile = rolledFileFinisher.submit(new Callable<StandbyFile>() {
+        @Override
+        public StandbyFile call() throws IOException {
+          return createStandbyFile();
+        }
+      });
+    }
+  }
+
+  // Runs on the rollover thread. Creating a file sets the schema of the datum writer of the file
+  // writer, so the standby file gets one of its own instead of the one the consumer is using. Its
+  // header bytes are only counted once it becomes the destination file
+  private StandbyFile createStandbyFile() throws IOException {
+    Path standbyFilename = StandbyFile.getStandbyFilenameFor(avroFilename);
+    AvroFileSink standbyFileOutputStream = newAvroFileSink(standbyFilename.toFile(), false, null);
+    DataFileWriter<SpecificRecord> standbyFileWriter =
+        newFileWriter(new PresetSchemaDatumWriter(avroSchema, getRecordDatumWriter()));
+    standbyFileWriter.create(avroSchema, standbyFileOutputStream);
+    standbyFileWriter.flush();
+    return new StandbyFile(standbyFilename, standbyFileWriter, standbyFileOutputStream);
+  }
+
+  // The rolled file is already out of the way, so if the standby file is not usable the new file is
+  // created as without one
+  private boolean switchedToStandbyFile() {
+    if (standbyFile == null) {
+      return false;
+    }
+    StandbyFile preparedFile = takeStandbyFile();
+    if (preparedFile == null) {
+      return false;
+    }
+    try {
+      Files.move(preparedFile.getStandbyFilename(), avroFilename, ATOMIC_MOVE);
+    } catch (IOException ioe) {
+      log.warn("Could not switch to standby file " + preparedFile.getStandbyFilename(), ioe);
+      discard(preparedFile);
+      return false;
+    }
+    avroFileWriter = preparedFile.getAvroFileWriter();
+    avroFileOutputStream = preparedFile.getAvroFileOutputStream();
+    metrics.recordBytesWritten(avroFileOutputStream.getSize());
+    avroFileOutputStream.reportBytesTo(metrics);
+    return true;
+  }
+
+  private void discardStandbyFile() {
+    if (standbyFile != null) {
+      StandbyFile preparedFile = takeStandbyFile();
+      if (preparedFile != null) {
+        discard(preparedFile);
+      }
+    }
+  }
+
+  private StandbyFile takeStandbyFile() {
+    try {
+      return standbyFile.get();
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+      return null;
+    } catch (ExecutionException ee) {
+      log.warn("Could not prepare standby file", ee.getCause());
+      return null;
+    } finally {
+      standbyFile = null;
+    }
+  }
+
+  private void discard(StandbyFile preparedFile) {
+    try {
+      preparedFile.discard();
+    } catch (IOException ioe) {
+      log.warn("Could not discard standby file " + preparedFile.getStandbyFilename(), ioe);
+    }
+  }
+
+  private Path getLastRolledFilename() {
+    if (rollingPolicy instanceof RolledFileAwareRollingPolicy) {
+      return ((RolledFileAwareRollingPolicy) rollingPolicy).getLastRolledFilename();
+    }
+    return null;
+  }
+
+  private void createAvroFile() throws IOException {
+    avroFileOutputStream = newAvroFileSink(avroFilename.toFile(), false, metrics);
+    avroFileWriter.create(avroSchema, avroFileOutputStream);
+  }
+
+  private void appendToAvroFile() throws IOException {
+    avroFileOutputStream = newAvroFileSink(avroFilename.toFile(), true, metrics);
+    avroFileWriter.appendTo(new SeekableFileInput(avroFilename.toFile()), avroFileOutputStream);
+  }
+
+  private AvroFileSink newAvroFileSink(File avroFile, boolean append, RecordingWriterMetrics bytesWrittenMetrics)
+      throws IOException {
+    if (mappingSize > 0) {
+      return new MappedAvroFileOutputStream(avroFile, append, mappingSize, bytesWrittenMetrics);
+    }
+    return new AvroFileOutputStream(avroFile, append, bytesWrittenMetrics);
   }
 
   private void refreshWriter() throws IOException {
-    avroFileWriter.close();
+    closeWriter();
+    long closeTime = System.nanoTime();
+    resetUnflushedData(closeTime);
+    resetUnforcedData(closeTime);
     getNewFileWriter();
   }
 
+  private void closeWriter() throws IOException {
+    writePendingBlocks();
+    avroFileWriter.close();
+  }
+
+  // Blocks still being compressed have to reach the file writer before it is flushed or closed
+  private void writePendingBlocks() throws IOException {
+    if (blockCompressor != null) {
+      blockCompressor.writeAllBlocksTo(avroFileWriter);
+    }
+  }
+
   private void writeToDisk() throws IOException {
+    long flushStart = System.nanoTime();
+    writePendingBlocks();
     avroFileWriter.flush();
+    long flushEnd = System.nanoTime();
+    metrics.recordFlush(flushEnd - flushStart);
+    resetUnflushedData(flushEnd);
+  }
+
+  private void resetUnflushedData(long flushTime) {
+    unflushedRecords = 0;
+    unflushedBytes = 0;
+    lastFlushTime = flushTime;
+  }
+
+  // DataFileWriter#fSync flushes before forcing, see AvroFileSink#sync
+  private void forceToDisk() throws IOException {
+    long forceStart = System.nanoTime();
+    try {
+      writePendingBlocks();
+      avroFileWriter.fSync();
+    } catch (IOException e) {
+      failPendingDurableWrites(e);
+      throw e;
+    }
+    long forceEnd = System.nanoTime();
+    metrics.recordForce(forceEnd - forceStart);
+    resetUnflushedData(forceEnd);
+    resetUnforcedData(forceEnd);
+    completePendingDurableWrites();
+  }
+
+  private void resetUnforcedData(long forceTime) {
+    unforcedRecords = 0;
+    lastForceTime = forceTime;
+  }
+
+  private void completePendingDurableWrites() {
+    for (DurableWrite durableWrite : pendingDurableWrites) {
+      durableWrite.complete();
+    }
+    pendingDurableWrites.clear();
+  }
+
+  private void failPendingDurableWrites(IOException failure) {
+    for (DurableWrite durableWrite : pendingDurableWrites) {
+      durableWrite.fail(failure);
+    }
+    pendingDurableWrites.clear();
   }
 }
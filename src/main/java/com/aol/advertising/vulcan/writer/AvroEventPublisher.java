@@ -1,20 +1,69 @@
 package com.aol.advertising.vulcan.writer;
 
+import static java.lang.Math.min;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaNormalization;
+import org.apache.avro.file.DataFileReader;
+import org.apache.avro.file.DataFileStream;
+import org.apache.avro.generic.GenericDatumReader;
 import org.apache.avro.specific.SpecificRecord;
 
 import com.aol.advertising.vulcan.api.AvroWriter;
+import com.aol.advertising.vulcan.api.overflow.OverflowPolicy;
+import com.aol.advertising.vulcan.metrics.JmxWriterMetrics;
+import com.aol.advertising.vulcan.metrics.RecordingWriterMetrics;
+import com.aol.advertising.vulcan.api.overflow.RingBufferAccess;
 import com.aol.advertising.vulcan.ringbuffer.AvroEvent;
 import com.aol.advertising.vulcan.ringbuffer.AvroEventFactory;
+import com.aol.advertising.vulcan.ringbuffer.DurableWrite;
 import com.lmax.disruptor.EventTranslatorOneArg;
+import com.lmax.disruptor.EventTranslatorTwoArg;
+import com.lmax.disruptor.InsufficientCapacityException;
+import com.lmax.disruptor.RingBuffer;
 import com.lmax.disruptor.dsl.Disruptor;
 
-public class AvroEventPublisher implements AvroWriter, EventTranslatorOneArg<AvroEvent, SpecificRecord> {
+public class AvroEventPublisher implements AvroWriter, RingBufferAccess,
+    EventTranslatorOneArg<AvroEvent, SpecificRecord>, EventTranslatorTwoArg<AvroEvent, SpecificRecord, DurableWrite> {
+
+  private static final EventTranslatorOneArg<AvroEvent, ByteBuffer> encodedRecordTranslator =
+      new EventTranslatorOneArg<AvroEvent, ByteBuffer>() {
+        @Override
+        public void translateTo(AvroEvent avroEvent, long sequence, ByteBuffer encodedRecord) {
+          avroEvent.setEncodedRecord(encodedRecord);
+        }
+      };
+
+  private static final EventTranslatorTwoArg<AvroEvent, DataFileStream<?>, DurableWrite> fileToAppendTranslator =
+      new EventTranslatorTwoArg<AvroEvent, DataFileStream<?>, DurableWrite>() {
+        @Override
+        public void translateTo(AvroEvent avroEvent, long sequence, DataFileStream<?> avroFileStream,
+            DurableWrite durableWrite) {
+          avroEvent.setFileToAppend(avroFileStream);
+          avroEvent.writeDurably(durableWrite);
+        }
+      };
 
   private Disruptor<AvroEvent> disruptor;
   private ExecutorService consumerExecutor;
+  private ProducerSideEncoder producerSideEncoder;
+  private boolean releaseRecordsOnceEncoded;
+  private OverflowPolicy overflowPolicy;
+  private JmxWriterMetrics jmxMetrics;
+  private Schema avroSchema;
+  private long schemaFingerprint;
+  private boolean anySchemaAccepted;
+  private final RecordingWriterMetrics metrics = new RecordingWriterMetrics();
 
   public AvroEventPublisher() {
     disruptor = getNoOpDisruptor();
@@ -26,16 +75,178 @@ public class AvroEventPublisher implements AvroWriter, EventTranslatorOneArg<Avr
 
   @Override
   public void write(SpecificRecord avroRecord) {
-    publishRecordToBuffer(avroRecord);
+    if (overflowPolicy == null) {
+      publish(avroRecord);
+    } else if (!tryPublish(avroRecord)) {
+      metrics.recordOverflow(overflowPolicy.onRingBufferFull(avroRecord, this));
+    }
+  }
+
+  @Override
+  public boolean tryWrite(SpecificRecord avroRecord) {
+    return tryPublish(avroRecord);
+  }
+
+  @Override
+  public Future<Void> writeDurably(SpecificRecord avroRecord) {
+    DurableWrite durableWrite = new DurableWrite();
+    disruptor.getRingBuffer().publishEvent(this, avroRecord, durableWrite);
+    return durableWrite;
+  }
+
+  @Override
+  public void writeEncoded(ByteBuffer encodedRecord) {
+    checkEncodedRecordsCanBeRouted();
+    if (!encodedRecord.hasRemaining()) {
+      throw new IllegalArgumentException("Encoded records cannot be empty");
+    }
+    disruptor.getRingBuffer().publishEvent(encodedRecordTranslator, encodedRecord);
+  }
+
+  @Override
+  public void writeEncoded(ByteBuffer encodedRecord, long schemaFingerprint) {
+    checkEncodedRecordsCanBeRouted();
+    if (schemaFingerprint != this.schemaFingerprint) {
+      throw new IllegalArgumentException("Record was encoded with a schema other than the one of the writer");
+    }
+    writeEncoded(encodedRecord);
+  }
+
+  // Slots do not say which schema an encoded record was written with, so they can only go to the file
+  // of the schema of the writer
+  private void checkEncodedRecordsCanBeRouted() {
+    if (anySchemaAccepted) {
+      throw new UnsupportedOperationException("Writers of records of any schema cannot write encoded records");
+    }
   }
 
-  private void publishRecordToBuffer(SpecificRecord avroRecord) {
+  @Override
+  public Future<Void> appendAllFrom(DataFileStream<?> avroFileStream) {
+    if (!anySchemaAccepted && !avroFileStream.getSchema().equals(avroSchema)) {
+      throw new IllegalArgumentException("File to append was written with a schema other than the one of the writer");
+    }
+    DurableWrite durableWrite = new DurableWrite();
+    disruptor.getRingBuffer().publishEvent(fileToAppendTranslator, avroFileStream, durableWrite);
+    return durableWrite;
+  }
+
+  @Override
+  public Future<Void> appendAllFrom(Path avroFile) throws IOException {
+    DataFileReader<SpecificRecord> avroFileReader =
+        new DataFileReader<>(avroFile.toFile(), new GenericDatumReader<SpecificRecord>());
+    try {
+      return appendAllFrom(avroFileReader);
+    } catch (RuntimeException e) {
+      avroFileReader.close();
+      throw e;
+    }
+  }
+
+  @Override
+  public boolean tryPublish(SpecificRecord avroRecord) {
+    return disruptor.getRingBuffer().tryPublishEvent(this, avroRecord);
+  }
+
+  @Override
+  public void publish(SpecificRecord avroRecord) {
     disruptor.publishEvent(this, avroRecord);
   }
 
+  @Override
+  public int getBufferSize() {
+    return disruptor.getRingBuffer().getBufferSize();
+  }
+
+  @Override
+  public void write(SpecificRecord[] avroRecords) {
+    write(Arrays.asList(avroRecords));
+  }
+
+  @Override
+  public void write(List<? extends SpecificRecord> avroRecords) {
+    RingBuffer<AvroEvent> ringBuffer = disruptor.getRingBuffer();
+    Iterator<? extends SpecificRecord> pendingRecords = avroRecords.iterator();
+    int remainingRecords = avroRecords.size();
+    while (remainingRecords > 0) {
+      int batchSize = min(remainingRecords, ringBuffer.getBufferSize());
+      if (overflowPolicy == null) {
+        publishBatchToBuffer(ringBuffer, pendingRecords, ringBuffer.next(batchSize), batchSize);
+      } else {
+        writeBatchHandlingOverflows(ringBuffer, pendingRecords, batchSize);
+      }
+      remainingRecords -= batchSize;
+    }
+  }
+
+  // Once the buffer has no room for the whole batch, its records go through the overflow policy one by one
+  private void writeBatchHandlingOverflows(RingBuffer<AvroEvent> ringBuffer,
+                                           Iterator<? extends SpecificRecord> pendingRecords,
+                                           int batchSize) {
+    long highestSequence;
+    try {
+      highestSequence = ringBuffer.tryNext(batchSize);
+    } catch (InsufficientCapacityException e) {
+      for (int record = 0; record < batchSize; record++) {
+        write(pendingRecords.next());
+      }
+      return;
+    }
+    publishBatchToBuffer(ringBuffer, pendingRecords, highestSequence, batchSize);
+  }
+
+  /*
+   * Same claim-translate-publish sequence as RingBuffer#publishEvents, but slots left untranslated
+   * because of a failure are discarded. Otherwise they would be published with whatever record they
+   * held on the previous lap around the ring buffer
+   */
+  private void publishBatchToBuffer(RingBuffer<AvroEvent> ringBuffer,
+                                    Iterator<? extends SpecificRecord> pendingRecords,
+                                    long highestSequence,
+                                    int batchSize) {
+    long lowestSequence = highestSequence - (batchSize - 1);
+    long sequence = lowestSequence;
+    try {
+      for (; sequence <= highestSequence; sequence++) {
+        translateTo(ringBuffer.get(sequence), sequence, pendingRecords.next());
+      }
+    } finally {
+      for (; sequence <= highestSequence; sequence++) {
+        ringBuffer.get(sequence).discard();
+      }
+      ringBuffer.publish(lowestSequence, highestSequence);
+    }
+  }
+
   @Override
   public void translateTo(AvroEvent avroEvent, long sequence, SpecificRecord avroRecord) {
     avroEvent.setAvroRecord(avroRecord);
+    if (producerSideEncoder != null) {
+      encode(avroEvent, avroRecord);
+      if (releaseRecordsOnceEncoded) {
+        avroEvent.releaseAvroRecord();
+      }
+    }
+  }
+
+  @Override
+  public void translateTo(AvroEvent avroEvent, long sequence, SpecificRecord avroRecord, DurableWrite durableWrite) {
+    translateTo(avroEvent, sequence, avroRecord);
+    avroEvent.writeDurably(durableWrite);
+  }
+
+  private void encode(AvroEvent avroEvent, SpecificRecord avroRecord) {
+    try {
+      producerSideEncoder.encode(avroRecord, avroEvent.getEncodedRecord());
+      avroEvent.markRecordEncoded();
+    } catch (RuntimeException re) {
+      avroEvent.discard();
+      throw re;
+    }
+  }
+
+  @Override
+  public RecordingWriterMetrics getMetrics() {
+    return metrics;
   }
 
   /*
@@ -47,14 +258,55 @@ public class AvroEventPublisher implements AvroWriter, EventTranslatorOneArg<Avr
     disruptor.shutdown();
     consumerExecutor.shutdown();
     disruptor = getNoOpDisruptor();
+    if (jmxMetrics != null) {
+      jmxMetrics.unregister();
+    }
   }
 
   public void registerConsumerExecutorForShutdown(ExecutorService consumerExecutor) {
     this.consumerExecutor = consumerExecutor;
   }
 
+  /**
+   * Schema that records written already encoded, and files appended, have to be written with
+   */
+  public void acceptEncodedDataOf(Schema avroSchema) {
+    this.avroSchema = avroSchema;
+    this.schemaFingerprint = SchemaNormalization.parsingFingerprint64(avroSchema);
+  }
+
+  /**
+   * Records of any schema are accepted, and routed by the consumer to the file of their schema.
+   * Records cannot be written already encoded then
+   */
+  public void acceptRecordsOfAnySchema() {
+    this.anySchemaAccepted = true;
+  }
+
+  public void serializeRecordsUsing(ProducerSideEncoder producerSideEncoder) {
+    this.producerSideEncoder = producerSideEncoder;
+  }
+
+  /**
+   * Ring buffer slots do not keep a reference to the records they hold once serialized. Requires
+   * {@link #serializeRecordsUsing(ProducerSideEncoder)}
+   */
+  public void releaseRecordsOnceEncoded() {
+    this.releaseRecordsOnceEncoded = true;
+  }
+
+  public void handleOverflowsUsing(OverflowPolicy overflowPolicy) {
+    this.overflowPolicy = overflowPolicy;
+  }
+
+  public void publishMetricsThroughJmx(JmxWriterMetrics jmxMetrics) {
+    this.jmxMetrics = jmxMetrics;
+    jmxMetrics.register();
+  }
+
   public void startPublisherUsing(Disruptor<AvroEvent> fullyConfiguredDisruptor) {
     disruptor = fullyConfiguredDisruptor;
+    metrics.monitorRingBuffer(disruptor.getRingBuffer());
     disruptor.start();
   }
 }
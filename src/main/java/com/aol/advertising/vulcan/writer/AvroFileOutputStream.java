@@ -0,0 +1,53 @@
+package com.aol.advertising.vulcan.writer;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import com.aol.advertising.vulcan.metrics.RecordingWriterMetrics;
+
+/**
+ * Writes to the file through a {@link FileOutputStream}, i.e. one system call per write from the
+ * Avro writer. File metadata other than its size is not forced on sync
+ * 
+ * @author Jaime Nuche
+ *
+ */
+class AvroFileOutputStream extends AvroFileSink {
+
+  private final FileOutputStream fileOutputStream;
+
+  AvroFileOutputStream(File avroFile, boolean append, RecordingWriterMetrics metrics) throws IOException {
+    this(new FileOutputStream(avroFile, append), metrics);
+  }
+
+  private AvroFileOutputStream(FileOutputStream fileOutputStream, RecordingWriterMetrics metrics) throws IOException {
+    super(fileOutputStream.getChannel().size(), metrics);
+    this.fileOutputStream = fileOutputStream;
+  }
+
+  @Override
+  void writeToFile(int b) throws IOException {
+    fileOutputStream.write(b);
+  }
+
+  @Override
+  void writeToFile(byte[] b, int off, int len) throws IOException {
+    fileOutputStream.write(b, off, len);
+  }
+
+  @Override
+  public void flush() throws IOException {
+    fileOutputStream.flush();
+  }
+
+  @Override
+  public void sync() throws IOException {
+    fileOutputStream.getChannel().force(false);
+  }
+
+  @Override
+  public void close() throws IOException {
+    fileOutputStream.close();
+  }
+}
@@ -0,0 +1,66 @@
+package com.aol.advertising.vulcan.writer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.avro.file.Syncable;
+
+import com.aol.advertising.vulcan.metrics.RecordingWriterMetrics;
+
+/**
+ * Destination of the Avro file writer. Counts every byte that reaches the file once it is the
+ * destination file, and keeps track of the file size without asking the file system for it again
+ * after opening it. Implements {@link Syncable} like the stream Avro opens by itself, so
+ * {@code DataFileWriter#fSync()} forces the file contents to the storage device
+ * 
+ * @author Jaime Nuche
+ *
+ */
+abstract class AvroFileSink extends OutputStream implements Syncable {
+
+  // Null while the file is prepared ahead of becoming the destination file
+  private RecordingWriterMetrics metrics;
+
+  private long size;
+
+  /**
+   * @param metrics null if bytes are not counted until {@link #reportBytesTo} is called
+   */
+  AvroFileSink(long initialSize, RecordingWriterMetrics metrics) {
+    this.size = initialSize;
+    this.metrics = metrics;
+  }
+
+  long getSize() {
+    return size;
+  }
+
+  /**
+   * Counts the bytes written from now on in {@code metrics}
+   */
+  void reportBytesTo(RecordingWriterMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  @Override
+  public final void write(int b) throws IOException {
+    writeToFile(b);
+    size++;
+    if (metrics != null) {
+      metrics.recordBytesWritten(1);
+    }
+  }
+
+  @Override
+  public final void write(byte[] b, int off, int len) throws IOException {
+    writeToFile(b, off, len);
+    size += len;
+    if (metrics != null) {
+      metrics.recordBytesWritten(len);
+    }
+  }
+
+  abstract void writeToFile(int b) throws IOException;
+
+  abstract void writeToFile(byte[] b, int off, int len) throws IOException;
+}
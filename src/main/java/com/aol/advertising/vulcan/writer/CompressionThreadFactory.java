@@ -0,0 +1,16 @@
+package com.aol.advertising.vulcan.writer;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+public class CompressionThreadFactory implements ThreadFactory {
+
+  private static final ThreadFactory backingThreadFactory = Executors.defaultThreadFactory();
+
+  @Override
+  public Thread newThread(Runnable runnable) {
+    Thread thread = backingThreadFactory.newThread(runnable);
+    thread.setName("vulcan-avro-compressor");
+    return thread;
+  }
+}
@@ -0,0 +1,38 @@
+package com.aol.advertising.vulcan.writer;
+
+import com.aol.advertising.vulcan.ringbuffer.AvroEvent;
+import com.lmax.disruptor.WorkHandler;
+
+/**
+ * Encoding stage between the publishers and the consumer. A pool of these serializes the records
+ * of the ring buffer into their slots, each event by only one handler, so the consumer only has to
+ * copy bytes into the current data block. Records that fail to serialize are left to the consumer,
+ * which reports the failure as for any other record it cannot write. Records written already
+ * encoded are passed through
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public class EncodingWorkHandler implements WorkHandler<AvroEvent> {
+
+  private final ProducerSideEncoder encoder;
+
+  /**
+   * @param encoder shareable among all the handlers of the pool
+   */
+  public EncodingWorkHandler(ProducerSideEncoder encoder) {
+    this.encoder = encoder;
+  }
+
+  @Override
+  public void onEvent(AvroEvent event) {
+    if (!event.isDiscarded() && event.getAvroRecord() != null) {
+      try {
+        encoder.encode(event.getAvroRecord(), event.getEncodedRecord());
+        event.markRecordEncoded();
+      } catch (RuntimeException re) {
+        // The record is left unencoded
+      }
+    }
+  }
+}
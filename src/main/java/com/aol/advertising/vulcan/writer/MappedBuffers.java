@@ -0,0 +1,61 @@
+package com.aol.advertising.vulcan.writer;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+
+/**
+ * Releases file mappings straight away instead of when their buffers are garbage collected, which
+ * the JDK offers no public API for. Uses {@code sun.misc.Unsafe#invokeCleaner} from Java 9 on, and
+ * the cleaner of the buffer before that. If neither is accessible, mappings are left to the garbage
+ * collector. Released buffers must not be accessed again, that crashes the JVM
+ * 
+ * @author Jaime Nuche
+ *
+ */
+final class MappedBuffers {
+
+  private static final Unmapper unmapper = findUnmapper();
+
+  private MappedBuffers() {}
+
+  static void unmap(MappedByteBuffer mapping) {
+    try {
+      unmapper.unmap(mapping);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      // Left to the garbage collector
+    }
+  }
+
+  private static Unmapper findUnmapper() {
+    try {
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      final Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+      Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+      theUnsafe.setAccessible(true);
+      final Object unsafe = theUnsafe.get(null);
+      return new Unmapper() {
+        @Override
+        public void unmap(MappedByteBuffer mapping) throws ReflectiveOperationException {
+          invokeCleaner.invoke(unsafe, mapping);
+        }
+      };
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      return new Unmapper() {
+        @Override
+        public void unmap(MappedByteBuffer mapping) throws ReflectiveOperationException {
+          Method cleanerAccessor = mapping.getClass().getMethod("cleaner");
+          cleanerAccessor.setAccessible(true);
+          Object cleaner = cleanerAccessor.invoke(mapping);
+          cleaner.getClass().getMethod("clean").invoke(cleaner);
+        }
+      };
+    }
+  }
+
+  private interface Unmapper {
+
+    void unmap(MappedByteBuffer mapping) throws ReflectiveOperationException;
+  }
+}
@@ -0,0 +1,69 @@
+package com.aol.advertising.vulcan.writer;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.apache.avro.Schema;
+
+import com.aol.advertising.vulcan.ringbuffer.AvroEvent;
+
+/**
+ * Consumer of a ring buffer holding records of any schema, which routes each record to the file of
+ * its schema. Consumers are created and started the first time a schema is seen, and are then
+ * looked up by the schema instance of the record, which is the same for all the records of a
+ * generated class. Appended files parse a new schema instance every time, so they are looked up by
+ * schema equality only
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public class MultiSchemaAvroEventConsumer extends RoutingAvroEventConsumer {
+
+  // Bounds the lookups by instance for records that do not reuse the schema of their class
+  static final int MAXIMUM_SCHEMA_INSTANCES = 1024;
+
+  private final SchemaConsumerFactory consumerFactory;
+  private final Map<Schema, AvroEventConsumer> consumerPerSchemaInstance;
+  private final Map<Schema, AvroEventConsumer> consumerPerSchema;
+
+  public MultiSchemaAvroEventConsumer(SchemaConsumerFactory consumerFactory) {
+    this.consumerFactory = consumerFactory;
+    this.consumerPerSchemaInstance = new IdentityHashMap<>();
+    this.consumerPerSchema = new HashMap<>();
+  }
+
+  // Publishers of records of any schema do not accept encoded records, so slots always hold a
+  // record or a file
+  @Override
+  protected AvroEventConsumer getConsumerFor(AvroEvent event) {
+    if (event.getFileToAppend() != null) {
+      return getConsumerForEqualSchema(event.getFileToAppend().getSchema());
+    }
+    Schema avroSchema = event.getAvroRecord().getSchema();
+    AvroEventConsumer consumer = consumerPerSchemaInstance.get(avroSchema);
+    if (consumer == null) {
+      consumer = getConsumerForEqualSchema(avroSchema);
+      if (consumerPerSchemaInstance.size() == MAXIMUM_SCHEMA_INSTANCES) {
+        consumerPerSchemaInstance.clear();
+      }
+      consumerPerSchemaInstance.put(avroSchema, consumer);
+    }
+    return consumer;
+  }
+
+  int getCachedSchemaInstances() {
+    return consumerPerSchemaInstance.size();
+  }
+
+  // Equal schemas parsed separately, e.g. those of appended files, share the consumer
+  private AvroEventConsumer getConsumerForEqualSchema(Schema avroSchema) {
+    AvroEventConsumer consumer = consumerPerSchema.get(avroSchema);
+    if (consumer == null) {
+      consumer = consumerFactory.newConsumerFor(avroSchema);
+      start(consumer);
+      consumerPerSchema.put(avroSchema, consumer);
+    }
+    return consumer;
+  }
+}
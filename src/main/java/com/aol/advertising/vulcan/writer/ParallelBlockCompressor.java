@@ -0,0 +1,239 @@
+package com.aol.advertising.vulcan.writer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.avro.Schema;
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileStream;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.specific.SpecificRecord;
+
+import com.aol.advertising.vulcan.ringbuffer.EncodedRecordBuffer;
+
+/**
+ * Takes block compression off the consumer thread. Records are serialized into the block being
+ * filled and, once it reaches the sync interval, the block is compressed on a thread pool by its own
+ * in-memory {@link DataFileWriter}. Compressed blocks are then copied as they are, and in order, into
+ * the destination file with {@link DataFileWriter#appendAllFrom(DataFileStream, boolean)}, which
+ * does not decompress blocks when both writers use the same codec.
+ * <p>
+ * Not thread-safe, only to be used from the consumer thread
+ * 
+ * @author Jaime Nuche
+ *
+ */
+class ParallelBlockCompressor {
+
+  private static final EncoderFactory encoderFactory = EncoderFactory.get();
+
+  private final Schema avroSchema;
+  private final CodecFactory codec;
+  private final int syncInterval;
+  private final ExecutorService compressionPool;
+  private final int maximumBlocksInFlight;
+  private final DatumWriter<SpecificRecord> datumWriter;
+  private final EncodedRecordBuffer encodedRecord;
+  private final Deque<Future<CompressedBlock>> blocksInFlight;
+  private final Deque<UncompressedBlock> freeBlocks;
+
+  private BinaryEncoder encoder;
+  private UncompressedBlock currentBlock;
+
+  ParallelBlockCompressor(Schema avroSchema,
+                          DatumWriter<SpecificRecord> datumWriter,
+                          CodecFactory codec,
+                          int syncInterval,
+                          ExecutorService compressionPool,
+                          int maximumBlocksInFlight) {
+    this.avroSchema = avroSchema;
+    this.codec = codec;
+    this.syncInterval = syncInterval;
+    this.compressionPool = compressionPool;
+    this.maximumBlocksInFlight = maximumBlocksInFlight;
+    this.datumWriter = datumWriter;
+    this.encodedRecord = new EncodedRecordBuffer();
+    this.blocksInFlight = new ArrayDeque<>();
+    this.freeBlocks = new ArrayDeque<>();
+    this.currentBlock = new UncompressedBlock();
+  }
+
+  /**
+   * Adds the record to the current block, handing the block to the pool if it is full
+   * 
+   * @return serialized size of the record
+   */
+  int append(SpecificRecord avroRecord) throws IOException {
+    encodedRecord.reset();
+    encoder = encoderFactory.binaryEncoder(encodedRecord, encoder);
+    try {
+      datumWriter.write(avroRecord, encoder);
+      encoder.flush();
+    } catch (IOException | RuntimeException e) {
+      // Reusing the encoder would carry the partial record over to the next one
+      encoder = null;
+      throw e;
+    }
+    return appendEncoded(encodedRecord.asByteBuffer());
+  }
+
+  /**
+   * Same as {@link #append(SpecificRecord)} for a record already serialized. The bytes are copied,
+   * so the buffer can be reused straight away
+   */
+  int appendEncoded(ByteBuffer record) {
+    int recordSize = record.remaining();
+    currentBlock.append(record);
+    if (currentBlock.size() >= syncInterval) {
+      compressCurrentBlock();
+    }
+    return recordSize;
+  }
+
+  /**
+   * Writes the blocks already compressed, keeping their order. Only waits for a block when too many
+   * are in flight
+   */
+  void writeCompressedBlocksTo(DataFileWriter<SpecificRecord> avroFileWriter) throws IOException {
+    while (!blocksInFlight.isEmpty()
+        && (blocksInFlight.peek().isDone() || blocksInFlight.size() > maximumBlocksInFlight)) {
+      write(blocksInFlight.poll(), avroFileWriter);
+    }
+  }
+
+  /**
+   * Compresses the current block even if it is not full and writes all pending blocks, waiting for
+   * them if needed
+   */
+  void writeAllBlocksTo(DataFileWriter<SpecificRecord> avroFileWriter) throws IOException {
+    if (currentBlock.getRecordCount() > 0) {
+      compressCurrentBlock();
+    }
+    while (!blocksInFlight.isEmpty()) {
+      write(blocksInFlight.poll(), avroFileWriter);
+    }
+  }
+
+  void shutdown() {
+    compressionPool.shutdown();
+  }
+
+  private void compressCurrentBlock() {
+    blocksInFlight.add(compressionPool.submit(new BlockCompression(currentBlock)));
+    currentBlock = freeBlocks.isEmpty() ? new UncompressedBlock() : freeBlocks.poll();
+  }
+
+  private void write(Future<CompressedBlock> blockInFlight, DataFileWriter<SpecificRecord> avroFileWriter)
+      throws IOException {
+    CompressedBlock block = waitFor(blockInFlight);
+    try (DataFileStream<SpecificRecord> compressedBlocks =
+        new DataFileStream<>(new ByteArrayInputStream(block.container), new GenericDatumReader<SpecificRecord>())) {
+      avroFileWriter.appendAllFrom(compressedBlocks, false);
+    }
+    block.source.reset();
+    freeBlocks.add(block.source);
+  }
+
+  private CompressedBlock waitFor(Future<CompressedBlock> blockInFlight) throws IOException {
+    try {
+      return blockInFlight.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting for a block to be compressed", e);
+    } catch (ExecutionException e) {
+      throw new IOException("Failed to compress block", e.getCause());
+    }
+  }
+
+  private class BlockCompression implements Callable<CompressedBlock> {
+
+    private final UncompressedBlock block;
+
+    BlockCompression(UncompressedBlock block) {
+      this.block = block;
+    }
+
+    @Override
+    public CompressedBlock call() throws IOException {
+      ByteArrayOutputStream container = new ByteArrayOutputStream(block.size());
+      // Writers configure their datum writer with the schema, so they cannot share one
+      try (DataFileWriter<SpecificRecord> blockWriter = new DataFileWriter<>(new GenericDatumWriter<SpecificRecord>())) {
+        blockWriter.setCodec(codec);
+        blockWriter.setSyncInterval(syncInterval);
+        blockWriter.create(avroSchema, container);
+        block.writeRecordsTo(blockWriter);
+      }
+      return new CompressedBlock(container.toByteArray(), block);
+    }
+  }
+
+  private static class CompressedBlock {
+
+    private final byte[] container;
+    private final UncompressedBlock source;
+
+    CompressedBlock(byte[] container, UncompressedBlock source) {
+      this.container = container;
+      this.source = source;
+    }
+  }
+
+  // Serialized records laid out back to back, plus where each one ends
+  private static class UncompressedBlock {
+
+    private final EncodedRecordBuffer records;
+    private int[] recordEnds;
+    private int recordCount;
+
+    UncompressedBlock() {
+      records = new EncodedRecordBuffer();
+      recordEnds = new int[1024];
+      recordCount = 0;
+    }
+
+    void append(ByteBuffer record) {
+      records.write(record);
+      if (recordCount == recordEnds.length) {
+        recordEnds = Arrays.copyOf(recordEnds, recordCount << 1);
+      }
+      recordEnds[recordCount++] = records.size();
+    }
+
+    void writeRecordsTo(DataFileWriter<SpecificRecord> blockWriter) throws IOException {
+      ByteBuffer allRecords = records.asByteBuffer();
+      int recordStart = 0;
+      for (int record = 0; record < recordCount; record++) {
+        int recordEnd = recordEnds[record];
+        blockWriter.appendEncoded(ByteBuffer.wrap(allRecords.array(), recordStart, recordEnd - recordStart));
+        recordStart = recordEnd;
+      }
+    }
+
+    int size() {
+      return records.size();
+    }
+
+    int getRecordCount() {
+      return recordCount;
+    }
+
+    void reset() {
+      records.reset();
+      recordCount = 0;
+    }
+  }
+}
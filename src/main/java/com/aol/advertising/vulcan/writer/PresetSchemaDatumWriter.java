@@ -0,0 +1,43 @@
+package com.aol.advertising.vulcan.writer;
+
+import java.io.IOException;
+
+import org.apache.avro.Schema;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.Encoder;
+import org.apache.avro.specific.SpecificRecord;
+
+/**
+ * Writes records with another datum writer, which already has the schema of the file, without ever
+ * setting its schema again. {@link org.apache.avro.file.DataFileWriter} sets the schema of its datum
+ * writer whenever it creates a file, so files created off the consumer thread, e.g. standby files,
+ * use one of these to leave the datum writer of the consumer alone
+ * 
+ * @author Jaime Nuche
+ *
+ */
+class PresetSchemaDatumWriter implements DatumWriter<SpecificRecord> {
+
+  private final Schema schema;
+  private final DatumWriter<SpecificRecord> datumWriter;
+
+  PresetSchemaDatumWriter(Schema schema, DatumWriter<SpecificRecord> datumWriter) {
+    this.schema = schema;
+    this.datumWriter = datumWriter;
+  }
+
+  /**
+   * @throws IllegalArgumentException if {@code schema} is not the preset one
+   */
+  @Override
+  public void setSchema(Schema schema) {
+    if (!this.schema.equals(schema)) {
+      throw new IllegalArgumentException("Records can only be written with schema " + this.schema.getFullName());
+    }
+  }
+
+  @Override
+  public void write(SpecificRecord datum, Encoder out) throws IOException {
+    datumWriter.write(datum, out);
+  }
+}
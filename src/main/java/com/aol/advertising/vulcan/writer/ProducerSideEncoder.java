@@ -0,0 +1,68 @@
+package com.aol.advertising.vulcan.writer;
+
+import java.io.IOException;
+
+import org.apache.avro.Schema;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.apache.avro.specific.SpecificRecord;
+
+import com.aol.advertising.vulcan.ringbuffer.EncodedRecordBuffer;
+
+/**
+ * Serializes Avro records on the publishing thread, or on the encoding stage (see
+ * {@link EncodingWorkHandler}), so the consumer thread only has to copy bytes into the current data
+ * block. Each thread reuses its own {@link BinaryEncoder}; the datum writer is stateless while
+ * writing and is shared
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public class ProducerSideEncoder {
+
+  private static final EncoderFactory encoderFactory = EncoderFactory.get();
+
+  private final DatumWriter<SpecificRecord> datumWriter;
+  private final ThreadLocal<BinaryEncoder> reusableEncoder;
+
+  public ProducerSideEncoder(Schema avroSchema) {
+    this(new SpecificDatumWriter<SpecificRecord>(avroSchema));
+  }
+
+  /**
+   * @param datumWriter shared by all the threads encoding records, so it must not keep state while
+   *        writing
+   */
+  public ProducerSideEncoder(DatumWriter<SpecificRecord> datumWriter) {
+    this.datumWriter = datumWriter;
+    this.reusableEncoder = new ThreadLocal<>();
+  }
+
+  /**
+   * Replaces the contents of {@code encodedRecord} with the binary encoding of {@code avroRecord}.
+   * If serialization fails, {@code encodedRecord} is left empty
+   */
+  public void encode(SpecificRecord avroRecord, EncodedRecordBuffer encodedRecord) {
+    encodedRecord.reset();
+    try {
+      datumWriter.write(avroRecord, getEncoderFor(encodedRecord));
+    } catch (IOException ioe) {
+      encodedRecord.reset();
+      throw new RuntimeException(ioe);
+    } catch (RuntimeException re) {
+      encodedRecord.reset();
+      throw re;
+    }
+  }
+
+  private BinaryEncoder getEncoderFor(EncodedRecordBuffer encodedRecord) {
+    BinaryEncoder previousEncoder = reusableEncoder.get();
+    BinaryEncoder encoder = encoderFactory.directBinaryEncoder(encodedRecord, previousEncoder);
+    if (encoder != previousEncoder) {
+      reusableEncoder.set(encoder);
+    }
+    return encoder;
+  }
+}
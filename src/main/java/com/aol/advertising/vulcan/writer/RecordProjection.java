@@ -0,0 +1,93 @@
+package com.aol.advertising.vulcan.writer;
+
+import java.util.List;
+
+import org.apache.avro.Schema;
+import org.apache.avro.Schema.Field;
+import org.apache.avro.Schema.Type;
+import org.apache.avro.specific.SpecificRecord;
+
+/**
+ * Writes records with a subset of the top-level fields of their schema. Each projected field must
+ * exist in the schema of the records with the same name and schema, so files can be read with the
+ * projected schema, or with any schema a reader of the full records could use that only keeps those
+ * fields. Records are projected through a view reused for every record, so only the consumer thread
+ * can project them
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public class RecordProjection {
+
+  private final Schema projectedSchema;
+  private final ProjectedRecord projectedRecord;
+
+  /**
+   * @throws IllegalArgumentException if {@code projectedSchema} is not a record schema whose fields
+   *         are all found in {@code recordSchema}
+   */
+  public RecordProjection(Schema recordSchema, Schema projectedSchema) {
+    if (projectedSchema == null) {
+      throw new IllegalArgumentException("Specified projected schema was null");
+    }
+    if (projectedSchema.getType() != Type.RECORD) {
+      throw new IllegalArgumentException("Records can only be projected to a record schema");
+    }
+    this.projectedSchema = projectedSchema;
+    this.projectedRecord = new ProjectedRecord(projectedSchema, getProjectedPositions(recordSchema, projectedSchema));
+  }
+
+  private static int[] getProjectedPositions(Schema recordSchema, Schema projectedSchema) {
+    List<Field> projectedFields = projectedSchema.getFields();
+    int[] projectedPositions = new int[projectedFields.size()];
+    for (Field projectedField : projectedFields) {
+      Field recordField = recordSchema.getField(projectedField.name());
+      if (recordField == null || !recordField.schema().equals(projectedField.schema())) {
+        throw new IllegalArgumentException("Records of schema " + recordSchema.getFullName() + " have no field \""
+            + projectedField.name() + "\" of schema " + projectedField.schema());
+      }
+      projectedPositions[projectedField.pos()] = recordField.pos();
+    }
+    return projectedPositions;
+  }
+
+  public Schema getProjectedSchema() {
+    return projectedSchema;
+  }
+
+  /**
+   * The projection of {@code avroRecord}, only valid until the next record is projected
+   */
+  SpecificRecord project(SpecificRecord avroRecord) {
+    projectedRecord.source = avroRecord;
+    return projectedRecord;
+  }
+
+  private static class ProjectedRecord implements SpecificRecord {
+
+    private final Schema projectedSchema;
+    private final int[] projectedPositions;
+
+    private SpecificRecord source;
+
+    ProjectedRecord(Schema projectedSchema, int[] projectedPositions) {
+      this.projectedSchema = projectedSchema;
+      this.projectedPositions = projectedPositions;
+    }
+
+    @Override
+    public Schema getSchema() {
+      return projectedSchema;
+    }
+
+    @Override
+    public Object get(int field) {
+      return source.get(projectedPositions[field]);
+    }
+
+    @Override
+    public void put(int field, Object value) {
+      throw new UnsupportedOperationException("Projected records are read-only");
+    }
+  }
+}
@@ -0,0 +1,152 @@
+package com.aol.advertising.vulcan.writer;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Closes the writers of rolled files, and optionally gzips them, off the consumer thread. Files are
+ * finished one at a time in the order they were rolled. Rolled files are left open under their
+ * rolled name plus {@link #PARTIAL_FILE_EXTENSION} and only get their rolled name once closed.
+ * Compressed files are written next to them, also with that extension, and only renamed to
+ * {@code <rolled file>.gz}, and the partial file deleted, once complete. A file that cannot be
+ * finished keeps its partial name, so nothing incomplete ever appears under a final name
+ * 
+ * @author Jaime Nuche
+ *
+ */
+class RolledFileFinisher {
+
+  private static final Logger log = LoggerFactory.getLogger(RolledFileFinisher.class);
+
+  private static final String COMPRESSED_FILE_EXTENSION = ".gz";
+  static final String PARTIAL_FILE_EXTENSION = ".part";
+  private static final int COPY_BUFFER_SIZE = 65_536;
+
+  // The rollover executor runs one task at a time in order, so this one runs after every file rolled before it
+  private static final Runnable NOTHING_LEFT_TO_FINISH = new Runnable() {
+    @Override
+    public void run() {}
+  };
+
+  private final ExecutorService rolloverExecutor;
+  private final boolean compressRolledFiles;
+
+  RolledFileFinisher(ExecutorService rolloverExecutor, boolean compressRolledFiles) {
+    this.rolloverExecutor = rolloverExecutor;
+    this.compressRolledFiles = compressRolledFiles;
+  }
+
+  /**
+   * @param rolledFileWriter still open on the rolled file, which is named {@code rolledFilename} plus
+   *        {@link #PARTIAL_FILE_EXTENSION}
+   * @param rolledFilename null if unknown, in which case the file is only closed
+   */
+  void finish(Closeable rolledFileWriter, Path rolledFilename) {
+    rolloverExecutor.execute(new RolledFileCompletion(rolledFileWriter, rolledFilename));
+  }
+
+  /**
+   * Runs {@code task} on the rollover thread once the files rolled so far are finished
+   */
+  <T> Future<T> submit(Callable<T> task) {
+    return rolloverExecutor.submit(task);
+  }
+
+  /**
+   * Waits for the files rolled so far to be finished, leaving the rollover executor running for
+   * other consumers that share it
+   */
+  void awaitFilesRolledSoFar() {
+    try {
+      rolloverExecutor.submit(NOTHING_LEFT_TO_FINISH).get();
+    } catch (InterruptedException ie) {
+      log.warn("Interrupted while waiting for rolled files to be finished");
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException ee) {
+      throw new IllegalStateException(ee.getCause());
+    }
+  }
+
+  /**
+   * Waits for the files rolled so far to be finished
+   */
+  void shutdown() {
+    rolloverExecutor.shutdown();
+    try {
+      rolloverExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    } catch (InterruptedException ie) {
+      log.warn("Interrupted while waiting for rolled files to be finished");
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  static Path getPartialFilenameFor(Path filename) {
+    return filename.resolveSibling(filename.getFileName() + PARTIAL_FILE_EXTENSION);
+  }
+
+  static Path publish(Path rolledFilename) throws IOException {
+    Files.move(getPartialFilenameFor(rolledFilename), rolledFilename, ATOMIC_MOVE);
+    return rolledFilename;
+  }
+
+  static Path compress(Path rolledFilename) throws IOException {
+    Path partialRolledFilename = getPartialFilenameFor(rolledFilename);
+    Path compressedFilename = rolledFilename.resolveSibling(rolledFilename.getFileName() + COMPRESSED_FILE_EXTENSION);
+    Path partialCompressedFilename = getPartialFilenameFor(compressedFilename);
+    try (InputStream rolledFile = Files.newInputStream(partialRolledFilename);
+        OutputStream compressedFile =
+            new GZIPOutputStream(Files.newOutputStream(partialCompressedFilename), COPY_BUFFER_SIZE)) {
+      byte[] buffer = new byte[COPY_BUFFER_SIZE];
+      for (int bytesRead = rolledFile.read(buffer); bytesRead != -1; bytesRead = rolledFile.read(buffer)) {
+        compressedFile.write(buffer, 0, bytesRead);
+      }
+    }
+    Files.move(partialCompressedFilename, compressedFilename, ATOMIC_MOVE);
+    Files.delete(partialRolledFilename);
+    return compressedFilename;
+  }
+
+  private class RolledFileCompletion implements Runnable {
+
+    private final Closeable rolledFileWriter;
+    private final Path rolledFilename;
+
+    private RolledFileCompletion(Closeable rolledFileWriter, Path rolledFilename) {
+      this.rolledFileWriter = rolledFileWriter;
+      this.rolledFilename = rolledFilename;
+    }
+
+    @Override
+    public void run() {
+      try {
+        rolledFileWriter.close();
+        if (rolledFilename == null) {
+          return;
+        }
+        if (compressRolledFiles) {
+          compress(rolledFilename);
+        } else {
+          publish(rolledFilename);
+        }
+      } catch (IOException | RuntimeException e) {
+        log.error("Could not finish rolled file " + rolledFilename + ", left as " + getPartialFilenameFor(rolledFilename),
+                  e);
+      }
+    }
+  }
+}
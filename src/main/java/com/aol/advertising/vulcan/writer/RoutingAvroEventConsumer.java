@@ -0,0 +1,143 @@
+package com.aol.advertising.vulcan.writer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import com.aol.advertising.vulcan.metrics.RecordingWriterMetrics;
+import com.aol.advertising.vulcan.ringbuffer.AvroEvent;
+import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.LifecycleAware;
+import com.lmax.disruptor.TimeoutHandler;
+
+/**
+ * Consumer of a ring buffer whose records go to several files. Each record is appended by the
+ * {@link AvroEventConsumer} of the file it is routed to, which owns the rolling policy and flush and
+ * force state of that file, so a single thread writes every file. Subclasses decide the routing and
+ * when consumers are started and shut down. The consumers may share their compression pool and
+ * rollover executor, see {@link #registerSharedExecutorForShutdown}
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public abstract class RoutingAvroEventConsumer implements EventHandler<AvroEvent>, TimeoutHandler, LifecycleAware {
+
+  private final List<AvroEventConsumer> consumers;
+  private final List<ExecutorService> sharedExecutors;
+
+  private RecordingWriterMetrics metrics;
+  private int eventsInBatch;
+  private int recordsWrittenInBatch;
+
+  protected RoutingAvroEventConsumer() {
+    this.consumers = new ArrayList<>();
+    this.sharedExecutors = new ArrayList<>();
+    this.metrics = new RecordingWriterMetrics();
+  }
+
+  /**
+   * Batches are recorded here, while the consumer of each file records its own flushes, forces and
+   * rolls. Consumers should report to the same metrics
+   */
+  public void reportMetricsTo(RecordingWriterMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  /**
+   * Shuts down {@code sharedExecutor}, shared by the consumers of the files, once every consumer is
+   * shut down. See {@link AvroEventConsumer#shareExecutors()}
+   */
+  public void registerSharedExecutorForShutdown(ExecutorService sharedExecutor) {
+    sharedExecutors.add(sharedExecutor);
+  }
+
+  @Override
+  public void onStart() {}
+
+  /*
+   * Every consumer is shut down even if some of them fail, and the first failure is rethrown
+   */
+  @Override
+  public void onShutdown() {
+    RuntimeException firstFailure = null;
+    for (int consumer = 0; consumer < consumers.size(); consumer++) {
+      try {
+        consumers.get(consumer).onShutdown();
+      } catch (RuntimeException re) {
+        if (firstFailure == null) {
+          firstFailure = re;
+        }
+      }
+    }
+    consumers.clear();
+    for (ExecutorService sharedExecutor : sharedExecutors) {
+      sharedExecutor.shutdown();
+    }
+    if (firstFailure != null) {
+      throw firstFailure;
+    }
+  }
+
+  @Override
+  public void onEvent(AvroEvent event, long sequence, boolean endOfBatch) throws Exception {
+    eventsInBatch++;
+    if (!event.isDiscarded() && consume(event)) {
+      recordsWrittenInBatch++;
+    }
+    if (endOfBatch) {
+      for (int consumer = 0; consumer < consumers.size(); consumer++) {
+        consumers.get(consumer).endBatch();
+      }
+      metrics.recordBatch(eventsInBatch, recordsWrittenInBatch);
+      eventsInBatch = 0;
+      recordsWrittenInBatch = 0;
+    }
+  }
+
+  private boolean consume(AvroEvent event) throws IOException {
+    AvroEventConsumer consumer = getConsumerFor(event);
+    if (consumer == null) {
+      // Nothing will be written for it, so there is nothing to wait for
+      if (event.getDurableWrite() != null) {
+        event.getDurableWrite().complete();
+      }
+      return false;
+    }
+    return consumer.consume(event);
+  }
+
+  @Override
+  public void onTimeout(long sequence) throws Exception {
+    for (int consumer = 0; consumer < consumers.size(); consumer++) {
+      consumers.get(consumer).onTimeout(sequence);
+    }
+  }
+
+  /**
+   * Consumer of the file the record, or file to append, of {@code event} goes to, or null to drop
+   * it. Never called for discarded events
+   */
+  protected abstract AvroEventConsumer getConsumerFor(AvroEvent event);
+
+  protected RecordingWriterMetrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Starts a consumer created by the subclass. It is shut down with this consumer unless it is shut
+   * down earlier with {@link #shutdown(AvroEventConsumer)}
+   */
+  protected void start(AvroEventConsumer consumer) {
+    consumer.onStart();
+    consumers.add(consumer);
+  }
+
+  /**
+   * Closes the file of a consumer that will not receive more records
+   */
+  protected void shutdown(AvroEventConsumer consumer) {
+    consumers.remove(consumer);
+    consumer.onShutdown();
+  }
+}
@@ -0,0 +1,19 @@
+package com.aol.advertising.vulcan.writer;
+
+import org.apache.avro.Schema;
+
+/**
+ * Provides the consumer that writes the records of each schema for writers that accept records of
+ * any schema, see {@link MultiSchemaAvroEventConsumer}
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public interface SchemaConsumerFactory {
+
+  /**
+   * Create a new, unstarted consumer writing records of {@code avroSchema} to a file of their own.
+   * Only called from the consumer thread, once per schema
+   */
+  AvroEventConsumer newConsumerFor(Schema avroSchema);
+}
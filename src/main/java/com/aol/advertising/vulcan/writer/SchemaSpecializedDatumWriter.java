@@ -0,0 +1,387 @@
+package com.aol.advertising.vulcan.writer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.avro.Schema;
+import org.apache.avro.Schema.Field;
+import org.apache.avro.Schema.Type;
+import org.apache.avro.generic.GenericFixed;
+import org.apache.avro.generic.IndexedRecord;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.Encoder;
+import org.apache.avro.specific.SpecificData;
+import org.apache.avro.specific.SpecificRecord;
+
+/**
+ * Drop-in replacement of {@link org.apache.avro.specific.SpecificDatumWriter} that walks the schema
+ * once, when it is set, into a tree of encoders, one per schema node. Writing a record then runs
+ * those encoders field by field instead of dispatching on the type of every schema node of every
+ * record. Nullable unions, by far the most common ones, are resolved with a null check instead of a
+ * lookup of the schema of the value. Writes the same bytes as {@code SpecificDatumWriter}.
+ * <p>
+ * Encoders keep no state while writing, so a single instance can be shared between threads, unless
+ * it writes strings through a {@link Utf8Cache}
+ *
+ * @author Jaime Nuche
+ *
+ */
+public class SchemaSpecializedDatumWriter implements DatumWriter<SpecificRecord> {
+
+  private static final ValueEncoder STRING_ENCODER = new ValueEncoder() {
+    @Override
+    void encode(Object value, Encoder out) throws IOException {
+      out.writeString((CharSequence) value);
+    }
+  };
+
+  private static final ValueEncoder BYTES_ENCODER = new ValueEncoder() {
+    @Override
+    void encode(Object value, Encoder out) throws IOException {
+      out.writeBytes((ByteBuffer) value);
+    }
+  };
+
+  private static final ValueEncoder INT_ENCODER = new ValueEncoder() {
+    @Override
+    void encode(Object value, Encoder out) throws IOException {
+      out.writeInt((Integer) value);
+    }
+  };
+
+  private static final ValueEncoder LONG_ENCODER = new ValueEncoder() {
+    @Override
+    void encode(Object value, Encoder out) throws IOException {
+      out.writeLong((Long) value);
+    }
+  };
+
+  private static final ValueEncoder FLOAT_ENCODER = new ValueEncoder() {
+    @Override
+    void encode(Object value, Encoder out) throws IOException {
+      out.writeFloat((Float) value);
+    }
+  };
+
+  private static final ValueEncoder DOUBLE_ENCODER = new ValueEncoder() {
+    @Override
+    void encode(Object value, Encoder out) throws IOException {
+      out.writeDouble((Double) value);
+    }
+  };
+
+  private static final ValueEncoder BOOLEAN_ENCODER = new ValueEncoder() {
+    @Override
+    void encode(Object value, Encoder out) throws IOException {
+      out.writeBoolean((Boolean) value);
+    }
+  };
+
+  private static final ValueEncoder NULL_ENCODER = new ValueEncoder() {
+    @Override
+    void encode(Object value, Encoder out) throws IOException {
+      out.writeNull();
+    }
+  };
+
+  private final ValueEncoder stringEncoder;
+
+  private volatile Schema schema;
+  private volatile ValueEncoder rootEncoder;
+
+  public SchemaSpecializedDatumWriter(Schema schema) {
+    this.stringEncoder = STRING_ENCODER;
+    setSchema(schema);
+  }
+
+  /**
+   * Writes strings, and map keys, through {@code utf8Cache}, so it can only be used from the
+   * consumer thread
+   */
+  SchemaSpecializedDatumWriter(Schema schema, Utf8Cache utf8Cache) {
+    this.stringEncoder = new CachedStringEncoder(utf8Cache);
+    setSchema(schema);
+  }
+
+  /*
+   * Data file writers set the schema of their datum writer when they create or append to a file,
+   * which happens to be the same one every time
+   */
+  @Override
+  public void setSchema(Schema schema) {
+    if (!schema.equals(this.schema)) {
+      this.rootEncoder = newEncoderFor(schema, new HashMap<String, RecordEncoder>());
+      this.schema = schema;
+    }
+  }
+
+  @Override
+  public void write(SpecificRecord datum, Encoder out) throws IOException {
+    rootEncoder.encode(datum, out);
+  }
+
+  private ValueEncoder newEncoderFor(Schema schema, Map<String, RecordEncoder> recordEncoders) {
+    switch (schema.getType()) {
+      case RECORD:
+        return newRecordEncoderFor(schema, recordEncoders);
+      case UNION:
+        return newUnionEncoderFor(schema, recordEncoders);
+      case ARRAY:
+        return new ArrayEncoder(newEncoderFor(schema.getElementType(), recordEncoders));
+      case MAP:
+        return new MapEncoder(stringEncoder, newEncoderFor(schema.getValueType(), recordEncoders));
+      case ENUM:
+        return new EnumEncoder(schema);
+      case FIXED:
+        return new FixedEncoder(schema.getFixedSize());
+      case STRING:
+        return stringEncoder;
+      case BYTES:
+        return BYTES_ENCODER;
+      case INT:
+        return INT_ENCODER;
+      case LONG:
+        return LONG_ENCODER;
+      case FLOAT:
+        return FLOAT_ENCODER;
+      case DOUBLE:
+        return DOUBLE_ENCODER;
+      case BOOLEAN:
+        return BOOLEAN_ENCODER;
+      case NULL:
+        return NULL_ENCODER;
+      default:
+        throw new IllegalArgumentException("Unsupported schema type " + schema.getType());
+    }
+  }
+
+  // Records are registered before their fields are walked, so recursive records reuse their encoder
+  private ValueEncoder newRecordEncoderFor(Schema schema, Map<String, RecordEncoder> recordEncoders) {
+    RecordEncoder recordEncoder = recordEncoders.get(schema.getFullName());
+    if (recordEncoder == null) {
+      recordEncoder = new RecordEncoder(schema);
+      recordEncoders.put(schema.getFullName(), recordEncoder);
+      List<Field> fields = schema.getFields();
+      ValueEncoder[] fieldEncoders = new ValueEncoder[fields.size()];
+      for (Field field : fields) {
+        fieldEncoders[field.pos()] = newEncoderFor(field.schema(), recordEncoders);
+      }
+      recordEncoder.fieldEncoders = fieldEncoders;
+    }
+    return recordEncoder;
+  }
+
+  private ValueEncoder newUnionEncoderFor(Schema schema, Map<String, RecordEncoder> recordEncoders) {
+    List<Schema> branches = schema.getTypes();
+    ValueEncoder[] branchEncoders = new ValueEncoder[branches.size()];
+    for (int branch = 0; branch < branches.size(); branch++) {
+      branchEncoders[branch] = newEncoderFor(branches.get(branch), recordEncoders);
+    }
+    if (branches.size() == 2 && branches.get(0).getType() == Type.NULL) {
+      return new NullableEncoder(0, 1, branchEncoders[1]);
+    }
+    if (branches.size() == 2 && branches.get(1).getType() == Type.NULL) {
+      return new NullableEncoder(1, 0, branchEncoders[0]);
+    }
+    return new UnionEncoder(schema, branchEncoders);
+  }
+
+  private static abstract class ValueEncoder {
+
+    abstract void encode(Object value, Encoder out) throws IOException;
+  }
+
+  private static final class RecordEncoder extends ValueEncoder {
+
+    private final Schema schema;
+    private ValueEncoder[] fieldEncoders;
+
+    RecordEncoder(Schema schema) {
+      this.schema = schema;
+    }
+
+    @Override
+    void encode(Object value, Encoder out) throws IOException {
+      IndexedRecord record = (IndexedRecord) value;
+      for (int field = 0; field < fieldEncoders.length; field++) {
+        try {
+          fieldEncoders[field].encode(record.get(field), out);
+        } catch (NullPointerException npe) {
+          throw withFieldName(npe, field);
+        }
+      }
+    }
+
+    // Same kind of message as SpecificDatumWriter, e.g. "null of string in field name of Event"
+    private NullFieldException withFieldName(NullPointerException npe, int field) {
+      Field failedField = schema.getFields().get(field);
+      String description =
+          npe instanceof NullFieldException ? npe.getMessage() : "null of " + failedField.schema().getName();
+      NullFieldException namedNpe =
+          new NullFieldException(description + " in field " + failedField.name() + " of " + schema.getFullName());
+      namedNpe.initCause(npe);
+      return namedNpe;
+    }
+  }
+
+  private static final class NullFieldException extends NullPointerException {
+
+    private static final long serialVersionUID = 1L;
+
+    NullFieldException(String message) {
+      super(message);
+    }
+  }
+
+  private static final class NullableEncoder extends ValueEncoder {
+
+    private final int nullIndex;
+    private final int valueIndex;
+    private final ValueEncoder valueEncoder;
+
+    NullableEncoder(int nullIndex, int valueIndex, ValueEncoder valueEncoder) {
+      this.nullIndex = nullIndex;
+      this.valueIndex = valueIndex;
+      this.valueEncoder = valueEncoder;
+    }
+
+    @Override
+    void encode(Object value, Encoder out) throws IOException {
+      if (value == null) {
+        out.writeIndex(nullIndex);
+      } else {
+        out.writeIndex(valueIndex);
+        valueEncoder.encode(value, out);
+      }
+    }
+  }
+
+  private static final class UnionEncoder extends ValueEncoder {
+
+    private final Schema schema;
+    private final ValueEncoder[] branchEncoders;
+
+    UnionEncoder(Schema schema, ValueEncoder[] branchEncoders) {
+      this.schema = schema;
+      this.branchEncoders = branchEncoders;
+    }
+
+    @Override
+    void encode(Object value, Encoder out) throws IOException {
+      int branch = SpecificData.get().resolveUnion(schema, value);
+      out.writeIndex(branch);
+      branchEncoders[branch].encode(value, out);
+    }
+  }
+
+  private static final class ArrayEncoder extends ValueEncoder {
+
+    private final ValueEncoder elementEncoder;
+
+    ArrayEncoder(ValueEncoder elementEncoder) {
+      this.elementEncoder = elementEncoder;
+    }
+
+    @Override
+    void encode(Object value, Encoder out) throws IOException {
+      Collection<?> elements = (Collection<?>) value;
+      int size = elements.size();
+      int actualSize = 0;
+      out.writeArrayStart();
+      out.setItemCount(size);
+      for (Object element : elements) {
+        out.startItem();
+        elementEncoder.encode(element, out);
+        actualSize++;
+      }
+      out.writeArrayEnd();
+      if (actualSize != size) {
+        throw new ConcurrentModificationException("Size of array written was " + size + ", but number of elements written was "
+            + actualSize + ". ");
+      }
+    }
+  }
+
+  private static final class CachedStringEncoder extends ValueEncoder {
+
+    private final Utf8Cache utf8Cache;
+
+    CachedStringEncoder(Utf8Cache utf8Cache) {
+      this.utf8Cache = utf8Cache;
+    }
+
+    @Override
+    void encode(Object value, Encoder out) throws IOException {
+      utf8Cache.writeString((CharSequence) value, out);
+    }
+  }
+
+  private static final class MapEncoder extends ValueEncoder {
+
+    private final ValueEncoder keyEncoder;
+    private final ValueEncoder valueEncoder;
+
+    MapEncoder(ValueEncoder keyEncoder, ValueEncoder valueEncoder) {
+      this.keyEncoder = keyEncoder;
+      this.valueEncoder = valueEncoder;
+    }
+
+    @Override
+    void encode(Object value, Encoder out) throws IOException {
+      Map<?, ?> entries = (Map<?, ?>) value;
+      int size = entries.size();
+      int actualSize = 0;
+      out.writeMapStart();
+      out.setItemCount(size);
+      for (Map.Entry<?, ?> entry : entries.entrySet()) {
+        out.startItem();
+        keyEncoder.encode(entry.getKey(), out);
+        valueEncoder.encode(entry.getValue(), out);
+        actualSize++;
+      }
+      out.writeMapEnd();
+      if (actualSize != size) {
+        throw new ConcurrentModificationException("Size of map written was " + size + ", but number of entries written was "
+            + actualSize + ". ");
+      }
+    }
+  }
+
+  private static final class EnumEncoder extends ValueEncoder {
+
+    private final Schema schema;
+
+    EnumEncoder(Schema schema) {
+      this.schema = schema;
+    }
+
+    // Generated enums declare their symbols in the order of the schema
+    @Override
+    void encode(Object value, Encoder out) throws IOException {
+      if (value instanceof Enum) {
+        out.writeEnum(((Enum<?>) value).ordinal());
+      } else {
+        out.writeEnum(schema.getEnumOrdinal(value.toString()));
+      }
+    }
+  }
+
+  private static final class FixedEncoder extends ValueEncoder {
+
+    private final int fixedSize;
+
+    FixedEncoder(int fixedSize) {
+      this.fixedSize = fixedSize;
+    }
+
+    @Override
+    void encode(Object value, Encoder out) throws IOException {
+      out.writeFixed(((GenericFixed) value).bytes(), 0, fixedSize);
+    }
+  }
+}
@@ -0,0 +1,178 @@
+package com.aol.advertising.vulcan.writer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.avro.file.DataFileStream;
+import org.apache.avro.specific.SpecificRecord;
+
+import com.aol.advertising.vulcan.api.AvroWriter;
+import com.aol.advertising.vulcan.api.metrics.WriterMetrics;
+import com.aol.advertising.vulcan.api.sharding.ShardSelector;
+import com.aol.advertising.vulcan.metrics.JmxWriterMetrics;
+import com.aol.advertising.vulcan.metrics.ShardedWriterMetrics;
+import com.aol.advertising.vulcan.sharding.RoundRobinShardSelector;
+
+/**
+ * Writer that stripes records across several independent writers (shards), each one with its own
+ * ring buffer, consumer thread, destination file and rolling policy
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public class ShardedAvroWriter implements AvroWriter {
+
+  private final AvroWriter[] shards;
+  private final ShardSelector shardSelector;
+  private final ShardSelector unkeyedShardSelector;
+  private final ShardedWriterMetrics metrics;
+
+  private JmxWriterMetrics jmxMetrics;
+
+  public ShardedAvroWriter(AvroWriter[] shards, ShardSelector shardSelector) {
+    this.shards = shards;
+    this.shardSelector = shardSelector;
+    this.unkeyedShardSelector = new RoundRobinShardSelector();
+    this.metrics = new ShardedWriterMetrics(shards);
+  }
+
+  @Override
+  public void write(SpecificRecord avroRecord) {
+    selectShardFor(avroRecord).write(avroRecord);
+  }
+
+  @Override
+  public boolean tryWrite(SpecificRecord avroRecord) {
+    return selectShardFor(avroRecord).tryWrite(avroRecord);
+  }
+
+  @Override
+  public Future<Void> writeDurably(SpecificRecord avroRecord) {
+    return selectShardFor(avroRecord).writeDurably(avroRecord);
+  }
+
+  @Override
+  public void write(SpecificRecord[] avroRecords) {
+    write(Arrays.asList(avroRecords));
+  }
+
+  /*
+   * The batch is split into one sub-batch per shard, keeping the relative order of the records, so
+   * each shard can still claim its slots in a single call
+   */
+  @Override
+  public void write(List<? extends SpecificRecord> avroRecords) {
+    List<List<SpecificRecord>> batchPerShard = newBatchPerShard(avroRecords.size());
+    for (SpecificRecord avroRecord : avroRecords) {
+      batchPerShard.get(shardSelector.selectShardFor(avroRecord, shards.length)).add(avroRecord);
+    }
+    for (int shard = 0; shard < shards.length; shard++) {
+      if (!batchPerShard.get(shard).isEmpty()) {
+        shards[shard].write(batchPerShard.get(shard));
+      }
+    }
+  }
+
+  private List<List<SpecificRecord>> newBatchPerShard(int totalBatchSize) {
+    List<List<SpecificRecord>> batchPerShard = new ArrayList<>(shards.length);
+    for (int shard = 0; shard < shards.length; shard++) {
+      batchPerShard.add(new ArrayList<SpecificRecord>(totalBatchSize / shards.length + 1));
+    }
+    return batchPerShard;
+  }
+
+  // Encoded records and appended files have no fields to select a shard by, so they are spread in turn
+  @Override
+  public void writeEncoded(ByteBuffer encodedRecord) {
+    selectNextShard().writeEncoded(encodedRecord);
+  }
+
+  @Override
+  public void writeEncoded(ByteBuffer encodedRecord, long schemaFingerprint) {
+    selectNextShard().writeEncoded(encodedRecord, schemaFingerprint);
+  }
+
+  @Override
+  public Future<Void> appendAllFrom(DataFileStream<?> avroFileStream) {
+    return selectNextShard().appendAllFrom(avroFileStream);
+  }
+
+  @Override
+  public Future<Void> appendAllFrom(Path avroFile) throws IOException {
+    return selectNextShard().appendAllFrom(avroFile);
+  }
+
+  private AvroWriter selectNextShard() {
+    return shards[unkeyedShardSelector.selectShardFor(null, shards.length)];
+  }
+
+  private AvroWriter selectShardFor(SpecificRecord avroRecord) {
+    return shards[shardSelector.selectShardFor(avroRecord, shards.length)];
+  }
+
+  @Override
+  public WriterMetrics getMetrics() {
+    return metrics;
+  }
+
+  public void publishMetricsThroughJmx(JmxWriterMetrics jmxMetrics) {
+    this.jmxMetrics = jmxMetrics;
+    jmxMetrics.register();
+  }
+
+  /*
+   * Shards are drained and closed in parallel. If any of them fails, the rest are still closed and
+   * the first failure is rethrown
+   */
+  @Override
+  public void close() throws Exception {
+    ExecutorService shardClosingExecutor = Executors.newFixedThreadPool(shards.length);
+    try {
+      waitFor(closeAllShardsUsing(shardClosingExecutor));
+    } finally {
+      shardClosingExecutor.shutdown();
+      if (jmxMetrics != null) {
+        jmxMetrics.unregister();
+      }
+    }
+  }
+
+  private List<Future<Void>> closeAllShardsUsing(ExecutorService shardClosingExecutor) {
+    List<Future<Void>> pendingCloses = new ArrayList<>(shards.length);
+    for (final AvroWriter shard : shards) {
+      pendingCloses.add(shardClosingExecutor.submit(new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          shard.close();
+          return null;
+        }
+      }));
+    }
+    return pendingCloses;
+  }
+
+  private void waitFor(List<Future<Void>> pendingCloses) throws Exception {
+    Exception firstFailure = null;
+    for (Future<Void> pendingClose : pendingCloses) {
+      try {
+        pendingClose.get();
+      } catch (ExecutionException ee) {
+        if (firstFailure == null) {
+          firstFailure = ee.getCause() instanceof Exception ? (Exception) ee.getCause() : ee;
+        }
+      }
+    }
+    if (firstFailure != null) {
+      throw firstFailure;
+    }
+  }
+}
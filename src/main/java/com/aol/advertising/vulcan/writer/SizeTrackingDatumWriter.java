@@ -0,0 +1,56 @@
+package com.aol.advertising.vulcan.writer;
+
+import java.io.IOException;
+
+import org.apache.avro.Schema;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.Encoder;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.specific.SpecificRecord;
+
+import com.aol.advertising.vulcan.ringbuffer.EncodedRecordBuffer;
+
+/**
+ * Serializes each record into a reusable buffer before handing the bytes to the data file, so the
+ * consumer knows the size of every record it appends. {@link org.apache.avro.file.DataFileWriter}
+ * keeps that information to itself. The extra copy is measurable on small records, so it is only
+ * used for size-based flush policies
+ * 
+ * @author Jaime Nuche
+ *
+ */
+class SizeTrackingDatumWriter implements DatumWriter<SpecificRecord> {
+
+  private static final EncoderFactory encoderFactory = EncoderFactory.get();
+
+  private final DatumWriter<SpecificRecord> datumWriter;
+  private final EncodedRecordBuffer encodedRecord;
+  private BinaryEncoder encoder;
+
+  SizeTrackingDatumWriter(DatumWriter<SpecificRecord> datumWriter) {
+    this.datumWriter = datumWriter;
+    this.encodedRecord = new EncodedRecordBuffer();
+  }
+
+  @Override
+  public void setSchema(Schema schema) {
+    datumWriter.setSchema(schema);
+  }
+
+  @Override
+  public void write(SpecificRecord datum, Encoder out) throws IOException {
+    encodedRecord.reset();
+    encoder = encoderFactory.binaryEncoder(encodedRecord, encoder);
+    datumWriter.write(datum, encoder);
+    encoder.flush();
+    out.writeFixed(encodedRecord.asByteBuffer());
+  }
+
+  /**
+   * Serialized size of the last record written
+   */
+  int getLastRecordSize() {
+    return encodedRecord.size();
+  }
+}
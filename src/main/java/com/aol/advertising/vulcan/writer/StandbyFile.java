@@ -0,0 +1,55 @@
+package com.aol.advertising.vulcan.writer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.specific.SpecificRecord;
+
+/**
+ * Next destination file, created ahead of a roll with its Avro header already written, so rolling
+ * only takes renaming it to the destination file name and swapping writers. It is kept hidden in the
+ * destination directory, named {@code .<destination file name>.standby}
+ * 
+ * @author Jaime Nuche
+ *
+ */
+class StandbyFile {
+
+  private static final String STANDBY_FILE_PREFIX = ".";
+  private static final String STANDBY_FILE_EXTENSION = ".standby";
+
+  private final Path standbyFilename;
+  private final DataFileWriter<SpecificRecord> avroFileWriter;
+  private final AvroFileSink avroFileOutputStream;
+
+  StandbyFile(Path standbyFilename,
+              DataFileWriter<SpecificRecord> avroFileWriter,
+              AvroFileSink avroFileOutputStream) {
+    this.standbyFilename = standbyFilename;
+    this.avroFileWriter = avroFileWriter;
+    this.avroFileOutputStream = avroFileOutputStream;
+  }
+
+  static Path getStandbyFilenameFor(Path avroFilename) {
+    return avroFilename.resolveSibling(STANDBY_FILE_PREFIX + avroFilename.getFileName() + STANDBY_FILE_EXTENSION);
+  }
+
+  Path getStandbyFilename() {
+    return standbyFilename;
+  }
+
+  DataFileWriter<SpecificRecord> getAvroFileWriter() {
+    return avroFileWriter;
+  }
+
+  AvroFileSink getAvroFileOutputStream() {
+    return avroFileOutputStream;
+  }
+
+  void discard() throws IOException {
+    avroFileWriter.close();
+    Files.deleteIfExists(standbyFilename);
+  }
+}
@@ -0,0 +1,17 @@
+package com.aol.advertising.vulcan.writer;
+
+/**
+ * Provides the consumer that writes the records of each time bucket for writers partitioned by
+ * event time, see {@link TimePartitionedAvroEventConsumer}
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public interface TimeBucketConsumerFactory {
+
+  /**
+   * Create a new, unstarted consumer writing the records of the bucket starting at
+   * {@code bucketStart} to a file of their own. Only called from the consumer thread, once per bucket
+   */
+  AvroEventConsumer newConsumerFor(long bucketStart);
+}
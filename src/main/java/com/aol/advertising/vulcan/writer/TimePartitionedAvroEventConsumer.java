@@ -0,0 +1,122 @@
+package com.aol.advertising.vulcan.writer;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import org.apache.avro.specific.SpecificRecord;
+import org.joda.time.DateTimeUtils;
+
+import com.aol.advertising.vulcan.api.partitioning.EventTimeExtractor;
+import com.aol.advertising.vulcan.partitioning.TimeBuckets;
+import com.aol.advertising.vulcan.ringbuffer.AvroEvent;
+
+/**
+ * Consumer of a ring buffer which routes each record to the file of the time bucket its event time
+ * falls in. Up to {@code openBuckets} buckets, counting the newest one, are kept open: when a record
+ * of a newer bucket arrives, the consumers of the buckets left behind are shut down, which closes
+ * their files, and their late records are dropped. Records more than one bucket ahead of the clock
+ * are dropped as well, as their bucket would close every bucket still being written. Events without a
+ * record to read the time from, i.e. encoded records and appended files, go to the newest bucket
+ * 
+ * @author Jaime Nuche
+ *
+ */
+public class TimePartitionedAvroEventConsumer extends RoutingAvroEventConsumer {
+
+  private final EventTimeExtractor eventTimeExtractor;
+  private final TimeBuckets timeBuckets;
+  private final long openWindowInMillis;
+  private final TimeBucketConsumerFactory consumerFactory;
+  private final NavigableMap<Long, AvroEventConsumer> consumerPerOpenBucket;
+
+  // Records usually arrive in bursts of the same bucket, which are routed without touching the map
+  private long lastBucketStart;
+  private long lastBucketEnd;
+  private AvroEventConsumer lastBucketConsumer;
+
+  public TimePartitionedAvroEventConsumer(EventTimeExtractor eventTimeExtractor,
+                                          TimeBuckets timeBuckets,
+                                          int openBuckets,
+                                          TimeBucketConsumerFactory consumerFactory) {
+    this.eventTimeExtractor = eventTimeExtractor;
+    this.timeBuckets = timeBuckets;
+    this.openWindowInMillis = (openBuckets - 1) * timeBuckets.getBucketLengthInMillis();
+    this.consumerFactory = consumerFactory;
+    this.consumerPerOpenBucket = new TreeMap<>();
+  }
+
+  @Override
+  protected AvroEventConsumer getConsumerFor(AvroEvent event) {
+    SpecificRecord avroRecord = event.getAvroRecord();
+    if (avroRecord == null) {
+      return getConsumerForNewestBucket();
+    }
+    long eventTime = eventTimeExtractor.extractEventTimeFrom(avroRecord);
+    if (lastBucketConsumer != null && eventTime >= lastBucketStart && eventTime < lastBucketEnd) {
+      return lastBucketConsumer;
+    }
+    return getConsumerForBucket(timeBuckets.bucketOf(eventTime));
+  }
+
+  private AvroEventConsumer getConsumerForNewestBucket() {
+    if (consumerPerOpenBucket.isEmpty()) {
+      return getConsumerForBucket(timeBuckets.bucketOf(DateTimeUtils.currentTimeMillis()));
+    }
+    return consumerPerOpenBucket.lastEntry().getValue();
+  }
+
+  private AvroEventConsumer getConsumerForBucket(long bucketStart) {
+    AvroEventConsumer consumer = consumerPerOpenBucket.get(bucketStart);
+    if (consumer == null) {
+      if (isTooLate(bucketStart)) {
+        getMetrics().recordLateRecord();
+        return null;
+      }
+      if (isTooFarAhead(bucketStart)) {
+        getMetrics().recordFutureRecord();
+        return null;
+      }
+      consumer = openBucket(bucketStart);
+    }
+    lastBucketStart = bucketStart;
+    lastBucketEnd = timeBuckets.bucketAfter(bucketStart);
+    lastBucketConsumer = consumer;
+    return consumer;
+  }
+
+  private boolean isTooLate(long bucketStart) {
+    return !consumerPerOpenBucket.isEmpty() && bucketStart < consumerPerOpenBucket.lastKey() - openWindowInMillis;
+  }
+
+  // Only checked when a bucket is about to be opened, so the clock is read once per bucket
+  private boolean isTooFarAhead(long bucketStart) {
+    return bucketStart > timeBuckets.bucketAfter(timeBuckets.bucketOf(DateTimeUtils.currentTimeMillis()));
+  }
+
+  private AvroEventConsumer openBucket(long bucketStart) {
+    AvroEventConsumer consumer = consumerFactory.newConsumerFor(bucketStart);
+    start(consumer);
+    consumerPerOpenBucket.put(bucketStart, consumer);
+    closeBucketsOlderThan(consumerPerOpenBucket.lastKey() - openWindowInMillis);
+    return consumer;
+  }
+
+  private void closeBucketsOlderThan(long oldestOpenBucketStart) {
+    Map<Long, AvroEventConsumer> closedBuckets = consumerPerOpenBucket.headMap(oldestOpenBucketStart, false);
+    for (AvroEventConsumer consumer : closedBuckets.values()) {
+      if (consumer == lastBucketConsumer) {
+        lastBucketConsumer = null;
+      }
+      shutdown(consumer);
+    }
+    closedBuckets.clear();
+  }
+
+  @Override
+  public void onShutdown() {
+    consumerPerOpenBucket.clear();
+    lastBucketConsumer = null;
+    super.onShutdown();
+  }
+}
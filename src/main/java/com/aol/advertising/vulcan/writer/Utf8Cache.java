@@ -0,0 +1,93 @@
+package com.aol.advertising.vulcan.writer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+
+import org.apache.avro.io.Encoder;
+
+import com.aol.advertising.vulcan.metrics.RecordingWriterMetrics;
+
+/**
+ * Bounded cache of the UTF-8 bytes of the strings recently written, so values repeated across
+ * records, e.g. countries or device types, are only encoded the first times they are seen. Strings
+ * are looked up by hash and then by identity or equality, in a direct-mapped table of fixed size.
+ * A string is only cached the second time in a row it misses its slot, replacing whatever was
+ * cached there, so values that never repeat, e.g. request ids, do not evict the ones that do and
+ * are written as without the cache. Long strings, unlikely to repeat, and {@code Utf8} values,
+ * which already hold their bytes, are written without going through the cache.
+ * <p>
+ * Keeps plain counters, so it can only be used from the consumer thread
+ * 
+ * @author Jaime Nuche
+ *
+ */
+class Utf8Cache {
+
+  private static final int MAXIMUM_CACHED_LENGTH = 64;
+
+  private final int[] cachedHashes;
+  private final String[] cachedStrings;
+  private final byte[][] encodedStrings;
+  private final int[] lastMissedHashes;
+  private final int slotMask;
+
+  private long hits;
+  private long misses;
+
+  /**
+   * @param capacity rounded up to the next power of two
+   */
+  Utf8Cache(int capacity) {
+    int slots = capacity > 1 ? Integer.highestOneBit(capacity - 1) << 1 : 1;
+    this.cachedHashes = new int[slots];
+    this.cachedStrings = new String[slots];
+    this.encodedStrings = new byte[slots][];
+    this.lastMissedHashes = new int[slots];
+    this.slotMask = slots - 1;
+  }
+
+  /**
+   * Writes the same bytes as {@link Encoder#writeString(CharSequence)}
+   */
+  void writeString(CharSequence value, Encoder out) throws IOException {
+    if (!(value instanceof String) || value.length() > MAXIMUM_CACHED_LENGTH) {
+      out.writeString(value);
+      return;
+    }
+    String string = (String) value;
+    int hash = string.hashCode();
+    int slot = (hash ^ (hash >>> 16)) & slotMask;
+    if (cachedHashes[slot] == hash && (cachedStrings[slot] == string || string.equals(cachedStrings[slot]))) {
+      hits++;
+      out.writeBytes(encodedStrings[slot]);
+      return;
+    }
+    misses++;
+    if (lastMissedHashes[slot] != hash) {
+      lastMissedHashes[slot] = hash;
+      out.writeString(string);
+      return;
+    }
+    byte[] encodedString = string.getBytes(UTF_8);
+    cachedHashes[slot] = hash;
+    cachedStrings[slot] = string;
+    encodedStrings[slot] = encodedString;
+    out.writeBytes(encodedString);
+  }
+
+  int getCapacity() {
+    return cachedStrings.length;
+  }
+
+  /**
+   * Records the lookups done since the last report
+   */
+  void reportLookupsTo(RecordingWriterMetrics metrics) {
+    if (hits > 0 || misses > 0) {
+      metrics.recordStringCacheLookups(hits, misses);
+      hits = 0;
+      misses = 0;
+    }
+  }
+}
@@ -0,0 +1,31 @@
+package com.aol.advertising.vulcan.writer;
+
+import java.io.IOException;
+
+import org.apache.avro.Schema;
+import org.apache.avro.io.Encoder;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.apache.avro.specific.SpecificRecord;
+
+/**
+ * {@code SpecificDatumWriter} that writes strings, and map keys, through a {@link Utf8Cache}. Writes
+ * the same bytes as {@code SpecificDatumWriter}, and like the cache it can only be used from the
+ * consumer thread
+ * 
+ * @author Jaime Nuche
+ *
+ */
+class Utf8CachingDatumWriter extends SpecificDatumWriter<SpecificRecord> {
+
+  private final Utf8Cache utf8Cache;
+
+  Utf8CachingDatumWriter(Schema schema, Utf8Cache utf8Cache) {
+    super(schema);
+    this.utf8Cache = utf8Cache;
+  }
+
+  @Override
+  protected void writeString(Object datum, Encoder out) throws IOException {
+    utf8Cache.writeString((CharSequence) datum, out);
+  }
+}
@@ -0,0 +1,67 @@
+package com.aol.advertising.vulcan;
+
+import org.apache.avro.Schema;
+import org.apache.avro.specific.SpecificRecordBase;
+
+/**
+ * Minimal hand-written equivalent of an Avro-generated specific record, for tests that need real
+ * serialization instead of mocks
+ */
+public class TestAvroRecord extends SpecificRecordBase {
+
+  // @formatter:off
+  public static final Schema SCHEMA = new Schema.Parser().parse(
+      "{\"type\": \"record\", \"name\": \"TestAvroRecord\", \"namespace\": \"com.aol.advertising.vulcan\","
+    + " \"fields\": [{\"name\": \"name\", \"type\": \"string\"},"
+    + "              {\"name\": \"count\", \"type\": \"int\"}]}");
+  // @formatter:on
+
+  private CharSequence name;
+  private int count;
+
+  public TestAvroRecord() {}
+
+  public TestAvroRecord(CharSequence name, int count) {
+    this.name = name;
+    this.count = count;
+  }
+
+  @Override
+  public Schema getSchema() {
+    return SCHEMA;
+  }
+
+  @Override
+  public Object get(int field) {
+    switch (field) {
+      case 0:
+        return name;
+      case 1:
+        return count;
+      default:
+        throw new IndexOutOfBoundsException("Invalid field index " + field);
+    }
+  }
+
+  @Override
+  public void put(int field, Object value) {
+    switch (field) {
+      case 0:
+        name = (CharSequence) value;
+        break;
+      case 1:
+        count = (Integer) value;
+        break;
+      default:
+        throw new IndexOutOfBoundsException("Invalid field index " + field);
+    }
+  }
+
+  public CharSequence getName() {
+    return name;
+  }
+
+  public int getCount() {
+    return count;
+  }
+}
@@ -1,9 +1,13 @@
 package com.aol.advertising.vulcan.api;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Matchers.isA;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.powermock.api.mockito.PowerMockito.mockStatic;
@@ -17,44 +21,79 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Iterator;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.avro.Schema;
+import org.apache.avro.file.CodecFactory;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.Matchers;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
 import com.aol.advertising.vulcan.ConfiguredUnitTest;
+import com.aol.advertising.vulcan.TestAvroRecord;
 import com.aol.advertising.vulcan.api.AvroWriterBuilder;
 import com.aol.advertising.vulcan.api.builder.steps.AvroFilenameStep;
 import com.aol.advertising.vulcan.api.builder.steps.OptionalSteps;
 import com.aol.advertising.vulcan.api.rolling.RollingPolicy;
+import com.aol.advertising.vulcan.api.durability.DurabilityPolicy;
+import com.aol.advertising.vulcan.api.flush.FlushPolicy;
+import com.aol.advertising.vulcan.api.overflow.OverflowPolicy;
+import com.aol.advertising.vulcan.api.partitioning.EventTimeExtractor;
+import com.aol.advertising.vulcan.api.rolling.RollingPolicyFactory;
+import com.aol.advertising.vulcan.durability.NoForceDurabilityPolicy;
+import com.aol.advertising.vulcan.durability.PeriodicForceDurabilityPolicy;
+import com.aol.advertising.vulcan.flush.EndOfBatchFlushPolicy;
+import com.aol.advertising.vulcan.flush.TimeIntervalFlushPolicy;
+import com.aol.advertising.vulcan.metrics.JmxWriterMetrics;
+import com.aol.advertising.vulcan.metrics.RecordingWriterMetrics;
+import com.aol.advertising.vulcan.overflow.SpillToSecondaryBufferOverflowPolicy;
+import com.aol.advertising.vulcan.api.filter.RecordFilter;
+import com.aol.advertising.vulcan.partitioning.EventTimePartitioningConfig;
 import com.aol.advertising.vulcan.exception.DisruptorExceptionHandler;
 import com.aol.advertising.vulcan.ringbuffer.AvroEvent;
 import com.aol.advertising.vulcan.ringbuffer.AvroEventFactory;
+import com.aol.advertising.vulcan.ringbuffer.OffHeapAvroEventFactory;
 import com.aol.advertising.vulcan.rolling.TimeAndSizeBasedRollingPolicy;
 import com.aol.advertising.vulcan.rolling.TimeAndSizeBasedRollingPolicyConfig;
 import com.aol.advertising.vulcan.writer.AvroEventConsumer;
 import com.aol.advertising.vulcan.writer.AvroEventPublisher;
+import com.aol.advertising.vulcan.writer.EncodingWorkHandler;
+import com.aol.advertising.vulcan.writer.MultiSchemaAvroEventConsumer;
+import com.aol.advertising.vulcan.writer.ProducerSideEncoder;
+import com.aol.advertising.vulcan.writer.RecordProjection;
+import com.aol.advertising.vulcan.writer.SchemaSpecializedDatumWriter;
+import com.aol.advertising.vulcan.writer.ShardedAvroWriter;
+import com.aol.advertising.vulcan.writer.TimePartitionedAvroEventConsumer;
 import com.lmax.disruptor.SleepingWaitStrategy;
+import com.lmax.disruptor.TimeoutBlockingWaitStrategy;
 import com.lmax.disruptor.WaitStrategy;
+import com.lmax.disruptor.WorkHandler;
 import com.lmax.disruptor.dsl.Disruptor;
+import com.lmax.disruptor.dsl.EventHandlerGroup;
 import com.lmax.disruptor.dsl.ProducerType;
 
 // @formatter:off
+@org.powermock.core.classloader.annotations.PowerMockIgnore({"jdk.internal.reflect.*", "javax.management.*"})
 @RunWith(PowerMockRunner.class)
 @PrepareForTest({AvroEventPublisher.class, AvroEventConsumer.class, TimeAndSizeBasedRollingPolicy.class,
                  Disruptor.class, ProducerType.class, Files.class, AvroWriterBuilder.class,
-                 Paths.class})
+                 Paths.class, ProducerSideEncoder.class})
 // @formatter:on
 public class DisruptorAvroFileWriterBuilderTest extends ConfiguredUnitTest {
 
   private static final String AVRO_FILE_NAME = "Pizza dough";
   private static final TimeAndSizeBasedRollingPolicyConfig ROLLING_POLICY_CONFIGURATION =
       new TimeAndSizeBasedRollingPolicyConfig().withFileRollingSizeOf(345);
+  // @formatter:off
+  private static final Schema COUNT_ONLY_SCHEMA = new Schema.Parser().parse(
+      "{\"type\": \"record\", \"name\": \"TestAvroRecord\", \"namespace\": \"com.aol.advertising.vulcan\","
+    + " \"fields\": [{\"name\": \"count\", \"type\": \"int\"}]}");
+  // @formatter:on
 
   private AvroFilenameStep disruptorAvroFileWriterBuilderUnderTest;
 
@@ -79,6 +118,8 @@ public class DisruptorAvroFileWriterBuilderTest extends ConfiguredUnitTest {
   @Mock
   private AvroEventConsumer avroEventConsumerMock;
   @Mock
+  private EventHandlerGroup<AvroEvent> eventHandlerGroupMock;
+  @Mock
   private ProducerType producerTypeMock;
   @Mock
   private WaitStrategy waitStrategyMock;
@@ -86,6 +127,24 @@ public class DisruptorAvroFileWriterBuilderTest extends ConfiguredUnitTest {
   private RollingPolicy rollingPolicyMock;
   @Mock
   private TimeAndSizeBasedRollingPolicy configuredTimeAndSizeBasedRollingPolicyMock;
+  @Mock
+  private ProducerSideEncoder producerSideEncoderMock;
+  @Mock
+  private SchemaSpecializedDatumWriter schemaSpecializedDatumWriterMock;
+  @Mock
+  private RollingPolicyFactory rollingPolicyFactoryMock;
+  @Mock
+  private OverflowPolicy overflowPolicyMock;
+  @Mock
+  private FlushPolicy flushPolicyMock;
+  @Mock
+  private DurabilityPolicy durabilityPolicyMock;
+  @Mock
+  private EventTimeExtractor eventTimeExtractorMock;
+  @Mock
+  private RecordFilter recordFilterMock;
+  @Mock
+  private RecordingWriterMetrics writerMetricsMock;
 
   @Before
   public void setUp() throws Exception {
@@ -114,6 +173,7 @@ public class DisruptorAvroFileWriterBuilderTest extends ConfiguredUnitTest {
     whenNew(TimeAndSizeBasedRollingPolicy.class).withArguments(ROLLING_POLICY_CONFIGURATION)
                                                 .thenReturn(configuredTimeAndSizeBasedRollingPolicyMock);
     whenNew(Disruptor.class).withAnyArguments().thenReturn(disruptorMock);
+    whenNew(ProducerSideEncoder.class).withAnyArguments().thenReturn(producerSideEncoderMock);
   }
 
   private void mockPermissions() {
@@ -304,6 +364,578 @@ public class DisruptorAvroFileWriterBuilderTest extends ConfiguredUnitTest {
     verify(avroEventPublisherMock).registerConsumerExecutorForShutdown(isA(ExecutorService.class));
   }
 
+  @Test
+  public void whenTheWriterIsBuilt_thenThePublisherAcceptsDataEncodedWithTheConfiguredSchema() throws Exception {
+    OptionalSteps disruptorAvroFileWriterBuilderUnderTest = givenABuilderWithMandatoryStepsConfigured();
+
+    disruptorAvroFileWriterBuilderUnderTest.createNewWriter();
+
+    verify(avroEventPublisherMock).acceptEncodedDataOf(avroSchemaMock);
+  }
+
+  @Test
+  public void whenProducerSideSerializationIsConfigured_thenThePublisherEncodesRecordsWithTheConfiguredSchema() throws Exception {
+    OptionalSteps disruptorAvroFileWriterBuilderUnderTest = givenABuilderWithMandatoryStepsConfigured();
+
+    disruptorAvroFileWriterBuilderUnderTest.withProducerSideSerialization().createNewWriter();
+
+    verifyNew(ProducerSideEncoder.class).withArguments(avroSchemaMock);
+    verify(avroEventPublisherMock).serializeRecordsUsing(producerSideEncoderMock);
+  }
+
+  @Test
+  public void whenProducerSideSerializationIsNotConfigured_thenThePublisherDoesNotEncodeRecords() throws Exception {
+    OptionalSteps disruptorAvroFileWriterBuilderUnderTest = givenABuilderWithMandatoryStepsConfigured();
+
+    disruptorAvroFileWriterBuilderUnderTest.createNewWriter();
+
+    verify(avroEventPublisherMock, never()).serializeRecordsUsing(any(ProducerSideEncoder.class));
+  }
+
+  @Test
+  public void whenAnOffHeapRingBufferIsConfigured_thenRecordsAreEncodedIntoOffHeapSlotsAndReleased() throws Exception {
+    OptionalSteps disruptorAvroFileWriterBuilderUnderTest = givenABuilderWithMandatoryStepsConfigured();
+
+    disruptorAvroFileWriterBuilderUnderTest.withOffHeapRingBuffer(512).createNewWriter();
+
+    verify(avroEventPublisherMock).serializeRecordsUsing(producerSideEncoderMock);
+    verify(avroEventPublisherMock).releaseRecordsOnceEncoded();
+    verifyNew(Disruptor.class).withArguments(isA(OffHeapAvroEventFactory.class), anyInt(), any(ExecutorService.class),
+                                             any(ProducerType.class), any(WaitStrategy.class));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void whenOffHeapSlotsOfLessThanOneByteAreConfigured_thenAnIllegalArgumentExceptionIsThrown() throws Exception {
+    givenABuilderWithMandatoryStepsConfigured().withOffHeapRingBuffer(0);
+  }
+
+  @Test
+  public void whenShardsAreConfigured_thenAShardedWriterWithOneConsumerPerShardIsBuilt() throws Exception {
+    OptionalSteps disruptorAvroFileWriterBuilderUnderTest = givenABuilderWithMandatoryStepsConfigured();
+    givenShardFilenamesCanBeResolved();
+
+    AvroWriter writer = disruptorAvroFileWriterBuilderUnderTest.withShards(3).createNewWriter();
+
+    assertThat(writer, instanceOf(ShardedAvroWriter.class));
+    verifyNew(AvroEventConsumer.class, times(3)).withArguments(any(Path.class), eq(avroSchemaMock), any(RollingPolicy.class));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void whenShardsAreConfigured_andASingleCustomRollingPolicyIsConfigured_thenAnIllegalStateExceptionIsThrown()
+      throws Exception {
+    OptionalSteps disruptorAvroFileWriterBuilderUnderTest = givenABuilderWithMandatoryStepsConfigured();
+    givenShardFilenamesCanBeResolved();
+
+    disruptorAvroFileWriterBuilderUnderTest.withShards(3).withRollingPolicy(rollingPolicyMock).createNewWriter();
+  }
+
+  @Test
+  public void whenShardsAreConfigured_andARollingPolicyFactoryIsConfigured_thenEachShardGetsItsOwnRollingPolicy()
+      throws Exception {
+    OptionalSteps disruptorAvroFileWriterBuilderUnderTest = givenABuilderWithMandatoryStepsConfigured();
+    givenShardFilenamesCanBeResolved();
+    when(rollingPolicyFactoryMock.newRollingPolicy()).thenReturn(rollingPolicyMock);
+
+    disruptorAvroFileWriterBuilderUnderTest.withShards(3).withRollingPolicyPerShard(rollingPolicyFactoryMock).createNewWriter();
+
+    verify(rollingPolicyFactoryMock, times(3)).newRollingPolicy();
+  }
+
+  @Test
+  public void whenAnOverflowPolicyIsConfigured_thenThePublisherHandlesOverflowsWithIt() throws Exception {
+    OptionalSteps disruptorAvroFileWriterBuilderUnderTest = givenABuilderWithMandatoryStepsConfigured();
+
+    disruptorAvroFileWriterBuilderUnderTest.withOverflowPolicy(overflowPolicyMock).createNewWriter();
+
+    verify(avroEventPublisherMock).handleOverflowsUsing(overflowPolicyMock);
+    verify(avroEventConsumerMock, never()).assistOverflowPolicy(any(SpillToSecondaryBufferOverflowPolicy.class));
+  }
+
+  @Test
+  public void whenAConsumerAssistedOverflowPolicyIsConfigured_thenTheConsumerAssistsIt() throws Exception {
+    OptionalSteps disruptorAvroFileWriterBuilderUnderTest = givenABuilderWithMandatoryStepsConfigured();
+    SpillToSecondaryBufferOverflowPolicy overflowPolicy = new SpillToSecondaryBufferOverflowPolicy(16);
+
+    disruptorAvroFileWriterBuilderUnderTest.withOverflowPolicy(overflowPolicy).createNewWriter();
+
+    verify(avroEventPublisherMock).handleOverflowsUsing(overflowPolicy);
+    verify(avroEventConsumerMock).assistOverflowPolicy(overflowPolicy);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void whenShardsAreConfigured_andAConsumerAssistedOverflowPolicyIsConfigured_thenAnIllegalStateExceptionIsThrown()
+      throws Exception {
+    OptionalSteps disruptorAvroFileWriterBuilderUnderTest = givenABuilderWithMandatoryStepsConfigured();
+    givenShardFilenamesCanBeResolved();
+
+    disruptorAvroFileWriterBuilderUnderTest.withShards(3)
+                                           .withOverflowPolicy(new SpillToSecondaryBufferOverflowPolicy(16))
+                                           .createNewWriter();
+  }
+
+  @Test
+  public void whenTheWriterIsBuilt_thenTheConsumerReportsToTheMetricsOfThePublisher() throws Exception {
+    OptionalSteps disruptorAvroFileWriterBuilderUnderTest = givenABuilderWithMandatoryStepsConfigured();
+    when(avroEventPublisherMock.getMetrics()).thenReturn(writerMetricsMock);
+
+    disruptorAvroFileWriterBuilderUnderTest.createNewWriter();
+
+    verify(avroEventConsumerMock).reportMetricsTo(writerMetricsMock);
+    verify(avroEventPublisherMock, never()).publishMetricsThroughJmx(any(JmxWriterMetrics.class));
+  }
+
+  @Test
+  public void whenMetricsArePublishedThroughJmx_thenThePublisherRegistersThem() throws Exception {
+    OptionalSteps disruptorAvroFileWriterBuilderUnderTest = givenABuilderWithMandatoryStepsConfigured();
+
+    disruptorAvroFileWriterBuilderUnderTest.withMetricsPublishedThroughJmx().createNewWriter();
+
+    verify(avroEventPublisherMock).publishMetricsThroughJmx(any(JmxWriterMetrics.class));
+  }
+
+  @Test
+  public void whenNoFlushPolicyIsConfigured_thenTheConsumerFlushesAtTheEndOfEveryBatch() throws Exception {
+    OptionalSteps disruptorAvroFileWriterBuilderUnderTest = givenABuilderWithMandatoryStepsConfigured();
+
+    disruptorAvroFileWriterBuilderUnderTest.createNewWriter();
+
+    verify(avroEventConsumerMock).flushAccordingTo(isA(EndOfBatchFlushPolicy.class));
+  }
+
+  @Test
+  public void whenAFlushPolicyIsConfigured_thenTheConsumerFlushesAccordingToIt() throws Exception {
+    OptionalSteps disruptorAvroFileWriterBuilderUnderTest = givenABuilderWithMandatoryStepsConfigured();
+
+    disruptorAvroFileWriterBuilderUnderTest.withFlushPolicy(flushPolicyMock).createNewWriter();
+
+    verify(avroEventConsumerMock).flushAccordingTo(flushPolicyMock);
+  }
+
+  @Test
+  public void whenAFlushPolicyWithAMaximumDelayIsConfigured_thenAWaitStrategyThatTimesOutIsUsed() throws Exception {
+    OptionalSteps disruptorAvroFileWriterBuilderUnderTest = givenABuilderWithMandatoryStepsConfigured();
+
+    disruptorAvroFileWriterBuilderUnderTest.withFlushPolicy(new TimeIntervalFlushPolicy(1, TimeUnit.SECONDS))
+                                           .createNewWriter();
+
+    verifyNew(Disruptor.class).withArguments(any(AvroEventFactory.class), anyInt(), any(ExecutorService.class),
+                                             any(ProducerType.class), isA(TimeoutBlockingWaitStrategy.class));
+  }
+
+  @Test
+  public void whenAFlushPolicyWithAMaximumDelayIsConfigured_andAWaitStrategyIsConfigured_thenTheConfiguredOneIsUsed()
+      throws Exception {
+    OptionalSteps disruptorAvroFileWriterBuilderUnderTest = givenABuilderWithMandatoryStepsConfigured();
+
+    disruptorAvroFileWriterBuilderUnderTest.withWaitStrategy(waitStrategyMock)
+                                           .withFlushPolicy(new TimeIntervalFlushPolicy(1, TimeUnit.SECONDS))
+                                           .createNewWriter();
+
+    thenConfiguredWriteStrategyIsUsedInTheFinalWriterObject();
+  }
+
+  @Test
+  public void whenNoDurabilityPolicyIsConfigured_thenTheConsumerDoesNotForceRecords() throws Exception {
+    OptionalSteps disruptorAvroFileWriterBuilderUnderTest = givenABuilderWithMandatoryStepsConfigured();
+
+    disruptorAvroFileWriterBuilderUnderTest.createNewWriter();
+
+    verify(avroEventConsumerMock).forceAccordingTo(isA(NoForceDurabilityPolicy.class));
+  }
+
+  @Test
+  public void whenADurabilityPolicyIsConfigured_thenTheConsumerForcesRecordsAccordingToIt() throws Exception {
+    OptionalSteps disruptorAvroFileWriterBuilderUnderTest = givenABuilderWithMandatoryStepsConfigured();
+
+    disruptorAvroFileWriterBuilderUnderTest.withDurabilityPolicy(durabilityPolicyMock).createNewWriter();
+
+    verify(avroEventConsumerMock).forceAccordingTo(durabilityPolicyMock);
+  }
+
+  @Test
+  public void whenADurabilityPolicyWithAMaximumDelayIsConfigured_thenAWaitStrategyThatTimesOutIsUsed() throws Exception {
+    OptionalSteps disruptorAvroFileWriterBuilderUnderTest = givenABuilderWithMandatoryStepsConfigured();
+
+    disruptorAvroFileWriterBuilderUnderTest.withDurabilityPolicy(new PeriodicForceDurabilityPolicy(1, TimeUnit.SECONDS))
+                                           .createNewWriter();
+
+    verifyNew(Disruptor.class).withArguments(any(AvroEventFactory.class), anyInt(), any(ExecutorService.class),
+                                             any(ProducerType.class), isA(TimeoutBlockingWaitStrategy.class));
+  }
+
+  @Test
+  public void whenACodecIsConfigured_thenTheConsumerCompressesWithIt() throws Exception {
+    OptionalSteps disruptorAvroFileWriterBuilderUnderTest = givenABuilderWithMandatoryStepsConfigured();
+    CodecFactory codec = CodecFactory.deflateCodec(9);
+
+    disruptorAvroFileWriterBuilderUnderTest.withCodec(codec).createNewWriter();
+
+    verify(avroEventConsumerMock).compressWith(codec);
+  }
+
+  @Test
+  public void whenASyncIntervalIsConfigured_thenTheConsumerUsesIt() throws Exception {
+    OptionalSteps disruptorAvroFileWriterBuilderUnderTest = givenABuilderWithMandatoryStepsConfigured();
+
+    disruptorAvroFileWriterBuilderUnderTest.withSyncInterval(65536).createNewWriter();
+
+    verify(avroEventConsumerMock).useSyncInterval(65536);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void whenASyncIntervalSmallerThanAvroAllowsIsConfigured_thenAnIllegalArgumentExceptionIsThrown() throws Exception {
+    givenABuilderWithMandatoryStepsConfigured().withSyncInterval(16);
+  }
+
+  @Test
+  public void whenParallelCompressionIsConfigured_thenTheConsumerCompressesBlocksOnAPool() throws Exception {
+    OptionalSteps disruptorAvroFileWriterBuilderUnderTest = givenABuilderWithMandatoryStepsConfigured();
+
+    disruptorAvroFileWriterBuilderUnderTest.withCodec(CodecFactory.xzCodec(6)).withParallelCompression(3).createNewWriter();
+
+    verify(avroEventConsumerMock).compressBlocksOn(any(ExecutorService.class), eq(6));
+  }
+
+  @Test
+  public void whenSchemaSpecializedEncodingIsConfigured_thenTheConsumerUsesASchemaSpecializedDatumWriter()
+      throws Exception {
+    OptionalSteps disruptorAvroFileWriterBuilderUnderTest = givenABuilderWithMandatoryStepsConfigured();
+
+    disruptorAvroFileWriterBuilderUnderTest.withSchemaSpecializedEncoding().createNewWriter();
+
+    verify(avroEventConsumerMock).useSchemaSpecializedDatumWriter();
+  }
+
+  @Test
+  public void whenSchemaSpecializedEncodingIsConfigured_andProducerSideSerializationIsConfigured_thenProducersUseASchemaSpecializedDatumWriter()
+      throws Exception {
+    OptionalSteps disruptorAvroFileWriterBuilderUnderTest = givenABuilderWithMandatoryStepsConfigured();
+    whenNew(SchemaSpecializedDatumWriter.class).withAnyArguments().thenReturn(schemaSpecializedDatumWriterMock);
+
+    disruptorAvroFileWriterBuilderUnderTest.withSchemaSpecializedEncoding().withProducerSideSerialization().createNewWriter();
+
+    verifyNew(ProducerSideEncoder.class).withArguments(schemaSpecializedDatumWriterMock);
+    verify(avroEventPublisherMock).serializeRecordsUsing(producerSideEncoderMock);
+  }
+
+  @Test
+  public void whenAStringCacheIsConfigured_thenTheConsumerCachesEncodedStrings() throws Exception {
+    OptionalSteps disruptorAvroFileWriterBuilderUnderTest = givenABuilderWithMandatoryStepsConfigured();
+
+    disruptorAvroFileWriterBuilderUnderTest.withStringCache(1024).createNewWriter();
+
+    verify(avroEventConsumerMock).cacheEncodedStrings(1024);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void whenAStringCacheWithNoEntriesIsConfigured_thenAnIllegalArgumentExceptionIsThrown() throws Exception {
+    givenABuilderWithMandatoryStepsConfigured().withStringCache(0);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void whenAStringCacheIsConfigured_andProducerSideSerializationIsConfigured_thenAnIllegalStateExceptionIsThrown()
+      throws Exception {
+    OptionalSteps disruptorAvroFileWriterBuilderUnderTest = givenABuilderWithMandatoryStepsConfigured();
+
+    disruptorAvroFileWriterBuilderUnderTest.withStringCache(1024).withProducerSideSerialization().createNewWriter();
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void whenParallelEncodingIsConfigured_thenAPoolOfEncodersIsPlacedBeforeTheConsumer() throws Exception {
+    OptionalSteps disruptorAvroFileWriterBuilderUnderTest = givenABuilderWithMandatoryStepsConfigured();
+    when(disruptorMock.handleEventsWithWorkerPool(Matchers.<WorkHandler<AvroEvent>>anyVararg()))
+      .thenReturn(eventHandlerGroupMock);
+
+    disruptorAvroFileWriterBuilderUnderTest.withParallelEncoding(3).createNewWriter();
+
+    verify(disruptorMock).handleEventsWithWorkerPool(isA(EncodingWorkHandler.class), isA(EncodingWorkHandler.class),
+                                                     isA(EncodingWorkHandler.class));
+    verify(eventHandlerGroupMock).then(avroEventConsumerMock);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void whenLessThanOneEncodingThreadIsConfigured_thenAnIllegalArgumentExceptionIsThrown() throws Exception {
+    givenABuilderWithMandatoryStepsConfigured().withParallelEncoding(0);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void whenParallelEncodingIsConfigured_andProducerSideSerializationIsConfigured_thenAnIllegalStateExceptionIsThrown()
+      throws Exception {
+    givenABuilderWithMandatoryStepsConfigured().withProducerSideSerialization().withParallelEncoding(2).createNewWriter();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void whenLessThanOneCompressionThreadIsConfigured_thenAnIllegalArgumentExceptionIsThrown() throws Exception {
+    givenABuilderWithMandatoryStepsConfigured().withParallelCompression(0);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void whenParallelCompressionIsConfigured_andNoCodecIsConfigured_thenAnIllegalStateExceptionIsThrown()
+      throws Exception {
+    givenABuilderWithMandatoryStepsConfigured().withParallelCompression(2).createNewWriter();
+  }
+
+  @Test
+  public void whenBackgroundRolloverIsConfigured_thenTheConsumerFinishesRolledFilesInTheBackgroundWithoutCompressingThem()
+      throws Exception {
+    OptionalSteps disruptorAvroFileWriterBuilderUnderTest = givenABuilderWithMandatoryStepsConfigured();
+
+    disruptorAvroFileWriterBuilderUnderTest.withBackgroundRollover().createNewWriter();
+
+    verify(avroEventConsumerMock).finishRolledFilesOn(any(ExecutorService.class), eq(false));
+  }
+
+  @Test
+  public void whenRolledFileCompressionIsConfigured_thenTheConsumerCompressesRolledFilesInTheBackground()
+      throws Exception {
+    OptionalSteps disruptorAvroFileWriterBuilderUnderTest = givenABuilderWithMandatoryStepsConfigured();
+
+    disruptorAvroFileWriterBuilderUnderTest.withRolledFilesCompressed().createNewWriter();
+
+    verify(avroEventConsumerMock).finishRolledFilesOn(any(ExecutorService.class), eq(true));
+  }
+
+  @Test
+  public void whenAStandbyFileIsConfigured_thenTheConsumerKeepsOneReadyInTheBackground() throws Exception {
+    OptionalSteps disruptorAvroFileWriterBuilderUnderTest = givenABuilderWithMandatoryStepsConfigured();
+
+    disruptorAvroFileWriterBuilderUnderTest.withStandbyFile().createNewWriter();
+
+    verify(avroEventConsumerMock).finishRolledFilesOn(any(ExecutorService.class), eq(false));
+    verify(avroEventConsumerMock).keepAStandbyFile();
+  }
+
+  @Test
+  public void whenMemoryMappedOutputIsConfigured_thenTheConsumerMapsFilesInWindowsOfTheConfiguredSize() throws Exception {
+    OptionalSteps disruptorAvroFileWriterBuilderUnderTest = givenABuilderWithMandatoryStepsConfigured();
+
+    disruptorAvroFileWriterBuilderUnderTest.withMemoryMappedOutput(64).createNewWriter();
+
+    verify(avroEventConsumerMock).memoryMapFilesIn(64 * 1_048_576);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void whenAMappingSizeLowerThanOneMbIsConfigured_thenAnIllegalArgumentExceptionIsThrown() throws Exception {
+    givenABuilderWithMandatoryStepsConfigured().withMemoryMappedOutput(0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void whenAMappingSizeGreaterThanOneGbIsConfigured_thenAnIllegalArgumentExceptionIsThrown() throws Exception {
+    givenABuilderWithMandatoryStepsConfigured().withMemoryMappedOutput(1025);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void whenBackgroundRolloverIsConfigured_andTheRollingPolicyDoesNotReportRolledFiles_thenAnIllegalStateExceptionIsThrown()
+      throws Exception {
+    givenABuilderWithMandatoryStepsConfigured().withRollingPolicy(rollingPolicyMock)
+                                               .withBackgroundRollover()
+                                               .createNewWriter();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void whenRolledFileCompressionIsConfigured_andTheRollingPolicyDoesNotReportRolledFiles_thenAnIllegalStateExceptionIsThrown()
+      throws Exception {
+    givenABuilderWithMandatoryStepsConfigured().withRollingPolicy(rollingPolicyMock)
+                                               .withRolledFilesCompressed()
+                                               .createNewWriter();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void whenLessThanOneShardIsConfigured_thenAnIllegalArgumentExceptionIsThrown() throws Exception {
+    givenABuilderWithMandatoryStepsConfigured().withShards(0);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void whenRecordsOfAnySchemaAreConfigured_thenOnePublisherAcceptingAnySchemaWithAMultiSchemaConsumerIsBuilt()
+      throws Exception {
+    givenDestinationFileIsValid();
+
+    AvroWriter writer = disruptorAvroFileWriterBuilderUnderTest.thatWritesTo(avroFileNameMock)
+                                                               .thatWritesRecordsOfAnySchema()
+                                                               .createNewWriter();
+
+    assertThat(writer, instanceOf(AvroEventPublisher.class));
+    verify(avroEventPublisherMock).acceptRecordsOfAnySchema();
+    verify(disruptorMock).handleEventsWith(isA(MultiSchemaAvroEventConsumer.class));
+    verifyNew(AvroEventConsumer.class, never()).withArguments(any(Path.class), any(Schema.class), any(RollingPolicy.class));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void whenRecordsOfAnySchemaAreConfigured_andShardsAreConfigured_thenAnIllegalStateExceptionIsThrown()
+      throws Exception {
+    givenDestinationFileIsValid();
+
+    disruptorAvroFileWriterBuilderUnderTest.thatWritesTo(avroFileNameMock)
+                                           .thatWritesRecordsOfAnySchema()
+                                           .withShards(3)
+                                           .createNewWriter();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void whenRecordsOfAnySchemaAreConfigured_andProducerSideSerializationIsConfigured_thenAnIllegalStateExceptionIsThrown()
+      throws Exception {
+    givenDestinationFileIsValid();
+
+    disruptorAvroFileWriterBuilderUnderTest.thatWritesTo(avroFileNameMock)
+                                           .thatWritesRecordsOfAnySchema()
+                                           .withProducerSideSerialization()
+                                           .createNewWriter();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void whenRecordsOfAnySchemaAreConfigured_andASingleCustomRollingPolicyIsConfigured_thenAnIllegalStateExceptionIsThrown()
+      throws Exception {
+    givenDestinationFileIsValid();
+
+    disruptorAvroFileWriterBuilderUnderTest.thatWritesTo(avroFileNameMock)
+                                           .thatWritesRecordsOfAnySchema()
+                                           .withRollingPolicy(rollingPolicyMock)
+                                           .createNewWriter();
+  }
+
+  @Test
+  public void whenEventTimePartitioningIsConfigured_thenOnePublisherWithATimePartitionedConsumerIsBuilt()
+      throws Exception {
+    givenDestinationFileIsValid();
+
+    AvroWriter writer = disruptorAvroFileWriterBuilderUnderTest.thatWritesTo(avroFileNameMock)
+                                                               .thatWritesRecordsOf(avroSchemaMock)
+                                                               .withEventTimePartitioning(new EventTimePartitioningConfig(eventTimeExtractorMock))
+                                                               .createNewWriter();
+
+    assertThat(writer, instanceOf(AvroEventPublisher.class));
+    verify(avroEventPublisherMock).acceptEncodedDataOf(avroSchemaMock);
+    verify(disruptorMock).handleEventsWith(isA(TimePartitionedAvroEventConsumer.class));
+    verifyNew(AvroEventConsumer.class, never()).withArguments(any(Path.class), any(Schema.class), any(RollingPolicy.class));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void whenEventTimePartitioningIsConfigured_andShardsAreConfigured_thenAnIllegalStateExceptionIsThrown()
+      throws Exception {
+    givenDestinationFileIsValid();
+
+    disruptorAvroFileWriterBuilderUnderTest.thatWritesTo(avroFileNameMock)
+                                           .thatWritesRecordsOf(avroSchemaMock)
+                                           .withEventTimePartitioning(new EventTimePartitioningConfig(eventTimeExtractorMock))
+                                           .withShards(3)
+                                           .createNewWriter();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void whenEventTimePartitioningIsConfigured_andAnOffHeapRingBufferIsConfigured_thenAnIllegalStateExceptionIsThrown()
+      throws Exception {
+    givenDestinationFileIsValid();
+
+    disruptorAvroFileWriterBuilderUnderTest.thatWritesTo(avroFileNameMock)
+                                           .thatWritesRecordsOf(avroSchemaMock)
+                                           .withEventTimePartitioning(new EventTimePartitioningConfig(eventTimeExtractorMock))
+                                           .withOffHeapRingBuffer(256)
+                                           .createNewWriter();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void whenEventTimePartitioningIsConfigured_andASingleCustomRollingPolicyIsConfigured_thenAnIllegalStateExceptionIsThrown()
+      throws Exception {
+    givenDestinationFileIsValid();
+
+    disruptorAvroFileWriterBuilderUnderTest.thatWritesTo(avroFileNameMock)
+                                           .thatWritesRecordsOf(avroSchemaMock)
+                                           .withEventTimePartitioning(new EventTimePartitioningConfig(eventTimeExtractorMock))
+                                           .withRollingPolicy(rollingPolicyMock)
+                                           .createNewWriter();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void whenRecordsOfAnySchemaAreConfigured_andEventTimePartitioningIsConfigured_thenAnIllegalStateExceptionIsThrown()
+      throws Exception {
+    givenDestinationFileIsValid();
+
+    disruptorAvroFileWriterBuilderUnderTest.thatWritesTo(avroFileNameMock)
+                                           .thatWritesRecordsOfAnySchema()
+                                           .withEventTimePartitioning(new EventTimePartitioningConfig(eventTimeExtractorMock))
+                                           .createNewWriter();
+  }
+
+  @Test
+  public void whenARecordFilterIsConfigured_thenTheConsumerFiltersRecordsWithIt() throws Exception {
+    givenDestinationFileIsValid();
+
+    disruptorAvroFileWriterBuilderUnderTest.thatWritesTo(avroFileNameMock)
+                                           .thatWritesRecordsOf(avroSchemaMock)
+                                           .withRecordFilter(recordFilterMock)
+                                           .createNewWriter();
+
+    verify(avroEventConsumerMock).filterRecordsWith(recordFilterMock);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void whenARecordFilterIsConfigured_andAnOffHeapRingBufferIsConfigured_thenAnIllegalStateExceptionIsThrown()
+      throws Exception {
+    givenDestinationFileIsValid();
+
+    disruptorAvroFileWriterBuilderUnderTest.thatWritesTo(avroFileNameMock)
+                                           .thatWritesRecordsOf(avroSchemaMock)
+                                           .withRecordFilter(recordFilterMock)
+                                           .withOffHeapRingBuffer(256)
+                                           .createNewWriter();
+  }
+
+  @Test
+  public void whenAProjectionIsConfigured_thenFilesAreWrittenWithTheProjectedSchema() throws Exception {
+    givenDestinationFileIsValid();
+
+    disruptorAvroFileWriterBuilderUnderTest.thatWritesTo(avroFileNameMock)
+                                           .thatWritesRecordsOf(TestAvroRecord.SCHEMA)
+                                           .withProjectionTo(COUNT_ONLY_SCHEMA)
+                                           .createNewWriter();
+
+    verify(avroEventPublisherMock).acceptEncodedDataOf(COUNT_ONLY_SCHEMA);
+    verifyNew(AvroEventConsumer.class).withArguments(any(Path.class), eq(COUNT_ONLY_SCHEMA), any(RollingPolicy.class));
+    verify(avroEventConsumerMock).projectRecordsWith(any(RecordProjection.class));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void whenAProjectionIsConfigured_andTheProjectedSchemaIsNotAProjectionOfTheRecords_thenAnIllegalArgumentExceptionIsThrown()
+      throws Exception {
+    givenDestinationFileIsValid();
+
+    disruptorAvroFileWriterBuilderUnderTest.thatWritesTo(avroFileNameMock)
+                                           .thatWritesRecordsOf(COUNT_ONLY_SCHEMA)
+                                           .withProjectionTo(TestAvroRecord.SCHEMA)
+                                           .createNewWriter();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void whenAProjectionIsConfigured_andProducerSideSerializationIsConfigured_thenAnIllegalStateExceptionIsThrown()
+      throws Exception {
+    givenDestinationFileIsValid();
+
+    disruptorAvroFileWriterBuilderUnderTest.thatWritesTo(avroFileNameMock)
+                                           .thatWritesRecordsOf(TestAvroRecord.SCHEMA)
+                                           .withProjectionTo(COUNT_ONLY_SCHEMA)
+                                           .withProducerSideSerialization()
+                                           .createNewWriter();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void whenRecordsOfAnySchemaAreConfigured_andAProjectionIsConfigured_thenAnIllegalStateExceptionIsThrown()
+      throws Exception {
+    givenDestinationFileIsValid();
+
+    disruptorAvroFileWriterBuilderUnderTest.thatWritesTo(avroFileNameMock)
+                                           .thatWritesRecordsOfAnySchema()
+                                           .withProjectionTo(COUNT_ONLY_SCHEMA)
+                                           .createNewWriter();
+  }
+
+  private void givenShardFilenamesCanBeResolved() {
+    when(avroFileNameMock.getFileName()).thenReturn(avroFileNameMock);
+    when(avroFileNameMock.toString()).thenReturn("shard.avro");
+    when(avroFileNameMock.resolveSibling(any(String.class))).thenReturn(avroFileNameMock);
+  }
+
   private void givenDestinationFileIsADirectory() {
     when(Files.exists(avroFileNameMock)).thenReturn(true);
     when(Files.isDirectory(avroFileNameMock)).thenReturn(true);
@@ -5,6 +5,7 @@ import static org.mockito.Mockito.when;
 import static org.powermock.api.mockito.PowerMockito.mockStatic;
 
 import org.apache.avro.Schema;
+import org.apache.avro.file.CodecFactory;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -16,16 +17,32 @@ import com.aol.advertising.vulcan.ConfiguredUnitTest;
 import com.aol.advertising.vulcan.api.AvroWriterBuilder;
 import com.aol.advertising.vulcan.api.AvroWriterFactory;
 import com.aol.advertising.vulcan.api.rolling.RollingPolicy;
+import com.aol.advertising.vulcan.api.durability.DurabilityPolicy;
+import com.aol.advertising.vulcan.api.filter.RecordFilter;
+import com.aol.advertising.vulcan.api.flush.FlushPolicy;
+import com.aol.advertising.vulcan.api.overflow.OverflowPolicy;
+import com.aol.advertising.vulcan.api.rolling.RollingPolicyFactory;
+import com.aol.advertising.vulcan.api.sharding.ShardSelector;
+import com.aol.advertising.vulcan.partitioning.EventTimePartitioningConfig;
 import com.aol.advertising.vulcan.rolling.TimeAndSizeBasedRollingPolicyConfig;
 import com.lmax.disruptor.WaitStrategy;
 import com.lmax.disruptor.dsl.ProducerType;
 
+@org.powermock.core.classloader.annotations.PowerMockIgnore({"jdk.internal.reflect.*", "javax.management.*"})
 @RunWith(PowerMockRunner.class)
 @PrepareForTest({ProducerType.class, AvroWriterBuilder.class, AvroWriterFactory.class})
 public class DisruptorAvroFileWriterFactoryTest extends ConfiguredUnitTest {
 
   private static final String AVRO_FILE_NAME = "Eufrasio";
   private static final int BUFFER_SIZE = 123456;
+  private static final int NUMBER_OF_SHARDS = 4;
+  private static final int OFF_HEAP_SLOT_CAPACITY = 512;
+  private static final CodecFactory CODEC = CodecFactory.snappyCodec();
+  private static final int SYNC_INTERVAL = 65536;
+  private static final int ENCODING_THREADS = 3;
+  private static final int STRING_CACHE_ENTRIES = 512;
+  private static final int COMPRESSION_THREADS = 2;
+  private static final int MEMORY_MAPPING_SIZE_IN_MB = 64;
   private static final TimeAndSizeBasedRollingPolicyConfig ROLLING_POLICY_CONFIGURATION =
       new TimeAndSizeBasedRollingPolicyConfig().withFileRollingSizeOf(345);
 
@@ -39,6 +56,22 @@ public class DisruptorAvroFileWriterFactoryTest extends ConfiguredUnitTest {
   private WaitStrategy waitStrategyMock;
   @Mock
   private RollingPolicy rollingPolicyMock;
+  @Mock
+  private ShardSelector shardSelectorMock;
+  @Mock
+  private RollingPolicyFactory rollingPolicyFactoryMock;
+  @Mock
+  private EventTimePartitioningConfig eventTimePartitioningMock;
+  @Mock
+  private RecordFilter recordFilterMock;
+  @Mock
+  private Schema projectedSchemaMock;
+  @Mock
+  private OverflowPolicy overflowPolicyMock;
+  @Mock
+  private FlushPolicy flushPolicyMock;
+  @Mock
+  private DurabilityPolicy durabilityPolicyMock;
 
   @Before
   public void setUp() {
@@ -52,6 +85,34 @@ public class DisruptorAvroFileWriterFactoryTest extends ConfiguredUnitTest {
     when(disruptorAvroFileWriterBuilderMock.withDefaultRollingPolicyConfiguration(ROLLING_POLICY_CONFIGURATION))
       .thenReturn(disruptorAvroFileWriterBuilderMock);
     when(disruptorAvroFileWriterBuilderMock.withRollingPolicy(rollingPolicyMock)).thenReturn(disruptorAvroFileWriterBuilderMock);
+    when(disruptorAvroFileWriterBuilderMock.withProducerSideSerialization()).thenReturn(disruptorAvroFileWriterBuilderMock);
+    when(disruptorAvroFileWriterBuilderMock.withOffHeapRingBuffer(OFF_HEAP_SLOT_CAPACITY))
+      .thenReturn(disruptorAvroFileWriterBuilderMock);
+    when(disruptorAvroFileWriterBuilderMock.withShards(NUMBER_OF_SHARDS)).thenReturn(disruptorAvroFileWriterBuilderMock);
+    when(disruptorAvroFileWriterBuilderMock.withShardSelector(shardSelectorMock)).thenReturn(disruptorAvroFileWriterBuilderMock);
+    when(disruptorAvroFileWriterBuilderMock.withRollingPolicyPerShard(rollingPolicyFactoryMock))
+      .thenReturn(disruptorAvroFileWriterBuilderMock);
+    when(disruptorAvroFileWriterBuilderMock.withEventTimePartitioning(eventTimePartitioningMock))
+      .thenReturn(disruptorAvroFileWriterBuilderMock);
+    when(disruptorAvroFileWriterBuilderMock.withRecordFilter(recordFilterMock)).thenReturn(disruptorAvroFileWriterBuilderMock);
+    when(disruptorAvroFileWriterBuilderMock.withProjectionTo(projectedSchemaMock)).thenReturn(disruptorAvroFileWriterBuilderMock);
+    when(disruptorAvroFileWriterBuilderMock.withOverflowPolicy(overflowPolicyMock)).thenReturn(disruptorAvroFileWriterBuilderMock);
+    when(disruptorAvroFileWriterBuilderMock.withFlushPolicy(flushPolicyMock)).thenReturn(disruptorAvroFileWriterBuilderMock);
+    when(disruptorAvroFileWriterBuilderMock.withDurabilityPolicy(durabilityPolicyMock)).thenReturn(disruptorAvroFileWriterBuilderMock);
+    when(disruptorAvroFileWriterBuilderMock.withCodec(CODEC)).thenReturn(disruptorAvroFileWriterBuilderMock);
+    when(disruptorAvroFileWriterBuilderMock.withSyncInterval(SYNC_INTERVAL)).thenReturn(disruptorAvroFileWriterBuilderMock);
+    when(disruptorAvroFileWriterBuilderMock.withSchemaSpecializedEncoding()).thenReturn(disruptorAvroFileWriterBuilderMock);
+    when(disruptorAvroFileWriterBuilderMock.withStringCache(STRING_CACHE_ENTRIES)).thenReturn(disruptorAvroFileWriterBuilderMock);
+    when(disruptorAvroFileWriterBuilderMock.withParallelEncoding(ENCODING_THREADS))
+      .thenReturn(disruptorAvroFileWriterBuilderMock);
+    when(disruptorAvroFileWriterBuilderMock.withParallelCompression(COMPRESSION_THREADS))
+      .thenReturn(disruptorAvroFileWriterBuilderMock);
+    when(disruptorAvroFileWriterBuilderMock.withBackgroundRollover()).thenReturn(disruptorAvroFileWriterBuilderMock);
+    when(disruptorAvroFileWriterBuilderMock.withRolledFilesCompressed()).thenReturn(disruptorAvroFileWriterBuilderMock);
+    when(disruptorAvroFileWriterBuilderMock.withStandbyFile()).thenReturn(disruptorAvroFileWriterBuilderMock);
+    when(disruptorAvroFileWriterBuilderMock.withMemoryMappedOutput(MEMORY_MAPPING_SIZE_IN_MB))
+      .thenReturn(disruptorAvroFileWriterBuilderMock);
+    when(disruptorAvroFileWriterBuilderMock.withMetricsPublishedThroughJmx()).thenReturn(disruptorAvroFileWriterBuilderMock);
   }
 
   @Test
@@ -72,6 +133,28 @@ public class DisruptorAvroFileWriterFactoryTest extends ConfiguredUnitTest {
     disruptorAvroFileWriterFactoryUnderTest.setWaitStrategy(waitStrategyMock);
     disruptorAvroFileWriterFactoryUnderTest.setDefaultRollingPolicyConfiguration(ROLLING_POLICY_CONFIGURATION);
     disruptorAvroFileWriterFactoryUnderTest.setRollingPolicy(rollingPolicyMock);
+    disruptorAvroFileWriterFactoryUnderTest.setProducerSideSerialization(true);
+    disruptorAvroFileWriterFactoryUnderTest.setOffHeapSlotCapacity(OFF_HEAP_SLOT_CAPACITY);
+    disruptorAvroFileWriterFactoryUnderTest.setNumberOfShards(NUMBER_OF_SHARDS);
+    disruptorAvroFileWriterFactoryUnderTest.setShardSelector(shardSelectorMock);
+    disruptorAvroFileWriterFactoryUnderTest.setRollingPolicyFactory(rollingPolicyFactoryMock);
+    disruptorAvroFileWriterFactoryUnderTest.setEventTimePartitioning(eventTimePartitioningMock);
+    disruptorAvroFileWriterFactoryUnderTest.setRecordFilter(recordFilterMock);
+    disruptorAvroFileWriterFactoryUnderTest.setProjectedSchema(projectedSchemaMock);
+    disruptorAvroFileWriterFactoryUnderTest.setOverflowPolicy(overflowPolicyMock);
+    disruptorAvroFileWriterFactoryUnderTest.setFlushPolicy(flushPolicyMock);
+    disruptorAvroFileWriterFactoryUnderTest.setDurabilityPolicy(durabilityPolicyMock);
+    disruptorAvroFileWriterFactoryUnderTest.setCodec(CODEC);
+    disruptorAvroFileWriterFactoryUnderTest.setSyncInterval(SYNC_INTERVAL);
+    disruptorAvroFileWriterFactoryUnderTest.setSchemaSpecializedEncoding(true);
+    disruptorAvroFileWriterFactoryUnderTest.setStringCacheEntries(STRING_CACHE_ENTRIES);
+    disruptorAvroFileWriterFactoryUnderTest.setEncodingThreads(ENCODING_THREADS);
+    disruptorAvroFileWriterFactoryUnderTest.setCompressionThreads(COMPRESSION_THREADS);
+    disruptorAvroFileWriterFactoryUnderTest.setBackgroundRollover(true);
+    disruptorAvroFileWriterFactoryUnderTest.setRolledFileCompression(true);
+    disruptorAvroFileWriterFactoryUnderTest.setStandbyFile(true);
+    disruptorAvroFileWriterFactoryUnderTest.setMemoryMappingSizeInMb(MEMORY_MAPPING_SIZE_IN_MB);
+    disruptorAvroFileWriterFactoryUnderTest.setMetricsPublishedThroughJmx(true);
   }
   
   private void verifyDelegationUsedAllOfTheFactoryFields() {
@@ -82,6 +165,28 @@ public class DisruptorAvroFileWriterFactoryTest extends ConfiguredUnitTest {
     verify(disruptorAvroFileWriterBuilderMock).withWaitStrategy(waitStrategyMock);
     verify(disruptorAvroFileWriterBuilderMock).withDefaultRollingPolicyConfiguration(ROLLING_POLICY_CONFIGURATION);
     verify(disruptorAvroFileWriterBuilderMock).withRollingPolicy(rollingPolicyMock);
+    verify(disruptorAvroFileWriterBuilderMock).withProducerSideSerialization();
+    verify(disruptorAvroFileWriterBuilderMock).withOffHeapRingBuffer(OFF_HEAP_SLOT_CAPACITY);
+    verify(disruptorAvroFileWriterBuilderMock).withShards(NUMBER_OF_SHARDS);
+    verify(disruptorAvroFileWriterBuilderMock).withShardSelector(shardSelectorMock);
+    verify(disruptorAvroFileWriterBuilderMock).withRollingPolicyPerShard(rollingPolicyFactoryMock);
+    verify(disruptorAvroFileWriterBuilderMock).withEventTimePartitioning(eventTimePartitioningMock);
+    verify(disruptorAvroFileWriterBuilderMock).withRecordFilter(recordFilterMock);
+    verify(disruptorAvroFileWriterBuilderMock).withProjectionTo(projectedSchemaMock);
+    verify(disruptorAvroFileWriterBuilderMock).withOverflowPolicy(overflowPolicyMock);
+    verify(disruptorAvroFileWriterBuilderMock).withFlushPolicy(flushPolicyMock);
+    verify(disruptorAvroFileWriterBuilderMock).withDurabilityPolicy(durabilityPolicyMock);
+    verify(disruptorAvroFileWriterBuilderMock).withCodec(CODEC);
+    verify(disruptorAvroFileWriterBuilderMock).withSyncInterval(SYNC_INTERVAL);
+    verify(disruptorAvroFileWriterBuilderMock).withSchemaSpecializedEncoding();
+    verify(disruptorAvroFileWriterBuilderMock).withStringCache(STRING_CACHE_ENTRIES);
+    verify(disruptorAvroFileWriterBuilderMock).withParallelEncoding(ENCODING_THREADS);
+    verify(disruptorAvroFileWriterBuilderMock).withParallelCompression(COMPRESSION_THREADS);
+    verify(disruptorAvroFileWriterBuilderMock).withBackgroundRollover();
+    verify(disruptorAvroFileWriterBuilderMock).withRolledFilesCompressed();
+    verify(disruptorAvroFileWriterBuilderMock).withStandbyFile();
+    verify(disruptorAvroFileWriterBuilderMock).withMemoryMappedOutput(MEMORY_MAPPING_SIZE_IN_MB);
+    verify(disruptorAvroFileWriterBuilderMock).withMetricsPublishedThroughJmx();
     verify(disruptorAvroFileWriterBuilderMock).createNewWriter();
   }
 
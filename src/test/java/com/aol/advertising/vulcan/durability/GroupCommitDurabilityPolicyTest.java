@@ -0,0 +1,29 @@
+package com.aol.advertising.vulcan.durability;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class GroupCommitDurabilityPolicyTest {
+
+  private final GroupCommitDurabilityPolicy groupCommitDurabilityPolicyUnderTest = new GroupCommitDurabilityPolicy();
+
+  @Test
+  public void whenTheConsumerIsIdle_thenAForceIsRequested() {
+    assertThat(groupCommitDurabilityPolicyUnderTest.shouldForceWhenIdle(0), is(true));
+  }
+
+  @Test
+  public void whenTheFileIsAboutToBeClosed_thenAForceIsRequested() {
+    assertThat(groupCommitDurabilityPolicyUnderTest.shouldForceBeforeClosing(), is(true));
+  }
+
+  @Test
+  public void whenTheMaximumForceDelayIsRequested_thenThereIsNone() {
+    assertThat(groupCommitDurabilityPolicyUnderTest.getMaximumForceDelay(TimeUnit.NANOSECONDS), is(equalTo(0L)));
+  }
+}
@@ -0,0 +1,29 @@
+package com.aol.advertising.vulcan.durability;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class NoForceDurabilityPolicyTest {
+
+  private final NoForceDurabilityPolicy noForceDurabilityPolicyUnderTest = new NoForceDurabilityPolicy();
+
+  @Test
+  public void whenTheConsumerIsIdle_thenNoForceIsRequested() {
+    assertThat(noForceDurabilityPolicyUnderTest.shouldForceWhenIdle(Long.MAX_VALUE), is(false));
+  }
+
+  @Test
+  public void whenTheFileIsAboutToBeClosed_thenNoForceIsRequested() {
+    assertThat(noForceDurabilityPolicyUnderTest.shouldForceBeforeClosing(), is(false));
+  }
+
+  @Test
+  public void whenTheMaximumForceDelayIsRequested_thenThereIsNone() {
+    assertThat(noForceDurabilityPolicyUnderTest.getMaximumForceDelay(TimeUnit.NANOSECONDS), is(equalTo(0L)));
+  }
+}
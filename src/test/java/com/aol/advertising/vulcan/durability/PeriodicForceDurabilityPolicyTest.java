@@ -0,0 +1,42 @@
+package com.aol.advertising.vulcan.durability;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class PeriodicForceDurabilityPolicyTest {
+
+  private static final long ONE_SECOND_IN_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private final PeriodicForceDurabilityPolicy periodicForceDurabilityPolicyUnderTest =
+      new PeriodicForceDurabilityPolicy(1, TimeUnit.SECONDS);
+
+  @Test
+  public void whenTheConsumerIsIdle_andTheIntervalHasNotElapsed_thenNoForceIsRequested() {
+    assertThat(periodicForceDurabilityPolicyUnderTest.shouldForceWhenIdle(ONE_SECOND_IN_NANOS - 1), is(false));
+  }
+
+  @Test
+  public void whenTheConsumerIsIdle_andTheIntervalHasElapsed_thenAForceIsRequested() {
+    assertThat(periodicForceDurabilityPolicyUnderTest.shouldForceWhenIdle(ONE_SECOND_IN_NANOS), is(true));
+  }
+
+  @Test
+  public void whenTheFileIsAboutToBeClosed_thenAForceIsRequested() {
+    assertThat(periodicForceDurabilityPolicyUnderTest.shouldForceBeforeClosing(), is(true));
+  }
+
+  @Test
+  public void whenTheMaximumForceDelayIsRequested_thenItIsTheInterval() {
+    assertThat(periodicForceDurabilityPolicyUnderTest.getMaximumForceDelay(TimeUnit.MILLISECONDS), is(equalTo(1000L)));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void whenThePolicyIsCreated_andTheIntervalIsNotPositive_thenAnExceptionIsThrown() {
+    new PeriodicForceDurabilityPolicy(0, TimeUnit.SECONDS);
+  }
+}
@@ -20,6 +20,7 @@ import org.slf4j.LoggerFactory;
 import com.aol.advertising.vulcan.ConfiguredUnitTest;
 import com.aol.advertising.vulcan.exception.DisruptorExceptionHandler;
 
+@org.powermock.core.classloader.annotations.PowerMockIgnore({"jdk.internal.reflect.*", "javax.management.*"})
 @RunWith(PowerMockRunner.class)
 @PrepareForTest({LoggerFactory.class, DisruptorExceptionHandler.class})
 public class DisruptorExceptionHandlerTest extends ConfiguredUnitTest {
@@ -0,0 +1,57 @@
+package com.aol.advertising.vulcan.filter;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import com.aol.advertising.vulcan.ConfiguredUnitTest;
+import com.aol.advertising.vulcan.TestAvroRecord;
+import com.aol.advertising.vulcan.api.filter.RecordFilter;
+
+public class AllOfRecordFilterTest extends ConfiguredUnitTest {
+
+  private static final TestAvroRecord RECORD = new TestAvroRecord("Zipi", 1);
+
+  private AllOfRecordFilter allOfRecordFilterUnderTest;
+
+  @Mock
+  private RecordFilter firstRecordFilterMock;
+  @Mock
+  private RecordFilter secondRecordFilterMock;
+
+  @Before
+  public void setUp() {
+    allOfRecordFilterUnderTest = new AllOfRecordFilter(firstRecordFilterMock, secondRecordFilterMock);
+  }
+
+  @Test
+  public void whenEveryCombinedFilterWritesTheRecord_thenTheRecordIsWritten() {
+    when(firstRecordFilterMock.shouldWrite(RECORD)).thenReturn(true);
+    when(secondRecordFilterMock.shouldWrite(RECORD)).thenReturn(true);
+
+    assertThat(allOfRecordFilterUnderTest.shouldWrite(RECORD), is(true));
+  }
+
+  @Test
+  public void whenAnyCombinedFilterDropsTheRecord_thenTheRecordIsDroppedWithoutAskingTheRest() {
+    when(firstRecordFilterMock.shouldWrite(RECORD)).thenReturn(false);
+
+    assertThat(allOfRecordFilterUnderTest.shouldWrite(RECORD), is(false));
+    verifyZeroInteractions(secondRecordFilterMock);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void whenTheFilterIsCreated_andNoFiltersAreCombined_thenAnExceptionIsThrown() {
+    new AllOfRecordFilter();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void whenTheFilterIsCreated_andACombinedFilterIsNull_thenAnExceptionIsThrown() {
+    new AllOfRecordFilter(firstRecordFilterMock, null);
+  }
+}
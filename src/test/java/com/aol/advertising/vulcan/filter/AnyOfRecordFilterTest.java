@@ -0,0 +1,49 @@
+package com.aol.advertising.vulcan.filter;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import com.aol.advertising.vulcan.ConfiguredUnitTest;
+import com.aol.advertising.vulcan.TestAvroRecord;
+import com.aol.advertising.vulcan.api.filter.RecordFilter;
+
+public class AnyOfRecordFilterTest extends ConfiguredUnitTest {
+
+  private static final TestAvroRecord RECORD = new TestAvroRecord("Zipi", 1);
+
+  private AnyOfRecordFilter anyOfRecordFilterUnderTest;
+
+  @Mock
+  private RecordFilter firstRecordFilterMock;
+  @Mock
+  private RecordFilter secondRecordFilterMock;
+
+  @Before
+  public void setUp() {
+    anyOfRecordFilterUnderTest = new AnyOfRecordFilter(firstRecordFilterMock, secondRecordFilterMock);
+  }
+
+  @Test
+  public void whenNoCombinedFilterWritesTheRecord_thenTheRecordIsDropped() {
+    assertThat(anyOfRecordFilterUnderTest.shouldWrite(RECORD), is(false));
+  }
+
+  @Test
+  public void whenAnyCombinedFilterWritesTheRecord_thenTheRecordIsWrittenWithoutAskingTheRest() {
+    when(firstRecordFilterMock.shouldWrite(RECORD)).thenReturn(true);
+
+    assertThat(anyOfRecordFilterUnderTest.shouldWrite(RECORD), is(true));
+    verifyZeroInteractions(secondRecordFilterMock);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void whenTheFilterIsCreated_andNoFiltersAreCombined_thenAnExceptionIsThrown() {
+    new AnyOfRecordFilter();
+  }
+}
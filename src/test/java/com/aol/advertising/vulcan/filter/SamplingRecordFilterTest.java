@@ -0,0 +1,90 @@
+package com.aol.advertising.vulcan.filter;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+import org.apache.avro.util.Utf8;
+import org.junit.Test;
+
+import com.aol.advertising.vulcan.TestAvroRecord;
+
+public class SamplingRecordFilterTest {
+
+  @Test
+  public void whenRecordsHaveTheSameKey_thenTheyAreAllWrittenOrAllDropped() {
+    SamplingRecordFilter samplingRecordFilter = new SamplingRecordFilter("name", 0.5);
+
+    for (int key = 0; key < 100; key++) {
+      boolean written = samplingRecordFilter.shouldWrite(new TestAvroRecord("user-" + key, 1));
+      assertThat(samplingRecordFilter.shouldWrite(new TestAvroRecord("user-" + key, 2)), is(written));
+      assertThat(new SamplingRecordFilter("name", 0.5).shouldWrite(new TestAvroRecord("user-" + key, 3)),
+                 is(written));
+    }
+  }
+
+  @Test
+  public void whenTheKeyIsAUtf8_thenTheRecordIsSampledAsWithAString() {
+    SamplingRecordFilter samplingRecordFilter = new SamplingRecordFilter("name", 0.5);
+
+    for (int key = 0; key < 100; key++) {
+      assertThat(samplingRecordFilter.shouldWrite(new TestAvroRecord(new Utf8("user-" + key), 1)),
+                 is(samplingRecordFilter.shouldWrite(new TestAvroRecord("user-" + key, 1))));
+    }
+  }
+
+  @Test
+  public void whenRecordsAreSampled_thenTheSampledFractionIsCloseToTheSamplingRate() {
+    SamplingRecordFilter samplingRecordFilter = new SamplingRecordFilter("count", 0.01);
+
+    int writtenRecords = 0;
+    for (int key = 0; key < 100_000; key++) {
+      if (samplingRecordFilter.shouldWrite(new TestAvroRecord("Zipi", key))) {
+        writtenRecords++;
+      }
+    }
+
+    assertThat(writtenRecords, is(greaterThan(800)));
+    assertThat(writtenRecords, is(lessThan(1_200)));
+  }
+
+  @Test
+  public void whenTheSamplingRateIsZeroOrOne_thenNoneOrAllOfTheRecordsAreWritten() {
+    SamplingRecordFilter nothingSampled = new SamplingRecordFilter("count", 0);
+    SamplingRecordFilter everythingSampled = new SamplingRecordFilter("count", 1);
+
+    int writtenRecords = 0;
+    for (int key = -1_000; key < 1_000; key++) {
+      if (nothingSampled.shouldWrite(new TestAvroRecord("Zipi", key))) {
+        writtenRecords--;
+      }
+      if (everythingSampled.shouldWrite(new TestAvroRecord("Zipi", key))) {
+        writtenRecords++;
+      }
+    }
+
+    assertThat(writtenRecords, is(equalTo(2_000)));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void whenTheKeyFieldDoesNotExistInTheRecord_thenAnIllegalArgumentExceptionIsThrown() {
+    new SamplingRecordFilter("Rompetechos", 0.5).shouldWrite(new TestAvroRecord("Zipi", 1));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void whenTheSamplingRateIsAboveOne_thenAnIllegalArgumentExceptionIsThrown() {
+    new SamplingRecordFilter("name", 1.5);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void whenTheSamplingRateIsNegative_thenAnIllegalArgumentExceptionIsThrown() {
+    new SamplingRecordFilter("name", -0.1);
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void whenTheKeyFieldIsNull_thenANullPointerExceptionIsThrown() {
+    new SamplingRecordFilter(null, 0.5);
+  }
+}
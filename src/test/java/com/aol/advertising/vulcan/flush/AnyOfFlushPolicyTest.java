@@ -0,0 +1,71 @@
+package com.aol.advertising.vulcan.flush;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import com.aol.advertising.vulcan.ConfiguredUnitTest;
+import com.aol.advertising.vulcan.api.flush.FlushPolicy;
+
+public class AnyOfFlushPolicyTest extends ConfiguredUnitTest {
+
+  private AnyOfFlushPolicy anyOfFlushPolicyUnderTest;
+
+  @Mock
+  private FlushPolicy firstFlushPolicyMock;
+  @Mock
+  private FlushPolicy secondFlushPolicyMock;
+
+  @Before
+  public void setUp() {
+    anyOfFlushPolicyUnderTest = new AnyOfFlushPolicy(firstFlushPolicyMock, secondFlushPolicyMock);
+  }
+
+  @Test
+  public void whenNoCombinedPolicyAsksForAFlush_thenNoFlushIsRequested() {
+    assertThat(anyOfFlushPolicyUnderTest.shouldFlushAfterRecord(1, 1), is(false));
+    assertThat(anyOfFlushPolicyUnderTest.shouldFlushWhenIdle(1, 1), is(false));
+  }
+
+  @Test
+  public void whenAnyCombinedPolicyAsksForAFlushAfterARecord_thenAFlushIsRequested() {
+    when(secondFlushPolicyMock.shouldFlushAfterRecord(1, 1)).thenReturn(true);
+
+    assertThat(anyOfFlushPolicyUnderTest.shouldFlushAfterRecord(1, 1), is(true));
+  }
+
+  @Test
+  public void whenAnyCombinedPolicyAsksForAFlushWhenIdle_thenAFlushIsRequested() {
+    when(firstFlushPolicyMock.shouldFlushWhenIdle(1, 1)).thenReturn(true);
+
+    assertThat(anyOfFlushPolicyUnderTest.shouldFlushWhenIdle(1, 1), is(true));
+  }
+
+  @Test
+  public void whenTheMaximumFlushDelayIsRequested_thenTheShortestOneAmongTheCombinedPoliciesIsReturned() {
+    AnyOfFlushPolicy combinedTimeIntervals = new AnyOfFlushPolicy(new RecordCountFlushPolicy(10),
+                                                                  new TimeIntervalFlushPolicy(5, TimeUnit.SECONDS),
+                                                                  new TimeIntervalFlushPolicy(2, TimeUnit.SECONDS));
+
+    assertThat(combinedTimeIntervals.getMaximumFlushDelay(TimeUnit.SECONDS), is(equalTo(2L)));
+  }
+
+  @Test
+  public void whenAnyCombinedPolicyIsSizeBased_thenTheCombinationIsSizeBased() {
+    when(secondFlushPolicyMock.isSizeBased()).thenReturn(true);
+
+    assertThat(anyOfFlushPolicyUnderTest.isSizeBased(), is(true));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void whenThePolicyIsCreated_andNoPoliciesAreCombined_thenAnExceptionIsThrown() {
+    new AnyOfFlushPolicy();
+  }
+}
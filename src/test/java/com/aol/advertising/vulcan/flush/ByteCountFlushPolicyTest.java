@@ -0,0 +1,36 @@
+package com.aol.advertising.vulcan.flush;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import org.junit.Test;
+
+public class ByteCountFlushPolicyTest {
+
+  private final ByteCountFlushPolicy byteCountFlushPolicyUnderTest = new ByteCountFlushPolicy(65_536);
+
+  @Test
+  public void whenFewerBytesThanConfiguredAreUnflushed_thenNoFlushIsRequested() {
+    assertThat(byteCountFlushPolicyUnderTest.shouldFlushAfterRecord(Long.MAX_VALUE, 65_535), is(false));
+  }
+
+  @Test
+  public void whenTheConfiguredNumberOfBytesIsUnflushed_thenAFlushIsRequested() {
+    assertThat(byteCountFlushPolicyUnderTest.shouldFlushAfterRecord(1, 65_536), is(true));
+  }
+
+  @Test
+  public void whenTheConsumerIsIdle_thenNoFlushIsRequested() {
+    assertThat(byteCountFlushPolicyUnderTest.shouldFlushWhenIdle(1, Long.MAX_VALUE), is(false));
+  }
+
+  @Test
+  public void whenAskedWhetherItIsSizeBased_thenItIs() {
+    assertThat(byteCountFlushPolicyUnderTest.isSizeBased(), is(true));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void whenThePolicyIsCreated_andTheNumberOfBytesIsNotPositive_thenAnExceptionIsThrown() {
+    new ByteCountFlushPolicy(0);
+  }
+}
@@ -0,0 +1,34 @@
+package com.aol.advertising.vulcan.flush;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class EndOfBatchFlushPolicyTest {
+
+  private final EndOfBatchFlushPolicy endOfBatchFlushPolicyUnderTest = new EndOfBatchFlushPolicy();
+
+  @Test
+  public void whenARecordIsAppended_thenNoFlushIsRequested() {
+    assertThat(endOfBatchFlushPolicyUnderTest.shouldFlushAfterRecord(100_000, 100_000_000), is(false));
+  }
+
+  @Test
+  public void whenTheConsumerIsIdle_andThereAreUnflushedRecords_thenAFlushIsRequested() {
+    assertThat(endOfBatchFlushPolicyUnderTest.shouldFlushWhenIdle(1, 0), is(true));
+  }
+
+  @Test
+  public void whenTheConsumerIsIdle_andThereAreNoUnflushedRecords_thenNoFlushIsRequested() {
+    assertThat(endOfBatchFlushPolicyUnderTest.shouldFlushWhenIdle(0, Long.MAX_VALUE), is(false));
+  }
+
+  @Test
+  public void whenTheMaximumFlushDelayIsRequested_thenThereIsNone() {
+    assertThat(endOfBatchFlushPolicyUnderTest.getMaximumFlushDelay(TimeUnit.NANOSECONDS), is(equalTo(0L)));
+  }
+}
@@ -0,0 +1,31 @@
+package com.aol.advertising.vulcan.flush;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import org.junit.Test;
+
+public class RecordCountFlushPolicyTest {
+
+  private final RecordCountFlushPolicy recordCountFlushPolicyUnderTest = new RecordCountFlushPolicy(100);
+
+  @Test
+  public void whenFewerRecordsThanConfiguredAreUnflushed_thenNoFlushIsRequested() {
+    assertThat(recordCountFlushPolicyUnderTest.shouldFlushAfterRecord(99, Long.MAX_VALUE), is(false));
+  }
+
+  @Test
+  public void whenTheConfiguredNumberOfRecordsIsUnflushed_thenAFlushIsRequested() {
+    assertThat(recordCountFlushPolicyUnderTest.shouldFlushAfterRecord(100, 0), is(true));
+  }
+
+  @Test
+  public void whenTheConsumerIsIdle_thenNoFlushIsRequested() {
+    assertThat(recordCountFlushPolicyUnderTest.shouldFlushWhenIdle(99, Long.MAX_VALUE), is(false));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void whenThePolicyIsCreated_andTheNumberOfRecordsIsNotPositive_thenAnExceptionIsThrown() {
+    new RecordCountFlushPolicy(0);
+  }
+}
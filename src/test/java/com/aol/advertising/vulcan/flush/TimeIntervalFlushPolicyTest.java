@@ -0,0 +1,42 @@
+package com.aol.advertising.vulcan.flush;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class TimeIntervalFlushPolicyTest {
+
+  private static final long ONE_SECOND_IN_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private final TimeIntervalFlushPolicy timeIntervalFlushPolicyUnderTest =
+      new TimeIntervalFlushPolicy(1, TimeUnit.SECONDS);
+
+  @Test
+  public void whenARecordIsAppended_thenNoFlushIsRequested() {
+    assertThat(timeIntervalFlushPolicyUnderTest.shouldFlushAfterRecord(Long.MAX_VALUE, Long.MAX_VALUE), is(false));
+  }
+
+  @Test
+  public void whenTheConsumerIsIdle_andTheIntervalHasNotElapsed_thenNoFlushIsRequested() {
+    assertThat(timeIntervalFlushPolicyUnderTest.shouldFlushWhenIdle(1, ONE_SECOND_IN_NANOS - 1), is(false));
+  }
+
+  @Test
+  public void whenTheConsumerIsIdle_andTheIntervalHasElapsed_thenAFlushIsRequested() {
+    assertThat(timeIntervalFlushPolicyUnderTest.shouldFlushWhenIdle(1, ONE_SECOND_IN_NANOS), is(true));
+  }
+
+  @Test
+  public void whenTheConsumerIsIdle_andThereAreNoUnflushedRecords_thenNoFlushIsRequested() {
+    assertThat(timeIntervalFlushPolicyUnderTest.shouldFlushWhenIdle(0, ONE_SECOND_IN_NANOS), is(false));
+  }
+
+  @Test
+  public void whenTheMaximumFlushDelayIsRequested_thenItIsTheInterval() {
+    assertThat(timeIntervalFlushPolicyUnderTest.getMaximumFlushDelay(TimeUnit.MILLISECONDS), is(equalTo(1000L)));
+  }
+}
@@ -0,0 +1,37 @@
+package com.aol.advertising.vulcan.metrics;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import com.aol.advertising.vulcan.api.metrics.Distribution;
+
+public class HistogramSnapshotTest {
+
+  @Test
+  public void whenSnapshotsAreMerged_thenTheMergedSnapshotCombinesAllOfTheirValues() {
+    SingleWriterHistogram firstHistogram = new SingleWriterHistogram();
+    SingleWriterHistogram secondHistogram = new SingleWriterHistogram();
+    firstHistogram.record(2);
+    firstHistogram.record(4);
+    secondHistogram.record(12);
+
+    Distribution merged = HistogramSnapshot.merge(Arrays.asList(firstHistogram.snapshot(), secondHistogram.snapshot()));
+
+    assertThat(merged.getCount(), is(equalTo(3L)));
+    assertThat(merged.getMean(), is(equalTo(6.0)));
+    assertThat(merged.getMax(), is(equalTo(12L)));
+    assertThat(merged.getValueAtPercentile(100), is(equalTo(12L)));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void whenOtherDistributionsAreMerged_thenAnIllegalArgumentExceptionIsThrown() {
+    HistogramSnapshot.merge(Collections.singletonList(mock(Distribution.class)));
+  }
+}
@@ -0,0 +1,94 @@
+package com.aol.advertising.vulcan.metrics;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
+
+import javax.management.MBeanServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class JmxWriterMetricsTest {
+
+  private final MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+  private final RecordingWriterMetrics writerMetrics = new RecordingWriterMetrics();
+
+  private JmxWriterMetrics jmxWriterMetricsUnderTest;
+
+  @Before
+  public void setUp() {
+    jmxWriterMetricsUnderTest = new JmxWriterMetrics(writerMetrics, Paths.get("/tmp/jmx-test.avro"));
+  }
+
+  @After
+  public void tearDown() {
+    jmxWriterMetricsUnderTest.unregister();
+  }
+
+  @Test
+  public void whenMetricsAreRegistered_thenTheyCanBeReadThroughTheMBeanServer() throws Exception {
+    writerMetrics.recordBatch(7, 7);
+
+    jmxWriterMetricsUnderTest.register();
+
+    Object recordsWritten = mbeanServer.getAttribute(jmxWriterMetricsUnderTest.getObjectName(), "RecordsWritten");
+    assertThat(recordsWritten, is(equalTo((Object) 7L)));
+  }
+
+  @Test
+  public void whenOverflowsWereRecorded_thenTheyCanBeReadThroughTheMBeanServer() throws Exception {
+    writerMetrics.recordOverflow(false);
+
+    jmxWriterMetricsUnderTest.register();
+
+    Object overflowedRecords = mbeanServer.getAttribute(jmxWriterMetricsUnderTest.getObjectName(), "OverflowedRecords");
+    Object droppedRecords = mbeanServer.getAttribute(jmxWriterMetricsUnderTest.getObjectName(), "DroppedRecords");
+    assertThat(overflowedRecords, is(equalTo((Object) 1L)));
+    assertThat(droppedRecords, is(equalTo((Object) 1L)));
+  }
+
+  @Test
+  public void whenLateAndFutureRecordsWereRecorded_thenTheyCanBeReadThroughTheMBeanServer() throws Exception {
+    writerMetrics.recordLateRecord();
+    writerMetrics.recordFutureRecord();
+
+    jmxWriterMetricsUnderTest.register();
+
+    Object lateRecords = mbeanServer.getAttribute(jmxWriterMetricsUnderTest.getObjectName(), "LateRecords");
+    Object futureRecords = mbeanServer.getAttribute(jmxWriterMetricsUnderTest.getObjectName(), "FutureRecords");
+    assertThat(lateRecords, is(equalTo((Object) 1L)));
+    assertThat(futureRecords, is(equalTo((Object) 1L)));
+  }
+
+  @Test
+  public void whenStringCacheLookupsWereRecorded_thenTheHitRateIsTheFractionOfHits() throws Exception {
+    assertThat(jmxWriterMetricsUnderTest.getStringCacheHitRate(), is(equalTo(0d)));
+
+    writerMetrics.recordStringCacheLookups(3, 1);
+
+    assertThat(jmxWriterMetricsUnderTest.getStringCacheHitRate(), is(equalTo(0.75d)));
+  }
+
+  @Test
+  public void whenMetricsAreUnregistered_thenTheyAreRemovedFromTheMBeanServer() {
+    jmxWriterMetricsUnderTest.register();
+
+    jmxWriterMetricsUnderTest.unregister();
+
+    assertThat(mbeanServer.isRegistered(jmxWriterMetricsUnderTest.getObjectName()), is(false));
+  }
+
+  @Test
+  public void whenMetricsAreRegisteredTwiceUnderTheSameName_thenTheSecondRegistrationIsIgnored() {
+    jmxWriterMetricsUnderTest.register();
+
+    new JmxWriterMetrics(new RecordingWriterMetrics(), Paths.get("/tmp/jmx-test.avro")).register();
+
+    assertThat(mbeanServer.isRegistered(jmxWriterMetricsUnderTest.getObjectName()), is(true));
+  }
+}
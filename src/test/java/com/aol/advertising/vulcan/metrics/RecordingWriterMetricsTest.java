@@ -0,0 +1,124 @@
+package com.aol.advertising.vulcan.metrics;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import org.junit.Test;
+
+import com.aol.advertising.vulcan.ringbuffer.AvroEvent;
+import com.aol.advertising.vulcan.ringbuffer.AvroEventFactory;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.Sequence;
+
+public class RecordingWriterMetricsTest {
+
+  private static final int TIMES_BYTES_ARE_RECORDED = 1_000_000;
+
+  private final RecordingWriterMetrics recordingWriterMetricsUnderTest = new RecordingWriterMetrics();
+
+  @Test
+  public void whenBatchesAreRecorded_thenRecordsWrittenAreAccumulated_andBatchSizesAreRecorded() {
+    recordingWriterMetricsUnderTest.recordBatch(3, 2);
+    recordingWriterMetricsUnderTest.recordBatch(5, 5);
+
+    assertThat(recordingWriterMetricsUnderTest.getRecordsWritten(), is(equalTo(7L)));
+    assertThat(recordingWriterMetricsUnderTest.getBatchSizes().getCount(), is(equalTo(2L)));
+    assertThat(recordingWriterMetricsUnderTest.getBatchSizes().getMax(), is(equalTo(5L)));
+  }
+
+  @Test
+  public void whenBytesAreRecorded_thenTheyAreAccumulated() {
+    recordingWriterMetricsUnderTest.recordBytesWritten(100);
+    recordingWriterMetricsUnderTest.recordBytesWritten(28);
+
+    assertThat(recordingWriterMetricsUnderTest.getBytesWritten(), is(equalTo(128L)));
+  }
+
+  @Test
+  public void whenBytesAreRecordedFromTwoThreads_thenNoneAreLost() throws Exception {
+    Thread rolloverThread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        recordBytes();
+      }
+    });
+
+    rolloverThread.start();
+    recordBytes();
+    rolloverThread.join();
+
+    assertThat(recordingWriterMetricsUnderTest.getBytesWritten(), is(equalTo(2L * TIMES_BYTES_ARE_RECORDED)));
+  }
+
+  @Test
+  public void whenStringCacheLookupsAreRecorded_thenHitsAndMissesAreAccumulated() {
+    recordingWriterMetricsUnderTest.recordStringCacheLookups(90, 10);
+    recordingWriterMetricsUnderTest.recordStringCacheLookups(5, 1);
+
+    assertThat(recordingWriterMetricsUnderTest.getStringCacheHits(), is(equalTo(95L)));
+    assertThat(recordingWriterMetricsUnderTest.getStringCacheMisses(), is(equalTo(11L)));
+  }
+
+  @Test
+  public void whenOverflowsAndShedRecordsAreRecorded_thenRecordsNotAcceptedAndShedRecordsAreCountedAsDropped() {
+    recordingWriterMetricsUnderTest.recordOverflow(true);
+    recordingWriterMetricsUnderTest.recordOverflow(false);
+    recordingWriterMetricsUnderTest.recordShedRecord();
+
+    assertThat(recordingWriterMetricsUnderTest.getOverflowedRecords(), is(equalTo(2L)));
+    assertThat(recordingWriterMetricsUnderTest.getDroppedRecords(), is(equalTo(2L)));
+  }
+
+  @Test
+  public void whenLateAndFutureRecordsAreRecorded_thenEachOneIsCounted() {
+    recordingWriterMetricsUnderTest.recordLateRecord();
+    recordingWriterMetricsUnderTest.recordLateRecord();
+    recordingWriterMetricsUnderTest.recordFutureRecord();
+
+    assertThat(recordingWriterMetricsUnderTest.getLateRecords(), is(equalTo(2L)));
+    assertThat(recordingWriterMetricsUnderTest.getFutureRecords(), is(equalTo(1L)));
+  }
+
+  @Test
+  public void whenFlushesForcesAndRollsAreRecorded_thenTheirDurationsAreRecorded() {
+    recordingWriterMetricsUnderTest.recordFlush(1_000);
+    recordingWriterMetricsUnderTest.recordForce(500_000);
+    recordingWriterMetricsUnderTest.recordRoll(2_000_000);
+
+    assertThat(recordingWriterMetricsUnderTest.getFlushLatencies().getMax(), is(equalTo(1_000L)));
+    assertThat(recordingWriterMetricsUnderTest.getForceLatencies().getMax(), is(equalTo(500_000L)));
+    assertThat(recordingWriterMetricsUnderTest.getRollDurations().getMax(), is(equalTo(2_000_000L)));
+  }
+
+  @Test
+  public void whenNoRingBufferIsMonitored_thenQueueGaugesAreZero() {
+    assertThat(recordingWriterMetricsUnderTest.getQueueDepth(), is(equalTo(0L)));
+    assertThat(recordingWriterMetricsUnderTest.getRemainingCapacity(), is(equalTo(0L)));
+  }
+
+  @Test
+  public void whenEventsArePendingInTheMonitoredRingBuffer_thenTheyAreReportedAsQueueDepth() {
+    RingBuffer<AvroEvent> ringBuffer = RingBuffer.createMultiProducer(new AvroEventFactory(), 8);
+    ringBuffer.addGatingSequences(new Sequence());
+    recordingWriterMetricsUnderTest.monitorRingBuffer(ringBuffer);
+
+    ringBuffer.publish(ringBuffer.next(3));
+
+    assertThat(recordingWriterMetricsUnderTest.getQueueDepth(), is(equalTo(3L)));
+    assertThat(recordingWriterMetricsUnderTest.getRemainingCapacity(), is(equalTo(5L)));
+  }
+
+  @Test
+  public void whenTheRateIsReadWithinTheFirstSecond_thenItIsZero() {
+    recordingWriterMetricsUnderTest.recordBatch(10, 10);
+
+    assertThat(recordingWriterMetricsUnderTest.getRecordsPerSecond(), is(equalTo(0.0)));
+  }
+
+  private void recordBytes() {
+    for (int i = 0; i < TIMES_BYTES_ARE_RECORDED; i++) {
+      recordingWriterMetricsUnderTest.recordBytesWritten(1);
+    }
+  }
+}
@@ -0,0 +1,67 @@
+package com.aol.advertising.vulcan.metrics;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import com.aol.advertising.vulcan.ConfiguredUnitTest;
+import com.aol.advertising.vulcan.api.AvroWriter;
+
+public class ShardedWriterMetricsTest extends ConfiguredUnitTest {
+
+  private ShardedWriterMetrics shardedWriterMetricsUnderTest;
+
+  @Mock
+  private AvroWriter firstShardMock;
+  @Mock
+  private AvroWriter secondShardMock;
+
+  private final RecordingWriterMetrics firstShardMetrics = new RecordingWriterMetrics();
+  private final RecordingWriterMetrics secondShardMetrics = new RecordingWriterMetrics();
+
+  @Before
+  public void setUp() {
+    when(firstShardMock.getMetrics()).thenReturn(firstShardMetrics);
+    when(secondShardMock.getMetrics()).thenReturn(secondShardMetrics);
+    shardedWriterMetricsUnderTest = new ShardedWriterMetrics(new AvroWriter[] {firstShardMock, secondShardMock});
+  }
+
+  @Test
+  public void whenCountersAreRead_thenTheyAreTheSumOfTheCountersOfAllShards() {
+    firstShardMetrics.recordBatch(4, 4);
+    secondShardMetrics.recordBatch(6, 5);
+    firstShardMetrics.recordBytesWritten(100);
+    secondShardMetrics.recordBytesWritten(50);
+    firstShardMetrics.recordStringCacheLookups(10, 2);
+    secondShardMetrics.recordStringCacheLookups(20, 3);
+    firstShardMetrics.recordOverflow(true);
+    secondShardMetrics.recordOverflow(false);
+    firstShardMetrics.recordLateRecord();
+    secondShardMetrics.recordFutureRecord();
+
+    assertThat(shardedWriterMetricsUnderTest.getRecordsWritten(), is(equalTo(9L)));
+    assertThat(shardedWriterMetricsUnderTest.getBytesWritten(), is(equalTo(150L)));
+    assertThat(shardedWriterMetricsUnderTest.getStringCacheHits(), is(equalTo(30L)));
+    assertThat(shardedWriterMetricsUnderTest.getStringCacheMisses(), is(equalTo(5L)));
+    assertThat(shardedWriterMetricsUnderTest.getOverflowedRecords(), is(equalTo(2L)));
+    assertThat(shardedWriterMetricsUnderTest.getDroppedRecords(), is(equalTo(1L)));
+    assertThat(shardedWriterMetricsUnderTest.getLateRecords(), is(equalTo(1L)));
+    assertThat(shardedWriterMetricsUnderTest.getFutureRecords(), is(equalTo(1L)));
+  }
+
+  @Test
+  public void whenDistributionsAreRead_thenTheyMergeTheDistributionsOfAllShards() {
+    firstShardMetrics.recordFlush(10);
+    secondShardMetrics.recordFlush(20);
+    secondShardMetrics.recordForce(30);
+
+    assertThat(shardedWriterMetricsUnderTest.getFlushLatencies().getCount(), is(equalTo(2L)));
+    assertThat(shardedWriterMetricsUnderTest.getFlushLatencies().getMax(), is(equalTo(20L)));
+    assertThat(shardedWriterMetricsUnderTest.getForceLatencies().getCount(), is(equalTo(1L)));
+  }
+}
@@ -0,0 +1,72 @@
+package com.aol.advertising.vulcan.metrics;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import org.junit.Test;
+
+import com.aol.advertising.vulcan.api.metrics.Distribution;
+
+public class SingleWriterHistogramTest {
+
+  private final SingleWriterHistogram singleWriterHistogramUnderTest = new SingleWriterHistogram();
+
+  @Test
+  public void whenValuesAreRecorded_thenTheSnapshotHasTheirCountMeanAndExactMax() {
+    singleWriterHistogramUnderTest.record(10);
+    singleWriterHistogramUnderTest.record(20);
+    singleWriterHistogramUnderTest.record(1_000_003);
+
+    Distribution snapshot = singleWriterHistogramUnderTest.snapshot();
+
+    assertThat(snapshot.getCount(), is(equalTo(3L)));
+    assertThat(snapshot.getMean(), is(equalTo(1_000_033 / 3.0)));
+    assertThat(snapshot.getMax(), is(equalTo(1_000_003L)));
+  }
+
+  @Test
+  public void whenPercentilesAreRequested_thenTheyAreWithinTheBucketPrecision() {
+    for (int value = 1; value <= 10_000; value++) {
+      singleWriterHistogramUnderTest.record(value);
+    }
+
+    Distribution snapshot = singleWriterHistogramUnderTest.snapshot();
+
+    assertThat(snapshot.getValueAtPercentile(50), is(greaterThanOrEqualTo(5_000L)));
+    assertThat(snapshot.getValueAtPercentile(50), is(lessThanOrEqualTo(5_625L)));
+    assertThat(snapshot.getValueAtPercentile(99), is(greaterThanOrEqualTo(9_900L)));
+    assertThat(snapshot.getValueAtPercentile(100), is(equalTo(10_000L)));
+  }
+
+  @Test
+  public void whenSmallValuesAreRecorded_thenPercentilesAreExact() {
+    singleWriterHistogramUnderTest.record(1);
+    singleWriterHistogramUnderTest.record(2);
+    singleWriterHistogramUnderTest.record(3);
+    singleWriterHistogramUnderTest.record(4);
+
+    assertThat(singleWriterHistogramUnderTest.snapshot().getValueAtPercentile(50), is(equalTo(2L)));
+  }
+
+  @Test
+  public void whenNothingHasBeenRecorded_thenTheSnapshotIsEmpty() {
+    Distribution snapshot = singleWriterHistogramUnderTest.snapshot();
+
+    assertThat(snapshot.getCount(), is(equalTo(0L)));
+    assertThat(snapshot.getMean(), is(equalTo(0.0)));
+    assertThat(snapshot.getValueAtPercentile(99), is(equalTo(0L)));
+  }
+
+  @Test
+  public void whenBucketsAreComputed_thenEveryValueFallsWithinTheBoundsOfItsBucket() {
+    long[] values = {0, 15, 16, 17, 31, 32, 1_000, 123_456_789, Long.MAX_VALUE};
+    for (long value : values) {
+      int bucket = SingleWriterHistogram.bucketOf(value);
+      assertThat(SingleWriterHistogram.lowestValueOf(bucket), is(lessThanOrEqualTo(value)));
+      assertThat(SingleWriterHistogram.highestValueOf(bucket), is(greaterThanOrEqualTo(value)));
+    }
+  }
+}
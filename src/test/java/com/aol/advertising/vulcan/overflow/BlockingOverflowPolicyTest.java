@@ -0,0 +1,32 @@
+package com.aol.advertising.vulcan.overflow;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.verify;
+
+import org.apache.avro.specific.SpecificRecord;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import com.aol.advertising.vulcan.ConfiguredUnitTest;
+import com.aol.advertising.vulcan.api.overflow.RingBufferAccess;
+
+public class BlockingOverflowPolicyTest extends ConfiguredUnitTest {
+
+  private final BlockingOverflowPolicy blockingOverflowPolicyUnderTest = new BlockingOverflowPolicy();
+
+  @Mock
+  private RingBufferAccess ringBufferMock;
+  @Mock
+  private SpecificRecord avroRecordMock;
+
+  @Test
+  public void whenTheRingBufferIsFull_thenTheRecordIsPublishedWaitingForAFreeSlot_andTheRecordIsCounted() {
+    boolean accepted = blockingOverflowPolicyUnderTest.onRingBufferFull(avroRecordMock, ringBufferMock);
+
+    assertThat(accepted, is(true));
+    verify(ringBufferMock).publish(avroRecordMock);
+    assertThat(blockingOverflowPolicyUnderTest.getAffectedRecords(), is(equalTo(1L)));
+  }
+}
@@ -0,0 +1,32 @@
+package com.aol.advertising.vulcan.overflow;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+import org.apache.avro.specific.SpecificRecord;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import com.aol.advertising.vulcan.ConfiguredUnitTest;
+import com.aol.advertising.vulcan.api.overflow.RingBufferAccess;
+
+public class DropNewestOverflowPolicyTest extends ConfiguredUnitTest {
+
+  private final DropNewestOverflowPolicy dropNewestOverflowPolicyUnderTest = new DropNewestOverflowPolicy();
+
+  @Mock
+  private RingBufferAccess ringBufferMock;
+  @Mock
+  private SpecificRecord avroRecordMock;
+
+  @Test
+  public void whenTheRingBufferIsFull_thenTheRecordIsDroppedWithoutWaiting_andTheRecordIsCounted() {
+    boolean accepted = dropNewestOverflowPolicyUnderTest.onRingBufferFull(avroRecordMock, ringBufferMock);
+
+    assertThat(accepted, is(false));
+    verifyZeroInteractions(ringBufferMock);
+    assertThat(dropNewestOverflowPolicyUnderTest.getAffectedRecords(), is(equalTo(1L)));
+  }
+}
@@ -0,0 +1,72 @@
+package com.aol.advertising.vulcan.overflow;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.apache.avro.specific.SpecificRecord;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import com.aol.advertising.vulcan.ConfiguredUnitTest;
+import com.aol.advertising.vulcan.api.overflow.RingBufferAccess;
+
+public class DropOldestBySamplingOverflowPolicyTest extends ConfiguredUnitTest {
+
+  private final DropOldestBySamplingOverflowPolicy dropOldestOverflowPolicyUnderTest =
+      new DropOldestBySamplingOverflowPolicy(3);
+
+  @Mock
+  private RingBufferAccess ringBufferMock;
+  @Mock
+  private SpecificRecord avroRecordMock;
+
+  @Before
+  public void setUp() {
+    when(ringBufferMock.getBufferSize()).thenReturn(12);
+  }
+
+  @Test
+  public void whenTheRingBufferHasNotOverflowed_thenNoEventIsDiscarded() {
+    assertThat(dropOldestOverflowPolicyUnderTest.shouldDiscardNextEvent(), is(false));
+  }
+
+  @Test
+  public void whenTheRingBufferIsFull_thenTheRecordIsPublishedWaitingForAFreeSlot() {
+    boolean accepted = dropOldestOverflowPolicyUnderTest.onRingBufferFull(avroRecordMock, ringBufferMock);
+
+    assertThat(accepted, is(true));
+    verify(ringBufferMock).publish(avroRecordMock);
+  }
+
+  @Test
+  public void whenTheRingBufferIsFull_thenOnlyASampleOfTheNextHalfRingBufferOfEventsIsKept() {
+    dropOldestOverflowPolicyUnderTest.onRingBufferFull(avroRecordMock, ringBufferMock);
+
+    int discardedEvents = 0;
+    for (int i = 0; i < 6; i++) {
+      if (dropOldestOverflowPolicyUnderTest.shouldDiscardNextEvent()) {
+        discardedEvents++;
+      }
+    }
+
+    assertThat(discardedEvents, is(equalTo(4)));
+    assertThat(dropOldestOverflowPolicyUnderTest.getAffectedRecords(), is(equalTo(4L)));
+    assertThat(dropOldestOverflowPolicyUnderTest.shouldDiscardNextEvent(), is(false));
+  }
+
+  @Test
+  public void whenTheRingBufferOverflowsWhileSheddingLoad_thenTheSheddingWindowIsNotExtended() {
+    dropOldestOverflowPolicyUnderTest.onRingBufferFull(avroRecordMock, ringBufferMock);
+    dropOldestOverflowPolicyUnderTest.onRingBufferFull(avroRecordMock, ringBufferMock);
+
+    for (int i = 0; i < 6; i++) {
+      dropOldestOverflowPolicyUnderTest.shouldDiscardNextEvent();
+    }
+
+    assertThat(dropOldestOverflowPolicyUnderTest.shouldDiscardNextEvent(), is(false));
+  }
+}
@@ -0,0 +1,73 @@
+package com.aol.advertising.vulcan.overflow;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+import org.apache.avro.specific.SpecificRecord;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+
+import com.aol.advertising.vulcan.ConfiguredUnitTest;
+import com.aol.advertising.vulcan.api.overflow.RecordAppender;
+import com.aol.advertising.vulcan.api.overflow.RingBufferAccess;
+
+public class SpillToSecondaryBufferOverflowPolicyTest extends ConfiguredUnitTest {
+
+  private final SpillToSecondaryBufferOverflowPolicy spillOverflowPolicyUnderTest =
+      new SpillToSecondaryBufferOverflowPolicy(2);
+
+  @Mock
+  private RingBufferAccess ringBufferMock;
+  @Mock
+  private RecordAppender recordAppenderMock;
+
+  @Test
+  public void whenTheRingBufferIsFull_thenTheRecordIsSpilledWithoutWaiting() {
+    boolean accepted = spillOverflowPolicyUnderTest.onRingBufferFull(mock(SpecificRecord.class), ringBufferMock);
+
+    assertThat(accepted, is(true));
+    verifyZeroInteractions(ringBufferMock);
+    assertThat(spillOverflowPolicyUnderTest.getAffectedRecords(), is(equalTo(1L)));
+  }
+
+  @Test
+  public void whenTheSecondaryBufferIsFull_thenTheRecordIsDropped() {
+    givenTheSecondaryBufferIsFull();
+
+    boolean accepted = spillOverflowPolicyUnderTest.onRingBufferFull(mock(SpecificRecord.class), ringBufferMock);
+
+    assertThat(accepted, is(false));
+    assertThat(spillOverflowPolicyUnderTest.getDroppedRecords(), is(equalTo(1L)));
+  }
+
+  @Test
+  public void whenRetainedRecordsAreDrained_thenSpilledRecordsAreAppendedInOrder_andTheSecondaryBufferIsEmptied()
+      throws Exception {
+    SpecificRecord firstRecordMock = mock(SpecificRecord.class);
+    SpecificRecord secondRecordMock = mock(SpecificRecord.class);
+    spillOverflowPolicyUnderTest.onRingBufferFull(firstRecordMock, ringBufferMock);
+    spillOverflowPolicyUnderTest.onRingBufferFull(secondRecordMock, ringBufferMock);
+
+    spillOverflowPolicyUnderTest.drainRetainedRecordsTo(recordAppenderMock);
+
+    InOrder inOrder = inOrder(recordAppenderMock);
+    inOrder.verify(recordAppenderMock).append(firstRecordMock);
+    inOrder.verify(recordAppenderMock).append(secondRecordMock);
+    assertThat(spillOverflowPolicyUnderTest.onRingBufferFull(mock(SpecificRecord.class), ringBufferMock), is(true));
+  }
+
+  @Test
+  public void whenTheRingBufferIsNotFull_thenNoEventIsDiscarded() {
+    assertThat(spillOverflowPolicyUnderTest.shouldDiscardNextEvent(), is(false));
+  }
+
+  private void givenTheSecondaryBufferIsFull() {
+    spillOverflowPolicyUnderTest.onRingBufferFull(mock(SpecificRecord.class), ringBufferMock);
+    spillOverflowPolicyUnderTest.onRingBufferFull(mock(SpecificRecord.class), ringBufferMock);
+  }
+}
@@ -0,0 +1,78 @@
+package com.aol.advertising.vulcan.overflow;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.avro.specific.SpecificRecord;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import com.aol.advertising.vulcan.ConfiguredUnitTest;
+import com.aol.advertising.vulcan.api.overflow.RingBufferAccess;
+
+public class TimedWaitOverflowPolicyTest extends ConfiguredUnitTest {
+
+  private static final long CLOCK_STEP_IN_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+  // Every time the policy reads the clock, 5 milliseconds have passed, so a 20 milliseconds wait
+  // retries exactly 4 times
+  private final TimedWaitOverflowPolicy timedWaitOverflowPolicyUnderTest =
+      new TimedWaitOverflowPolicy(20, TimeUnit.MILLISECONDS) {
+        private long fakeNanoTime;
+
+        @Override
+        long now() {
+          long currentNanoTime = fakeNanoTime;
+          fakeNanoTime += CLOCK_STEP_IN_NANOS;
+          return currentNanoTime;
+        }
+      };
+
+  @Mock
+  private RingBufferAccess ringBufferMock;
+  @Mock
+  private SpecificRecord avroRecordMock;
+
+  @Test
+  public void whenTheRingBufferIsFull_andASlotIsFreedBeforeTheTimeout_thenTheRecordIsPublished() {
+    when(ringBufferMock.tryPublish(avroRecordMock)).thenReturn(false, false, true);
+
+    boolean accepted = timedWaitOverflowPolicyUnderTest.onRingBufferFull(avroRecordMock, ringBufferMock);
+
+    assertThat(accepted, is(true));
+    verify(ringBufferMock, times(3)).tryPublish(avroRecordMock);
+    assertThat(timedWaitOverflowPolicyUnderTest.getAffectedRecords(), is(equalTo(1L)));
+    assertThat(timedWaitOverflowPolicyUnderTest.getDroppedRecords(), is(equalTo(0L)));
+  }
+
+  @Test
+  public void whenTheRingBufferIsFull_andNoSlotIsFreedBeforeTheTimeout_thenTheRecordIsDroppedAfterWaiting() {
+    boolean accepted = timedWaitOverflowPolicyUnderTest.onRingBufferFull(avroRecordMock, ringBufferMock);
+
+    assertThat(accepted, is(false));
+    verify(ringBufferMock, times(4)).tryPublish(avroRecordMock);
+    assertThat(timedWaitOverflowPolicyUnderTest.getDroppedRecords(), is(equalTo(1L)));
+  }
+
+  @Test
+  public void whenTheMaximumWaitIsZero_andTheRingBufferIsFull_thenPublishingIsRetriedOnceBeforeDropping() {
+    TimedWaitOverflowPolicy noWaitOverflowPolicy = new TimedWaitOverflowPolicy(0, TimeUnit.MILLISECONDS);
+
+    boolean accepted = noWaitOverflowPolicy.onRingBufferFull(avroRecordMock, ringBufferMock);
+
+    assertThat(accepted, is(false));
+    verify(ringBufferMock).tryPublish(avroRecordMock);
+    assertThat(noWaitOverflowPolicy.getDroppedRecords(), is(equalTo(1L)));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void whenThePolicyIsCreatedWithANegativeTimeout_thenAnExceptionIsThrown() {
+    new TimedWaitOverflowPolicy(-1, TimeUnit.MILLISECONDS);
+  }
+}
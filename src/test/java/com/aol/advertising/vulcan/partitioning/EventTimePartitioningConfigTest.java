@@ -0,0 +1,57 @@
+package com.aol.advertising.vulcan.partitioning;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.DateTimeZone;
+import org.junit.Before;
+import org.junit.Test;
+
+public class EventTimePartitioningConfigTest {
+
+  private EventTimePartitioningConfig eventTimePartitioningConfigUnderTest;
+
+  @Before
+  public void setUp() {
+    eventTimePartitioningConfigUnderTest = new EventTimePartitioningConfig(new FieldValueEventTimeExtractor("count"));
+  }
+
+  @Test
+  public void whenNothingIsOverriden_thenTwoHourlyBucketsInUtcAreKeptOpen() {
+    assertThat(eventTimePartitioningConfigUnderTest.getBucketLengthInMillis(), is(equalTo(TimeUnit.HOURS.toMillis(1))));
+    assertThat(eventTimePartitioningConfigUnderTest.getOpenBuckets(), is(equalTo(2)));
+    assertThat(eventTimePartitioningConfigUnderTest.getTimeZone(), is(equalTo(DateTimeZone.UTC)));
+  }
+
+  @Test
+  public void whenBucketsDivideADay_thenTheyAreAccepted() {
+    eventTimePartitioningConfigUnderTest.withBucketsOf(15, TimeUnit.MINUTES);
+    assertThat(eventTimePartitioningConfigUnderTest.getBucketLengthInMillis(), is(equalTo(TimeUnit.MINUTES.toMillis(15))));
+
+    eventTimePartitioningConfigUnderTest.withBucketsOf(1, TimeUnit.DAYS);
+    assertThat(eventTimePartitioningConfigUnderTest.getBucketLengthInMillis(), is(equalTo(TimeUnit.DAYS.toMillis(1))));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void whenBucketsAreShorterThanAMinute_thenAnIllegalArgumentExceptionIsThrown() {
+    eventTimePartitioningConfigUnderTest.withBucketsOf(30, TimeUnit.SECONDS);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void whenBucketsDoNotDivideADay_thenAnIllegalArgumentExceptionIsThrown() {
+    eventTimePartitioningConfigUnderTest.withBucketsOf(7, TimeUnit.HOURS);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void whenNoBucketIsKeptOpen_thenAnIllegalArgumentExceptionIsThrown() {
+    eventTimePartitioningConfigUnderTest.withOpenBuckets(0);
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void whenTheEventTimeExtractorIsNull_thenANullPointerExceptionIsThrown() {
+    new EventTimePartitioningConfig(null);
+  }
+}
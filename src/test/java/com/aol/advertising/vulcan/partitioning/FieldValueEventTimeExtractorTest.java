@@ -0,0 +1,43 @@
+package com.aol.advertising.vulcan.partitioning;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.aol.advertising.vulcan.TestAvroRecord;
+
+public class FieldValueEventTimeExtractorTest {
+
+  private FieldValueEventTimeExtractor fieldValueEventTimeExtractorUnderTest;
+
+  @Before
+  public void setUp() {
+    fieldValueEventTimeExtractorUnderTest = new FieldValueEventTimeExtractor("count");
+  }
+
+  @Test
+  public void whenTheEventTimeFieldIsNumeric_thenItsValueIsTheEventTime() {
+    assertThat(fieldValueEventTimeExtractorUnderTest.extractEventTimeFrom(new TestAvroRecord("Zipi", 3_600_000)),
+               is(equalTo(3_600_000L)));
+    assertThat(fieldValueEventTimeExtractorUnderTest.extractEventTimeFrom(new TestAvroRecord("Zape", 42)),
+               is(equalTo(42L)));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void whenTheEventTimeFieldIsNotNumeric_thenAnIllegalArgumentExceptionIsThrown() {
+    new FieldValueEventTimeExtractor("name").extractEventTimeFrom(new TestAvroRecord("Zipi", 1));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void whenTheEventTimeFieldDoesNotExistInTheRecord_thenAnIllegalArgumentExceptionIsThrown() {
+    new FieldValueEventTimeExtractor("Rompetechos").extractEventTimeFrom(new TestAvroRecord("Zipi", 1));
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void whenTheEventTimeFieldIsNull_thenANullPointerExceptionIsThrown() {
+    new FieldValueEventTimeExtractor(null);
+  }
+}
@@ -0,0 +1,89 @@
+package com.aol.advertising.vulcan.partitioning;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.Test;
+
+public class TimeBucketsTest {
+
+  private static final DateTimeZone MADRID = DateTimeZone.forID("Europe/Madrid");
+  private static final DateTimeZone KOLKATA = DateTimeZone.forID("Asia/Kolkata");
+
+  @Test
+  public void whenBucketsAreHourly_thenInstantsBelongToTheStartOfTheirHour() {
+    TimeBuckets hourlyBuckets = new TimeBuckets(TimeUnit.HOURS.toMillis(1), DateTimeZone.UTC);
+
+    long bucketStart = hourlyBuckets.bucketOf(utc(2015, 6, 1, 13, 59));
+
+    assertThat(bucketStart, is(equalTo(utc(2015, 6, 1, 13, 0))));
+    assertThat(hourlyBuckets.bucketAfter(bucketStart), is(equalTo(utc(2015, 6, 1, 14, 0))));
+    assertThat(hourlyBuckets.nameOf(bucketStart), is(equalTo("2015-06-01-13")));
+  }
+
+  @Test
+  public void whenBucketsLastMinutes_thenTheyAreNamedDownToTheMinute() {
+    TimeBuckets quarterHourBuckets = new TimeBuckets(TimeUnit.MINUTES.toMillis(15), DateTimeZone.UTC);
+
+    long bucketStart = quarterHourBuckets.bucketOf(utc(2015, 6, 1, 13, 44));
+
+    assertThat(bucketStart, is(equalTo(utc(2015, 6, 1, 13, 30))));
+    assertThat(quarterHourBuckets.nameOf(bucketStart), is(equalTo("2015-06-01-13-30")));
+  }
+
+  @Test
+  public void whenBucketsLastADay_thenTheyAreNamedAfterTheDay() {
+    TimeBuckets dailyBuckets = new TimeBuckets(TimeUnit.DAYS.toMillis(1), DateTimeZone.UTC);
+
+    assertThat(dailyBuckets.nameOf(dailyBuckets.bucketOf(utc(2015, 6, 1, 23, 59))), is(equalTo("2015-06-01")));
+  }
+
+  @Test
+  public void whenBucketsAreNamed_thenTheirNamesMatchTheNameRegexOfTheirLength() {
+    for (long bucketLength : new long[] {TimeUnit.DAYS.toMillis(1), TimeUnit.HOURS.toMillis(1),
+                                         TimeUnit.MINUTES.toMillis(15)}) {
+      TimeBuckets buckets = new TimeBuckets(bucketLength, DateTimeZone.UTC);
+      String bucketName = buckets.nameOf(buckets.bucketOf(utc(2015, 6, 1, 13, 44)));
+
+      assertThat(bucketName.matches(buckets.getNameRegex()), is(true));
+      assertThat((bucketName + "-00").matches(buckets.getNameRegex()), is(false));
+    }
+  }
+
+  @Test
+  public void whenATimeZoneIsUsed_thenBucketsAreAlignedToItsLocalTime() {
+    TimeBuckets hourlyBuckets = new TimeBuckets(TimeUnit.HOURS.toMillis(1), KOLKATA);
+
+    long bucketStart = hourlyBuckets.bucketOf(new DateTime(2015, 6, 1, 13, 59, KOLKATA).getMillis());
+
+    assertThat(bucketStart, is(equalTo(new DateTime(2015, 6, 1, 13, 0, KOLKATA).getMillis())));
+    assertThat(hourlyBuckets.nameOf(bucketStart), is(equalTo("2015-06-01-13")));
+  }
+
+  @Test
+  public void whenClocksGoForward_thenTheBucketAfterTheSkippedHourStartsWhenTheClockDoes() {
+    TimeBuckets hourlyBuckets = new TimeBuckets(TimeUnit.HOURS.toMillis(1), MADRID);
+    long bucketStart = hourlyBuckets.bucketOf(new DateTime(2015, 3, 29, 1, 30, MADRID).getMillis());
+
+    long nextBucketStart = hourlyBuckets.bucketAfter(bucketStart);
+
+    assertThat(nextBucketStart, is(equalTo(bucketStart + TimeUnit.HOURS.toMillis(1))));
+    assertThat(hourlyBuckets.nameOf(nextBucketStart), is(equalTo("2015-03-29-03")));
+  }
+
+  @Test
+  public void whenInstantsAreBeforeTheEpoch_thenTheyStillBelongToTheStartOfTheirBucket() {
+    TimeBuckets hourlyBuckets = new TimeBuckets(TimeUnit.HOURS.toMillis(1), DateTimeZone.UTC);
+
+    assertThat(hourlyBuckets.bucketOf(-1), is(equalTo(-TimeUnit.HOURS.toMillis(1))));
+  }
+
+  private long utc(int year, int month, int day, int hour, int minute) {
+    return new DateTime(year, month, day, hour, minute, DateTimeZone.UTC).getMillis();
+  }
+}
@@ -1,9 +1,15 @@
 package com.aol.advertising.vulcan.ringbuffer;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.Matchers.sameInstance;
 import static org.mockito.Mockito.mock;
 
+import java.nio.ByteBuffer;
+
+import org.apache.avro.file.DataFileStream;
 import org.apache.avro.specific.SpecificRecord;
 import org.junit.Before;
 import org.junit.Test;
@@ -36,4 +42,128 @@ public class AvroEventTest {
     assertThat(avroEventUnderTest.getAvroRecord(), sameInstance(newRecordMock));
   }
 
+  @Test
+  public void whenTheAvroRecordIsReleased_thenTheEventKeepsItsEncodedRecordOnly() {
+    avroEventUnderTest.getEncodedRecord().write(42);
+    avroEventUnderTest.markRecordEncoded();
+
+    avroEventUnderTest.releaseAvroRecord();
+
+    assertThat(avroEventUnderTest.getAvroRecord(), is(nullValue()));
+    assertThat(avroEventUnderTest.hasEncodedRecord(), is(equalTo(true)));
+  }
+
+  @Test
+  public void whenTheEventIsCreatedWithAnEncodedRecordBuffer_thenThatBufferIsUsed() {
+    EncodedRecordBuffer encodedRecord = new EncodedRecordBuffer();
+
+    assertThat(new AvroEvent(encodedRecord).getEncodedRecord(), sameInstance(encodedRecord));
+  }
+
+  @Test
+  public void whenNoEncodedRecordHasBeenWritten_thenTheEventHasNoEncodedRecord() {
+    assertThat(avroEventUnderTest.hasEncodedRecord(), is(equalTo(false)));
+  }
+
+  @Test
+  public void whenAnEncodedRecordIsWritten_thenTheEventHasAnEncodedRecord() {
+    avroEventUnderTest.getEncodedRecord().write(42);
+    avroEventUnderTest.markRecordEncoded();
+
+    assertThat(avroEventUnderTest.hasEncodedRecord(), is(equalTo(true)));
+  }
+
+  @Test
+  public void whenTheRecordIsEncodedIntoNoBytes_andReleased_thenTheEventStillHasAnEncodedRecord() {
+    avroEventUnderTest.markRecordEncoded();
+
+    avroEventUnderTest.releaseAvroRecord();
+
+    assertThat(avroEventUnderTest.getEncodedRecord().size(), is(equalTo(0)));
+    assertThat(avroEventUnderTest.hasEncodedRecord(), is(equalTo(true)));
+  }
+
+  @Test
+  public void whenBytesAreWrittenToTheEncodedRecordWithoutMarkingItEncoded_thenTheEventHasNoEncodedRecord() {
+    avroEventUnderTest.getEncodedRecord().write(42);
+
+    assertThat(avroEventUnderTest.hasEncodedRecord(), is(equalTo(false)));
+  }
+
+  @Test
+  public void whenTheEncodedRecordBufferIsRetrievedTwice_thenTheSameBufferIsReused() {
+    assertThat(avroEventUnderTest.getEncodedRecord(), sameInstance(avroEventUnderTest.getEncodedRecord()));
+  }
+
+  @Test
+  public void whenTheEventIsDiscarded_thenItHoldsNoRecord() {
+    avroEventUnderTest.getEncodedRecord().write(42);
+    avroEventUnderTest.markRecordEncoded();
+
+    avroEventUnderTest.discard();
+
+    assertThat(avroEventUnderTest.isDiscarded(), is(equalTo(true)));
+    assertThat(avroEventUnderTest.getAvroRecord(), is(nullValue()));
+    assertThat(avroEventUnderTest.hasEncodedRecord(), is(equalTo(false)));
+  }
+
+  @Test
+  public void whenANewRecordIsSetOnAnEventWrittenDurably_thenTheEventIsNoLongerDurable() {
+    avroEventUnderTest.setAvroRecord(recordMock);
+    avroEventUnderTest.writeDurably(new DurableWrite());
+
+    avroEventUnderTest.setAvroRecord(recordMock);
+
+    assertThat(avroEventUnderTest.getDurableWrite(), is(nullValue()));
+  }
+
+  @Test
+  public void whenANewRecordIsSetOnADiscardedEvent_thenTheEventIsNoLongerDiscarded() {
+    avroEventUnderTest.discard();
+
+    avroEventUnderTest.setAvroRecord(recordMock);
+
+    assertThat(avroEventUnderTest.isDiscarded(), is(equalTo(false)));
+  }
+
+  @Test
+  public void whenAnEncodedRecordIsSet_thenTheEventHoldsACopyOfItsRemainingBytes_andNoRecord() {
+    ByteBuffer encodedBytes = ByteBuffer.wrap(new byte[] {1, 2, 3});
+    encodedBytes.get();
+
+    avroEventUnderTest.setEncodedRecord(encodedBytes);
+    encodedBytes.put(1, (byte) 42);
+
+    assertThat(avroEventUnderTest.getAvroRecord(), is(nullValue()));
+    assertThat(avroEventUnderTest.getEncodedRecord().asByteBuffer(), is(equalTo(ByteBuffer.wrap(new byte[] {2, 3}))));
+  }
+
+  @Test
+  public void whenANewRecordIsSetOnAnEventWithAnEncodedRecord_thenTheEncodedRecordIsDiscarded() {
+    avroEventUnderTest.setEncodedRecord(ByteBuffer.wrap(new byte[] {1, 2, 3}));
+
+    avroEventUnderTest.setAvroRecord(recordMock);
+
+    assertThat(avroEventUnderTest.hasEncodedRecord(), is(equalTo(false)));
+  }
+
+  @Test
+  public void whenAFileToAppendIsSet_thenTheEventHoldsTheFile_andNoRecord() {
+    @SuppressWarnings("unchecked")
+    DataFileStream<SpecificRecord> avroFileStreamMock = mock(DataFileStream.class);
+
+    avroEventUnderTest.setFileToAppend(avroFileStreamMock);
+
+    assertThat(avroEventUnderTest.getAvroRecord(), is(nullValue()));
+    assertThat(avroEventUnderTest.getFileToAppend(), sameInstance((Object) avroFileStreamMock));
+  }
+
+  @Test
+  public void whenANewRecordIsSetOnAnEventWithAFileToAppend_thenTheFileIsNoLongerHeld() {
+    avroEventUnderTest.setFileToAppend(mock(DataFileStream.class));
+
+    avroEventUnderTest.setAvroRecord(recordMock);
+
+    assertThat(avroEventUnderTest.getFileToAppend(), is(nullValue()));
+  }
 }
@@ -0,0 +1,54 @@
+package com.aol.advertising.vulcan.ringbuffer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DurableWriteTest {
+
+  private final DurableWrite durableWriteUnderTest = new DurableWrite();
+
+  @Test
+  public void whenTheWriteIsCompleted_thenTheFutureIsDone() throws Exception {
+    durableWriteUnderTest.complete();
+
+    assertThat(durableWriteUnderTest.isDone(), is(equalTo(true)));
+    assertThat(durableWriteUnderTest.get(), is(nullValue()));
+  }
+
+  @Test
+  public void whenTheWriteFails_thenGettingTheResultThrowsTheCause() throws Exception {
+    IOException failure = new IOException("boom");
+
+    durableWriteUnderTest.fail(failure);
+
+    try {
+      durableWriteUnderTest.get();
+      Assert.fail();
+    } catch (ExecutionException e) {
+      assertThat(e.getCause(), is(sameInstance((Throwable) failure)));
+    }
+  }
+
+  @Test(expected = TimeoutException.class)
+  public void whenTheWriteIsPending_andTheResultIsAwaitedWithATimeout_thenTheWaitTimesOut() throws Exception {
+    durableWriteUnderTest.get(1, TimeUnit.MILLISECONDS);
+  }
+
+  @Test
+  public void whenTheWriteIsCancelled_thenItCannotBe() {
+    assertThat(durableWriteUnderTest.cancel(true), is(equalTo(false)));
+    assertThat(durableWriteUnderTest.isCancelled(), is(equalTo(false)));
+    assertThat(durableWriteUnderTest.isDone(), is(equalTo(false)));
+  }
+}
@@ -0,0 +1,67 @@
+package com.aol.advertising.vulcan.ringbuffer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class EncodedRecordBufferTest {
+
+  private EncodedRecordBuffer encodedRecordBufferUnderTest;
+
+  @Before
+  public void setUp() {
+    encodedRecordBufferUnderTest = new EncodedRecordBuffer();
+  }
+
+  @Test
+  public void whenBytesAreWritten_thenTheByteBufferViewContainsExactlyThoseBytes() {
+    encodedRecordBufferUnderTest.write(new byte[] {1, 2, 3}, 0, 3);
+    encodedRecordBufferUnderTest.write(4);
+
+    assertThat(toArray(encodedRecordBufferUnderTest.asByteBuffer()), is(equalTo(new byte[] {1, 2, 3, 4})));
+  }
+
+  @Test
+  public void whenMoreBytesThanTheInitialCapacityAreWritten_thenTheBufferGrowsToHoldThemAll() {
+    byte[] largeRecord = new byte[10_000];
+    Arrays.fill(largeRecord, (byte) 7);
+
+    encodedRecordBufferUnderTest.write(largeRecord, 0, largeRecord.length);
+
+    assertThat(toArray(encodedRecordBufferUnderTest.asByteBuffer()), is(equalTo(largeRecord)));
+  }
+
+  @Test
+  public void whenADirectByteBufferIsWritten_thenItsRemainingBytesAreAppendedAndItsPositionIsKept() {
+    ByteBuffer directBytes = ByteBuffer.allocateDirect(4);
+    directBytes.put(new byte[] {1, 2, 3, 4}).position(1);
+    encodedRecordBufferUnderTest.write(9);
+
+    encodedRecordBufferUnderTest.write(directBytes);
+
+    assertThat(toArray(encodedRecordBufferUnderTest.asByteBuffer()), is(equalTo(new byte[] {9, 2, 3, 4})));
+    assertThat(directBytes.position(), is(equalTo(1)));
+  }
+
+  @Test
+  public void whenTheBufferIsReset_thenItBecomesEmpty() {
+    encodedRecordBufferUnderTest.write(new byte[] {1, 2, 3}, 0, 3);
+
+    encodedRecordBufferUnderTest.reset();
+
+    assertThat(encodedRecordBufferUnderTest.size(), is(equalTo(0)));
+    assertThat(encodedRecordBufferUnderTest.asByteBuffer().remaining(), is(equalTo(0)));
+  }
+
+  private byte[] toArray(ByteBuffer byteBuffer) {
+    byte[] contents = new byte[byteBuffer.remaining()];
+    byteBuffer.duplicate().get(contents);
+    return contents;
+  }
+}
@@ -0,0 +1,39 @@
+package com.aol.advertising.vulcan.ringbuffer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+
+import org.junit.Test;
+
+public class OffHeapAvroEventFactoryTest {
+
+  @Test
+  public void whenEventsAreCreated_thenEachOneEncodesIntoItsOwnOffHeapSlot() {
+    OffHeapAvroEventFactory offHeapAvroEventFactoryUnderTest = new OffHeapAvroEventFactory(2, 8);
+    AvroEvent firstEvent = offHeapAvroEventFactoryUnderTest.newInstance();
+    AvroEvent secondEvent = offHeapAvroEventFactoryUnderTest.newInstance();
+
+    firstEvent.getEncodedRecord().write(1);
+    secondEvent.getEncodedRecord().write(2);
+
+    assertThat(firstEvent.getEncodedRecord(), instanceOf(OffHeapEncodedRecordBuffer.class));
+    assertThat(firstEvent.getEncodedRecord().asByteBuffer().get(0), is(equalTo((byte) 1)));
+    assertThat(secondEvent.getEncodedRecord().asByteBuffer().get(0), is(equalTo((byte) 2)));
+    assertThat(((OffHeapEncodedRecordBuffer) secondEvent.getEncodedRecord()).getCapacity(), is(equalTo(8)));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void whenMoreEventsThanTheRingBufferSizeAreCreated_thenAnIllegalStateExceptionIsThrown() {
+    OffHeapAvroEventFactory offHeapAvroEventFactoryUnderTest = new OffHeapAvroEventFactory(1, 8);
+    offHeapAvroEventFactoryUnderTest.newInstance();
+
+    offHeapAvroEventFactoryUnderTest.newInstance();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void whenTheSlotsWouldTakeMoreThan2GB_thenAnIllegalArgumentExceptionIsThrown() {
+    new OffHeapAvroEventFactory(65536, 65536);
+  }
+}
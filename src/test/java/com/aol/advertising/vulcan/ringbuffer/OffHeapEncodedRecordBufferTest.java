@@ -0,0 +1,80 @@
+package com.aol.advertising.vulcan.ringbuffer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class OffHeapEncodedRecordBufferTest {
+
+  private static final int REGION_CAPACITY = 4;
+
+  private OffHeapEncodedRecordBuffer offHeapEncodedRecordBufferUnderTest;
+
+  @Before
+  public void setUp() {
+    offHeapEncodedRecordBufferUnderTest = new OffHeapEncodedRecordBuffer(ByteBuffer.allocateDirect(REGION_CAPACITY));
+  }
+
+  @Test
+  public void whenARecordFitsInTheRegion_thenItIsKeptOffHeap() {
+    offHeapEncodedRecordBufferUnderTest.write(new byte[] {1, 2}, 0, 2);
+    offHeapEncodedRecordBufferUnderTest.write(3);
+
+    ByteBuffer encodedRecord = offHeapEncodedRecordBufferUnderTest.asByteBuffer();
+
+    assertThat(encodedRecord.isDirect(), is(equalTo(true)));
+    assertThat(toArray(encodedRecord), is(equalTo(new byte[] {1, 2, 3})));
+    assertThat(offHeapEncodedRecordBufferUnderTest.size(), is(equalTo(3)));
+  }
+
+  @Test
+  public void whenARecordDoesNotFitInTheRegion_thenItIsMovedToTheHeapWithoutLosingBytes() {
+    offHeapEncodedRecordBufferUnderTest.write(new byte[] {1, 2, 3}, 0, 3);
+    offHeapEncodedRecordBufferUnderTest.write(4);
+    offHeapEncodedRecordBufferUnderTest.write(5);
+    offHeapEncodedRecordBufferUnderTest.write(ByteBuffer.wrap(new byte[] {6, 7}));
+
+    ByteBuffer encodedRecord = offHeapEncodedRecordBufferUnderTest.asByteBuffer();
+
+    assertThat(encodedRecord.isDirect(), is(equalTo(false)));
+    assertThat(toArray(encodedRecord), is(equalTo(new byte[] {1, 2, 3, 4, 5, 6, 7})));
+    assertThat(offHeapEncodedRecordBufferUnderTest.size(), is(equalTo(7)));
+  }
+
+  @Test
+  public void whenTheBufferIsReset_andTheNextRecordFits_thenItIsKeptOffHeapAgain() {
+    offHeapEncodedRecordBufferUnderTest.write(new byte[] {1, 2, 3, 4, 5}, 0, 5);
+
+    offHeapEncodedRecordBufferUnderTest.reset();
+    offHeapEncodedRecordBufferUnderTest.write(ByteBuffer.wrap(new byte[] {9}));
+
+    assertThat(offHeapEncodedRecordBufferUnderTest.asByteBuffer().isDirect(), is(equalTo(true)));
+    assertThat(toArray(offHeapEncodedRecordBufferUnderTest.asByteBuffer()), is(equalTo(new byte[] {9})));
+  }
+
+  @Test
+  public void whenTheRegionIsPartOfALargerBuffer_thenOnlyTheRegionIsUsed() {
+    ByteBuffer slots = ByteBuffer.allocateDirect(3 * REGION_CAPACITY);
+    slots.position(REGION_CAPACITY).limit(2 * REGION_CAPACITY);
+    OffHeapEncodedRecordBuffer middleSlot = new OffHeapEncodedRecordBuffer(slots);
+
+    middleSlot.write(new byte[] {1, 2, 3, 4}, 0, 4);
+    slots.clear();
+
+    assertThat(middleSlot.getCapacity(), is(equalTo(REGION_CAPACITY)));
+    assertThat(slots.get(0), is(equalTo((byte) 0)));
+    assertThat(slots.get(REGION_CAPACITY), is(equalTo((byte) 1)));
+    assertThat(slots.get(2 * REGION_CAPACITY), is(equalTo((byte) 0)));
+  }
+
+  private byte[] toArray(ByteBuffer byteBuffer) {
+    byte[] contents = new byte[byteBuffer.remaining()];
+    byteBuffer.duplicate().get(contents);
+    return contents;
+  }
+}
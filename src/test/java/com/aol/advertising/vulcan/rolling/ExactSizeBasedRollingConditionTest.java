@@ -0,0 +1,52 @@
+package com.aol.advertising.vulcan.rolling;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import com.aol.advertising.vulcan.ConfiguredUnitTest;
+import com.aol.advertising.vulcan.api.rolling.FileSizeTracker;
+
+public class ExactSizeBasedRollingConditionTest extends ConfiguredUnitTest {
+
+  private static final int ROLLOVER_SIZE_IN_MB = 2;
+  private static final long ROLLOVER_SIZE_IN_BYTES = ROLLOVER_SIZE_IN_MB * 1_048_576L;
+
+  private ExactSizeBasedRollingCondition exactSizeBasedRollingConditionUnderTest;
+
+  @Mock
+  private FileSizeTracker fileSizeTrackerMock;
+
+  @Before
+  public void setUp() {
+    exactSizeBasedRollingConditionUnderTest = new ExactSizeBasedRollingCondition(ROLLOVER_SIZE_IN_MB, fileSizeTrackerMock);
+  }
+
+  @Test
+  public void whenTheTrackedFileSizeIsBelowTheRolloverSize_thenRolloverIsNotDue() {
+    when(fileSizeTrackerMock.getFileSizeInBytes()).thenReturn(ROLLOVER_SIZE_IN_BYTES - 1);
+
+    assertThat(exactSizeBasedRollingConditionUnderTest.shouldRollover(), is(false));
+  }
+
+  @Test
+  public void whenTheTrackedFileSizeReachesTheRolloverSize_thenRolloverIsDue() {
+    when(fileSizeTrackerMock.getFileSizeInBytes()).thenReturn(ROLLOVER_SIZE_IN_BYTES);
+
+    assertThat(exactSizeBasedRollingConditionUnderTest.shouldRollover(), is(true));
+  }
+
+  @Test
+  public void whenTheFileIsRolled_thenTheNextDecisionIsBasedOnTheSizeOfTheNewFile() {
+    when(fileSizeTrackerMock.getFileSizeInBytes()).thenReturn(ROLLOVER_SIZE_IN_BYTES, 0L);
+    exactSizeBasedRollingConditionUnderTest.shouldRollover();
+
+    exactSizeBasedRollingConditionUnderTest.signalRollover();
+
+    assertThat(exactSizeBasedRollingConditionUnderTest.shouldRollover(), is(false));
+  }
+}
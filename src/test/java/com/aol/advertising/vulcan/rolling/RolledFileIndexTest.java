@@ -0,0 +1,133 @@
+package com.aol.advertising.vulcan.rolling;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RolledFileIndexTest {
+
+  private static final String TODAY = "2015-04-02";
+  private static final String YESTERDAY = "2015-04-01";
+  private static final String DAILY_DATES = "\\d{4}-\\d{2}-\\d{2}";
+  private static final String THIS_HOUR = "2015-04-02-13";
+  private static final String HOURLY_DATES = "\\d{4}-\\d{2}-\\d{2}-\\d{2}";
+
+  private RolledFileIndex rolledFileIndexUnderTest;
+
+  private Path testAvroPath;
+  private Path testIndexPath;
+
+  @Rule
+  public TemporaryFolder testDirectory = new TemporaryFolder();
+
+  @Before
+  public void setUp() throws Exception {
+    testAvroPath = testDirectory.newFile("events.avro").toPath();
+    testIndexPath = RolledFileIndex.getIndexFilenameFor(testAvroPath);
+    testDirectory.newFile("events-" + TODAY + ".3.log");
+    testDirectory.newFile("events-" + YESTERDAY + ".7.log");
+  }
+
+  @Test
+  public void whenNoIndexFileIsKept_thenTheNextIndexOfEachDateIsTakenFromTheDirectory() {
+    rolledFileIndexUnderTest = new RolledFileIndex(testAvroPath, "events-", DAILY_DATES, false);
+
+    rolledFileIndexUnderTest.load();
+
+    assertThat(rolledFileIndexUnderTest.getNextIndexFor(TODAY), is(equalTo(4)));
+    assertThat(rolledFileIndexUnderTest.getNextIndexFor(YESTERDAY), is(equalTo(8)));
+    assertThat(rolledFileIndexUnderTest.getNextIndexFor("2015-04-03"), is(equalTo(0)));
+  }
+
+  @Test
+  public void whenAnIndexIsMarkedAsUsed_thenTheNextIndexOfItsDateFollowsIt() {
+    rolledFileIndexUnderTest = new RolledFileIndex(testAvroPath, "events-", DAILY_DATES, false);
+    rolledFileIndexUnderTest.load();
+
+    rolledFileIndexUnderTest.markAsUsed(TODAY, 4);
+
+    assertThat(rolledFileIndexUnderTest.getNextIndexFor(TODAY), is(equalTo(5)));
+  }
+
+  @Test
+  public void whenAnIndexFileIsKept_thenTheNextIndexOfItsDateIsTakenFromIt() throws Exception {
+    Files.write(testIndexPath, (TODAY + " 10\n").getBytes());
+    rolledFileIndexUnderTest = new RolledFileIndex(testAvroPath, "events-", DAILY_DATES, true);
+
+    rolledFileIndexUnderTest.load();
+
+    assertThat(rolledFileIndexUnderTest.getNextIndexFor(TODAY), is(equalTo(10)));
+  }
+
+  @Test
+  public void whenAnIndexFileIsKept_andADateNotInItIsRequested_thenItIsTakenFromTheDirectory() throws Exception {
+    Files.write(testIndexPath, (TODAY + " 10\n").getBytes());
+    rolledFileIndexUnderTest = new RolledFileIndex(testAvroPath, "events-", DAILY_DATES, true);
+
+    rolledFileIndexUnderTest.load();
+
+    assertThat(rolledFileIndexUnderTest.getNextIndexFor(YESTERDAY), is(equalTo(8)));
+    assertThat(rolledFileIndexUnderTest.getNextIndexFor(TODAY), is(equalTo(10)));
+  }
+
+  @Test
+  public void whenTheIndexFileIsUnreadable_thenTheNextIndexIsTakenFromTheDirectory() throws Exception {
+    Files.write(testIndexPath, "garbage".getBytes());
+    rolledFileIndexUnderTest = new RolledFileIndex(testAvroPath, "events-", DAILY_DATES, true);
+
+    rolledFileIndexUnderTest.load();
+
+    assertThat(rolledFileIndexUnderTest.getNextIndexFor(TODAY), is(equalTo(4)));
+  }
+
+  @Test
+  public void whenAnIndexIsReserved_thenTheIndexFileHoldsTheIndexThatFollowsIt() throws Exception {
+    rolledFileIndexUnderTest = new RolledFileIndex(testAvroPath, "events-", DAILY_DATES, true);
+    rolledFileIndexUnderTest.load();
+
+    rolledFileIndexUnderTest.reserve(TODAY, 4);
+
+    assertThat(new String(Files.readAllBytes(testIndexPath)), is(equalTo(TODAY + " 5\n")));
+  }
+
+  @Test
+  public void whenAnIndexIsReserved_andNoIndexFileIsKept_thenNoIndexFileIsWritten() throws Exception {
+    rolledFileIndexUnderTest = new RolledFileIndex(testAvroPath, "events-", DAILY_DATES, false);
+    rolledFileIndexUnderTest.load();
+
+    rolledFileIndexUnderTest.reserve(TODAY, 4);
+
+    assertThat(Files.exists(testIndexPath), is(false));
+  }
+
+  @Test
+  public void whenFilesRollHourly_thenTheNextIndexOfEachHourIsTakenFromTheDirectory() throws Exception {
+    testDirectory.newFile("events-" + THIS_HOUR + ".2.log");
+    rolledFileIndexUnderTest = new RolledFileIndex(testAvroPath, "events-", HOURLY_DATES, false);
+
+    rolledFileIndexUnderTest.load();
+
+    assertThat(rolledFileIndexUnderTest.getNextIndexFor(THIS_HOUR), is(equalTo(3)));
+    assertThat(rolledFileIndexUnderTest.getNextIndexFor(TODAY), is(equalTo(0)));
+  }
+
+  @Test
+  public void whenFilesRollHourly_andAnIndexFileIsKept_thenTheNextIndexOfItsHourIsTakenFromIt() throws Exception {
+    rolledFileIndexUnderTest = new RolledFileIndex(testAvroPath, "events-", HOURLY_DATES, true);
+    rolledFileIndexUnderTest.load();
+    rolledFileIndexUnderTest.reserve(THIS_HOUR, 4);
+
+    rolledFileIndexUnderTest = new RolledFileIndex(testAvroPath, "events-", HOURLY_DATES, true);
+    rolledFileIndexUnderTest.load();
+
+    assertThat(rolledFileIndexUnderTest.getNextIndexFor(THIS_HOUR), is(equalTo(5)));
+  }
+}
@@ -4,6 +4,9 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
 
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.DateTimeZone;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -37,4 +40,36 @@ public class TimeAndSizeBasedRollingPolicyConfigTest {
 
     assertThat(configuration.getRollingSizeInMb(), is(equalTo(ROLLING_SIZE_IN_MB)));
   }
+
+  @Test
+  public void whenTheRollingIndexFileIsNotConfigured_thenAConfigurationWithoutIndexFileIsReturned() {
+    assertThat(timeAndSizeBasedRollingPolicyConfigUnderTest.isRollingIndexFileUsed(), is(equalTo(false)));
+  }
+
+  @Test
+  public void whenTheRollingIndexFileIsConfigured_thenAConfigurationWithIndexFileIsReturned() {
+    TimeAndSizeBasedRollingPolicyConfig configuration = timeAndSizeBasedRollingPolicyConfigUnderTest.withRollingIndexFile();
+
+    assertThat(configuration.isRollingIndexFileUsed(), is(equalTo(true)));
+  }
+
+  @Test
+  public void whenTheRollingIntervalIsNotOverriden_thenFilesRollDailyInTheDefaultTimeZone() {
+    assertThat(timeAndSizeBasedRollingPolicyConfigUnderTest.getRollingIntervalInMillis(), is(equalTo(TimeUnit.DAYS.toMillis(1))));
+    assertThat(timeAndSizeBasedRollingPolicyConfigUnderTest.getTimeZone(), is(equalTo(DateTimeZone.getDefault())));
+  }
+
+  @Test
+  public void whenTheRollingIntervalDividesADay_thenAConfigurationWithSpecifiedIntervalIsReturned() {
+    TimeAndSizeBasedRollingPolicyConfig configuration =
+        timeAndSizeBasedRollingPolicyConfigUnderTest.withRollingIntervalOf(1, TimeUnit.HOURS).inTimeZone(DateTimeZone.UTC);
+
+    assertThat(configuration.getRollingIntervalInMillis(), is(equalTo(TimeUnit.HOURS.toMillis(1))));
+    assertThat(configuration.getTimeZone(), is(equalTo(DateTimeZone.UTC)));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void whenTheRollingIntervalDoesNotDivideADay_thenThrowAnIllegalArgumentException() {
+    timeAndSizeBasedRollingPolicyConfigUnderTest.withRollingIntervalOf(5, TimeUnit.HOURS);
+  }
 }
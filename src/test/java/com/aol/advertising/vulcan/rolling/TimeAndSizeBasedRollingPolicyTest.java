@@ -1,8 +1,12 @@
 package com.aol.advertising.vulcan.rolling;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.endsWith;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -14,6 +18,7 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
 import org.hamcrest.Description;
@@ -28,6 +33,7 @@ import org.mockito.Mock;
 import org.mockito.internal.util.reflection.Whitebox;
 
 import com.aol.advertising.vulcan.ConfiguredUnitTest;
+import com.aol.advertising.vulcan.api.rolling.FileSizeTracker;
 import com.aol.advertising.vulcan.exception.FileRollingException;
 import com.aol.advertising.vulcan.rolling.SizeBasedRollingCondition;
 import com.aol.advertising.vulcan.rolling.TimeAndSizeBasedRollingPolicy;
@@ -47,6 +53,8 @@ public class TimeAndSizeBasedRollingPolicyTest extends ConfiguredUnitTest {
   private TimeBasedRollingCondition timeBasedRollingConditionMock;
   @Mock
   private SizeBasedRollingCondition sizeBasedRollingConditionMock;
+  @Mock
+  private FileSizeTracker fileSizeTrackerMock;
 
   private File testAvroFile;
   private Path testAvroPath;
@@ -73,7 +81,7 @@ public class TimeAndSizeBasedRollingPolicyTest extends ConfiguredUnitTest {
   }
 
   private void injectMocks() {
-    Whitebox.setInternalState(timeAndSizeBasedRollingPolicyUnderTest, "lastRolloverHappenedBeforeToday", timeBasedRollingConditionMock);
+    Whitebox.setInternalState(timeAndSizeBasedRollingPolicyUnderTest, "rollingPeriodHasEnded", timeBasedRollingConditionMock);
     Whitebox.setInternalState(timeAndSizeBasedRollingPolicyUnderTest, "sizeThresholdHasBeenHit", sizeBasedRollingConditionMock);
   }
 
@@ -94,6 +102,118 @@ public class TimeAndSizeBasedRollingPolicyTest extends ConfiguredUnitTest {
     thenTheIndexOfTheLastRolledFileIs21();
   }
 
+  @Test
+  public void whenTheWriterTracksTheFileSize_thenTheSizeIsTakenFromTheWriterInsteadOfFromDisk() throws Exception {
+    givenThePolicyIsInitialized();
+
+    timeAndSizeBasedRollingPolicyUnderTest.trackFileSizeWith(fileSizeTrackerMock);
+
+    assertThat(Whitebox.getInternalState(timeAndSizeBasedRollingPolicyUnderTest, "sizeThresholdHasBeenHit"),
+               is(instanceOf(ExactSizeBasedRollingCondition.class)));
+  }
+
+  @Test
+  public void whenTheWriterTracksTheFileSize_andTheFileReachesTheRolloverSize_thenRolloverIsDue() throws Exception {
+    givenThePolicyIsInitialized();
+    when(fileSizeTrackerMock.getFileSizeInBytes()).thenReturn(ROLLOVER_SIZE * 1_048_576L);
+
+    timeAndSizeBasedRollingPolicyUnderTest.trackFileSizeWith(fileSizeTrackerMock);
+
+    assertThat(timeAndSizeBasedRollingPolicyUnderTest.shouldRollover(null), is(true));
+  }
+
+  @Test
+  public void whenThePolicyIsInitialized_thenRolledFilesOfOtherDatesDoNotAffectTheRollingIndex() throws Exception {
+    givenTimeBasedRollIsNotDue();
+    givenTheMaximumIndexInTheDirIs20();
+    testDirectory.newFile(AVRO_FILE_NAME + "-2015-04-01.42.log");
+
+    whenThePolicyIsInitialized();
+    timeAndSizeBasedRollingPolicyUnderTest.rolloverAvroFile();
+
+    thenTheIndexOfTheLastRolledFileIs21();
+  }
+
+  @Test
+  public void whenThePolicyIsInitialized_thenRolledFilesOfOtherWritersInTheDirDoNotAffectTheRollingIndex()
+      throws Exception {
+    givenTimeBasedRollIsNotDue();
+    givenTheMaximumIndexInTheDirIs20();
+    testDirectory.newFile(AVRO_FILE_NAME + "-1-" + today() + ".42.log");
+
+    whenThePolicyIsInitialized();
+    timeAndSizeBasedRollingPolicyUnderTest.rolloverAvroFile();
+
+    thenTheIndexOfTheLastRolledFileIs21();
+  }
+
+  @Test
+  public void whenThePolicyIsInitialized_andRolledFilesWereCompressed_thenTheRollingIndexContinuesWhereWeLeftOff()
+      throws Exception {
+    givenTimeBasedRollIsNotDue();
+    testDirectory.newFile(AVRO_FILE_NAME + "-" + today() + ".20.log.gz");
+
+    whenThePolicyIsInitialized();
+    timeAndSizeBasedRollingPolicyUnderTest.rolloverAvroFile();
+
+    thenTheIndexOfTheLastRolledFileIs21();
+  }
+
+  @Test
+  public void whenTheFileIsRolledOverAsPartial_thenItIsLeftUnderItsRolledNamePlusThePartialExtension()
+      throws Exception {
+    givenThePolicyIsInitialized();
+
+    timeAndSizeBasedRollingPolicyUnderTest.rolloverAvroFileAsPartial(".part");
+
+    Path rolledFilename = timeAndSizeBasedRollingPolicyUnderTest.getLastRolledFilename();
+    assertThat(Files.exists(rolledFilename), is(false));
+    assertThat(Files.exists(rolledFilename.resolveSibling(rolledFilename.getFileName() + ".part")), is(true));
+  }
+
+  @Test
+  public void whenThePolicyIsInitialized_andARolledFileWasLeftPartial_thenTheRollingIndexContinuesWhereWeLeftOff()
+      throws Exception {
+    givenTimeBasedRollIsNotDue();
+    testDirectory.newFile(AVRO_FILE_NAME + "-" + today() + ".20.log.part");
+
+    whenThePolicyIsInitialized();
+    timeAndSizeBasedRollingPolicyUnderTest.rolloverAvroFile();
+
+    thenTheIndexOfTheLastRolledFileIs21();
+  }
+
+  @Test
+  public void whenARollingIndexFileIsUsed_thenTheRollingIndexContinuesFromTheIndexFile() throws Exception {
+    givenTimeBasedRollIsNotDue();
+    givenTheMaximumIndexInTheDirIs20();
+    Files.write(RolledFileIndex.getIndexFilenameFor(testAvroPath), (today() + " 30\n").getBytes());
+    givenAPolicyUsingARollingIndexFile();
+
+    whenThePolicyIsInitialized();
+    timeAndSizeBasedRollingPolicyUnderTest.rolloverAvroFile();
+
+    assertThat(getIndexFrom(getLastRolledfile()), is(equalTo(30)));
+  }
+
+  @Test
+  public void whenARollingIndexFileIsUsed_andFileIsRolledOver_thenTheIndexFileHoldsTheNextIndex() throws Exception {
+    givenTimeBasedRollIsNotDue();
+    givenAPolicyUsingARollingIndexFile();
+
+    whenThePolicyIsInitialized();
+    timeAndSizeBasedRollingPolicyUnderTest.rolloverAvroFile();
+
+    assertThat(new String(Files.readAllBytes(RolledFileIndex.getIndexFilenameFor(testAvroPath))),
+               is(equalTo(today() + " 1\n")));
+  }
+
+  @Test
+  public void whenWritersCheckThePolicy_thenTheyCheckItWheneverABlockReachesTheFileInsteadOfAfterEveryRecord() {
+    assertThat(timeAndSizeBasedRollingPolicyUnderTest.getRecordsBetweenChecks(), is(equalTo(0L)));
+    assertThat(timeAndSizeBasedRollingPolicyUnderTest.getBytesBetweenChecks(), is(equalTo(1L)));
+  }
+
   @Test
   public void shouldRolloverDecisionIsDelegatedToConditions() {
     givenThePolicyIsInitialized();
@@ -112,6 +232,30 @@ public class TimeAndSizeBasedRollingPolicyTest extends ConfiguredUnitTest {
     thenTheRolledFileNameFollowsTheExpectedPattern();
   }
 
+  @Test
+  public void whenFilesRollHourly_thenTheRolledFileNameIncludesTheHour() throws Exception {
+    timeAndSizeBasedRollingPolicyUnderTest =
+        new TimeAndSizeBasedRollingPolicy(new TimeAndSizeBasedRollingPolicyConfig().withRollingIntervalOf(1, TimeUnit.HOURS));
+    injectMocks();
+    givenThePolicyIsInitialized();
+
+    timeAndSizeBasedRollingPolicyUnderTest.rolloverAvroFile();
+
+    assertThat(getLastRolledfile().getFileName(), matchesRegex("[a-zA-Z/]+-\\d{4}-\\d{2}-\\d{2}-\\d{2}\\.\\d+\\.log"));
+  }
+
+  @Test
+  public void whenFilesRollHourly_andTheWriterIsRestarted_thenFilesRolledBeforeTheRestartAreKept() throws Exception {
+    thenFilesRolledHourlyBeforeARestartAreKept(new TimeAndSizeBasedRollingPolicyConfig().withRollingIntervalOf(1, TimeUnit.HOURS));
+  }
+
+  @Test
+  public void whenFilesRollHourly_andARollingIndexFileIsUsed_andTheWriterIsRestarted_thenFilesRolledBeforeTheRestartAreKept()
+      throws Exception {
+    thenFilesRolledHourlyBeforeARestartAreKept(new TimeAndSizeBasedRollingPolicyConfig().withRollingIntervalOf(1, TimeUnit.HOURS)
+                                                                                        .withRollingIndexFile());
+  }
+
   @Test
   public void whenFileIsRolledOver_andTimeBasedRollIsDue_thenRolledFileNameDateIsYesterday() throws Exception {
     givenThePolicyIsInitialized();
@@ -170,6 +314,22 @@ public class TimeAndSizeBasedRollingPolicyTest extends ConfiguredUnitTest {
     thenInfoAboutTheEventIsPropagatedToConditions();
   }
 
+  @Test
+  public void whenFileIsRolledOver_thenTheRolledFileNameIsReported() throws Exception {
+    givenThePolicyIsInitialized();
+
+    timeAndSizeBasedRollingPolicyUnderTest.rolloverAvroFile();
+
+    assertThat(Files.exists(timeAndSizeBasedRollingPolicyUnderTest.getLastRolledFilename()), is(true));
+  }
+
+  @Test
+  public void whenFileHasNotBeenRolledOver_thenNoRolledFileNameIsReported() throws Exception {
+    givenThePolicyIsInitialized();
+
+    assertThat(timeAndSizeBasedRollingPolicyUnderTest.getLastRolledFilename(), is(nullValue()));
+  }
+
   @Test(expected = FileRollingException.class)
   public void whenFileIsRolledOver_andTheFileFailsToRoll_thenAFileRollingExceptionIsThrown() throws Exception {
     givenThePolicyIsInitialized();
@@ -179,8 +339,18 @@ public class TimeAndSizeBasedRollingPolicyTest extends ConfiguredUnitTest {
   }
 
   private void givenTheMaximumIndexInTheDirIs20() throws Exception {
-    testDirectory.newFile(AVRO_FILE_NAME + "-04.20.log");
-    testDirectory.newFile((AVRO_FILE_NAME + "-02.16.log"));
+    testDirectory.newFile(AVRO_FILE_NAME + "-" + today() + ".20.log");
+    testDirectory.newFile((AVRO_FILE_NAME + "-" + today() + ".16.log"));
+  }
+
+  private String today() {
+    return DateTime.now().toString("yyyy-MM-dd");
+  }
+
+  private void givenAPolicyUsingARollingIndexFile() {
+    timeAndSizeBasedRollingPolicyUnderTest =
+        new TimeAndSizeBasedRollingPolicy(new TimeAndSizeBasedRollingPolicyConfig().withRollingIndexFile());
+    injectMocks();
   }
 
   private void givenThePolicyIsInitialized() {
@@ -217,6 +387,25 @@ public class TimeAndSizeBasedRollingPolicyTest extends ConfiguredUnitTest {
     assertThat(getLastRolledfile().getFileName(), matchesRegex("[a-zA-Z/]+-\\d{4}-\\d{2}-\\d{2}\\.\\d+\\.log"));
   }
 
+  private void thenFilesRolledHourlyBeforeARestartAreKept(TimeAndSizeBasedRollingPolicyConfig configuration)
+      throws Exception {
+    timeAndSizeBasedRollingPolicyUnderTest = new TimeAndSizeBasedRollingPolicy(configuration);
+    givenThePolicyIsInitialized();
+    Files.write(testAvroPath, "before the restart".getBytes());
+    timeAndSizeBasedRollingPolicyUnderTest.rolloverAvroFile();
+    Path rolledBeforeTheRestart = timeAndSizeBasedRollingPolicyUnderTest.getLastRolledFilename();
+
+    timeAndSizeBasedRollingPolicyUnderTest = new TimeAndSizeBasedRollingPolicy(configuration);
+    initTestAvroFileTo(testDirectory.newFile(AVRO_FILE_NAME));
+    givenThePolicyIsInitialized();
+    Files.write(testAvroPath, "after the restart".getBytes());
+    timeAndSizeBasedRollingPolicyUnderTest.rolloverAvroFile();
+
+    assertThat(rolledBeforeTheRestart.getFileName().toString(), endsWith(".0.log"));
+    assertThat(new String(Files.readAllBytes(rolledBeforeTheRestart)), is(equalTo("before the restart")));
+    assertThat(timeAndSizeBasedRollingPolicyUnderTest.getLastRolledFilename(), is(not(equalTo(rolledBeforeTheRestart))));
+  }
+
   private void thenInfoAboutTheEventIsPropagatedToConditions() {
     verify(timeBasedRollingConditionMock).signalRollover();
     verify(sizeBasedRollingConditionMock).signalRollover();
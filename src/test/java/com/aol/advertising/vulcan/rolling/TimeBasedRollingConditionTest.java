@@ -3,68 +3,82 @@ package com.aol.advertising.vulcan.rolling;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
-import static org.mockito.Mockito.when;
-import static org.powermock.api.mockito.PowerMockito.mockStatic;
-import static org.powermock.api.mockito.PowerMockito.whenNew;
+
+import java.util.concurrent.TimeUnit;
 
 import org.joda.time.DateTime;
+import org.joda.time.DateTimeUtils;
+import org.joda.time.DateTimeZone;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
-import org.junit.runner.RunWith;
-import org.mockito.Mock;
-import org.powermock.core.classloader.annotations.PrepareForTest;
-import org.powermock.modules.junit4.PowerMockRunner;
-import org.powermock.reflect.Whitebox;
 
-import com.aol.advertising.vulcan.ConfiguredUnitTest;
-import com.aol.advertising.vulcan.rolling.TimeBasedRollingCondition;
+import com.aol.advertising.vulcan.partitioning.TimeBuckets;
 
-@RunWith(PowerMockRunner.class)
-@PrepareForTest({DateTime.class, TimeBasedRollingCondition.class})
-public class TimeBasedRollingConditionTest extends ConfiguredUnitTest {
+public class TimeBasedRollingConditionTest {
 
-  private TimeBasedRollingCondition timeBasedRollingConditionUnderTest;
+  private static final DateTimeZone MADRID = DateTimeZone.forID("Europe/Madrid");
 
-  @Mock
-  private DateTime lastRollDateTimeMock;
-  @Mock
-  private DateTime nowMock;
-  @Mock
-  private DateTime startOfTodayMock;
+  private TimeBasedRollingCondition timeBasedRollingConditionUnderTest;
 
   @Before
-  public void setUp() throws Exception {
-    initMocks();
+  public void setUp() {
+    givenTheTimeIs(new DateTime(2015, 6, 1, 23, 30, MADRID));
 
-    timeBasedRollingConditionUnderTest = new TimeBasedRollingCondition();
+    timeBasedRollingConditionUnderTest = new TimeBasedRollingCondition(new TimeBuckets(TimeUnit.DAYS.toMillis(1), MADRID));
   }
 
-  private void initMocks() throws Exception {
-    mockStatic(DateTime.class);
-
-    when(DateTime.now()).thenReturn(lastRollDateTimeMock, nowMock);
-    whenNew(DateTime.class).withNoArguments().thenReturn(nowMock);
+  @After
+  public void tearDown() {
+    DateTimeUtils.setCurrentMillisSystem();
   }
 
   @Test
-  public void whenARolloverIsSignaled_thenLastRollIsUpdatedToNow() {
-    timeBasedRollingConditionUnderTest.signalRollover();
+  public void whenTheDayOfTheLastRollHasNotEnded_thenRolloverShouldNotHappen() {
+    givenTheTimeIs(new DateTime(2015, 6, 1, 23, 59, 59, 999, MADRID));
 
-    assertThat(Whitebox.getInternalState(timeBasedRollingConditionUnderTest, DateTime.class), is(equalTo(nowMock)));
+    assertThat(timeBasedRollingConditionUnderTest.shouldRollover(), is(equalTo(false)));
   }
 
   @Test
   public void whenLastRollHappenedBeforeToday_thenRolloverShouldHappen() {
-    givenLastRollHappenedBeforeToday();
+    givenTheTimeIs(new DateTime(2015, 6, 2, 0, 0, MADRID));
 
-    boolean rolloverShouldHappen = timeBasedRollingConditionUnderTest.shouldRollover();
+    assertThat(timeBasedRollingConditionUnderTest.shouldRollover(), is(equalTo(true)));
+  }
+
+  @Test
+  public void whenARolloverIsSignaled_thenRolloverShouldNotHappenUntilTheNextDay() {
+    givenTheTimeIs(new DateTime(2015, 6, 2, 0, 1, MADRID));
+
+    timeBasedRollingConditionUnderTest.signalRollover();
 
-    assertThat(rolloverShouldHappen, is(equalTo(true)));
+    assertThat(timeBasedRollingConditionUnderTest.shouldRollover(), is(equalTo(false)));
+    givenTheTimeIs(new DateTime(2015, 6, 3, 0, 0, MADRID));
+    assertThat(timeBasedRollingConditionUnderTest.shouldRollover(), is(equalTo(true)));
   }
 
-  private void givenLastRollHappenedBeforeToday() {
-    when(nowMock.withTimeAtStartOfDay()).thenReturn(startOfTodayMock);
-    when(lastRollDateTimeMock.isBefore(startOfTodayMock)).thenReturn(true);
+  @Test
+  public void whenRollingHourly_thenRolloverShouldHappenAtTheNextHour() {
+    timeBasedRollingConditionUnderTest = new TimeBasedRollingCondition(new TimeBuckets(TimeUnit.HOURS.toMillis(1), MADRID));
+
+    givenTheTimeIs(new DateTime(2015, 6, 1, 23, 59, MADRID));
+    assertThat(timeBasedRollingConditionUnderTest.shouldRollover(), is(equalTo(false)));
+    givenTheTimeIs(new DateTime(2015, 6, 2, 0, 0, MADRID));
+    assertThat(timeBasedRollingConditionUnderTest.shouldRollover(), is(equalTo(true)));
   }
 
+  @Test
+  public void whenTheTimeZoneIsAheadOfUtc_thenRolloverShouldHappenAtItsLocalMidnight() {
+    givenTheTimeIs(new DateTime(2015, 6, 1, 21, 30, DateTimeZone.UTC));
+    timeBasedRollingConditionUnderTest.signalRollover();
+
+    givenTheTimeIs(new DateTime(2015, 6, 1, 22, 0, DateTimeZone.UTC));
+
+    assertThat(timeBasedRollingConditionUnderTest.shouldRollover(), is(equalTo(true)));
+  }
+
+  private void givenTheTimeIs(DateTime now) {
+    DateTimeUtils.setCurrentMillisFixed(now.getMillis());
+  }
 }
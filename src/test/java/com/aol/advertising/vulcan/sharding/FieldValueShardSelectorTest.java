@@ -0,0 +1,51 @@
+package com.aol.advertising.vulcan.sharding;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.aol.advertising.vulcan.TestAvroRecord;
+
+public class FieldValueShardSelectorTest {
+
+  private static final int NUMBER_OF_SHARDS = 4;
+
+  private FieldValueShardSelector fieldValueShardSelectorUnderTest;
+
+  @Before
+  public void setUp() {
+    fieldValueShardSelectorUnderTest = new FieldValueShardSelector("name");
+  }
+
+  @Test
+  public void whenRecordsShareTheKeyFieldValue_thenTheSameShardIsSelectedForAllOfThem() {
+    int firstSelection = fieldValueShardSelectorUnderTest.selectShardFor(new TestAvroRecord("Zipi", 1), NUMBER_OF_SHARDS);
+    int secondSelection = fieldValueShardSelectorUnderTest.selectShardFor(new TestAvroRecord("Zipi", 2), NUMBER_OF_SHARDS);
+
+    assertThat(secondSelection, is(equalTo(firstSelection)));
+  }
+
+  @Test
+  public void whenAShardIsSelected_thenItIsAValidShardIndex() {
+    for (int i = 0; i < 1000; i++) {
+      int selectedShard = fieldValueShardSelectorUnderTest.selectShardFor(new TestAvroRecord("Zape" + i, i), NUMBER_OF_SHARDS);
+      assertThat(selectedShard, is(greaterThanOrEqualTo(0)));
+      assertThat(selectedShard, is(lessThan(NUMBER_OF_SHARDS)));
+    }
+  }
+
+  @Test
+  public void whenTheKeyFieldValueIsNull_thenTheFirstShardIsSelected() {
+    assertThat(fieldValueShardSelectorUnderTest.selectShardFor(new TestAvroRecord(null, 1), NUMBER_OF_SHARDS), is(equalTo(0)));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void whenTheKeyFieldDoesNotExistInTheRecord_thenAnIllegalArgumentExceptionIsThrown() {
+    new FieldValueShardSelector("Rompetechos").selectShardFor(new TestAvroRecord("Zipi", 1), NUMBER_OF_SHARDS);
+  }
+}
@@ -0,0 +1,22 @@
+package com.aol.advertising.vulcan.sharding;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import org.junit.Test;
+
+public class RoundRobinShardSelectorTest {
+
+  @Test
+  public void whenShardsAreSelectedRepeatedly_thenAllShardsAreVisitedInTurn() {
+    RoundRobinShardSelector roundRobinShardSelectorUnderTest = new RoundRobinShardSelector();
+
+    int[] selectedShards = new int[7];
+    for (int i = 0; i < selectedShards.length; i++) {
+      selectedShards[i] = roundRobinShardSelectorUnderTest.selectShardFor(null, 3);
+    }
+
+    assertThat(selectedShards, is(equalTo(new int[] {0, 1, 2, 0, 1, 2, 0})));
+  }
+}
@@ -0,0 +1,21 @@
+package com.aol.advertising.vulcan.sharding;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import org.junit.Test;
+
+public class ThreadAffinityShardSelectorTest {
+
+  @Test
+  public void whenShardsAreSelectedFromTheSameThread_thenTheSameShardIsAlwaysSelected() {
+    ThreadAffinityShardSelector threadAffinityShardSelectorUnderTest = new ThreadAffinityShardSelector();
+
+    int firstSelection = threadAffinityShardSelectorUnderTest.selectShardFor(null, 5);
+
+    for (int i = 0; i < 10; i++) {
+      assertThat(threadAffinityShardSelectorUnderTest.selectShardFor(null, 5), is(equalTo(firstSelection)));
+    }
+  }
+}
@@ -0,0 +1,24 @@
+package com.aol.advertising.vulcan.writer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileConstants;
+import org.junit.Test;
+
+public class AvroCodecsTest {
+
+  @Test
+  public void whenTheNameOfACodecIsRequested_thenTheNameStoredInAvroFilesIsReturned() {
+    assertThat(AvroCodecs.nameOf(CodecFactory.deflateCodec(9)), is(equalTo(DataFileConstants.DEFLATE_CODEC)));
+    assertThat(AvroCodecs.nameOf(CodecFactory.bzip2Codec()), is(equalTo(DataFileConstants.BZIP2_CODEC)));
+    assertThat(AvroCodecs.nameOf(CodecFactory.nullCodec()), is(equalTo(DataFileConstants.NULL_CODEC)));
+  }
+
+  @Test
+  public void whenAFileDoesNotStoreItsCodec_thenItIsConsideredUncompressed() {
+    assertThat(AvroCodecs.nameOf((String) null), is(equalTo(DataFileConstants.NULL_CODEC)));
+  }
+}
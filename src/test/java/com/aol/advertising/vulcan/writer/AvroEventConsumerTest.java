@@ -3,23 +3,43 @@ package com.aol.advertising.vulcan.writer;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isA;
 import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.powermock.api.mockito.PowerMockito.doAnswer;
+import static org.powermock.api.mockito.PowerMockito.doReturn;
 import static org.powermock.api.mockito.PowerMockito.doThrow;
+import static org.powermock.api.mockito.PowerMockito.verifyNew;
 import static org.powermock.api.mockito.PowerMockito.whenNew;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.avro.Schema;
 import org.apache.avro.Schema.Type;
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileConstants;
 import org.apache.avro.file.DataFileReader;
+import org.apache.avro.file.DataFileStream;
 import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.file.SeekableInput;
 import org.apache.avro.generic.GenericDatumReader;
 import org.apache.avro.io.DatumReader;
 import org.apache.avro.specific.SpecificRecord;
@@ -29,6 +49,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.invocation.InvocationOnMock;
@@ -37,15 +58,30 @@ import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
 import com.aol.advertising.vulcan.ConfiguredUnitTest;
+import com.aol.advertising.vulcan.TestAvroRecord;
+import com.aol.advertising.vulcan.api.durability.DurabilityPolicy;
+import com.aol.advertising.vulcan.api.filter.RecordFilter;
+import com.aol.advertising.vulcan.api.flush.FlushPolicy;
+import com.aol.advertising.vulcan.api.overflow.ConsumerAssistedOverflowPolicy;
+import com.aol.advertising.vulcan.api.rolling.BatchLevelRollingPolicy;
+import com.aol.advertising.vulcan.api.rolling.FileSizeAwareRollingPolicy;
+import com.aol.advertising.vulcan.api.rolling.RolledFileAwareRollingPolicy;
 import com.aol.advertising.vulcan.api.rolling.RollingPolicy;
 import com.aol.advertising.vulcan.exception.FileRollingException;
+import com.aol.advertising.vulcan.metrics.RecordingWriterMetrics;
 import com.aol.advertising.vulcan.ringbuffer.AvroEvent;
+import com.aol.advertising.vulcan.ringbuffer.DurableWrite;
+import com.aol.advertising.vulcan.ringbuffer.EncodedRecordBuffer;
 import com.aol.advertising.vulcan.writer.AvroEventConsumer;
 
+@org.powermock.core.classloader.annotations.PowerMockIgnore({"jdk.internal.reflect.*", "javax.management.*"})
 @RunWith(PowerMockRunner.class)
 @PrepareForTest({DataFileReader.class, AvroEventConsumer.class})
 public class AvroEventConsumerTest extends ConfiguredUnitTest {
 
+  private static final byte[] ROLLED_FILE_CONTENTS = {4, 5, 6};
+  private static final byte[] STANDBY_FILE_HEADER = {7, 8, 9, 10};
+
   private AvroEventConsumer avroEventConsumerUnderTest;
 
   @Mock
@@ -55,6 +91,12 @@ public class AvroEventConsumerTest extends ConfiguredUnitTest {
   @Mock
   private RollingPolicy rollingPolicyMock;
   @Mock
+  private FileSizeAwareRollingPolicy fileSizeAwareRollingPolicyMock;
+  @Mock
+  private RolledFileAwareRollingPolicy rolledFileAwareRollingPolicyMock;
+  @Mock
+  private BatchLevelRollingPolicy batchLevelRollingPolicyMock;
+  @Mock
   private DataFileWriter<SpecificRecord> avroFileWriterMock;
   @Mock
   private DataFileReader<SpecificRecord> fileReaderMock;
@@ -62,6 +104,28 @@ public class AvroEventConsumerTest extends ConfiguredUnitTest {
   private AvroEvent avroEventMock;
   @Mock
   private SpecificRecord avroRecordMock;
+  @Mock
+  private EncodedRecordBuffer encodedRecordBufferMock;
+  @Mock
+  private DataFileStream<SpecificRecord> fileToAppendMock;
+  @Mock
+  private ConsumerAssistedOverflowPolicy overflowPolicyMock;
+  @Mock
+  private RecordFilter recordFilterMock;
+  @Mock
+  private RecordingWriterMetrics metricsMock;
+  @Mock
+  private FlushPolicy flushPolicyMock;
+  @Mock
+  private DurabilityPolicy durabilityPolicyMock;
+  @Mock
+  private ExecutorService rolloverExecutorMock;
+  @Mock
+  private Future<StandbyFile> standbyFileFutureMock;
+  @Mock
+  private DataFileWriter<SpecificRecord> standbyFileWriterMock;
+
+  private final ByteBuffer encodedRecordBytes = ByteBuffer.wrap(new byte[] {1, 2, 3});
 
   private File testAvroFile;
   private Path testAvroPath;
@@ -157,6 +221,53 @@ public class AvroEventConsumerTest extends ConfiguredUnitTest {
     thenExistingFileIsUsedForWriting();
   }
 
+  @Test
+  public void whenACodecIsConfigured_andConsumerIsStarted_thenTheFileWriterCompressesWithIt() throws Exception {
+    givenDestinationFileDoesNotExist();
+    CodecFactory codec = CodecFactory.deflateCodec(9);
+    avroEventConsumerUnderTest.compressWith(codec);
+
+    avroEventConsumerUnderTest.onStart();
+
+    verify(avroFileWriterMock).setCodec(codec);
+  }
+
+  @Test
+  public void whenASyncIntervalIsConfigured_andConsumerIsStarted_thenTheFileWriterUsesIt() throws Exception {
+    givenDestinationFileDoesNotExist();
+    avroEventConsumerUnderTest.useSyncInterval(65536);
+
+    avroEventConsumerUnderTest.onStart();
+
+    verify(avroFileWriterMock).setSyncInterval(65536);
+  }
+
+  @Test
+  public void whenACodecIsConfigured_andDestinationFileExists_andCodecsDiffer_thenExistingFileIsRolled()
+      throws Exception {
+    givenDestinationFileExists();
+    givenSchemasAreEqual();
+    givenTheFileCanBeRolled();
+    avroEventConsumerUnderTest.compressWith(CodecFactory.deflateCodec(9));
+
+    avroEventConsumerUnderTest.onStart();
+
+    thenExistingFileIsRolled();
+  }
+
+  @Test
+  public void whenACodecIsConfigured_andDestinationFileExists_andCodecsAreEqual_thenExistingFileIsUsedForWriting()
+      throws Exception {
+    givenDestinationFileExists();
+    givenSchemasAreEqual();
+    when(fileReaderMock.getMetaString(DataFileConstants.CODEC)).thenReturn(DataFileConstants.DEFLATE_CODEC);
+    avroEventConsumerUnderTest.compressWith(CodecFactory.deflateCodec(9));
+
+    avroEventConsumerUnderTest.onStart();
+
+    thenExistingFileIsUsedForWriting();
+  }
+
   @Test
   public void whenConsumerIsShutdown_thenWriterIsCleanedUp() throws Exception {
     givenAnInitializedEventConsumer();
@@ -211,6 +322,141 @@ public class AvroEventConsumerTest extends ConfiguredUnitTest {
     }
   }
 
+  @Test
+  public void whenAnEventIsReceived_andRolloverIsDue_andRolledFilesAreFinishedInTheBackground_thenANewFileIsCreatedWithoutClosingTheRolledOne()
+      throws Exception {
+    avroEventConsumerUnderTest.finishRolledFilesOn(rolloverExecutorMock, false);
+    givenTheEventConsumerIsStarted();
+    givenRollIsDue();
+    givenTheFileCanBeRolled();
+
+    avroEventConsumerUnderTest.onEvent(avroEventMock, -1, false);
+
+    verify(avroFileWriterMock, never()).close();
+    thenANewFileIsUsedForWriting();
+    verify(rolloverExecutorMock).execute(any(Runnable.class));
+  }
+
+  @Test
+  public void whenRolloverIsDue_andRolledFilesAreFinishedInTheBackground_andThePolicyReportsRolledFiles_thenTheFileIsRolledUnderAPartialName()
+      throws Exception {
+    avroEventConsumerUnderTest = new AvroEventConsumer(testAvroPath, avroSchemaMock, rolledFileAwareRollingPolicyMock);
+    avroEventConsumerUnderTest.finishRolledFilesOn(rolloverExecutorMock, false);
+    givenTheEventConsumerIsStarted();
+    when(rolledFileAwareRollingPolicyMock.shouldRollover(avroRecordMock)).thenReturn(true);
+
+    avroEventConsumerUnderTest.onEvent(avroEventMock, -1, false);
+
+    verify(rolledFileAwareRollingPolicyMock).rolloverAvroFileAsPartial(".part");
+    verify(rolledFileAwareRollingPolicyMock, never()).rolloverAvroFile();
+    verify(avroFileWriterMock, never()).close();
+    verify(rolloverExecutorMock).execute(any(Runnable.class));
+  }
+
+  @Test
+  public void whenAnEventIsReceived_andRolloverIsDue_andRolledFilesAreFinishedInTheBackground_andTheFileCannotBeRolled_thenWriterKeepsWritingToExistingFile()
+      throws Exception {
+    avroEventConsumerUnderTest.finishRolledFilesOn(rolloverExecutorMock, false);
+    givenTheEventConsumerIsStarted();
+    givenRollIsDue();
+    givenTheFileCannotBeRolled();
+
+    try {
+      avroEventConsumerUnderTest.onEvent(avroEventMock, -1, false);
+      Assert.fail();
+    } catch (IOException e) {
+      verify(avroFileWriterMock, never()).close();
+      verify(avroFileWriterMock).appendTo(any(SeekableInput.class), any(OutputStream.class));
+      verify(rolloverExecutorMock, never()).execute(any(Runnable.class));
+    }
+  }
+
+  @Test
+  public void whenTheConsumerIsStarted_andAStandbyFileIsKept_thenTheStandbyFileIsPreparedInTheBackground()
+      throws Exception {
+    avroEventConsumerUnderTest.finishRolledFilesOn(rolloverExecutorMock, false);
+    avroEventConsumerUnderTest.keepAStandbyFile();
+
+    givenTheEventConsumerIsStarted();
+
+    verify(rolloverExecutorMock).submit(any(Callable.class));
+  }
+
+  @Test
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  public void whenAStandbyFileIsPrepared_thenItsFileWriterDoesNotSetTheSchemaOfTheDatumWriterOfTheConsumer()
+      throws Exception {
+    avroEventConsumerUnderTest.finishRolledFilesOn(rolloverExecutorMock, false);
+    avroEventConsumerUnderTest.keepAStandbyFile();
+    givenTheEventConsumerIsStarted();
+    ArgumentCaptor<Callable> standbyFilePreparation = ArgumentCaptor.forClass(Callable.class);
+    verify(rolloverExecutorMock).submit(standbyFilePreparation.capture());
+
+    standbyFilePreparation.getValue().call();
+
+    verifyNew(DataFileWriter.class).withArguments(isA(PresetSchemaDatumWriter.class));
+  }
+
+  @Test
+  public void whenAnEventIsReceived_andRolloverIsDue_andAStandbyFileIsKept_thenTheStandbyFileTakesTheDestinationFileName()
+      throws Exception {
+    avroEventConsumerUnderTest.finishRolledFilesOn(rolloverExecutorMock, false);
+    avroEventConsumerUnderTest.keepAStandbyFile();
+    givenAStandbyFileIsReady();
+    givenTheEventConsumerIsStarted();
+    givenRollIsDue();
+    givenTheFileCanBeRolled();
+
+    avroEventConsumerUnderTest.onEvent(avroEventMock, -1, false);
+
+    assertThat(testAvroFile.exists(), is(true));
+    verify(standbyFileWriterMock, never()).close();
+    verify(avroFileWriterMock, never()).create(eq(avroSchemaMock), any(OutputStream.class));
+  }
+
+  @Test
+  public void whenAnEventIsReceived_andRolloverIsDue_andAStandbyFileIsKept_thenItsHeaderIsOnlyCountedOnceItTakesTheDestinationFileName()
+      throws Exception {
+    avroEventConsumerUnderTest.reportMetricsTo(metricsMock);
+    avroEventConsumerUnderTest.finishRolledFilesOn(rolloverExecutorMock, false);
+    avroEventConsumerUnderTest.keepAStandbyFile();
+    givenAStandbyFileIsReady();
+    givenTheEventConsumerIsStarted();
+    givenRollIsDue();
+    givenTheFileCanBeRolled();
+    verify(metricsMock, never()).recordBytesWritten(STANDBY_FILE_HEADER.length);
+
+    avroEventConsumerUnderTest.onEvent(avroEventMock, -1, false);
+
+    verify(metricsMock).recordBytesWritten(STANDBY_FILE_HEADER.length);
+  }
+
+  @Test
+  public void whenTheConsumerIsShutdown_andRolledFilesAreFinishedInTheBackground_thenItWaitsForRolledFilesToBeFinished()
+      throws Exception {
+    avroEventConsumerUnderTest.finishRolledFilesOn(rolloverExecutorMock, false);
+    givenTheEventConsumerIsStarted();
+
+    avroEventConsumerUnderTest.onShutdown();
+
+    verify(rolloverExecutorMock).shutdown();
+    verify(rolloverExecutorMock).awaitTermination(anyLong(), any(TimeUnit.class));
+  }
+
+  @Test
+  public void whenTheConsumerIsShutdown_andItSharesItsExecutors_thenItWaitsForItsRolledFiles_andLeavesTheExecutorRunning()
+      throws Exception {
+    avroEventConsumerUnderTest.finishRolledFilesOn(rolloverExecutorMock, false);
+    avroEventConsumerUnderTest.shareExecutors();
+    doReturn(standbyFileFutureMock).when(rolloverExecutorMock).submit(any(Runnable.class));
+    givenTheEventConsumerIsStarted();
+
+    avroEventConsumerUnderTest.onShutdown();
+
+    verify(standbyFileFutureMock).get();
+    verify(rolloverExecutorMock, never()).shutdown();
+  }
+
   @Test
   public void whenAnEventIsReceived_andItIsAnEndOfBatch_thenRecordsAreWrittenToDisk() throws Exception {
     givenAnInitializedEventConsumer();
@@ -220,6 +466,446 @@ public class AvroEventConsumerTest extends ConfiguredUnitTest {
     thenRecordsAreWrittenToDisk();
   }
 
+  @Test
+  public void whenAnEventWithAnEncodedRecordIsReceived_thenTheEncodedBytesAreWrittenToTheDestinationFile() throws Exception {
+    givenAnInitializedEventConsumer();
+    givenTheEventHasAnEncodedRecord();
+
+    avroEventConsumerUnderTest.onEvent(avroEventMock, -1, false);
+
+    verify(avroFileWriterMock).appendEncoded(encodedRecordBytes);
+    verify(avroFileWriterMock, never()).append(avroRecordMock);
+  }
+
+  @Test
+  public void whenAnEventWithAnOffHeapEncodedRecordIsReceived_thenAHeapCopyOfTheEncodedBytesIsWritten() throws Exception {
+    givenAnInitializedEventConsumer();
+    givenTheEventHasAnEncodedRecord();
+    ByteBuffer offHeapBytes = ByteBuffer.allocateDirect(3);
+    offHeapBytes.put(new byte[] {1, 2, 3}).flip();
+    when(encodedRecordBufferMock.asByteBuffer()).thenReturn(offHeapBytes);
+
+    avroEventConsumerUnderTest.onEvent(avroEventMock, -1, false);
+
+    verify(avroFileWriterMock).appendEncoded(encodedRecordBytes);
+  }
+
+  @Test
+  public void whenAnEventWithAFileToAppendIsReceived_thenItsBlocksAreAppendedToTheDestinationFile_andItIsClosed()
+      throws Exception {
+    givenAnInitializedEventConsumer();
+    givenTheEventHasAFileToAppend();
+
+    avroEventConsumerUnderTest.onEvent(avroEventMock, -1, false);
+
+    InOrder appendingOrder = inOrder(avroFileWriterMock, fileToAppendMock);
+    appendingOrder.verify(avroFileWriterMock).appendAllFrom(fileToAppendMock, false);
+    appendingOrder.verify(fileToAppendMock).close();
+    verify(avroFileWriterMock, never()).append(avroRecordMock);
+  }
+
+  @Test
+  public void whenAnEventWithAFileToAppendIsReceived_andItCannotBeAppended_thenItIsClosed_andItsFutureFails()
+      throws Exception {
+    givenAnInitializedEventConsumer();
+    givenTheEventHasAFileToAppend();
+    DurableWrite durableWrite = givenTheEventIsWrittenDurably();
+    doThrow(new IOException("boom")).when(avroFileWriterMock).appendAllFrom(fileToAppendMock, false);
+
+    try {
+      avroEventConsumerUnderTest.onEvent(avroEventMock, -1, false);
+      Assert.fail();
+    } catch (IOException e) {
+      verify(fileToAppendMock).close();
+      assertThat(durableWrite.isDone(), is(equalTo(true)));
+    }
+  }
+
+  @Test
+  public void whenADiscardedEventIsReceived_thenNothingIsWrittenToTheDestinationFile() throws Exception {
+    givenAnInitializedEventConsumer();
+    when(avroEventMock.isDiscarded()).thenReturn(true);
+
+    avroEventConsumerUnderTest.onEvent(avroEventMock, -1, false);
+
+    verify(avroFileWriterMock, never()).append(any(SpecificRecord.class));
+    verify(avroFileWriterMock, never()).appendEncoded(any(ByteBuffer.class));
+  }
+
+  @Test
+  public void whenAnEventIsReceived_andTheOverflowPolicyIsSheddingLoad_thenNothingIsWrittenToTheDestinationFile()
+      throws Exception {
+    givenAnInitializedEventConsumer();
+    avroEventConsumerUnderTest.assistOverflowPolicy(overflowPolicyMock);
+    when(overflowPolicyMock.shouldDiscardNextEvent()).thenReturn(true);
+
+    avroEventConsumerUnderTest.onEvent(avroEventMock, -1, false);
+
+    verify(avroFileWriterMock, never()).append(any(SpecificRecord.class));
+  }
+
+  @Test
+  public void whenAnEventIsReceived_andTheOverflowPolicyIsSheddingLoad_thenTheRecordIsCountedAsDropped()
+      throws Exception {
+    givenAnInitializedEventConsumer();
+    avroEventConsumerUnderTest.reportMetricsTo(metricsMock);
+    avroEventConsumerUnderTest.assistOverflowPolicy(overflowPolicyMock);
+    when(overflowPolicyMock.shouldDiscardNextEvent()).thenReturn(true);
+
+    avroEventConsumerUnderTest.onEvent(avroEventMock, -1, false);
+
+    verify(metricsMock).recordShedRecord();
+  }
+
+  @Test
+  public void whenAnEventIsReceived_andTheRecordFilterDropsItsRecord_thenNothingIsWrittenToTheDestinationFile()
+      throws Exception {
+    givenAnInitializedEventConsumer();
+    avroEventConsumerUnderTest.filterRecordsWith(recordFilterMock);
+
+    avroEventConsumerUnderTest.onEvent(avroEventMock, -1, false);
+
+    verify(recordFilterMock).shouldWrite(avroRecordMock);
+    verify(avroFileWriterMock, never()).append(any(SpecificRecord.class));
+    verify(rollingPolicyMock, never()).shouldRollover(any(SpecificRecord.class));
+  }
+
+  @Test
+  public void whenAnEventIsReceived_andTheRecordFilterWritesItsRecord_thenTheRecordIsWrittenToTheDestinationFile()
+      throws Exception {
+    givenAnInitializedEventConsumer();
+    avroEventConsumerUnderTest.filterRecordsWith(recordFilterMock);
+    when(recordFilterMock.shouldWrite(avroRecordMock)).thenReturn(true);
+
+    avroEventConsumerUnderTest.onEvent(avroEventMock, -1, false);
+
+    verify(avroFileWriterMock).append(avroRecordMock);
+  }
+
+  @Test
+  public void whenAnEventToWriteDurablyIsReceived_andTheRecordFilterDropsItsRecord_thenTheDurableWriteIsCompleted()
+      throws Exception {
+    givenAnInitializedEventConsumer();
+    avroEventConsumerUnderTest.filterRecordsWith(recordFilterMock);
+    DurableWrite durableWrite = givenTheEventIsWrittenDurably();
+
+    avroEventConsumerUnderTest.onEvent(avroEventMock, -1, false);
+
+    assertThat(durableWrite.isDone(), is(equalTo(true)));
+    verify(avroFileWriterMock, never()).fSync();
+  }
+
+  @Test
+  public void whenAnEventWithAnEncodedRecordIsReceived_andARecordFilterIsConfigured_thenTheEncodedRecordIsWritten()
+      throws Exception {
+    givenAnInitializedEventConsumer();
+    avroEventConsumerUnderTest.filterRecordsWith(recordFilterMock);
+    when(avroEventMock.getAvroRecord()).thenReturn(null);
+    when(avroEventMock.hasEncodedRecord()).thenReturn(true);
+    when(avroEventMock.getEncodedRecord()).thenReturn(encodedRecordBufferMock);
+    when(encodedRecordBufferMock.asByteBuffer()).thenReturn(encodedRecordBytes);
+
+    avroEventConsumerUnderTest.onEvent(avroEventMock, -1, false);
+
+    verify(recordFilterMock, never()).shouldWrite(any(SpecificRecord.class));
+    verify(avroFileWriterMock).appendEncoded(encodedRecordBytes);
+  }
+
+  @Test
+  public void whenARecordIsAppendedDirectly_andTheRecordFilterDropsIt_thenNothingIsWrittenToTheDestinationFile()
+      throws Exception {
+    givenAnInitializedEventConsumer();
+    avroEventConsumerUnderTest.filterRecordsWith(recordFilterMock);
+
+    avroEventConsumerUnderTest.append(avroRecordMock);
+
+    verify(avroFileWriterMock, never()).append(any(SpecificRecord.class));
+  }
+
+  @Test
+  public void whenAnEventIsReceived_andRecordsAreProjected_thenTheProjectionOfTheRecordIsWritten() throws Exception {
+    Schema projectedSchema = new Schema.Parser().parse(
+        "{\"type\": \"record\", \"name\": \"Projection\", \"fields\": [{\"name\": \"count\", \"type\": \"int\"}]}");
+    givenAnInitializedEventConsumer();
+    avroEventConsumerUnderTest.projectRecordsWith(new RecordProjection(TestAvroRecord.SCHEMA, projectedSchema));
+    when(avroEventMock.getAvroRecord()).thenReturn(new TestAvroRecord("Zipi", 42));
+
+    avroEventConsumerUnderTest.onEvent(avroEventMock, -1, false);
+
+    ArgumentCaptor<SpecificRecord> writtenRecord = ArgumentCaptor.forClass(SpecificRecord.class);
+    verify(avroFileWriterMock).append(writtenRecord.capture());
+    assertThat(writtenRecord.getValue().getSchema(), is(equalTo(projectedSchema)));
+    assertThat(writtenRecord.getValue().get(0), is(equalTo((Object) 42)));
+  }
+
+  @Test
+  public void whenTheLastEventInABatchIsReceived_thenRecordsRetainedByTheOverflowPolicyAreWrittenBeforeFlushing()
+      throws Exception {
+    givenAnInitializedEventConsumer();
+    avroEventConsumerUnderTest.assistOverflowPolicy(overflowPolicyMock);
+
+    avroEventConsumerUnderTest.onEvent(avroEventMock, -1, true);
+
+    InOrder inOrder = inOrder(overflowPolicyMock, avroFileWriterMock);
+    inOrder.verify(overflowPolicyMock).drainRetainedRecordsTo(avroEventConsumerUnderTest);
+    inOrder.verify(avroFileWriterMock).flush();
+  }
+
+  @Test
+  public void whenARecordIsAppendedDirectly_thenItIsWrittenToTheDestinationFileAndTheRollingPolicyIsApplied()
+      throws Exception {
+    givenAnInitializedEventConsumer();
+
+    avroEventConsumerUnderTest.append(avroRecordMock);
+
+    verify(avroFileWriterMock).append(avroRecordMock);
+    verify(rollingPolicyMock).shouldRollover(avroRecordMock);
+  }
+
+  @Test
+  public void whenTheRollingPolicyIsFileSizeAware_thenTheConsumerTracksTheFileSizeForIt() {
+    avroEventConsumerUnderTest = new AvroEventConsumer(testAvroPath, avroSchemaMock, fileSizeAwareRollingPolicyMock);
+
+    verify(fileSizeAwareRollingPolicyMock).trackFileSizeWith(avroEventConsumerUnderTest);
+  }
+
+  @Test
+  public void whenTheRollingPolicyIsCheckedPerBatch_thenItIsOnlyCheckedAtTheEndOfTheBatch() throws Exception {
+    givenAnInitializedEventConsumerWith(batchLevelRollingPolicyMock);
+
+    avroEventConsumerUnderTest.onEvent(avroEventMock, 1, false);
+    avroEventConsumerUnderTest.onEvent(avroEventMock, 2, false);
+    verify(batchLevelRollingPolicyMock, never()).shouldRollover(any(SpecificRecord.class));
+
+    avroEventConsumerUnderTest.onEvent(avroEventMock, 3, true);
+    verify(batchLevelRollingPolicyMock, times(1)).shouldRollover(null);
+  }
+
+  @Test
+  public void whenTheRollingPolicyIsCheckedPerBatch_andEveryNRecords_thenItIsCheckedWithinLongBatches()
+      throws Exception {
+    when(batchLevelRollingPolicyMock.getRecordsBetweenChecks()).thenReturn(2L);
+    givenAnInitializedEventConsumerWith(batchLevelRollingPolicyMock);
+
+    avroEventConsumerUnderTest.onEvent(avroEventMock, 1, false);
+    avroEventConsumerUnderTest.onEvent(avroEventMock, 2, false);
+    avroEventConsumerUnderTest.onEvent(avroEventMock, 3, false);
+
+    verify(batchLevelRollingPolicyMock, times(1)).shouldRollover(null);
+  }
+
+  @Test
+  public void whenTheRollingPolicyIsCheckedPerBatch_andNoRecordWasAppendedInTheBatch_thenItIsNotChecked()
+      throws Exception {
+    givenAnInitializedEventConsumerWith(batchLevelRollingPolicyMock);
+    when(avroEventMock.isDiscarded()).thenReturn(true);
+
+    avroEventConsumerUnderTest.onEvent(avroEventMock, 1, true);
+
+    verify(batchLevelRollingPolicyMock, never()).shouldRollover(any(SpecificRecord.class));
+  }
+
+  @Test
+  public void whenTheFileIsCreated_thenItsTrackedSizeIsTheSizeOfWhatWasWrittenToIt() throws Exception {
+    givenDestinationFileDoesNotExist();
+
+    avroEventConsumerUnderTest.onStart();
+
+    assertThat(avroEventConsumerUnderTest.getFileSizeInBytes(), is(equalTo(0L)));
+  }
+
+  @Test
+  public void whenTheFileIsCreated_andFilesAreMemoryMapped_thenItIsExtendedToTheMappingSize() throws Exception {
+    givenDestinationFileDoesNotExist();
+    avroEventConsumerUnderTest.memoryMapFilesIn(4096);
+
+    avroEventConsumerUnderTest.onStart();
+
+    assertThat(testAvroFile.length(), is(equalTo(4096L)));
+    assertThat(avroEventConsumerUnderTest.getFileSizeInBytes(), is(equalTo(0L)));
+  }
+
+  @Test
+  public void whenTheLastEventInABatchIsReceived_thenTheBatchAndTheFlushAreRecordedInTheMetrics() throws Exception {
+    givenAnInitializedEventConsumer();
+    avroEventConsumerUnderTest.reportMetricsTo(metricsMock);
+    when(avroEventMock.isDiscarded()).thenReturn(false, true, false);
+
+    avroEventConsumerUnderTest.onEvent(avroEventMock, 0, false);
+    avroEventConsumerUnderTest.onEvent(avroEventMock, 1, false);
+    avroEventConsumerUnderTest.onEvent(avroEventMock, 2, true);
+
+    verify(metricsMock).recordBatch(3, 2);
+    verify(metricsMock).recordFlush(anyLong());
+  }
+
+  @Test
+  public void whenEventsAreConsumedForAnotherHandler_thenTheyAreWrittenAndFlushed_butNoBatchIsRecorded()
+      throws Exception {
+    givenAnInitializedEventConsumer();
+    avroEventConsumerUnderTest.reportMetricsTo(metricsMock);
+    when(avroEventMock.isDiscarded()).thenReturn(false, true);
+
+    assertThat(avroEventConsumerUnderTest.consume(avroEventMock), is(equalTo(true)));
+    assertThat(avroEventConsumerUnderTest.consume(avroEventMock), is(equalTo(false)));
+    avroEventConsumerUnderTest.endBatch();
+
+    verify(avroFileWriterMock).append(avroRecordMock);
+    verify(metricsMock).recordFlush(anyLong());
+    verify(metricsMock, never()).recordBatch(anyInt(), anyInt());
+  }
+
+  @Test
+  public void whenAnEventIsReceived_andRolloverIsDue_thenTheRollIsRecordedInTheMetrics() throws Exception {
+    givenAnInitializedEventConsumer();
+    avroEventConsumerUnderTest.reportMetricsTo(metricsMock);
+    givenRollIsDue();
+    givenTheFileCanBeRolled();
+
+    avroEventConsumerUnderTest.onEvent(avroEventMock, -1, false);
+
+    verify(metricsMock).recordRoll(anyLong());
+  }
+
+  @Test
+  public void whenAnEventIsReceived_andTheFlushPolicyAsksForAFlush_thenRecordsAreWrittenToDisk() throws Exception {
+    givenAnInitializedEventConsumer();
+    givenTheEventHasAnEncodedRecord();
+    avroEventConsumerUnderTest.flushAccordingTo(flushPolicyMock);
+    when(flushPolicyMock.shouldFlushAfterRecord(1, 3)).thenReturn(true);
+
+    avroEventConsumerUnderTest.onEvent(avroEventMock, -1, false);
+
+    thenRecordsAreWrittenToDisk();
+  }
+
+  @Test
+  public void whenTheLastEventInABatchIsReceived_andTheFlushPolicyDoesNotAskForAFlush_thenRecordsAreNotWrittenToDisk()
+      throws Exception {
+    givenAnInitializedEventConsumer();
+    avroEventConsumerUnderTest.flushAccordingTo(flushPolicyMock);
+
+    avroEventConsumerUnderTest.onEvent(avroEventMock, -1, true);
+
+    verify(flushPolicyMock).shouldFlushWhenIdle(eq(1L), anyLong());
+    verify(avroFileWriterMock, never()).flush();
+  }
+
+  @Test
+  public void whenWaitingForEventsTimesOut_andTheFlushPolicyAsksForAFlush_thenRecordsAreWrittenToDisk()
+      throws Exception {
+    givenAnInitializedEventConsumer();
+    avroEventConsumerUnderTest.flushAccordingTo(flushPolicyMock);
+    avroEventConsumerUnderTest.onEvent(avroEventMock, -1, true);
+    when(flushPolicyMock.shouldFlushWhenIdle(eq(1L), anyLong())).thenReturn(true);
+
+    avroEventConsumerUnderTest.onTimeout(-1);
+
+    thenRecordsAreWrittenToDisk();
+  }
+
+  @Test
+  public void whenTheLastEventInABatchIsReceived_andTheDurabilityPolicyAsksForAForce_thenRecordsAreForcedToDisk()
+      throws Exception {
+    givenAnInitializedEventConsumer();
+    avroEventConsumerUnderTest.reportMetricsTo(metricsMock);
+    avroEventConsumerUnderTest.forceAccordingTo(durabilityPolicyMock);
+    when(durabilityPolicyMock.shouldForceWhenIdle(anyLong())).thenReturn(true);
+
+    avroEventConsumerUnderTest.onEvent(avroEventMock, -1, true);
+
+    verify(avroFileWriterMock).fSync();
+    verify(metricsMock).recordForce(anyLong());
+  }
+
+  @Test
+  public void whenTheLastEventInABatchIsReceived_andTheDurabilityPolicyDoesNotAskForAForce_thenRecordsAreNotForced()
+      throws Exception {
+    givenAnInitializedEventConsumer();
+
+    avroEventConsumerUnderTest.onEvent(avroEventMock, -1, true);
+
+    verify(avroFileWriterMock, never()).fSync();
+  }
+
+  @Test
+  public void whenAnEventWrittenDurablyIsReceived_thenItsFutureIsCompletedOnceTheBatchHasBeenForced() throws Exception {
+    givenAnInitializedEventConsumer();
+    DurableWrite durableWrite = givenTheEventIsWrittenDurably();
+
+    avroEventConsumerUnderTest.onEvent(avroEventMock, 0, false);
+    assertThat(durableWrite.isDone(), is(equalTo(false)));
+    avroEventConsumerUnderTest.onEvent(avroEventMock, 1, true);
+
+    verify(avroFileWriterMock).fSync();
+    assertThat(durableWrite.isDone(), is(equalTo(true)));
+  }
+
+  @Test
+  public void whenAnEventWrittenDurablyIsReceived_andTheFileCannotBeForced_thenItsFutureFails() throws Exception {
+    givenAnInitializedEventConsumer();
+    DurableWrite durableWrite = givenTheEventIsWrittenDurably();
+    doThrow(new IOException("boom")).when(avroFileWriterMock).fSync();
+
+    try {
+      avroEventConsumerUnderTest.onEvent(avroEventMock, -1, true);
+      Assert.fail();
+    } catch (IOException e) {
+      try {
+        durableWrite.get();
+        Assert.fail();
+      } catch (ExecutionException ee) {
+        assertThat(ee.getCause(), is(sameInstance((Throwable) e)));
+      }
+    }
+  }
+
+  @Test
+  public void whenAnEventWrittenDurablyIsReceived_andTheOverflowPolicyIsSheddingLoad_thenItIsStillWritten()
+      throws Exception {
+    givenAnInitializedEventConsumer();
+    givenTheEventIsWrittenDurably();
+    avroEventConsumerUnderTest.assistOverflowPolicy(overflowPolicyMock);
+    when(overflowPolicyMock.shouldDiscardNextEvent()).thenReturn(true);
+
+    avroEventConsumerUnderTest.onEvent(avroEventMock, -1, false);
+
+    thenTheAvroRecordIsWrittenToTheDestinationFile();
+  }
+
+  @Test
+  public void whenAnEventIsReceived_andRolloverIsDue_andTheDurabilityPolicyForcesBeforeClosing_thenTheFileIsForcedBeforeRolling()
+      throws Exception {
+    givenAnInitializedEventConsumer();
+    avroEventConsumerUnderTest.forceAccordingTo(durabilityPolicyMock);
+    when(durabilityPolicyMock.shouldForceBeforeClosing()).thenReturn(true);
+    givenRollIsDue();
+    givenTheFileCanBeRolled();
+
+    avroEventConsumerUnderTest.onEvent(avroEventMock, -1, false);
+
+    InOrder rollingOrder = inOrder(avroFileWriterMock);
+    rollingOrder.verify(avroFileWriterMock).fSync();
+    rollingOrder.verify(avroFileWriterMock).close();
+  }
+
+  private DurableWrite givenTheEventIsWrittenDurably() {
+    DurableWrite durableWrite = new DurableWrite();
+    when(avroEventMock.getDurableWrite()).thenReturn(durableWrite);
+    return durableWrite;
+  }
+
+  private void givenTheEventHasAFileToAppend() {
+    doReturn(fileToAppendMock).when(avroEventMock).getFileToAppend();
+  }
+
+  private void givenTheEventHasAnEncodedRecord() {
+    when(avroEventMock.hasEncodedRecord()).thenReturn(true);
+    when(avroEventMock.getEncodedRecord()).thenReturn(encodedRecordBufferMock);
+    when(encodedRecordBufferMock.asByteBuffer()).thenReturn(encodedRecordBytes);
+    when(encodedRecordBufferMock.size()).thenReturn(encodedRecordBytes.remaining());
+  }
+
   private void givenDestinationFileExists() {
     avroEventConsumerUnderTest = new AvroEventConsumer(testAvroPath, avroSchemaMock, rollingPolicyMock);
   }
@@ -237,26 +923,52 @@ public class AvroEventConsumerTest extends ConfiguredUnitTest {
     when(fileReaderMock.getSchema()).thenReturn(avroSchemaMock);
   }
 
+  // Builds a new consumer, so tests that configure the consumer start it with givenTheEventConsumerIsStarted
   private void givenAnInitializedEventConsumer() {
     givenDestinationFileExists();
+    givenTheEventConsumerIsStarted();
+  }
+
+  private void givenTheEventConsumerIsStarted() {
     givenSchemasAreEqual();
     avroEventConsumerUnderTest.onStart();
   }
 
+  private void givenAnInitializedEventConsumerWith(RollingPolicy rollingPolicy) {
+    avroEventConsumerUnderTest = new AvroEventConsumer(testAvroPath, avroSchemaMock, rollingPolicy);
+    givenTheEventConsumerIsStarted();
+  }
+
+  @SuppressWarnings("unchecked")
+  private void givenAStandbyFileIsReady() throws Exception {
+    File standbyFile = testDirectory.newFile("." + testAvroFile.getName() + ".standby");
+    AvroFileOutputStream standbyFileOutputStream = new AvroFileOutputStream(standbyFile, true, null);
+    standbyFileOutputStream.write(STANDBY_FILE_HEADER);
+    StandbyFile readyStandbyFile = new StandbyFile(standbyFile.toPath(), standbyFileWriterMock, standbyFileOutputStream);
+    when(standbyFileFutureMock.get()).thenReturn(readyStandbyFile);
+    when(rolloverExecutorMock.submit(any(Callable.class))).thenReturn(standbyFileFutureMock);
+  }
+
   private void givenRollIsDue() {
     when(rollingPolicyMock.shouldRollover(avroRecordMock)).thenReturn(true);
   }
 
+  // Rolls the destination file as rolling policies do, by renaming it
   private void givenTheFileCanBeRolled() throws Exception {
     testDirectory.getRoot().setWritable(true);
-    Answer<Void> deleteTestAvroFile = new Answer<Void>() {
+    Files.write(testAvroPath, ROLLED_FILE_CONTENTS);
+    Answer<Void> renameTestAvroFile = new Answer<Void>() {
       @Override
       public Void answer(InvocationOnMock _) throws Throwable {
-        testAvroFile.delete();
+        Files.move(testAvroPath, getRolledFilename());
         return null;
       }
     };
-    doAnswer(deleteTestAvroFile).when(rollingPolicyMock).rolloverAvroFile();
+    doAnswer(renameTestAvroFile).when(rollingPolicyMock).rolloverAvroFile();
+  }
+
+  private Path getRolledFilename() {
+    return testAvroPath.resolveSibling(testAvroFile.getName() + ".0.log");
   }
 
   private void givenTheFileCannotBeRolled() throws FileRollingException {
@@ -275,25 +987,27 @@ public class AvroEventConsumerTest extends ConfiguredUnitTest {
   private void verifyWriterRewiringToNewFile() throws Exception {
     InOrder rewiringOrder = inOrder(avroFileWriterMock);
     rewiringOrder.verify(avroFileWriterMock).close();
-    rewiringOrder.verify(avroFileWriterMock).create(avroSchemaMock, testAvroFile);
+    rewiringOrder.verify(avroFileWriterMock).create(eq(avroSchemaMock), any(OutputStream.class));
   }
 
   private void verifyWriterRewiringToExistingFile() throws Exception {
     InOrder rewiringOrder = inOrder(avroFileWriterMock);
     rewiringOrder.verify(avroFileWriterMock).close();
-    rewiringOrder.verify(avroFileWriterMock).appendTo(testAvroFile);
+    rewiringOrder.verify(avroFileWriterMock).appendTo(any(SeekableInput.class), any(OutputStream.class));
   }
 
+  // The destination file is created again, but records are written through the writer mock, so it stays empty
   private void verifyFileIsRenamed() throws Exception {
-    assertThat(testAvroFile.exists(), is(equalTo(false)));
+    assertThat(Files.readAllBytes(getRolledFilename()), is(equalTo(ROLLED_FILE_CONTENTS)));
+    assertThat(testAvroFile.length(), is(equalTo(0L)));
   }
 
   private void thenANewFileIsUsedForWriting() throws Exception {
-    verify(avroFileWriterMock).create(avroSchemaMock, testAvroFile);
+    verify(avroFileWriterMock).create(eq(avroSchemaMock), any(OutputStream.class));
   }
 
   private void thenExistingFileIsUsedForWriting() throws Exception {
-    verify(avroFileWriterMock).appendTo(testAvroFile);
+    verify(avroFileWriterMock).appendTo(any(SeekableInput.class), any(OutputStream.class));
   }
 
   private void thenTheAvroRecordIsWrittenToTheDestinationFile() throws Exception {
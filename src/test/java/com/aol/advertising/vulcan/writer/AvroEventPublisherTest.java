@@ -1,18 +1,55 @@
 package com.aol.advertising.vulcan.writer;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.same;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import org.apache.avro.Schema;
+import org.apache.avro.Schema.Type;
+import org.apache.avro.SchemaNormalization;
+import org.apache.avro.file.DataFileStream;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
 import org.apache.avro.specific.SpecificRecord;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 
 import com.aol.advertising.vulcan.ConfiguredUnitTest;
+import com.aol.advertising.vulcan.TestAvroRecord;
+import com.aol.advertising.vulcan.api.overflow.OverflowPolicy;
 import com.aol.advertising.vulcan.ringbuffer.AvroEvent;
+import com.aol.advertising.vulcan.ringbuffer.AvroEventFactory;
+import com.aol.advertising.vulcan.ringbuffer.DurableWrite;
+import com.aol.advertising.vulcan.ringbuffer.EncodedRecordBuffer;
 import com.aol.advertising.vulcan.writer.AvroEventPublisher;
+import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.LifecycleAware;
 import com.lmax.disruptor.dsl.Disruptor;
 
 public class AvroEventPublisherTest extends ConfiguredUnitTest {
@@ -27,6 +64,20 @@ public class AvroEventPublisherTest extends ConfiguredUnitTest {
   private AvroEvent avroEventMock;
   @Mock
   private SpecificRecord avroRecordMock;
+  @Mock
+  private ProducerSideEncoder producerSideEncoderMock;
+  @Mock
+  private EncodedRecordBuffer encodedRecordBufferMock;
+  @Mock
+  private OverflowPolicy overflowPolicyMock;
+
+  private final List<SpecificRecord> consumedRecords = new ArrayList<>();
+  private final List<DurableWrite> consumedDurableWrites = new ArrayList<>();
+  private final List<ByteBuffer> consumedEncodedRecords = new ArrayList<>();
+  private final List<DataFileStream<?>> consumedFilesToAppend = new ArrayList<>();
+  private final CountDownLatch consumerReleased = new CountDownLatch(1);
+  private int discardedEvents;
+  private volatile boolean blockConsumer;
 
   @Before
   public void setUp() throws Exception {
@@ -69,6 +120,289 @@ public class AvroEventPublisherTest extends ConfiguredUnitTest {
     verify(avroEventMock).setAvroRecord(avroRecordMock);
   }
 
+  @Test
+  public void whenAnAvroRecordIsWritten_andProducerSideSerializationIsEnabled_thenTheRecordIsEncodedIntoThePublishedEvent() {
+    givenThePublisherHasBeenStarted();
+    givenProducerSideSerializationIsEnabled();
+
+    avroEventPublisherUnderTest.translateTo(avroEventMock, -1, avroRecordMock);
+
+    verify(avroEventMock).setAvroRecord(avroRecordMock);
+    verify(producerSideEncoderMock).encode(avroRecordMock, encodedRecordBufferMock);
+  }
+
+  @Test
+  public void whenAnAvroRecordIsWritten_andRecordsAreReleasedOnceEncoded_thenThePublishedEventOnlyKeepsTheEncodedRecord() {
+    givenThePublisherHasBeenStarted();
+    givenProducerSideSerializationIsEnabled();
+    avroEventPublisherUnderTest.releaseRecordsOnceEncoded();
+
+    avroEventPublisherUnderTest.translateTo(avroEventMock, -1, avroRecordMock);
+
+    InOrder inOrder = inOrder(producerSideEncoderMock, avroEventMock);
+    inOrder.verify(producerSideEncoderMock).encode(avroRecordMock, encodedRecordBufferMock);
+    inOrder.verify(avroEventMock).releaseAvroRecord();
+  }
+
+  @Test
+  public void whenAnAvroRecordIsWritten_andItEncodesToNoBytes_andRecordsAreReleasedOnceEncoded_thenTheEventStillHasAnEncodedRecord() {
+    AvroEvent avroEvent = new AvroEvent();
+    avroEventPublisherUnderTest.serializeRecordsUsing(producerSideEncoderMock);
+    avroEventPublisherUnderTest.releaseRecordsOnceEncoded();
+
+    avroEventPublisherUnderTest.translateTo(avroEvent, -1, avroRecordMock);
+
+    assertThat(avroEvent.getAvroRecord(), is(nullValue()));
+    assertThat(avroEvent.getEncodedRecord().size(), is(equalTo(0)));
+    assertThat(avroEvent.hasEncodedRecord(), is(true));
+  }
+
+  @Test
+  public void whenAnAvroRecordIsWrittenDurably_thenThePublishedEventContainsTheRecordAndTheDurableWrite() {
+    DurableWrite durableWrite = new DurableWrite();
+
+    avroEventPublisherUnderTest.translateTo(avroEventMock, -1, avroRecordMock, durableWrite);
+
+    InOrder translationOrder = inOrder(avroEventMock);
+    translationOrder.verify(avroEventMock).setAvroRecord(avroRecordMock);
+    translationOrder.verify(avroEventMock).writeDurably(durableWrite);
+  }
+
+  @Test
+  public void whenAnAvroRecordIsWrittenDurably_thenTheConsumerReceivesTheReturnedFuture() throws Exception {
+    givenThePublisherHasBeenStartedWithARealDisruptor();
+
+    Future<Void> durableWrite = avroEventPublisherUnderTest.writeDurably(avroRecordMock);
+    avroEventPublisherUnderTest.close();
+
+    assertThat(consumedRecords.get(0), is(equalTo(avroRecordMock)));
+    assertThat(consumedDurableWrites.get(0), is(equalTo((Object) durableWrite)));
+  }
+
+  @Test
+  public void whenABatchLargerThanTheRingBufferIsWritten_thenAllRecordsArePublishedInOrder() throws Exception {
+    givenThePublisherHasBeenStartedWithARealDisruptor();
+    List<SpecificRecord> batch = givenABatchOf(10);
+
+    avroEventPublisherUnderTest.write(batch);
+    avroEventPublisherUnderTest.close();
+
+    assertThat(consumedRecords, is(equalTo(batch)));
+  }
+
+  @Test
+  public void whenABatchIsWrittenAsAnArray_thenAllRecordsArePublishedInOrder() throws Exception {
+    givenThePublisherHasBeenStartedWithARealDisruptor();
+    List<SpecificRecord> batch = givenABatchOf(3);
+
+    avroEventPublisherUnderTest.write(batch.toArray(new SpecificRecord[batch.size()]));
+    avroEventPublisherUnderTest.close();
+
+    assertThat(consumedRecords, is(equalTo(batch)));
+  }
+
+  @Test
+  public void whenABatchIsWritten_andARecordCannotBeTranslated_thenTheRemainingSlotsOfTheBatchAreDiscarded() throws Exception {
+    givenThePublisherHasBeenStartedWithARealDisruptor();
+    List<SpecificRecord> batch = givenABatchOf(3);
+    givenTheSecondRecordCannotBeEncoded(batch);
+
+    try {
+      avroEventPublisherUnderTest.write(batch);
+      Assert.fail();
+    } catch (IllegalStateException e) {
+      avroEventPublisherUnderTest.close();
+      assertThat(consumedRecords, is(equalTo(batch.subList(0, 1))));
+      assertThat(discardedEvents, is(equalTo(2)));
+    }
+  }
+
+  @Test
+  public void whenARecordIsTriedToBeWritten_andTheRingBufferHasFreeSlots_thenTheRecordIsPublished() throws Exception {
+    givenThePublisherHasBeenStartedWithARealDisruptor();
+
+    boolean written = avroEventPublisherUnderTest.tryWrite(avroRecordMock);
+    avroEventPublisherUnderTest.close();
+
+    assertThat(written, is(true));
+    assertThat(consumedRecords, is(equalTo(givenTheRecords(avroRecordMock))));
+  }
+
+  @Test
+  public void whenARecordIsTriedToBeWritten_andTheRingBufferIsFull_thenTheRecordIsNotPublished() throws Exception {
+    givenThePublisherHasBeenStartedWithARealDisruptor();
+    givenTheRingBufferIsFull();
+
+    boolean written = avroEventPublisherUnderTest.tryWrite(avroRecordMock);
+
+    assertThat(written, is(false));
+    givenTheConsumerIsReleased();
+    assertThat(consumedRecords.contains(avroRecordMock), is(false));
+  }
+
+  @Test
+  public void whenARecordIsWritten_andTheRingBufferIsFull_thenTheOverflowPolicyHandlesTheRecord() throws Exception {
+    givenThePublisherHasBeenStartedWithARealDisruptor();
+    avroEventPublisherUnderTest.handleOverflowsUsing(overflowPolicyMock);
+    givenTheRingBufferIsFull();
+
+    avroEventPublisherUnderTest.write(avroRecordMock);
+
+    verify(overflowPolicyMock).onRingBufferFull(avroRecordMock, avroEventPublisherUnderTest);
+    givenTheConsumerIsReleased();
+  }
+
+  @Test
+  public void whenARecordIsWritten_andTheOverflowPolicyDropsIt_thenTheMetricsCountItAsOverflowedAndDropped() throws Exception {
+    givenThePublisherHasBeenStartedWithARealDisruptor();
+    avroEventPublisherUnderTest.handleOverflowsUsing(overflowPolicyMock);
+    givenTheRingBufferIsFull();
+    when(overflowPolicyMock.onRingBufferFull(avroRecordMock, avroEventPublisherUnderTest)).thenReturn(false);
+
+    avroEventPublisherUnderTest.write(avroRecordMock);
+
+    assertThat(avroEventPublisherUnderTest.getMetrics().getOverflowedRecords(), is(equalTo(1L)));
+    assertThat(avroEventPublisherUnderTest.getMetrics().getDroppedRecords(), is(equalTo(1L)));
+    givenTheConsumerIsReleased();
+  }
+
+  @Test
+  public void whenARecordIsWritten_andTheRingBufferHasFreeSlots_thenTheOverflowPolicyIsNotUsed() throws Exception {
+    givenThePublisherHasBeenStartedWithARealDisruptor();
+    avroEventPublisherUnderTest.handleOverflowsUsing(overflowPolicyMock);
+
+    avroEventPublisherUnderTest.write(avroRecordMock);
+    avroEventPublisherUnderTest.close();
+
+    verify(overflowPolicyMock, never()).onRingBufferFull(any(SpecificRecord.class), any(AvroEventPublisher.class));
+    assertThat(consumedRecords, is(equalTo(givenTheRecords(avroRecordMock))));
+  }
+
+  @Test
+  public void whenABatchIsWritten_andTheRingBufferIsFull_thenTheOverflowPolicyHandlesEveryRecordOfTheBatch() throws Exception {
+    givenThePublisherHasBeenStartedWithARealDisruptor();
+    avroEventPublisherUnderTest.handleOverflowsUsing(overflowPolicyMock);
+    givenTheRingBufferIsFull();
+    List<SpecificRecord> batch = givenABatchOf(2);
+
+    avroEventPublisherUnderTest.write(batch);
+
+    InOrder overflowOrder = inOrder(overflowPolicyMock);
+    overflowOrder.verify(overflowPolicyMock).onRingBufferFull(batch.get(0), avroEventPublisherUnderTest);
+    overflowOrder.verify(overflowPolicyMock).onRingBufferFull(batch.get(1), avroEventPublisherUnderTest);
+    givenTheConsumerIsReleased();
+  }
+
+  @Test
+  public void whenABatchIsWritten_andTheRingBufferHasRoomForIt_thenTheOverflowPolicyIsNotUsed() throws Exception {
+    givenThePublisherHasBeenStartedWithARealDisruptor();
+    avroEventPublisherUnderTest.handleOverflowsUsing(overflowPolicyMock);
+    List<SpecificRecord> batch = givenABatchOf(3);
+
+    avroEventPublisherUnderTest.write(batch);
+    avroEventPublisherUnderTest.close();
+
+    verify(overflowPolicyMock, never()).onRingBufferFull(any(SpecificRecord.class), any(AvroEventPublisher.class));
+    assertThat(consumedRecords, is(equalTo(batch)));
+  }
+
+  @Test
+  public void whenEventsArePendingToBeConsumed_thenTheMetricsReportThemAsQueueDepth() throws Exception {
+    givenThePublisherHasBeenStartedWithARealDisruptor();
+    givenTheRingBufferIsFull();
+
+    long queueDepth = avroEventPublisherUnderTest.getMetrics().getQueueDepth();
+    long remainingCapacity = avroEventPublisherUnderTest.getMetrics().getRemainingCapacity();
+
+    givenTheConsumerIsReleased();
+    assertThat(queueDepth, is(equalTo(4L)));
+    assertThat(remainingCapacity, is(equalTo(0L)));
+  }
+
+  @Test
+  public void whenAnEncodedRecordIsWritten_thenTheConsumerReceivesACopyOfItsBytes() throws Exception {
+    givenThePublisherHasBeenStartedWithARealDisruptor();
+    ByteBuffer encodedRecord = ByteBuffer.wrap(new byte[] {0, 1, 2, 3});
+    encodedRecord.position(1);
+
+    avroEventPublisherUnderTest.writeEncoded(encodedRecord);
+    encodedRecord.put(1, (byte) 42);
+    avroEventPublisherUnderTest.close();
+
+    assertThat(consumedEncodedRecords, is(equalTo(givenTheEncodedRecords(ByteBuffer.wrap(new byte[] {1, 2, 3})))));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void whenAnEmptyEncodedRecordIsWritten_thenAnExceptionIsThrown() {
+    givenThePublisherHasBeenStarted();
+
+    avroEventPublisherUnderTest.writeEncoded(ByteBuffer.allocate(0));
+  }
+
+  @Test
+  public void whenAnEncodedRecordIsWrittenWithTheFingerprintOfTheSchemaOfTheWriter_thenTheRecordIsPublished()
+      throws Exception {
+    givenThePublisherHasBeenStartedWithARealDisruptor();
+    avroEventPublisherUnderTest.acceptEncodedDataOf(TestAvroRecord.SCHEMA);
+
+    avroEventPublisherUnderTest.writeEncoded(ByteBuffer.wrap(new byte[] {7}),
+                                             SchemaNormalization.parsingFingerprint64(TestAvroRecord.SCHEMA));
+    avroEventPublisherUnderTest.close();
+
+    assertThat(consumedEncodedRecords, is(equalTo(givenTheEncodedRecords(ByteBuffer.wrap(new byte[] {7})))));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void whenAnEncodedRecordIsWrittenWithTheFingerprintOfAnotherSchema_thenAnExceptionIsThrown() {
+    givenThePublisherHasBeenStarted();
+    avroEventPublisherUnderTest.acceptEncodedDataOf(TestAvroRecord.SCHEMA);
+
+    avroEventPublisherUnderTest.writeEncoded(ByteBuffer.wrap(new byte[] {7}),
+                                             SchemaNormalization.parsingFingerprint64(TestAvroRecord.SCHEMA) + 1);
+  }
+
+  @Test
+  public void whenAFileIsAppended_thenTheConsumerReceivesTheFileAndTheReturnedFuture() throws Exception {
+    givenThePublisherHasBeenStartedWithARealDisruptor();
+    avroEventPublisherUnderTest.acceptEncodedDataOf(TestAvroRecord.SCHEMA);
+    DataFileStream<?> avroFileStream = givenAnAvroFileOf(TestAvroRecord.SCHEMA);
+
+    Future<Void> appendedFile = avroEventPublisherUnderTest.appendAllFrom(avroFileStream);
+    avroEventPublisherUnderTest.close();
+
+    assertThat(consumedFilesToAppend.get(0), is(sameInstance((Object) avroFileStream)));
+    assertThat(consumedDurableWrites.get(0), is(equalTo((Object) appendedFile)));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void whenAFileWrittenWithAnotherSchemaIsAppended_thenAnExceptionIsThrown() throws Exception {
+    givenThePublisherHasBeenStarted();
+    avroEventPublisherUnderTest.acceptEncodedDataOf(TestAvroRecord.SCHEMA);
+
+    avroEventPublisherUnderTest.appendAllFrom(givenAnAvroFileOf(Schema.create(Type.STRING)));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void whenAnEncodedRecordIsWritten_andRecordsOfAnySchemaAreAccepted_thenAnExceptionIsThrown() {
+    givenThePublisherHasBeenStarted();
+    avroEventPublisherUnderTest.acceptRecordsOfAnySchema();
+
+    avroEventPublisherUnderTest.writeEncoded(ByteBuffer.wrap(new byte[] {7}));
+  }
+
+  @Test
+  public void whenAFileWrittenWithAnotherSchemaIsAppended_andRecordsOfAnySchemaAreAccepted_thenTheFileIsPublished()
+      throws Exception {
+    givenThePublisherHasBeenStartedWithARealDisruptor();
+    avroEventPublisherUnderTest.acceptRecordsOfAnySchema();
+    DataFileStream<?> avroFileStream = givenAnAvroFileOf(Schema.create(Type.STRING));
+
+    avroEventPublisherUnderTest.appendAllFrom(avroFileStream);
+    avroEventPublisherUnderTest.close();
+
+    assertThat(consumedFilesToAppend.get(0), is(sameInstance((Object) avroFileStream)));
+  }
+
   @Test
   public void whenAPublisherIsShutdown_thenAllResourcesAreShutdown() throws Exception {
     givenThePublisherHasBeenStarted();
@@ -89,6 +423,75 @@ public class AvroEventPublisherTest extends ConfiguredUnitTest {
     avroEventPublisherUnderTest.startPublisherUsing(disruptorMock);
   }
 
+  private void givenProducerSideSerializationIsEnabled() {
+    when(avroEventMock.getEncodedRecord()).thenReturn(encodedRecordBufferMock);
+    avroEventPublisherUnderTest.serializeRecordsUsing(producerSideEncoderMock);
+  }
+
+  // Disruptor#shutdown() does not wait for consumers that have not started yet, so the test waits for the consumer to
+  // be running before writing anything
+  @SuppressWarnings("unchecked")
+  private void givenThePublisherHasBeenStartedWithARealDisruptor() throws InterruptedException {
+    final CountDownLatch consumerStarted = new CountDownLatch(1);
+    ExecutorService consumerExecutor = Executors.newSingleThreadExecutor();
+    Disruptor<AvroEvent> disruptor = new Disruptor<>(new AvroEventFactory(), 4, consumerExecutor);
+    disruptor.handleEventsWith(new RecordCollectingConsumer(consumerStarted));
+    avroEventPublisherUnderTest.registerConsumerExecutorForShutdown(consumerExecutor);
+    avroEventPublisherUnderTest.startPublisherUsing(disruptor);
+    consumerStarted.await();
+  }
+
+  // The consumer holds on to the first event until released, so the ring buffer fills up with 4 records
+  private void givenTheRingBufferIsFull() {
+    blockConsumer = true;
+    for (int i = 0; i < 4; i++) {
+      avroEventPublisherUnderTest.write(mock(SpecificRecord.class));
+    }
+  }
+
+  private void givenTheConsumerIsReleased() throws Exception {
+    consumerReleased.countDown();
+    avroEventPublisherUnderTest.close();
+  }
+
+  private List<SpecificRecord> givenTheRecords(SpecificRecord... avroRecords) {
+    List<SpecificRecord> records = new ArrayList<>();
+    for (SpecificRecord avroRecord : avroRecords) {
+      records.add(avroRecord);
+    }
+    return records;
+  }
+
+  private List<ByteBuffer> givenTheEncodedRecords(ByteBuffer... encodedRecords) {
+    List<ByteBuffer> records = new ArrayList<>();
+    for (ByteBuffer encodedRecord : encodedRecords) {
+      records.add(encodedRecord);
+    }
+    return records;
+  }
+
+  private DataFileStream<?> givenAnAvroFileOf(Schema avroSchema) throws IOException {
+    ByteArrayOutputStream avroFile = new ByteArrayOutputStream();
+    try (DataFileWriter<Object> avroFileWriter = new DataFileWriter<>(new GenericDatumWriter<>(avroSchema))) {
+      avroFileWriter.create(avroSchema, avroFile);
+    }
+    return new DataFileStream<>(new ByteArrayInputStream(avroFile.toByteArray()), new GenericDatumReader<>());
+  }
+
+  private List<SpecificRecord> givenABatchOf(int batchSize) {
+    List<SpecificRecord> batch = new ArrayList<>();
+    for (int i = 0; i < batchSize; i++) {
+      batch.add(mock(SpecificRecord.class));
+    }
+    return batch;
+  }
+
+  private void givenTheSecondRecordCannotBeEncoded(List<SpecificRecord> batch) {
+    doThrow(new IllegalStateException("boom")).when(producerSideEncoderMock)
+                                              .encode(same(batch.get(1)), any(EncodedRecordBuffer.class));
+    avroEventPublisherUnderTest.serializeRecordsUsing(producerSideEncoderMock);
+  }
+
   private void givenThePublisherHasBeenShutdown() throws Exception {
     avroEventPublisherUnderTest.close();
   }
@@ -105,4 +508,42 @@ public class AvroEventPublisherTest extends ConfiguredUnitTest {
     verify(disruptorMock).shutdown();
     verify(consumerExecutorMock).shutdown();
   }
+
+  private class RecordCollectingConsumer implements EventHandler<AvroEvent>, LifecycleAware {
+
+    private final CountDownLatch consumerStarted;
+
+    private RecordCollectingConsumer(CountDownLatch consumerStarted) {
+      this.consumerStarted = consumerStarted;
+    }
+
+    @Override
+    public void onEvent(AvroEvent event, long sequence, boolean endOfBatch) throws InterruptedException {
+      if (blockConsumer) {
+        consumerReleased.await();
+      }
+      if (event.isDiscarded()) {
+        discardedEvents++;
+      } else if (event.getFileToAppend() != null) {
+        consumedFilesToAppend.add(event.getFileToAppend());
+        consumedDurableWrites.add(event.getDurableWrite());
+      } else if (event.getAvroRecord() == null) {
+        ByteBuffer encodedRecord = event.getEncodedRecord().asByteBuffer();
+        consumedEncodedRecords.add(ByteBuffer.wrap(Arrays.copyOfRange(encodedRecord.array(), 0, encodedRecord.limit())));
+      } else {
+        consumedRecords.add(event.getAvroRecord());
+        if (event.getDurableWrite() != null) {
+          consumedDurableWrites.add(event.getDurableWrite());
+        }
+      }
+    }
+
+    @Override
+    public void onStart() {
+      consumerStarted.countDown();
+    }
+
+    @Override
+    public void onShutdown() {}
+  }
 }
@@ -0,0 +1,96 @@
+package com.aol.advertising.vulcan.writer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.aol.advertising.vulcan.metrics.RecordingWriterMetrics;
+
+public class AvroFileOutputStreamTest {
+
+  @Rule
+  public TemporaryFolder testDirectory = new TemporaryFolder();
+
+  private final RecordingWriterMetrics metrics = new RecordingWriterMetrics();
+
+  @Test
+  public void whenBytesAreWritten_thenTheyReachTheFile_andAreCountedInTheMetrics() throws Exception {
+    File avroFile = testDirectory.newFile();
+
+    try (AvroFileOutputStream avroFileOutputStreamUnderTest = new AvroFileOutputStream(avroFile, false, metrics)) {
+      avroFileOutputStreamUnderTest.write(new byte[] {1, 2, 3, 4}, 1, 3);
+      avroFileOutputStreamUnderTest.write(5);
+      avroFileOutputStreamUnderTest.sync();
+    }
+
+    assertThat(Files.readAllBytes(avroFile.toPath()), is(equalTo(new byte[] {2, 3, 4, 5})));
+    assertThat(metrics.getBytesWritten(), is(equalTo(4L)));
+  }
+
+  @Test
+  public void whenBytesAreWrittenBeforeTheyAreReported_thenOnlyTheBytesWrittenAfterwardsAreCounted() throws Exception {
+    File avroFile = testDirectory.newFile();
+
+    try (AvroFileOutputStream avroFileOutputStreamUnderTest = new AvroFileOutputStream(avroFile, false, null)) {
+      avroFileOutputStreamUnderTest.write(new byte[] {1, 2, 3});
+      avroFileOutputStreamUnderTest.reportBytesTo(metrics);
+      avroFileOutputStreamUnderTest.write(4);
+    }
+
+    assertThat(Files.readAllBytes(avroFile.toPath()), is(equalTo(new byte[] {1, 2, 3, 4})));
+    assertThat(metrics.getBytesWritten(), is(equalTo(1L)));
+  }
+
+  @Test
+  public void whenTheFileIsOpenedForAppending_thenExistingContentIsKept() throws Exception {
+    File avroFile = testDirectory.newFile();
+    Files.write(avroFile.toPath(), new byte[] {1});
+
+    try (AvroFileOutputStream avroFileOutputStreamUnderTest = new AvroFileOutputStream(avroFile, true, metrics)) {
+      avroFileOutputStreamUnderTest.write(2);
+    }
+
+    assertThat(Files.readAllBytes(avroFile.toPath()), is(equalTo(new byte[] {1, 2})));
+  }
+
+  @Test
+  public void whenBytesAreWritten_thenTheyAreAddedToTheTrackedFileSize() throws Exception {
+    File avroFile = testDirectory.newFile();
+
+    try (AvroFileOutputStream avroFileOutputStreamUnderTest = new AvroFileOutputStream(avroFile, false, metrics)) {
+      avroFileOutputStreamUnderTest.write(new byte[] {1, 2, 3, 4}, 1, 3);
+      avroFileOutputStreamUnderTest.write(5);
+
+      assertThat(avroFileOutputStreamUnderTest.getSize(), is(equalTo(4L)));
+    }
+  }
+
+  @Test
+  public void whenTheFileIsOpenedForAppending_thenTheTrackedFileSizeStartsAtTheSizeOfTheExistingFile() throws Exception {
+    File avroFile = testDirectory.newFile();
+    Files.write(avroFile.toPath(), new byte[] {1, 2});
+
+    try (AvroFileOutputStream avroFileOutputStreamUnderTest = new AvroFileOutputStream(avroFile, true, metrics)) {
+      avroFileOutputStreamUnderTest.write(3);
+
+      assertThat(avroFileOutputStreamUnderTest.getSize(), is(equalTo(3L)));
+    }
+  }
+
+  @Test
+  public void whenTheFileIsOverwritten_thenTheTrackedFileSizeStartsAtZero() throws Exception {
+    File avroFile = testDirectory.newFile();
+    Files.write(avroFile.toPath(), new byte[] {1, 2});
+
+    try (AvroFileOutputStream avroFileOutputStreamUnderTest = new AvroFileOutputStream(avroFile, false, metrics)) {
+      assertThat(avroFileOutputStreamUnderTest.getSize(), is(equalTo(0L)));
+    }
+  }
+}
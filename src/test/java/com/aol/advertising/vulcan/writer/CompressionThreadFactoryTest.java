@@ -0,0 +1,23 @@
+package com.aol.advertising.vulcan.writer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import org.junit.Test;
+import org.mockito.Mock;
+
+import com.aol.advertising.vulcan.ConfiguredUnitTest;
+
+public class CompressionThreadFactoryTest extends ConfiguredUnitTest {
+
+  @Mock
+  private Runnable runnableMock;
+
+  @Test
+  public void whenAThreadIsRetrieved_thenItHasTheExpectedNameForTheBlockCompressionThreads() {
+    Thread compressionThread = new CompressionThreadFactory().newThread(runnableMock);
+
+    assertThat(compressionThread.getName(), is(equalTo("vulcan-avro-compressor")));
+  }
+}
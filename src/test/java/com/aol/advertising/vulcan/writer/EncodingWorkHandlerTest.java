@@ -0,0 +1,90 @@
+package com.aol.advertising.vulcan.writer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.nio.ByteBuffer;
+
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.DecoderFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.aol.advertising.vulcan.TestAvroRecord;
+import com.aol.advertising.vulcan.ringbuffer.AvroEvent;
+
+public class EncodingWorkHandlerTest {
+
+  private EncodingWorkHandler encodingWorkHandlerUnderTest;
+  private AvroEvent avroEvent;
+
+  @Before
+  public void setUp() {
+    encodingWorkHandlerUnderTest = new EncodingWorkHandler(new ProducerSideEncoder(TestAvroRecord.SCHEMA));
+    avroEvent = new AvroEvent();
+  }
+
+  @Test
+  public void whenAnEventIsReceived_thenItsRecordIsEncodedIntoTheSlot() throws Exception {
+    avroEvent.setAvroRecord(new TestAvroRecord("Mortadelo", 13));
+
+    encodingWorkHandlerUnderTest.onEvent(avroEvent);
+
+    GenericRecord decodedRecord = decode(avroEvent.getEncodedRecord().asByteBuffer());
+    assertThat(decodedRecord.get("name").toString(), is(equalTo("Mortadelo")));
+    assertThat((Integer) decodedRecord.get("count"), is(equalTo(13)));
+  }
+
+  @Test
+  public void whenAnEventIsReceived_andTheSlotHeldARecordFromThePreviousLap_thenOnlyTheNewRecordIsKept()
+      throws Exception {
+    avroEvent.setAvroRecord(new TestAvroRecord("A much longer name than the next one", 1));
+    encodingWorkHandlerUnderTest.onEvent(avroEvent);
+    avroEvent.setAvroRecord(new TestAvroRecord("Filemon", 2));
+
+    encodingWorkHandlerUnderTest.onEvent(avroEvent);
+
+    GenericRecord decodedRecord = decode(avroEvent.getEncodedRecord().asByteBuffer());
+    assertThat(decodedRecord.get("name").toString(), is(equalTo("Filemon")));
+  }
+
+  @Test
+  public void whenAnEventWithARecordThatCannotBeEncodedIsReceived_thenItIsLeftToTheConsumer() {
+    avroEvent.setAvroRecord(new TestAvroRecord("Ofelia", 3));
+    encodingWorkHandlerUnderTest.onEvent(avroEvent);
+    avroEvent.setAvroRecord(new TestAvroRecord(null, 4));
+
+    encodingWorkHandlerUnderTest.onEvent(avroEvent);
+
+    assertThat(avroEvent.hasEncodedRecord(), is(false));
+    assertThat(avroEvent.isDiscarded(), is(false));
+  }
+
+  @Test
+  public void whenADiscardedEventIsReceived_thenNothingIsEncoded() {
+    avroEvent.setAvroRecord(new TestAvroRecord("Bacterio", 5));
+    avroEvent.discard();
+
+    encodingWorkHandlerUnderTest.onEvent(avroEvent);
+
+    assertThat(avroEvent.hasEncodedRecord(), is(false));
+  }
+
+  @Test
+  public void whenAnEventWithAnEncodedRecordIsReceived_thenItsBytesAreLeftUntouched() {
+    avroEvent.setEncodedRecord(ByteBuffer.wrap(new byte[] {1, 2, 3}));
+
+    encodingWorkHandlerUnderTest.onEvent(avroEvent);
+
+    assertThat(avroEvent.getEncodedRecord().asByteBuffer(), is(equalTo(ByteBuffer.wrap(new byte[] {1, 2, 3}))));
+  }
+
+  private GenericRecord decode(ByteBuffer encodedBytes) throws Exception {
+    byte[] contents = new byte[encodedBytes.remaining()];
+    encodedBytes.duplicate().get(contents);
+    return new GenericDatumReader<GenericRecord>(TestAvroRecord.SCHEMA).read(null,
+        DecoderFactory.get().binaryDecoder(contents, null));
+  }
+}
@@ -0,0 +1,193 @@
+package com.aol.advertising.vulcan.writer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.avro.file.DataFileReader;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.file.SeekableFileInput;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.aol.advertising.vulcan.TestAvroRecord;
+import com.aol.advertising.vulcan.metrics.RecordingWriterMetrics;
+
+public class MappedAvroFileOutputStreamTest {
+
+  private static final int MAPPING_SIZE = 16;
+
+  @Rule
+  public TemporaryFolder testDirectory = new TemporaryFolder();
+
+  private final RecordingWriterMetrics metrics = new RecordingWriterMetrics();
+
+  @Test
+  public void whenBytesAreWritten_thenTheyReachTheFile_andAreCountedInTheMetrics() throws Exception {
+    File avroFile = testDirectory.newFile();
+
+    try (MappedAvroFileOutputStream mappedOutputStreamUnderTest =
+        new MappedAvroFileOutputStream(avroFile, false, MAPPING_SIZE, metrics)) {
+      mappedOutputStreamUnderTest.write(new byte[] {1, 2, 3, 4}, 1, 3);
+      mappedOutputStreamUnderTest.write(5);
+      mappedOutputStreamUnderTest.sync();
+    }
+
+    assertThat(Files.readAllBytes(avroFile.toPath()), is(equalTo(new byte[] {2, 3, 4, 5})));
+    assertThat(metrics.getBytesWritten(), is(equalTo(4L)));
+  }
+
+  @Test
+  public void whenTheFileIsOpen_thenItIsPaddedToTheEndOfTheMapping() throws Exception {
+    File avroFile = testDirectory.newFile();
+
+    try (MappedAvroFileOutputStream mappedOutputStreamUnderTest =
+        new MappedAvroFileOutputStream(avroFile, false, MAPPING_SIZE, metrics)) {
+      mappedOutputStreamUnderTest.write(1);
+
+      assertThat(avroFile.length(), is(equalTo((long) MAPPING_SIZE)));
+    }
+  }
+
+  @Test
+  public void whenMoreBytesThanTheMappingSizeAreWritten_thenTheyAllReachTheFile_andItIsTruncatedToThemOnClose()
+      throws Exception {
+    File avroFile = testDirectory.newFile();
+    byte[] bytes = new byte[MAPPING_SIZE * 3 + 5];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = (byte) (i + 1);
+    }
+
+    try (MappedAvroFileOutputStream mappedOutputStreamUnderTest =
+        new MappedAvroFileOutputStream(avroFile, false, MAPPING_SIZE, metrics)) {
+      mappedOutputStreamUnderTest.write(bytes, 0, MAPPING_SIZE - 1);
+      mappedOutputStreamUnderTest.write(bytes[MAPPING_SIZE - 1]);
+      mappedOutputStreamUnderTest.write(bytes, MAPPING_SIZE, bytes.length - MAPPING_SIZE);
+
+      assertThat(mappedOutputStreamUnderTest.getSize(), is(equalTo((long) bytes.length)));
+    }
+
+    assertThat(Files.readAllBytes(avroFile.toPath()), is(equalTo(bytes)));
+  }
+
+  @Test
+  public void whenTheFileIsOverwritten_thenTheTrackedFileSizeStartsAtZero() throws Exception {
+    File avroFile = testDirectory.newFile();
+    Files.write(avroFile.toPath(), new byte[] {1, 2});
+
+    try (MappedAvroFileOutputStream mappedOutputStreamUnderTest =
+        new MappedAvroFileOutputStream(avroFile, false, MAPPING_SIZE, metrics)) {
+      assertThat(mappedOutputStreamUnderTest.getSize(), is(equalTo(0L)));
+    }
+
+    assertThat(avroFile.length(), is(equalTo(0L)));
+  }
+
+  @Test
+  public void whenAnAvroFileIsAppendedTo_thenExistingRecordsAreKept() throws Exception {
+    File avroFile = testDirectory.newFile();
+    writeAvroFile(avroFile, "first");
+
+    appendToAvroFile(avroFile, "second");
+
+    assertThat(readNames(avroFile), contains("first", "second"));
+  }
+
+  @Test
+  public void whenAnAvroFileLeftPaddedIsAppendedTo_thenThePaddingIsTrimmed_andExistingRecordsAreKept()
+      throws Exception {
+    File avroFile = testDirectory.newFile();
+    writeAvroFile(avroFile, "first");
+    long sizeOfTheData = avroFile.length();
+    Files.write(avroFile.toPath(), new byte[MAPPING_SIZE * 5], StandardOpenOption.APPEND);
+
+    try (MappedAvroFileOutputStream mappedOutputStreamUnderTest =
+        new MappedAvroFileOutputStream(avroFile, true, MAPPING_SIZE, metrics)) {
+      assertThat(mappedOutputStreamUnderTest.getSize(), is(equalTo(sizeOfTheData)));
+    }
+    appendToAvroFile(avroFile, "second");
+
+    assertThat(readNames(avroFile), contains("first", "second"));
+  }
+
+  @Test
+  public void whenAnAvroFileLeftWithAPartialBlockAndPaddedIsAppendedTo_thenThePartialBlockIsTrimmed_andExistingRecordsAreKept()
+      throws Exception {
+    File avroFile = testDirectory.newFile();
+    writeAvroFile(avroFile, "first");
+    long sizeOfTheData = avroFile.length();
+    Files.write(avroFile.toPath(), givenAPartialBlockOf(10), StandardOpenOption.APPEND);
+    Files.write(avroFile.toPath(), new byte[MAPPING_SIZE * 5], StandardOpenOption.APPEND);
+
+    try (MappedAvroFileOutputStream mappedOutputStreamUnderTest =
+        new MappedAvroFileOutputStream(avroFile, true, MAPPING_SIZE, metrics)) {
+      assertThat(mappedOutputStreamUnderTest.getSize(), is(equalTo(sizeOfTheData)));
+    }
+    appendToAvroFile(avroFile, "second");
+
+    assertThat(readNames(avroFile), contains("first", "second"));
+  }
+
+  @Test
+  public void whenAnAvroFileLeftWithAPartialBlockLongerThanASearchChunkIsAppendedTo_thenThePartialBlockIsTrimmed()
+      throws Exception {
+    File avroFile = testDirectory.newFile();
+    writeAvroFile(avroFile, "first");
+    long sizeOfTheData = avroFile.length();
+    Files.write(avroFile.toPath(), givenAPartialBlockOf(200_000), StandardOpenOption.APPEND);
+    Files.write(avroFile.toPath(), new byte[MAPPING_SIZE], StandardOpenOption.APPEND);
+
+    try (MappedAvroFileOutputStream mappedOutputStreamUnderTest =
+        new MappedAvroFileOutputStream(avroFile, true, MAPPING_SIZE, metrics)) {
+      assertThat(mappedOutputStreamUnderTest.getSize(), is(equalTo(sizeOfTheData)));
+    }
+  }
+
+  // Block count, block size and part of the records of a block never completed
+  private byte[] givenAPartialBlockOf(int size) {
+    byte[] partialBlock = new byte[size];
+    for (int i = 0; i < size; i++) {
+      partialBlock[i] = (byte) (i % 127 + 1);
+    }
+    return partialBlock;
+  }
+
+  private void writeAvroFile(File avroFile, String name) throws Exception {
+    try (DataFileWriter<TestAvroRecord> avroFileWriter =
+        new DataFileWriter<>(new SpecificDatumWriter<TestAvroRecord>(TestAvroRecord.SCHEMA))) {
+      avroFileWriter.create(TestAvroRecord.SCHEMA, avroFile);
+      avroFileWriter.append(new TestAvroRecord(name, 1));
+    }
+  }
+
+  private void appendToAvroFile(File avroFile, String name) throws Exception {
+    try (DataFileWriter<TestAvroRecord> avroFileWriter =
+        new DataFileWriter<>(new SpecificDatumWriter<TestAvroRecord>(TestAvroRecord.SCHEMA))) {
+      avroFileWriter.appendTo(new SeekableFileInput(avroFile),
+                              new MappedAvroFileOutputStream(avroFile, true, MAPPING_SIZE, metrics));
+      avroFileWriter.append(new TestAvroRecord(name, 2));
+    }
+  }
+
+  private List<String> readNames(File avroFile) throws Exception {
+    List<String> names = new ArrayList<>();
+    try (DataFileReader<GenericRecord> avroFileReader =
+        new DataFileReader<>(avroFile, new GenericDatumReader<GenericRecord>())) {
+      for (GenericRecord record : avroFileReader) {
+        names.add(record.get("name").toString());
+      }
+    }
+    return names;
+  }
+}
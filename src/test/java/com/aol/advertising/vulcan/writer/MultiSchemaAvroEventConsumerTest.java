@@ -0,0 +1,202 @@
+package com.aol.advertising.vulcan.writer;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.ExecutorService;
+
+import org.apache.avro.Schema;
+import org.apache.avro.Schema.Type;
+import org.apache.avro.file.DataFileStream;
+import org.apache.avro.specific.SpecificRecord;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+
+import com.aol.advertising.vulcan.ConfiguredUnitTest;
+import com.aol.advertising.vulcan.TestAvroRecord;
+import com.aol.advertising.vulcan.metrics.RecordingWriterMetrics;
+import com.aol.advertising.vulcan.ringbuffer.AvroEvent;
+
+public class MultiSchemaAvroEventConsumerTest extends ConfiguredUnitTest {
+
+  private static final Schema OTHER_SCHEMA = Schema.create(Type.STRING);
+
+  private MultiSchemaAvroEventConsumer multiSchemaAvroEventConsumerUnderTest;
+
+  @Mock
+  private SchemaConsumerFactory consumerFactoryMock;
+  @Mock
+  private AvroEventConsumer testRecordConsumerMock;
+  @Mock
+  private AvroEventConsumer otherRecordConsumerMock;
+  @Mock
+  private SpecificRecord otherRecordMock;
+  @Mock
+  private DataFileStream<SpecificRecord> fileToAppendMock;
+  @Mock
+  private RecordingWriterMetrics metricsMock;
+
+  @Before
+  public void setUp() throws Exception {
+    when(consumerFactoryMock.newConsumerFor(TestAvroRecord.SCHEMA)).thenReturn(testRecordConsumerMock);
+    when(consumerFactoryMock.newConsumerFor(OTHER_SCHEMA)).thenReturn(otherRecordConsumerMock);
+    when(testRecordConsumerMock.consume(any(AvroEvent.class))).thenReturn(true);
+    when(otherRecordConsumerMock.consume(any(AvroEvent.class))).thenReturn(true);
+    when(otherRecordMock.getSchema()).thenReturn(OTHER_SCHEMA);
+    multiSchemaAvroEventConsumerUnderTest = new MultiSchemaAvroEventConsumer(consumerFactoryMock);
+    multiSchemaAvroEventConsumerUnderTest.reportMetricsTo(metricsMock);
+  }
+
+  @Test
+  public void whenRecordsOfDifferentSchemasAreReceived_thenEachOneIsConsumedByTheConsumerOfItsSchema()
+      throws Exception {
+    AvroEvent testRecordEvent = eventWith(new TestAvroRecord("Mortadelo", 1));
+    AvroEvent otherRecordEvent = eventWith(otherRecordMock);
+
+    multiSchemaAvroEventConsumerUnderTest.onEvent(testRecordEvent, 1, false);
+    multiSchemaAvroEventConsumerUnderTest.onEvent(otherRecordEvent, 2, false);
+
+    verify(testRecordConsumerMock).consume(testRecordEvent);
+    verify(otherRecordConsumerMock).consume(otherRecordEvent);
+  }
+
+  @Test
+  public void whenASchemaIsFirstSeen_thenItsConsumerIsCreatedAndStartedOnlyOnce() throws Exception {
+    multiSchemaAvroEventConsumerUnderTest.onEvent(eventWith(new TestAvroRecord("Filemon", 1)), 1, false);
+    multiSchemaAvroEventConsumerUnderTest.onEvent(eventWith(new TestAvroRecord("Filemon", 2)), 2, false);
+
+    verify(consumerFactoryMock, times(1)).newConsumerFor(TestAvroRecord.SCHEMA);
+    verify(testRecordConsumerMock, times(1)).onStart();
+    verify(consumerFactoryMock, never()).newConsumerFor(OTHER_SCHEMA);
+  }
+
+  @Test
+  public void whenARecordOfAnEqualSchemaInstanceIsReceived_thenItSharesTheConsumerOfTheSchema() throws Exception {
+    SpecificRecord recordOfParsedSchemaMock = mock(SpecificRecord.class);
+    when(recordOfParsedSchemaMock.getSchema()).thenReturn(new Schema.Parser().parse(TestAvroRecord.SCHEMA.toString()));
+
+    multiSchemaAvroEventConsumerUnderTest.onEvent(eventWith(new TestAvroRecord("Ofelia", 1)), 1, false);
+    multiSchemaAvroEventConsumerUnderTest.onEvent(eventWith(recordOfParsedSchemaMock), 2, false);
+
+    verify(consumerFactoryMock, times(1)).newConsumerFor(any(Schema.class));
+  }
+
+  @Test
+  public void whenAnEventWithAFileToAppendIsReceived_thenItIsConsumedByTheConsumerOfTheSchemaOfTheFile()
+      throws Exception {
+    when(fileToAppendMock.getSchema()).thenReturn(OTHER_SCHEMA);
+    AvroEvent fileEvent = new AvroEvent();
+    fileEvent.setFileToAppend(fileToAppendMock);
+
+    multiSchemaAvroEventConsumerUnderTest.onEvent(fileEvent, 1, false);
+
+    verify(otherRecordConsumerMock).consume(fileEvent);
+  }
+
+  @Test
+  public void whenFilesToAppendAreReceived_thenTheirSchemaInstancesAreNotCached() throws Exception {
+    AvroEvent fileEvent = new AvroEvent();
+    fileEvent.setFileToAppend(fileToAppendMock);
+
+    for (int i = 0; i < 3; i++) {
+      when(fileToAppendMock.getSchema()).thenReturn(new Schema.Parser().parse(OTHER_SCHEMA.toString()));
+      multiSchemaAvroEventConsumerUnderTest.onEvent(fileEvent, i, false);
+    }
+
+    verify(otherRecordConsumerMock, times(3)).consume(fileEvent);
+    Assert.assertEquals(0, multiSchemaAvroEventConsumerUnderTest.getCachedSchemaInstances());
+  }
+
+  @Test
+  public void whenRecordsOfManyEqualSchemaInstancesAreReceived_thenTheCachedSchemaInstancesAreBounded()
+      throws Exception {
+    SpecificRecord recordOfParsedSchemaMock = mock(SpecificRecord.class);
+    AvroEvent recordEvent = eventWith(recordOfParsedSchemaMock);
+
+    for (int i = 0; i <= MultiSchemaAvroEventConsumer.MAXIMUM_SCHEMA_INSTANCES; i++) {
+      when(recordOfParsedSchemaMock.getSchema()).thenReturn(new Schema.Parser().parse(OTHER_SCHEMA.toString()));
+      multiSchemaAvroEventConsumerUnderTest.onEvent(recordEvent, i, false);
+    }
+
+    Assert.assertTrue(multiSchemaAvroEventConsumerUnderTest.getCachedSchemaInstances()
+        <= MultiSchemaAvroEventConsumer.MAXIMUM_SCHEMA_INSTANCES);
+    verify(consumerFactoryMock, times(1)).newConsumerFor(any(Schema.class));
+  }
+
+  @Test
+  public void whenShutdown_thenTheExecutorsSharedByTheConsumersAreShutdownAfterThem() throws Exception {
+    ExecutorService sharedExecutorMock = mock(ExecutorService.class);
+    multiSchemaAvroEventConsumerUnderTest.registerSharedExecutorForShutdown(sharedExecutorMock);
+    multiSchemaAvroEventConsumerUnderTest.onEvent(eventWith(new TestAvroRecord("Bacterio", 1)), 1, false);
+
+    multiSchemaAvroEventConsumerUnderTest.onShutdown();
+
+    InOrder shutdownOrder = inOrder(testRecordConsumerMock, sharedExecutorMock);
+    shutdownOrder.verify(testRecordConsumerMock).onShutdown();
+    shutdownOrder.verify(sharedExecutorMock).shutdown();
+  }
+
+  @Test
+  public void whenADiscardedEventIsReceived_thenNoConsumerIsCreated() throws Exception {
+    AvroEvent discardedEvent = eventWith(new TestAvroRecord("Bacterio", 1));
+    discardedEvent.discard();
+
+    multiSchemaAvroEventConsumerUnderTest.onEvent(discardedEvent, 1, true);
+
+    verify(consumerFactoryMock, never()).newConsumerFor(any(Schema.class));
+    verify(metricsMock).recordBatch(1, 0);
+  }
+
+  @Test
+  public void whenABatchEnds_thenEveryConsumerEndsItsBatch_andTheWholeBatchIsRecordedOnce() throws Exception {
+    multiSchemaAvroEventConsumerUnderTest.onEvent(eventWith(new TestAvroRecord("Mortadelo", 1)), 1, false);
+    multiSchemaAvroEventConsumerUnderTest.onEvent(eventWith(otherRecordMock), 2, true);
+
+    verify(testRecordConsumerMock).endBatch();
+    verify(otherRecordConsumerMock).endBatch();
+    verify(metricsMock).recordBatch(2, 2);
+  }
+
+  @Test
+  public void whenTheWaitForEventsTimesOut_thenEveryConsumerAppliesItsIdlePolicies() throws Exception {
+    multiSchemaAvroEventConsumerUnderTest.onEvent(eventWith(new TestAvroRecord("Filemon", 1)), 1, false);
+    multiSchemaAvroEventConsumerUnderTest.onEvent(eventWith(otherRecordMock), 2, false);
+
+    multiSchemaAvroEventConsumerUnderTest.onTimeout(2);
+
+    verify(testRecordConsumerMock).onTimeout(2);
+    verify(otherRecordConsumerMock).onTimeout(2);
+  }
+
+  @Test
+  public void whenShutdown_andAConsumerFailsToShutdown_thenTheRestAreStillShutdown_andTheFailureIsRethrown()
+      throws Exception {
+    multiSchemaAvroEventConsumerUnderTest.onEvent(eventWith(new TestAvroRecord("Ofelia", 1)), 1, false);
+    multiSchemaAvroEventConsumerUnderTest.onEvent(eventWith(otherRecordMock), 2, false);
+    RuntimeException failure = new RuntimeException("boom");
+    doThrow(failure).when(testRecordConsumerMock).onShutdown();
+
+    try {
+      multiSchemaAvroEventConsumerUnderTest.onShutdown();
+      Assert.fail();
+    } catch (RuntimeException re) {
+      Assert.assertSame(failure, re);
+      verify(otherRecordConsumerMock).onShutdown();
+    }
+  }
+
+  private AvroEvent eventWith(SpecificRecord avroRecord) {
+    AvroEvent avroEvent = new AvroEvent();
+    avroEvent.setAvroRecord(avroRecord);
+    return avroEvent;
+  }
+}
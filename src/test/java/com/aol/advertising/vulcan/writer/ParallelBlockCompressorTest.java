@@ -0,0 +1,179 @@
+package com.aol.advertising.vulcan.writer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileConstants;
+import org.apache.avro.file.DataFileStream;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.apache.avro.specific.SpecificRecord;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.aol.advertising.vulcan.TestAvroRecord;
+
+public class ParallelBlockCompressorTest {
+
+  private static final int SYNC_INTERVAL = 1024;
+  private static final int MAXIMUM_BLOCKS_IN_FLIGHT = 2;
+
+  private ParallelBlockCompressor parallelBlockCompressorUnderTest;
+  private ExecutorService compressionPool;
+  private ByteArrayOutputStream destination;
+  private DataFileWriter<SpecificRecord> destinationFileWriter;
+
+  @Before
+  public void setUp() throws Exception {
+    compressionPool = Executors.newFixedThreadPool(3);
+    parallelBlockCompressorUnderTest = new ParallelBlockCompressor(TestAvroRecord.SCHEMA,
+                                                                   new SpecificDatumWriter<SpecificRecord>(TestAvroRecord.SCHEMA),
+                                                                   CodecFactory.deflateCodec(9),
+                                                                   SYNC_INTERVAL,
+                                                                   compressionPool,
+                                                                   MAXIMUM_BLOCKS_IN_FLIGHT);
+    destination = new ByteArrayOutputStream();
+    destinationFileWriter = new DataFileWriter<>(new SpecificDatumWriter<SpecificRecord>(TestAvroRecord.SCHEMA));
+    destinationFileWriter.setCodec(CodecFactory.fromString(DataFileConstants.DEFLATE_CODEC));
+    destinationFileWriter.create(TestAvroRecord.SCHEMA, destination);
+  }
+
+  @After
+  public void tearDown() {
+    compressionPool.shutdown();
+  }
+
+  @Test
+  public void whenRecordsAreAppended_andAllBlocksAreWritten_thenTheFileContainsAllRecordsInOrder() throws Exception {
+    List<TestAvroRecord> avroRecords = givenRecords(1000);
+    for (TestAvroRecord avroRecord : avroRecords) {
+      parallelBlockCompressorUnderTest.append(avroRecord);
+      parallelBlockCompressorUnderTest.writeCompressedBlocksTo(destinationFileWriter);
+    }
+
+    parallelBlockCompressorUnderTest.writeAllBlocksTo(destinationFileWriter);
+
+    assertThat(readRecordsFromDestination(), is(equalTo(asJson(avroRecords))));
+  }
+
+  @Test
+  public void whenEncodedRecordsAreAppended_thenTheyAreWrittenAsTheyAre() throws Exception {
+    List<TestAvroRecord> avroRecords = givenRecords(100);
+    for (TestAvroRecord avroRecord : avroRecords) {
+      parallelBlockCompressorUnderTest.appendEncoded(encode(avroRecord));
+    }
+
+    parallelBlockCompressorUnderTest.writeAllBlocksTo(destinationFileWriter);
+
+    assertThat(readRecordsFromDestination(), is(equalTo(asJson(avroRecords))));
+  }
+
+  @Test
+  public void whenARecordIsAppended_thenItsSerializedSizeIsReturned() throws Exception {
+    TestAvroRecord avroRecord = new TestAvroRecord("Mortadelo", 13);
+
+    int recordSize = parallelBlockCompressorUnderTest.append(avroRecord);
+
+    assertThat(recordSize, is(equalTo(encode(avroRecord).remaining())));
+  }
+
+  @Test
+  public void whenTheCurrentBlockIsNotFull_thenNothingIsWrittenUntilAllBlocksAreWritten() throws Exception {
+    parallelBlockCompressorUnderTest.append(new TestAvroRecord("Filemon", 1));
+    parallelBlockCompressorUnderTest.writeCompressedBlocksTo(destinationFileWriter);
+
+    assertThat(readRecordsFromDestination().size(), is(equalTo(0)));
+  }
+
+  @Test
+  public void whenTooManyBlocksAreInFlight_thenTheOldestOnesAreWaitedFor() throws Exception {
+    List<TestAvroRecord> avroRecords = givenRecords(1000);
+    for (TestAvroRecord avroRecord : avroRecords) {
+      parallelBlockCompressorUnderTest.append(avroRecord);
+    }
+
+    parallelBlockCompressorUnderTest.writeCompressedBlocksTo(destinationFileWriter);
+
+    List<String> writtenRecords = readRecordsFromDestination();
+    assertThat(writtenRecords, is(equalTo(asJson(avroRecords.subList(0, writtenRecords.size())))));
+    assertThat(writtenRecords.size() > 0, is(equalTo(true)));
+  }
+
+  @Test(expected = IOException.class)
+  @SuppressWarnings("unchecked")
+  public void whenABlockCannotBeCompressed_thenAnIOExceptionIsThrown() throws Exception {
+    ExecutorService failingCompressionPoolMock = mock(ExecutorService.class);
+    Future<Object> failedBlockMock = mock(Future.class);
+    when(failingCompressionPoolMock.submit(any(Callable.class))).thenReturn(failedBlockMock);
+    when(failedBlockMock.get()).thenThrow(new ExecutionException(new IOException("boom")));
+    parallelBlockCompressorUnderTest = new ParallelBlockCompressor(TestAvroRecord.SCHEMA,
+                                                                   new SpecificDatumWriter<SpecificRecord>(TestAvroRecord.SCHEMA),
+                                                                   CodecFactory.deflateCodec(9),
+                                                                   SYNC_INTERVAL,
+                                                                   failingCompressionPoolMock,
+                                                                   MAXIMUM_BLOCKS_IN_FLIGHT);
+    parallelBlockCompressorUnderTest.append(new TestAvroRecord("Filemon", 1));
+
+    parallelBlockCompressorUnderTest.writeAllBlocksTo(destinationFileWriter);
+  }
+
+  private List<TestAvroRecord> givenRecords(int numberOfRecords) {
+    List<TestAvroRecord> avroRecords = new ArrayList<>();
+    for (int i = 0; i < numberOfRecords; i++) {
+      avroRecords.add(new TestAvroRecord("Record number " + i, i));
+    }
+    return avroRecords;
+  }
+
+  private List<String> asJson(List<TestAvroRecord> avroRecords) {
+    List<String> jsonRecords = new ArrayList<>();
+    for (TestAvroRecord avroRecord : avroRecords) {
+      jsonRecords.add(avroRecord.toString());
+    }
+    return jsonRecords;
+  }
+
+  private ByteBuffer encode(SpecificRecord avroRecord) throws IOException {
+    ByteArrayOutputStream encodedRecord = new ByteArrayOutputStream();
+    BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(encodedRecord, null);
+    new SpecificDatumWriter<SpecificRecord>(TestAvroRecord.SCHEMA).write(avroRecord, encoder);
+    encoder.flush();
+    return ByteBuffer.wrap(encodedRecord.toByteArray());
+  }
+
+  // Records are compared through their JSON representation
+  private List<String> readRecordsFromDestination() throws IOException {
+    destinationFileWriter.flush();
+    List<String> writtenRecords = new ArrayList<>();
+    try (DataFileStream<GenericRecord> fileReader =
+        new DataFileStream<>(new ByteArrayInputStream(destination.toByteArray()),
+                             new GenericDatumReader<GenericRecord>())) {
+      for (GenericRecord writtenRecord : fileReader) {
+        writtenRecords.add(writtenRecord.toString());
+      }
+    }
+    return writtenRecords;
+  }
+}
@@ -0,0 +1,52 @@
+package com.aol.advertising.vulcan.writer;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import org.apache.avro.Schema;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.Encoder;
+import org.apache.avro.specific.SpecificRecord;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import com.aol.advertising.vulcan.ConfiguredUnitTest;
+import com.aol.advertising.vulcan.TestAvroRecord;
+
+public class PresetSchemaDatumWriterTest extends ConfiguredUnitTest {
+
+  private PresetSchemaDatumWriter presetSchemaDatumWriterUnderTest;
+
+  @Mock
+  private DatumWriter<SpecificRecord> datumWriterMock;
+  @Mock
+  private Encoder encoderMock;
+
+  @Before
+  public void setUp() {
+    presetSchemaDatumWriterUnderTest = new PresetSchemaDatumWriter(TestAvroRecord.SCHEMA, datumWriterMock);
+  }
+
+  @Test
+  public void whenThePresetSchemaIsSet_thenTheSchemaOfTheDatumWriterIsNotSetAgain() {
+    presetSchemaDatumWriterUnderTest.setSchema(TestAvroRecord.SCHEMA);
+
+    verify(datumWriterMock, never()).setSchema(any(Schema.class));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void whenAnotherSchemaIsSet_thenAnIllegalArgumentExceptionIsThrown() {
+    presetSchemaDatumWriterUnderTest.setSchema(Schema.create(Schema.Type.NULL));
+  }
+
+  @Test
+  public void whenARecordIsWritten_thenItIsWrittenByTheDatumWriter() throws Exception {
+    TestAvroRecord avroRecord = new TestAvroRecord("Mortadelo", 13);
+
+    presetSchemaDatumWriterUnderTest.write(avroRecord, encoderMock);
+
+    verify(datumWriterMock).write(avroRecord, encoderMock);
+  }
+}
@@ -0,0 +1,68 @@
+package com.aol.advertising.vulcan.writer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.nio.ByteBuffer;
+
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.DecoderFactory;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.aol.advertising.vulcan.TestAvroRecord;
+import com.aol.advertising.vulcan.ringbuffer.EncodedRecordBuffer;
+
+public class ProducerSideEncoderTest {
+
+  private ProducerSideEncoder producerSideEncoderUnderTest;
+  private EncodedRecordBuffer encodedRecord;
+
+  @Before
+  public void setUp() {
+    producerSideEncoderUnderTest = new ProducerSideEncoder(TestAvroRecord.SCHEMA);
+    encodedRecord = new EncodedRecordBuffer();
+  }
+
+  @Test
+  public void whenARecordIsEncoded_thenTheBufferContainsItsAvroBinaryEncoding() throws Exception {
+    producerSideEncoderUnderTest.encode(new TestAvroRecord("Mortadelo", 13), encodedRecord);
+
+    GenericRecord decodedRecord = decode(encodedRecord.asByteBuffer());
+    assertThat(decodedRecord.get("name").toString(), is(equalTo("Mortadelo")));
+    assertThat((Integer) decodedRecord.get("count"), is(equalTo(13)));
+  }
+
+  @Test
+  public void whenARecordIsEncodedIntoAReusedBuffer_thenOnlyTheNewRecordIsKept() throws Exception {
+    producerSideEncoderUnderTest.encode(new TestAvroRecord("A much longer name than the next one", 1), encodedRecord);
+
+    producerSideEncoderUnderTest.encode(new TestAvroRecord("Filemon", 2), encodedRecord);
+
+    GenericRecord decodedRecord = decode(encodedRecord.asByteBuffer());
+    assertThat(decodedRecord.get("name").toString(), is(equalTo("Filemon")));
+    assertThat((Integer) decodedRecord.get("count"), is(equalTo(2)));
+  }
+
+  @Test
+  public void whenARecordCannotBeEncoded_thenTheBufferIsLeftEmpty() {
+    producerSideEncoderUnderTest.encode(new TestAvroRecord("Ofelia", 3), encodedRecord);
+
+    try {
+      producerSideEncoderUnderTest.encode(new TestAvroRecord(null, 4), encodedRecord);
+      Assert.fail();
+    } catch (RuntimeException e) {
+      assertThat(encodedRecord.size(), is(equalTo(0)));
+    }
+  }
+
+  private GenericRecord decode(ByteBuffer encodedBytes) throws Exception {
+    byte[] contents = new byte[encodedBytes.remaining()];
+    encodedBytes.duplicate().get(contents);
+    return new GenericDatumReader<GenericRecord>(TestAvroRecord.SCHEMA).read(null,
+        DecoderFactory.get().binaryDecoder(contents, null));
+  }
+}
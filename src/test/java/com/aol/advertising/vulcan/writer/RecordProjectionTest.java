@@ -0,0 +1,76 @@
+package com.aol.advertising.vulcan.writer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.apache.avro.specific.SpecificRecord;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.aol.advertising.vulcan.TestAvroRecord;
+
+public class RecordProjectionTest {
+
+  // @formatter:off
+  private static final Schema COUNT_ONLY_SCHEMA = new Schema.Parser().parse(
+      "{\"type\": \"record\", \"name\": \"TestAvroRecord\", \"namespace\": \"com.aol.advertising.vulcan\","
+    + " \"fields\": [{\"name\": \"count\", \"type\": \"int\"}]}");
+  // @formatter:on
+
+  private RecordProjection recordProjectionUnderTest;
+
+  @Before
+  public void setUp() {
+    recordProjectionUnderTest = new RecordProjection(TestAvroRecord.SCHEMA, COUNT_ONLY_SCHEMA);
+  }
+
+  @Test
+  public void whenARecordIsProjected_thenOnlyTheProjectedFieldsAreVisible() {
+    SpecificRecord projectedRecord = recordProjectionUnderTest.project(new TestAvroRecord("Zipi", 42));
+
+    assertThat(projectedRecord.getSchema(), is(equalTo(COUNT_ONLY_SCHEMA)));
+    assertThat(projectedRecord.get(0), is(equalTo((Object) 42)));
+  }
+
+  @Test
+  public void whenAProjectedRecordIsSerialized_thenItCanBeReadWithTheProjectedSchema() throws IOException {
+    ByteArrayOutputStream serializedRecord = new ByteArrayOutputStream();
+    BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(serializedRecord, null);
+    SpecificRecord projectedRecord = recordProjectionUnderTest.project(new TestAvroRecord("Zipi", 42));
+    new SpecificDatumWriter<SpecificRecord>(COUNT_ONLY_SCHEMA).write(projectedRecord, encoder);
+    encoder.flush();
+
+    GenericRecord readRecord = new GenericDatumReader<GenericRecord>(COUNT_ONLY_SCHEMA)
+        .read(null, DecoderFactory.get().binaryDecoder(serializedRecord.toByteArray(), null));
+
+    assertThat(readRecord.get("count"), is(equalTo((Object) 42)));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void whenAProjectedFieldDoesNotExistInTheRecords_thenAnIllegalArgumentExceptionIsThrown() {
+    new RecordProjection(TestAvroRecord.SCHEMA, new Schema.Parser().parse(
+        "{\"type\": \"record\", \"name\": \"Projection\", \"fields\": [{\"name\": \"Rompetechos\", \"type\": \"int\"}]}"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void whenAProjectedFieldHasADifferentSchema_thenAnIllegalArgumentExceptionIsThrown() {
+    new RecordProjection(TestAvroRecord.SCHEMA, new Schema.Parser().parse(
+        "{\"type\": \"record\", \"name\": \"Projection\", \"fields\": [{\"name\": \"count\", \"type\": \"long\"}]}"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void whenTheProjectedSchemaIsNotARecord_thenAnIllegalArgumentExceptionIsThrown() {
+    new RecordProjection(TestAvroRecord.SCHEMA, Schema.create(Schema.Type.INT));
+  }
+}
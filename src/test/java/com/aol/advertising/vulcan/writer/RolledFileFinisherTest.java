@@ -0,0 +1,148 @@
+package com.aol.advertising.vulcan.writer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.verify;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+
+import com.aol.advertising.vulcan.ConfiguredUnitTest;
+
+public class RolledFileFinisherTest extends ConfiguredUnitTest {
+
+  private static final byte[] ROLLED_FILE_CONTENTS = "Avro records, in a manner of speaking".getBytes();
+
+  @Mock
+  private Closeable rolledFileWriterMock;
+  @Mock
+  private Closeable anotherRolledFileWriterMock;
+
+  private ExecutorService rolloverExecutor;
+  private Path rolledFile;
+  private Path partialRolledFile;
+
+  @Rule
+  public TemporaryFolder testDirectory = new TemporaryFolder();
+
+  @Before
+  public void setUp() throws Exception {
+    rolloverExecutor = Executors.newSingleThreadExecutor();
+    rolledFile = testDirectory.getRoot().toPath().resolve("rolled-2015-01-01.0.log");
+    partialRolledFile = testDirectory.newFile("rolled-2015-01-01.0.log.part").toPath();
+    Files.write(partialRolledFile, ROLLED_FILE_CONTENTS);
+  }
+
+  @Test
+  public void whenARolledFileIsFinished_thenItsWriterIsClosed_andTheFileGetsItsRolledNameUncompressed()
+      throws Exception {
+    RolledFileFinisher rolledFileFinisherUnderTest = new RolledFileFinisher(rolloverExecutor, false);
+
+    rolledFileFinisherUnderTest.finish(rolledFileWriterMock, rolledFile);
+    rolledFileFinisherUnderTest.shutdown();
+
+    verify(rolledFileWriterMock).close();
+    assertThat(Files.readAllBytes(rolledFile), is(equalTo(ROLLED_FILE_CONTENTS)));
+    assertThat(Files.exists(partialRolledFile), is(false));
+  }
+
+  @Test
+  public void whenARolledFileCannotBeClosed_thenItKeepsItsPartialName() throws Exception {
+    RolledFileFinisher rolledFileFinisherUnderTest = new RolledFileFinisher(rolloverExecutor, true);
+    doThrow(new IOException("boom")).when(rolledFileWriterMock).close();
+
+    rolledFileFinisherUnderTest.finish(rolledFileWriterMock, rolledFile);
+    rolledFileFinisherUnderTest.shutdown();
+
+    assertThat(Files.exists(partialRolledFile), is(true));
+    assertThat(Files.exists(rolledFile), is(false));
+    assertThat(Files.exists(rolledFile.resolveSibling("rolled-2015-01-01.0.log.gz")), is(false));
+  }
+
+  @Test
+  public void whenARolledFileIsFinished_andRolledFilesAreCompressed_thenItIsReplacedByItsGzippedVersion()
+      throws Exception {
+    RolledFileFinisher rolledFileFinisherUnderTest = new RolledFileFinisher(rolloverExecutor, true);
+
+    rolledFileFinisherUnderTest.finish(rolledFileWriterMock, rolledFile);
+    rolledFileFinisherUnderTest.shutdown();
+
+    assertThat(Files.exists(rolledFile), is(false));
+    assertThat(Files.exists(partialRolledFile), is(false));
+    assertThat(gunzip(rolledFile.resolveSibling("rolled-2015-01-01.0.log.gz")), is(equalTo(ROLLED_FILE_CONTENTS)));
+    assertThat(Files.exists(rolledFile.resolveSibling("rolled-2015-01-01.0.log.gz.part")), is(false));
+  }
+
+  @Test
+  public void whenTheRolledFileNameIsUnknown_andRolledFilesAreCompressed_thenItsWriterIsOnlyClosed() throws Exception {
+    RolledFileFinisher rolledFileFinisherUnderTest = new RolledFileFinisher(rolloverExecutor, true);
+
+    rolledFileFinisherUnderTest.finish(rolledFileWriterMock, null);
+    rolledFileFinisherUnderTest.shutdown();
+
+    verify(rolledFileWriterMock).close();
+  }
+
+  @Test
+  public void whenARolledFileCannotBeFinished_thenTheNextRolledFilesAreStillFinished() throws Exception {
+    RolledFileFinisher rolledFileFinisherUnderTest = new RolledFileFinisher(rolloverExecutor, false);
+    doThrow(new IOException("boom")).when(rolledFileWriterMock).close();
+
+    rolledFileFinisherUnderTest.finish(rolledFileWriterMock, rolledFile);
+    rolledFileFinisherUnderTest.finish(anotherRolledFileWriterMock, rolledFile);
+    rolledFileFinisherUnderTest.shutdown();
+
+    InOrder finishingOrder = inOrder(rolledFileWriterMock, anotherRolledFileWriterMock);
+    finishingOrder.verify(rolledFileWriterMock).close();
+    finishingOrder.verify(anotherRolledFileWriterMock).close();
+  }
+
+  @Test
+  public void whenTheFinisherIsShutdown_thenTheRolloverExecutorIsTerminated() throws Exception {
+    RolledFileFinisher rolledFileFinisherUnderTest = new RolledFileFinisher(rolloverExecutor, false);
+
+    rolledFileFinisherUnderTest.shutdown();
+
+    assertThat(rolloverExecutor.isTerminated(), is(true));
+  }
+
+  @Test
+  public void whenTheFinisherAwaitsTheFilesRolledSoFar_thenTheyAreFinished_andTheRolloverExecutorKeepsRunning()
+      throws Exception {
+    RolledFileFinisher rolledFileFinisherUnderTest = new RolledFileFinisher(rolloverExecutor, false);
+
+    rolledFileFinisherUnderTest.finish(rolledFileWriterMock, rolledFile);
+    rolledFileFinisherUnderTest.awaitFilesRolledSoFar();
+
+    verify(rolledFileWriterMock).close();
+    assertThat(rolloverExecutor.isShutdown(), is(false));
+  }
+
+  private byte[] gunzip(Path compressedFile) throws IOException {
+    ByteArrayOutputStream contents = new ByteArrayOutputStream();
+    try (InputStream compressedFileStream = new GZIPInputStream(Files.newInputStream(compressedFile))) {
+      byte[] buffer = new byte[256];
+      for (int bytesRead = compressedFileStream.read(buffer); bytesRead != -1; bytesRead = compressedFileStream.read(buffer)) {
+        contents.write(buffer, 0, bytesRead);
+      }
+    }
+    return contents.toByteArray();
+  }
+}
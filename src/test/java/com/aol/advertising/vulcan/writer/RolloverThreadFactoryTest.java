@@ -0,0 +1,23 @@
+package com.aol.advertising.vulcan.writer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import org.junit.Test;
+import org.mockito.Mock;
+
+import com.aol.advertising.vulcan.ConfiguredUnitTest;
+
+public class RolloverThreadFactoryTest extends ConfiguredUnitTest {
+
+  @Mock
+  private Runnable runnableMock;
+
+  @Test
+  public void whenAThreadIsRetrieved_thenItHasTheExpectedNameForTheRolloverThreads() {
+    Thread rolloverThread = new RolloverThreadFactory().newThread(runnableMock);
+
+    assertThat(rolloverThread.getName(), is(equalTo("vulcan-avro-rollover")));
+  }
+}
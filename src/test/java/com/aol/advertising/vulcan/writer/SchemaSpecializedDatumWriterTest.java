@@ -0,0 +1,185 @@
+package com.aol.advertising.vulcan.writer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.apache.avro.specific.SpecificRecord;
+import org.apache.avro.specific.SpecificRecordBase;
+import org.apache.avro.util.Utf8;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.aol.advertising.vulcan.TestAvroRecord;
+
+public class SchemaSpecializedDatumWriterTest {
+
+  // @formatter:off
+  private static final Schema ALL_TYPES_SCHEMA = new Schema.Parser().parse(
+      "{\"type\": \"record\", \"name\": \"AllTypes\", \"fields\": ["
+    + "  {\"name\": \"aBoolean\", \"type\": \"boolean\"},"
+    + "  {\"name\": \"anInt\", \"type\": \"int\"},"
+    + "  {\"name\": \"aLong\", \"type\": \"long\"},"
+    + "  {\"name\": \"aFloat\", \"type\": \"float\"},"
+    + "  {\"name\": \"aDouble\", \"type\": \"double\"},"
+    + "  {\"name\": \"aString\", \"type\": \"string\"},"
+    + "  {\"name\": \"someBytes\", \"type\": \"bytes\"},"
+    + "  {\"name\": \"aNull\", \"type\": \"null\"},"
+    + "  {\"name\": \"anEnum\", \"type\": {\"type\": \"enum\", \"name\": \"Color\", \"symbols\": [\"RED\", \"GREEN\"]}},"
+    + "  {\"name\": \"aFixed\", \"type\": {\"type\": \"fixed\", \"name\": \"Hash\", \"size\": 4}},"
+    + "  {\"name\": \"anArray\", \"type\": {\"type\": \"array\", \"items\": \"long\"}},"
+    + "  {\"name\": \"aMap\", \"type\": {\"type\": \"map\", \"values\": [\"null\", \"string\"]}},"
+    + "  {\"name\": \"aNestedRecord\", \"type\": {\"type\": \"record\", \"name\": \"Nested\", \"fields\": ["
+    + "    {\"name\": \"id\", \"type\": \"int\"}]}},"
+    + "  {\"name\": \"aNullableString\", \"type\": [\"null\", \"string\"]},"
+    + "  {\"name\": \"aStringOrNull\", \"type\": [\"string\", \"null\"]},"
+    + "  {\"name\": \"aUnion\", \"type\": [\"int\", \"string\", \"Nested\"]}]}");
+
+  private static final Schema LINKED_LIST_SCHEMA = new Schema.Parser().parse(
+      "{\"type\": \"record\", \"name\": \"Node\", \"fields\": ["
+    + "  {\"name\": \"value\", \"type\": \"int\"},"
+    + "  {\"name\": \"next\", \"type\": [\"null\", \"Node\"]}]}");
+  // @formatter:on
+
+  @Test
+  public void whenARecordIsWritten_thenItIsEncodedAsBySpecificDatumWriter() throws Exception {
+    TestAvroRecord record = new TestAvroRecord("Mortadelo", 13);
+
+    assertThat(encodeWithSchemaSpecializedDatumWriter(TestAvroRecord.SCHEMA, record),
+               is(equalTo(encodeWithSpecificDatumWriter(TestAvroRecord.SCHEMA, record))));
+  }
+
+  @Test
+  public void whenARecordWithEveryTypeOfFieldIsWritten_thenItIsEncodedAsBySpecificDatumWriter() throws Exception {
+    for (SpecificRecord record : Arrays.asList(newAllTypesRecord("Filemon", 7, null),
+                                               newAllTypesRecord(new Utf8("Ofelia"), newNestedRecord(3), "Bacterio"))) {
+      assertThat(encodeWithSchemaSpecializedDatumWriter(ALL_TYPES_SCHEMA, record),
+                 is(equalTo(encodeWithSpecificDatumWriter(ALL_TYPES_SCHEMA, record))));
+    }
+  }
+
+  @Test
+  public void whenARecursiveRecordIsWritten_thenItIsEncodedAsBySpecificDatumWriter() throws Exception {
+    SpecificRecord lastNode = new RecordOf(LINKED_LIST_SCHEMA, 2, null);
+    SpecificRecord firstNode = new RecordOf(LINKED_LIST_SCHEMA, 1, lastNode);
+
+    assertThat(encodeWithSchemaSpecializedDatumWriter(LINKED_LIST_SCHEMA, firstNode),
+               is(equalTo(encodeWithSpecificDatumWriter(LINKED_LIST_SCHEMA, firstNode))));
+  }
+
+  @Test
+  public void whenARecordWithANullInANonNullableFieldIsWritten_thenTheExceptionNamesTheField() throws Exception {
+    try {
+      encodeWithSchemaSpecializedDatumWriter(TestAvroRecord.SCHEMA, new TestAvroRecord(null, 4));
+      Assert.fail();
+    } catch (NullPointerException npe) {
+      assertThat(npe.getMessage(), containsString("null of string in field name"));
+    }
+  }
+
+  @Test
+  public void whenTheSchemaIsChanged_thenRecordsAreWrittenWithTheNewOne() throws Exception {
+    DatumWriter<SpecificRecord> schemaSpecializedDatumWriterUnderTest = new SchemaSpecializedDatumWriter(ALL_TYPES_SCHEMA);
+    TestAvroRecord record = new TestAvroRecord("Mortadelo", 13);
+
+    schemaSpecializedDatumWriterUnderTest.setSchema(TestAvroRecord.SCHEMA);
+
+    assertThat(encode(schemaSpecializedDatumWriterUnderTest, record),
+               is(equalTo(encodeWithSpecificDatumWriter(TestAvroRecord.SCHEMA, record))));
+  }
+
+  @Test
+  public void whenStringsAreCached_thenRecordsAreStillEncodedAsBySpecificDatumWriter() throws Exception {
+    DatumWriter<SpecificRecord> cachingDatumWriterUnderTest = new SchemaSpecializedDatumWriter(ALL_TYPES_SCHEMA,
+                                                                                               new Utf8Cache(16));
+    SpecificRecord record = newAllTypesRecord("Filemon", "Ofelia", "Bacterio");
+
+    // The third time strings come from the cache
+    for (int time = 0; time < 3; time++) {
+      assertThat(encode(cachingDatumWriterUnderTest, record),
+                 is(equalTo(encodeWithSpecificDatumWriter(ALL_TYPES_SCHEMA, record))));
+    }
+  }
+
+  private SpecificRecord newAllTypesRecord(CharSequence string, Object union, Object nullableString) {
+    Map<CharSequence, CharSequence> map = new LinkedHashMap<>();
+    map.put("present", "value");
+    map.put(new Utf8("absent"), null);
+    return new RecordOf(ALL_TYPES_SCHEMA,
+                        true,
+                        -42,
+                        Long.MAX_VALUE,
+                        1.5f,
+                        -2.25d,
+                        string,
+                        ByteBuffer.wrap(new byte[] {1, 2, 3}),
+                        null,
+                        new GenericData.EnumSymbol(ALL_TYPES_SCHEMA.getField("anEnum").schema(), "GREEN"),
+                        new GenericData.Fixed(ALL_TYPES_SCHEMA.getField("aFixed").schema(), new byte[] {9, 8, 7, 6}),
+                        Arrays.asList(1L, 300L, -5L),
+                        map,
+                        newNestedRecord(11),
+                        nullableString,
+                        nullableString,
+                        union);
+  }
+
+  private SpecificRecord newNestedRecord(int id) {
+    return new RecordOf(ALL_TYPES_SCHEMA.getField("aNestedRecord").schema(), id);
+  }
+
+  private byte[] encodeWithSchemaSpecializedDatumWriter(Schema schema, SpecificRecord record) throws Exception {
+    return encode(new SchemaSpecializedDatumWriter(schema), record);
+  }
+
+  private byte[] encodeWithSpecificDatumWriter(Schema schema, SpecificRecord record) throws Exception {
+    return encode(new SpecificDatumWriter<SpecificRecord>(schema), record);
+  }
+
+  private byte[] encode(DatumWriter<SpecificRecord> datumWriter, SpecificRecord record) throws Exception {
+    ByteArrayOutputStream encodedRecord = new ByteArrayOutputStream();
+    BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(encodedRecord, null);
+    datumWriter.write(record, encoder);
+    encoder.flush();
+    return encodedRecord.toByteArray();
+  }
+
+  private static class RecordOf extends SpecificRecordBase {
+
+    private final Schema schema;
+    private final Object[] values;
+
+    RecordOf(Schema schema, Object... values) {
+      this.schema = schema;
+      this.values = values;
+    }
+
+    @Override
+    public Schema getSchema() {
+      return schema;
+    }
+
+    @Override
+    public Object get(int field) {
+      return values[field];
+    }
+
+    @Override
+    public void put(int field, Object value) {
+      values[field] = value;
+    }
+  }
+}
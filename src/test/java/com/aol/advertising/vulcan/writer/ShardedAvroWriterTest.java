@@ -0,0 +1,144 @@
+package com.aol.advertising.vulcan.writer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.Future;
+
+import org.apache.avro.file.DataFileStream;
+import org.apache.avro.specific.SpecificRecord;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import com.aol.advertising.vulcan.ConfiguredUnitTest;
+import com.aol.advertising.vulcan.api.AvroWriter;
+import com.aol.advertising.vulcan.api.sharding.ShardSelector;
+
+public class ShardedAvroWriterTest extends ConfiguredUnitTest {
+
+  private ShardedAvroWriter shardedAvroWriterUnderTest;
+
+  @Mock
+  private AvroWriter firstShardMock;
+  @Mock
+  private AvroWriter secondShardMock;
+  @Mock
+  private ShardSelector shardSelectorMock;
+  @Mock
+  private SpecificRecord avroRecordMock;
+
+  @Before
+  public void setUp() {
+    shardedAvroWriterUnderTest = new ShardedAvroWriter(new AvroWriter[] {firstShardMock, secondShardMock}, shardSelectorMock);
+  }
+
+  @Test
+  public void whenARecordIsWritten_thenItIsWrittenOnlyToTheSelectedShard() {
+    when(shardSelectorMock.selectShardFor(avroRecordMock, 2)).thenReturn(1);
+
+    shardedAvroWriterUnderTest.write(avroRecordMock);
+
+    verify(secondShardMock).write(avroRecordMock);
+    verify(firstShardMock, never()).write(avroRecordMock);
+  }
+
+  @Test
+  public void whenARecordIsTriedToBeWritten_thenTheOutcomeOfTheSelectedShardIsReturned() {
+    when(shardSelectorMock.selectShardFor(avroRecordMock, 2)).thenReturn(1);
+    when(secondShardMock.tryWrite(avroRecordMock)).thenReturn(true);
+
+    boolean written = shardedAvroWriterUnderTest.tryWrite(avroRecordMock);
+
+    assertThat(written, is(true));
+    verify(firstShardMock, never()).tryWrite(avroRecordMock);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void whenARecordIsWrittenDurably_thenTheFutureOfTheSelectedShardIsReturned() {
+    Future<Void> durableWrite = mock(Future.class);
+    when(shardSelectorMock.selectShardFor(avroRecordMock, 2)).thenReturn(1);
+    when(secondShardMock.writeDurably(avroRecordMock)).thenReturn(durableWrite);
+
+    Future<Void> returned = shardedAvroWriterUnderTest.writeDurably(avroRecordMock);
+
+    assertThat(returned, is(durableWrite));
+    verify(firstShardMock, never()).writeDurably(avroRecordMock);
+  }
+
+  @Test
+  public void whenABatchIsWritten_thenEachShardReceivesItsRecordsInASingleBatch() {
+    SpecificRecord anotherAvroRecordMock = mock(SpecificRecord.class);
+    when(shardSelectorMock.selectShardFor(avroRecordMock, 2)).thenReturn(1);
+    when(shardSelectorMock.selectShardFor(anotherAvroRecordMock, 2)).thenReturn(1);
+
+    shardedAvroWriterUnderTest.write(new SpecificRecord[] {avroRecordMock, anotherAvroRecordMock});
+
+    verify(secondShardMock).write(Arrays.asList(avroRecordMock, anotherAvroRecordMock));
+    verify(firstShardMock, never()).write(anyListOf(SpecificRecord.class));
+  }
+
+  @Test
+  public void whenEncodedRecordsAreWritten_thenTheyAreWrittenToEachShardInTurn() {
+    ByteBuffer firstEncodedRecord = ByteBuffer.wrap(new byte[] {1});
+    ByteBuffer secondEncodedRecord = ByteBuffer.wrap(new byte[] {2});
+
+    shardedAvroWriterUnderTest.writeEncoded(firstEncodedRecord);
+    shardedAvroWriterUnderTest.writeEncoded(secondEncodedRecord, 42L);
+
+    verify(firstShardMock).writeEncoded(firstEncodedRecord);
+    verify(secondShardMock).writeEncoded(secondEncodedRecord, 42L);
+    verify(shardSelectorMock, never()).selectShardFor(any(SpecificRecord.class), anyInt());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void whenFilesAreAppended_thenTheyAreAppendedToEachShardInTurn_andTheFutureOfTheShardIsReturned()
+      throws Exception {
+    DataFileStream<?> avroFileStreamMock = mock(DataFileStream.class);
+    Path avroFileMock = mock(Path.class);
+    Future<Void> appendedFile = mock(Future.class);
+    when(firstShardMock.appendAllFrom(avroFileStreamMock)).thenReturn(appendedFile);
+
+    Future<Void> returned = shardedAvroWriterUnderTest.appendAllFrom(avroFileStreamMock);
+    shardedAvroWriterUnderTest.appendAllFrom(avroFileMock);
+
+    assertThat(returned, is(appendedFile));
+    verify(secondShardMock).appendAllFrom(avroFileMock);
+  }
+
+  @Test
+  public void whenTheWriterIsClosed_thenAllShardsAreClosed() throws Exception {
+    shardedAvroWriterUnderTest.close();
+
+    verify(firstShardMock).close();
+    verify(secondShardMock).close();
+  }
+
+  @Test
+  public void whenTheWriterIsClosed_andAShardFailsToClose_thenTheOtherShardsAreStillClosed_andTheFailureIsRethrown()
+      throws Exception {
+    IllegalStateException shardFailure = new IllegalStateException("boom");
+    doThrow(shardFailure).when(firstShardMock).close();
+
+    try {
+      shardedAvroWriterUnderTest.close();
+      Assert.fail();
+    } catch (IllegalStateException e) {
+      verify(secondShardMock).close();
+    }
+  }
+}
@@ -0,0 +1,61 @@
+package com.aol.advertising.vulcan.writer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.io.ByteArrayOutputStream;
+
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.apache.avro.specific.SpecificRecord;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.aol.advertising.vulcan.TestAvroRecord;
+
+public class SizeTrackingDatumWriterTest {
+
+  private SizeTrackingDatumWriter sizeTrackingDatumWriterUnderTest;
+  private ByteArrayOutputStream destination;
+  private BinaryEncoder destinationEncoder;
+
+  @Before
+  public void setUp() {
+    sizeTrackingDatumWriterUnderTest =
+        new SizeTrackingDatumWriter(new SpecificDatumWriter<SpecificRecord>(TestAvroRecord.SCHEMA));
+    destination = new ByteArrayOutputStream();
+    destinationEncoder = EncoderFactory.get().binaryEncoder(destination, null);
+  }
+
+  @Test
+  public void whenARecordIsWritten_thenTheSameBytesAsThePlainDatumWriterAreProduced() throws Exception {
+    TestAvroRecord avroRecord = new TestAvroRecord("Mortadelo", 13);
+
+    sizeTrackingDatumWriterUnderTest.write(avroRecord, destinationEncoder);
+    destinationEncoder.flush();
+
+    assertThat(destination.toByteArray(), is(equalTo(encodeWithPlainDatumWriter(avroRecord))));
+  }
+
+  @Test
+  public void whenRecordsAreWritten_thenTheSizeOfTheLastOneIsKnown() throws Exception {
+    sizeTrackingDatumWriterUnderTest.write(new TestAvroRecord("A much longer name than the next one", 1),
+                                           destinationEncoder);
+    TestAvroRecord lastRecord = new TestAvroRecord("Filemon", 2);
+
+    sizeTrackingDatumWriterUnderTest.write(lastRecord, destinationEncoder);
+
+    assertThat(sizeTrackingDatumWriterUnderTest.getLastRecordSize(),
+               is(equalTo(encodeWithPlainDatumWriter(lastRecord).length)));
+  }
+
+  private byte[] encodeWithPlainDatumWriter(SpecificRecord avroRecord) throws Exception {
+    ByteArrayOutputStream plainDestination = new ByteArrayOutputStream();
+    BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(plainDestination, null);
+    new SpecificDatumWriter<SpecificRecord>(TestAvroRecord.SCHEMA).write(avroRecord, encoder);
+    encoder.flush();
+    return plainDestination.toByteArray();
+  }
+}
@@ -0,0 +1,48 @@
+package com.aol.advertising.vulcan.writer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.verify;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.specific.SpecificRecord;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mock;
+
+import com.aol.advertising.vulcan.ConfiguredUnitTest;
+
+public class StandbyFileTest extends ConfiguredUnitTest {
+
+  @Mock
+  private DataFileWriter<SpecificRecord> avroFileWriterMock;
+  @Mock
+  private AvroFileOutputStream avroFileOutputStreamMock;
+
+  @Rule
+  public TemporaryFolder testDirectory = new TemporaryFolder();
+
+  @Test
+  public void whenTheStandbyFilenameIsRequested_thenItIsAHiddenFileNextToTheDestinationFile() {
+    Path standbyFilename = StandbyFile.getStandbyFilenameFor(Paths.get("/var/log/events.avro"));
+
+    assertThat(standbyFilename, is(equalTo(Paths.get("/var/log/.events.avro.standby"))));
+  }
+
+  @Test
+  public void whenTheStandbyFileIsDiscarded_thenItsWriterIsClosed_andTheFileIsDeleted() throws Exception {
+    Path standbyFilename = testDirectory.newFile(".events.avro.standby").toPath();
+    StandbyFile standbyFileUnderTest = new StandbyFile(standbyFilename, avroFileWriterMock, avroFileOutputStreamMock);
+
+    standbyFileUnderTest.discard();
+
+    verify(avroFileWriterMock).close();
+    assertThat(Files.exists(standbyFilename), is(false));
+  }
+}
@@ -0,0 +1,206 @@
+package com.aol.advertising.vulcan.writer;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.DateTimeUtils;
+import org.joda.time.DateTimeZone;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import com.aol.advertising.vulcan.ConfiguredUnitTest;
+import com.aol.advertising.vulcan.TestAvroRecord;
+import com.aol.advertising.vulcan.metrics.RecordingWriterMetrics;
+import com.aol.advertising.vulcan.partitioning.FieldValueEventTimeExtractor;
+import com.aol.advertising.vulcan.partitioning.TimeBuckets;
+import com.aol.advertising.vulcan.ringbuffer.AvroEvent;
+import com.aol.advertising.vulcan.ringbuffer.DurableWrite;
+
+public class TimePartitionedAvroEventConsumerTest extends ConfiguredUnitTest {
+
+  private static final int ONE_HOUR = (int) TimeUnit.HOURS.toMillis(1);
+  private static final int OPEN_BUCKETS = 2;
+
+  private TimePartitionedAvroEventConsumer timePartitionedAvroEventConsumerUnderTest;
+
+  @Mock
+  private TimeBucketConsumerFactory consumerFactoryMock;
+  @Mock
+  private AvroEventConsumer firstHourConsumerMock;
+  @Mock
+  private AvroEventConsumer secondHourConsumerMock;
+  @Mock
+  private AvroEventConsumer thirdHourConsumerMock;
+  @Mock
+  private RecordingWriterMetrics metricsMock;
+  @Mock
+  private DurableWrite durableWriteMock;
+
+  @Before
+  public void setUp() throws Exception {
+    when(consumerFactoryMock.newConsumerFor(0)).thenReturn(firstHourConsumerMock);
+    when(consumerFactoryMock.newConsumerFor(ONE_HOUR)).thenReturn(secondHourConsumerMock);
+    when(consumerFactoryMock.newConsumerFor(2 * ONE_HOUR)).thenReturn(thirdHourConsumerMock);
+    when(firstHourConsumerMock.consume(any(AvroEvent.class))).thenReturn(true);
+    when(secondHourConsumerMock.consume(any(AvroEvent.class))).thenReturn(true);
+    when(thirdHourConsumerMock.consume(any(AvroEvent.class))).thenReturn(true);
+    timePartitionedAvroEventConsumerUnderTest =
+        new TimePartitionedAvroEventConsumer(new FieldValueEventTimeExtractor("count"),
+                                             new TimeBuckets(ONE_HOUR, DateTimeZone.UTC),
+                                             OPEN_BUCKETS,
+                                             consumerFactoryMock);
+    timePartitionedAvroEventConsumerUnderTest.reportMetricsTo(metricsMock);
+  }
+
+  @After
+  public void tearDown() {
+    DateTimeUtils.setCurrentMillisSystem();
+  }
+
+  @Test
+  public void whenRecordsOfDifferentHoursAreReceived_thenEachOneIsConsumedByTheConsumerOfItsHour() throws Exception {
+    AvroEvent firstHourEvent = eventAt(ONE_HOUR - 1);
+    AvroEvent secondHourEvent = eventAt(ONE_HOUR);
+
+    timePartitionedAvroEventConsumerUnderTest.onEvent(firstHourEvent, 1, false);
+    timePartitionedAvroEventConsumerUnderTest.onEvent(secondHourEvent, 2, false);
+
+    verify(firstHourConsumerMock).consume(firstHourEvent);
+    verify(secondHourConsumerMock).consume(secondHourEvent);
+  }
+
+  @Test
+  public void whenABucketIsFirstSeen_thenItsConsumerIsCreatedAndStartedOnlyOnce() throws Exception {
+    timePartitionedAvroEventConsumerUnderTest.onEvent(eventAt(10), 1, false);
+    timePartitionedAvroEventConsumerUnderTest.onEvent(eventAt(ONE_HOUR), 2, false);
+    timePartitionedAvroEventConsumerUnderTest.onEvent(eventAt(20), 3, false);
+
+    verify(consumerFactoryMock, times(1)).newConsumerFor(0);
+    verify(firstHourConsumerMock, times(1)).onStart();
+  }
+
+  @Test
+  public void whenARecordOfABucketBeyondTheOpenOnesIsReceived_thenTheOldestBucketIsClosed() throws Exception {
+    timePartitionedAvroEventConsumerUnderTest.onEvent(eventAt(10), 1, false);
+    timePartitionedAvroEventConsumerUnderTest.onEvent(eventAt(ONE_HOUR + 10), 2, false);
+
+    timePartitionedAvroEventConsumerUnderTest.onEvent(eventAt(2 * ONE_HOUR + 10), 3, false);
+
+    verify(firstHourConsumerMock).onShutdown();
+    verify(secondHourConsumerMock, never()).onShutdown();
+  }
+
+  @Test
+  public void whenARecordOfAClosedBucketIsReceived_thenItIsDropped_andCountedAsLate() throws Exception {
+    timePartitionedAvroEventConsumerUnderTest.onEvent(eventAt(10), 1, false);
+    timePartitionedAvroEventConsumerUnderTest.onEvent(eventAt(ONE_HOUR + 10), 2, false);
+    timePartitionedAvroEventConsumerUnderTest.onEvent(eventAt(2 * ONE_HOUR + 10), 3, false);
+    AvroEvent lateEvent = eventAt(20);
+
+    timePartitionedAvroEventConsumerUnderTest.onEvent(lateEvent, 4, true);
+
+    verify(secondHourConsumerMock, never()).consume(lateEvent);
+    verify(thirdHourConsumerMock, never()).consume(lateEvent);
+    verify(consumerFactoryMock, times(1)).newConsumerFor(0);
+    verify(metricsMock).recordLateRecord();
+    verify(metricsMock).recordBatch(4, 3);
+  }
+
+  @Test
+  public void whenALateRecordIsWrittenDurably_thenItsDurableWriteIsCompleted() throws Exception {
+    timePartitionedAvroEventConsumerUnderTest.onEvent(eventAt(10), 1, false);
+    timePartitionedAvroEventConsumerUnderTest.onEvent(eventAt(2 * ONE_HOUR + 10), 2, false);
+    AvroEvent lateEvent = eventAt(20);
+    lateEvent.writeDurably(durableWriteMock);
+
+    timePartitionedAvroEventConsumerUnderTest.onEvent(lateEvent, 3, false);
+
+    verify(durableWriteMock).complete();
+  }
+
+  @Test
+  public void whenARecordMoreThanOneBucketAheadOfTheClockIsReceived_thenItIsDropped_andTheOpenBucketsAreKept()
+      throws Exception {
+    DateTimeUtils.setCurrentMillisFixed(ONE_HOUR - 10);
+    timePartitionedAvroEventConsumerUnderTest.onEvent(eventAt(10), 1, false);
+    AvroEvent futureEvent = eventAt(2 * ONE_HOUR + 10);
+
+    timePartitionedAvroEventConsumerUnderTest.onEvent(futureEvent, 2, false);
+    timePartitionedAvroEventConsumerUnderTest.onEvent(eventAt(20), 3, false);
+
+    verify(consumerFactoryMock, never()).newConsumerFor(2 * ONE_HOUR);
+    verify(metricsMock).recordFutureRecord();
+    verify(firstHourConsumerMock, never()).onShutdown();
+    verify(firstHourConsumerMock, times(2)).consume(any(AvroEvent.class));
+  }
+
+  @Test
+  public void whenARecordOfTheBucketAfterTheCurrentOneIsReceived_thenItIsConsumedByItsBucket() throws Exception {
+    DateTimeUtils.setCurrentMillisFixed(ONE_HOUR - 10);
+    AvroEvent nextHourEvent = eventAt(ONE_HOUR + 10);
+
+    timePartitionedAvroEventConsumerUnderTest.onEvent(nextHourEvent, 1, false);
+
+    verify(secondHourConsumerMock).consume(nextHourEvent);
+    verify(metricsMock, never()).recordFutureRecord();
+  }
+
+  @Test
+  public void whenAnEncodedRecordIsReceived_thenItIsConsumedByTheNewestBucket() throws Exception {
+    timePartitionedAvroEventConsumerUnderTest.onEvent(eventAt(ONE_HOUR + 10), 1, false);
+    timePartitionedAvroEventConsumerUnderTest.onEvent(eventAt(10), 2, false);
+    AvroEvent encodedEvent = new AvroEvent();
+    encodedEvent.setEncodedRecord(ByteBuffer.wrap(new byte[] {1, 2, 3}));
+
+    timePartitionedAvroEventConsumerUnderTest.onEvent(encodedEvent, 3, false);
+
+    verify(secondHourConsumerMock).consume(encodedEvent);
+  }
+
+  @Test
+  public void whenADiscardedEventIsReceived_thenNoConsumerIsCreated() throws Exception {
+    AvroEvent discardedEvent = eventAt(10);
+    discardedEvent.discard();
+
+    timePartitionedAvroEventConsumerUnderTest.onEvent(discardedEvent, 1, true);
+
+    verify(consumerFactoryMock, never()).newConsumerFor(anyLong());
+    verify(metricsMock).recordBatch(1, 0);
+  }
+
+  @Test
+  public void whenABatchEnds_thenEveryOpenBucketEndsItsBatch_andTheWholeBatchIsRecordedOnce() throws Exception {
+    timePartitionedAvroEventConsumerUnderTest.onEvent(eventAt(10), 1, false);
+    timePartitionedAvroEventConsumerUnderTest.onEvent(eventAt(ONE_HOUR + 10), 2, true);
+
+    verify(firstHourConsumerMock).endBatch();
+    verify(secondHourConsumerMock).endBatch();
+    verify(metricsMock).recordBatch(2, 2);
+  }
+
+  @Test
+  public void whenShutdown_thenEveryOpenBucketIsClosed() throws Exception {
+    timePartitionedAvroEventConsumerUnderTest.onEvent(eventAt(10), 1, false);
+    timePartitionedAvroEventConsumerUnderTest.onEvent(eventAt(ONE_HOUR + 10), 2, false);
+
+    timePartitionedAvroEventConsumerUnderTest.onShutdown();
+
+    verify(firstHourConsumerMock).onShutdown();
+    verify(secondHourConsumerMock).onShutdown();
+  }
+
+  private AvroEvent eventAt(int eventTime) {
+    AvroEvent avroEvent = new AvroEvent();
+    avroEvent.setAvroRecord(new TestAvroRecord("Mortadelo", eventTime));
+    return avroEvent;
+  }
+}
@@ -0,0 +1,134 @@
+package com.aol.advertising.vulcan.writer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.util.Utf8;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.aol.advertising.vulcan.metrics.RecordingWriterMetrics;
+
+public class Utf8CacheTest {
+
+  private static final String LONG_STRING = "Superintendente Vicente, director de la T.I.A., y sus agentes secretos";
+
+  private Utf8Cache utf8CacheUnderTest;
+  private RecordingWriterMetrics metrics;
+
+  @Before
+  public void setUp() {
+    utf8CacheUnderTest = new Utf8Cache(16);
+    metrics = new RecordingWriterMetrics();
+  }
+
+  @Test
+  public void whenAStringIsWritten_thenItIsEncodedAsByTheEncoder() throws Exception {
+    for (CharSequence string : new CharSequence[] {"Mortadelo", "", "Filemón", new Utf8("Ofelia"), LONG_STRING,
+                                                   new StringBuilder("Bacterio")}) {
+      // The third time strings come from the cache
+      assertThat(writeWithCache(string), is(equalTo(writeWithEncoder(string))));
+      assertThat(writeWithCache(string), is(equalTo(writeWithEncoder(string))));
+      assertThat(writeWithCache(string), is(equalTo(writeWithEncoder(string))));
+    }
+  }
+
+  @Test
+  public void whenAnEqualStringIsWrittenAgainOnceCached_thenItIsAHit() throws Exception {
+    writeWithCache("Mortadelo");
+    writeWithCache(new String("Mortadelo"));
+    writeWithCache("Mortadelo");
+    writeWithCache(new String("Mortadelo"));
+
+    utf8CacheUnderTest.reportLookupsTo(metrics);
+
+    assertThat(metrics.getStringCacheHits(), is(equalTo(2L)));
+    assertThat(metrics.getStringCacheMisses(), is(equalTo(2L)));
+  }
+
+  @Test
+  public void whenAStringMissesItsSlotOnlyOnce_thenTheCachedStringIsKept() throws Exception {
+    utf8CacheUnderTest = new Utf8Cache(1);
+
+    writeWithCache("Mortadelo");
+    writeWithCache("Mortadelo");
+    writeWithCache("Filemon");
+    writeWithCache("Mortadelo");
+
+    utf8CacheUnderTest.reportLookupsTo(metrics);
+
+    assertThat(metrics.getStringCacheHits(), is(equalTo(1L)));
+    assertThat(metrics.getStringCacheMisses(), is(equalTo(3L)));
+  }
+
+  @Test
+  public void whenAStringMissesItsSlotTwiceInARow_thenItReplacesTheCachedString() throws Exception {
+    utf8CacheUnderTest = new Utf8Cache(1);
+
+    writeWithCache("Mortadelo");
+    writeWithCache("Mortadelo");
+    writeWithCache("Filemon");
+    writeWithCache("Filemon");
+    writeWithCache("Filemon");
+    writeWithCache("Mortadelo");
+
+    utf8CacheUnderTest.reportLookupsTo(metrics);
+
+    assertThat(metrics.getStringCacheHits(), is(equalTo(1L)));
+    assertThat(metrics.getStringCacheMisses(), is(equalTo(5L)));
+  }
+
+  @Test
+  public void whenUtf8OrLongStringsAreWritten_thenTheCacheIsNotLookedUp() throws Exception {
+    writeWithCache(new Utf8("Ofelia"));
+    writeWithCache(LONG_STRING);
+    writeWithCache(LONG_STRING);
+
+    utf8CacheUnderTest.reportLookupsTo(metrics);
+
+    assertThat(metrics.getStringCacheHits(), is(equalTo(0L)));
+    assertThat(metrics.getStringCacheMisses(), is(equalTo(0L)));
+  }
+
+  @Test
+  public void whenLookupsAreReported_thenOnlyLookupsSinceTheLastReportAreRecorded() throws Exception {
+    writeWithCache("Mortadelo");
+    writeWithCache("Mortadelo");
+    utf8CacheUnderTest.reportLookupsTo(metrics);
+    writeWithCache("Mortadelo");
+    utf8CacheUnderTest.reportLookupsTo(metrics);
+    utf8CacheUnderTest.reportLookupsTo(metrics);
+
+    assertThat(metrics.getStringCacheHits(), is(equalTo(1L)));
+    assertThat(metrics.getStringCacheMisses(), is(equalTo(2L)));
+  }
+
+  @Test
+  public void whenTheCacheIsCreated_thenItsCapacityIsRoundedUpToAPowerOfTwo() {
+    assertThat(new Utf8Cache(1).getCapacity(), is(equalTo(1)));
+    assertThat(new Utf8Cache(1000).getCapacity(), is(equalTo(1024)));
+    assertThat(new Utf8Cache(1024).getCapacity(), is(equalTo(1024)));
+  }
+
+  private byte[] writeWithCache(CharSequence string) throws IOException {
+    ByteArrayOutputStream encodedString = new ByteArrayOutputStream();
+    BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(encodedString, null);
+    utf8CacheUnderTest.writeString(string, encoder);
+    encoder.flush();
+    return encodedString.toByteArray();
+  }
+
+  private byte[] writeWithEncoder(CharSequence string) throws IOException {
+    ByteArrayOutputStream encodedString = new ByteArrayOutputStream();
+    BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(encodedString, null);
+    encoder.writeString(string);
+    encoder.flush();
+    return encodedString.toByteArray();
+  }
+}
@@ -0,0 +1,79 @@
+package com.aol.advertising.vulcan.writer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Collections;
+
+import org.apache.avro.Schema;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.apache.avro.specific.SpecificRecord;
+import org.apache.avro.specific.SpecificRecordBase;
+import org.junit.Test;
+
+import com.aol.advertising.vulcan.TestAvroRecord;
+import com.aol.advertising.vulcan.metrics.RecordingWriterMetrics;
+
+public class Utf8CachingDatumWriterTest {
+
+  // @formatter:off
+  private static final Schema MAP_SCHEMA = new Schema.Parser().parse(
+      "{\"type\": \"record\", \"name\": \"Attributes\", \"fields\": ["
+    + "  {\"name\": \"attributes\", \"type\": {\"type\": \"map\", \"values\": \"string\"}}]}");
+  // @formatter:on
+
+  @Test
+  public void whenRecordsAreWritten_thenTheyAreEncodedAsBySpecificDatumWriter() throws Exception {
+    Utf8Cache utf8Cache = new Utf8Cache(16);
+    DatumWriter<SpecificRecord> cachingDatumWriterUnderTest = new Utf8CachingDatumWriter(TestAvroRecord.SCHEMA, utf8Cache);
+    TestAvroRecord record = new TestAvroRecord("Mortadelo", 13);
+
+    // The third time strings come from the cache
+    for (int time = 0; time < 3; time++) {
+      assertThat(encode(cachingDatumWriterUnderTest, record),
+                 is(equalTo(encode(new SpecificDatumWriter<SpecificRecord>(TestAvroRecord.SCHEMA), record))));
+    }
+  }
+
+  @Test
+  public void whenARecordWithAMapIsWritten_thenItsKeysAndValuesGoThroughTheCache() throws Exception {
+    Utf8Cache utf8Cache = new Utf8Cache(16);
+    DatumWriter<SpecificRecord> cachingDatumWriterUnderTest = new Utf8CachingDatumWriter(MAP_SCHEMA, utf8Cache);
+    SpecificRecord record = new SpecificRecordBase() {
+      @Override
+      public Schema getSchema() {
+        return MAP_SCHEMA;
+      }
+
+      @Override
+      public Object get(int field) {
+        return Collections.singletonMap("country", "ES");
+      }
+
+      @Override
+      public void put(int field, Object value) {}
+    };
+    RecordingWriterMetrics metrics = new RecordingWriterMetrics();
+
+    encode(cachingDatumWriterUnderTest, record);
+    encode(cachingDatumWriterUnderTest, record);
+    encode(cachingDatumWriterUnderTest, record);
+    utf8Cache.reportLookupsTo(metrics);
+
+    assertThat(metrics.getStringCacheHits(), is(equalTo(2L)));
+    assertThat(metrics.getStringCacheMisses(), is(equalTo(4L)));
+  }
+
+  private byte[] encode(DatumWriter<SpecificRecord> datumWriter, SpecificRecord record) throws Exception {
+    ByteArrayOutputStream encodedRecord = new ByteArrayOutputStream();
+    BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(encodedRecord, null);
+    datumWriter.write(record, encoder);
+    encoder.flush();
+    return encodedRecord.toByteArray();
+  }
+}